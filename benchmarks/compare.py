@@ -0,0 +1,76 @@
+#!/usr/bin/env python3
+"""Compare a JMH JSON result file against a baseline run on the same machine and flag regressions.
+
+Usage: compare.py [--threshold PERCENT] BASELINE CURRENT
+
+Throughput scores regress when they fall, time and allocation scores when they rise.
+Exits with status 1 when any benchmark regresses by more than the threshold.
+"""
+import argparse
+import json
+import sys
+
+# below this many bytes/op allocation differences are noise, not regressions
+ALLOCATION_FLOOR_BYTES = 16.0
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+    scores = {}
+    for result in results:
+        params = ",".join("%s=%s" % item for item in sorted((result.get("params") or {}).items()))
+        name = ".".join(result["benchmark"].split(".")[-2:])
+        key = "%s [%s]%s" % (name, result["mode"], " {%s}" % params if params else "")
+        metric = result["primaryMetric"]
+        scores[key] = (metric["score"], metric["scoreUnit"], result["mode"] == "thrpt")
+        allocation = (result.get("secondaryMetrics") or {}).get("gc.alloc.rate.norm")
+        if allocation:
+            scores[key + " alloc"] = (allocation["score"], allocation["scoreUnit"], False)
+    return scores
+
+
+def change_percent(baseline, current, higher_is_better):
+    if baseline == 0:
+        return 0.0 if current == 0 else float("inf")
+    change = (current - baseline) / baseline * 100.0
+    return -change if higher_is_better else change
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--threshold", type=float, default=10.0, help="allowed regression in percent (default 10)")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+
+    regressions = 0
+    for key in sorted(baseline):
+        if key not in current:
+            print("MISSING    %s" % key)
+            continue
+        baseline_score, unit, higher_is_better = baseline[key]
+        current_score = current[key][0]
+        if key.endswith(" alloc") and max(baseline_score, current_score) < ALLOCATION_FLOOR_BYTES:
+            regression = 0.0
+        else:
+            regression = change_percent(baseline_score, current_score, higher_is_better)
+        status = "REGRESSION" if regression > args.threshold else "ok"
+        regressions += status != "ok"
+        print("%-10s %-70s %14.3f -> %14.3f %-10s (%+.1f%%)"
+              % (status, key, baseline_score, current_score, unit, -regression))
+
+    for key in sorted(set(current) - set(baseline)):
+        print("NEW        %s" % key)
+
+    if regressions:
+        print("\n%d benchmark(s) regressed by more than %.1f%%" % (regressions, args.threshold))
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,116 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.ledger.MappedAccountLedger;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capped per-account increments on the memory-mapped ledger against a
+ * {@code ConcurrentHashMap<Long, Integer>}, both holding the same accounts. Each update picks an account
+ * at random from the whole population, so most of them miss the CPU caches the way real traffic would.
+ * <p>
+ * Setup prints the memory each holds per account: file bytes for the ledger, which puts nothing on the
+ * heap, and the retained heap growth for the map. The cap is set high enough that every update is applied;
+ * run with {@code -t} above 1 to see contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class AccountLedgerBenchmark {
+
+    private static final int LIMIT = Integer.MAX_VALUE;
+
+    @Param("1000000")
+    public int accounts;
+
+    private Path path;
+    private MappedAccountLedger ledger;
+    private ConcurrentHashMap<Long, Integer> map;
+
+    @State(Scope.Thread)
+    public static class Accounts {
+        private long next;
+
+        long nextAccountId(int accounts) {
+            return ((next++ * 0x9E3779B97F4A7C15L) >>> 1) % accounts + 1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("account-ledger", ".bin");
+        Files.delete(path);
+        ledger = MappedAccountLedger.open(path, accounts, LIMIT);
+        for (long accountId = 1; accountId <= accounts; accountId++) {
+            ledger.addIfUnderLimit(accountId, 1);
+        }
+
+        long heapBefore = usedHeap();
+        map = new ConcurrentHashMap<>();
+        for (long accountId = 1; accountId <= accounts; accountId++) {
+            map.put(accountId, 1);
+        }
+        long heapAfter = usedHeap();
+
+        System.out.printf("%n%d accounts: ledger %.1f bytes/account off heap (%d slots), map %.1f bytes/account on heap%n",
+                accounts, (double) Files.size(path) / accounts, ledger.getCapacity(),
+                (double) (heapAfter - heapBefore) / accounts);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ledger.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public int ledgerAdd(Accounts accounts) {
+        return ledger.addIfUnderLimit(accounts.nextAccountId(this.accounts), 1);
+    }
+
+    @Benchmark
+    public Integer mapAdd(Accounts accounts) {
+        return map.compute(accounts.nextAccountId(this.accounts),
+                (accountId, count) -> count == null ? 1 : count > LIMIT - 1 ? count : count + 1);
+    }
+
+    @Benchmark
+    public int ledgerGet(Accounts accounts) {
+        return ledger.get(accounts.nextAccountId(this.accounts));
+    }
+
+    @Benchmark
+    public Integer mapGet(Accounts accounts) {
+        return map.get(accounts.nextAccountId(this.accounts));
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.admission.AccountRateLimiter;
+import uk.gov.dwp.uc.pairtest.admission.AdmissionControlledTicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control under contention: {@link Threads} callers spread over four million distinct accounts
+ * (far more than the limiter tracks, so sets are constantly evicting), callers hammering one scripted
+ * account that is always rejected, and the full decorated purchase path. Run with {@code -t 1} for the
+ * single-threaded figure to compare scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AdmissionBenchmark {
+
+    private static final int DISTINCT_ACCOUNTS = 4_000_000;
+
+    private final TicketTypeRequest[] adultOrder = {new TicketTypeRequest(Type.ADULT, 2)};
+
+    private AccountRateLimiter accountRateLimiter;
+    private TicketService admissionControlledTicketService;
+
+    @State(Scope.Thread)
+    public static class Accounts {
+        private final SplittableRandom random = new SplittableRandom();
+
+        long next() {
+            return 1 + random.nextInt(DISTINCT_ACCOUNTS);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        accountRateLimiter = new AccountRateLimiter(1 << 20, 5, 1);
+        admissionControlledTicketService = new AdmissionControlledTicketService(
+                new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                        StubGateways.NO_OP_SEAT_RESERVATION, StubGateways.NO_OP_TICKET_PAYMENT),
+                new AccountRateLimiter(1 << 20, 5, 1), 1_024);
+    }
+
+    @Benchmark
+    public boolean distinctAccounts(Accounts accounts) {
+        return accountRateLimiter.tryAcquire(accounts.next());
+    }
+
+    @Benchmark
+    public boolean scriptedAccount() {
+        return accountRateLimiter.tryAcquire(42L);
+    }
+
+    @Benchmark
+    public boolean admissionControlledPurchase(Accounts accounts) {
+        try {
+            admissionControlledTicketService.purchaseTickets(accounts.next(), adultOrder);
+            return true;
+        } catch (InvalidPurchaseException e) {
+            return false;
+        }
+    }
+}
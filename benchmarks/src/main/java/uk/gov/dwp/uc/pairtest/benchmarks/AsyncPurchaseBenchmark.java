@@ -0,0 +1,91 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.GatewayExecutors;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking {@link TicketServiceImpl} against {@link AsyncTicketServiceImpl} for a burst of purchases
+ * through gateways with simulated remote latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AsyncPurchaseBenchmark {
+
+    private static final int PURCHASES_PER_OPERATION = 64;
+
+    @Param({"1000", "10000"})
+    public long gatewayLatencyMicros;
+
+    private final TicketTypeRequest[] mixedTypeOrder = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2)
+    };
+
+    private TicketService blockingTicketService;
+    private AsyncTicketService asyncTicketService;
+    private ExecutorService gatewayExecutor;
+
+    @Setup
+    public void setUp() {
+        SeatReservationService seatReservationService = StubGateways.slowSeatReservation(gatewayLatencyMicros);
+        TicketPaymentService ticketPaymentService = StubGateways.slowTicketPayment(gatewayLatencyMicros);
+
+        blockingTicketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService);
+
+        gatewayExecutor = GatewayExecutors.newGatewayExecutor(PURCHASES_PER_OPERATION);
+        asyncTicketService = new AsyncTicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService, gatewayExecutor,
+                PURCHASES_PER_OPERATION, PURCHASES_PER_OPERATION);
+    }
+
+    @TearDown
+    public void tearDown() {
+        gatewayExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void blockingPurchases() {
+        for (long accountId = 1; accountId <= PURCHASES_PER_OPERATION; accountId++) {
+            blockingTicketService.purchaseTickets(accountId, mixedTypeOrder);
+        }
+    }
+
+    @Benchmark
+    public void asyncPurchases() {
+        CompletableFuture<?>[] purchases = new CompletableFuture<?>[PURCHASES_PER_OPERATION];
+        for (int i = 0; i < PURCHASES_PER_OPERATION; i++) {
+            purchases[i] = asyncTicketService.purchaseTickets(i + 1L, mixedTypeOrder);
+        }
+        CompletableFuture.allOf(purchases).join();
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.ingest.BulkOrderIngester;
+import uk.gov.dwp.uc.pairtest.ingest.IngestionReport;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-file ingestion with no-op gateways, reporting orders per second through the {@code orders}
+ * counter. The order file is generated once per trial; pass {@code -p fileSizeMb=4096} for a
+ * multi-gigabyte run, which is memory mapped, and watch the GC profiler figures stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BulkIngestBenchmark {
+
+    @Param({"256"})
+    public int fileSizeMb;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private Path directory;
+    private Path orderFile;
+    private Path resultsFile;
+    private BulkOrderIngester bulkOrderIngester;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Orders {
+        public long orders;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bulk-ingest");
+        orderFile = directory.resolve("orders.csv");
+        resultsFile = directory.resolve("results.csv");
+
+        SplittableRandom random = new SplittableRandom(42);
+        long targetBytes = fileSizeMb * (1L << 20);
+        try (BufferedWriter writer = Files.newBufferedWriter(orderFile, StandardCharsets.US_ASCII)) {
+            writer.write("accountId,adultTickets,childTickets,infantTickets\n");
+            for (long written = 0; written < targetBytes; ) {
+                String line = (1 + random.nextInt(10_000_000)) + "," + (1 + random.nextInt(10)) + ","
+                        + random.nextInt(10) + "," + random.nextInt(2) + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+
+        bulkOrderIngester = new BulkOrderIngester(new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                StubGateways.NO_OP_SEAT_RESERVATION, StubGateways.NO_OP_TICKET_PAYMENT), batchSize, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(orderFile);
+        Files.deleteIfExists(resultsFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public IngestionReport ingest(Orders orders) throws IOException, InterruptedException {
+        IngestionReport report = bulkOrderIngester.ingest(orderFile, resultsFile);
+        orders.orders += report.getOrdersRead();
+        return report;
+    }
+}
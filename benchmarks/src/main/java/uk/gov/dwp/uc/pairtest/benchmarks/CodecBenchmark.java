@@ -0,0 +1,159 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec;
+import uk.gov.dwp.uc.pairtest.codec.PurchaseOrderFlyweight;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One order through the binary codec and through Jackson JSON: encode, decode, and decode then validate,
+ * plus validating the binary form in place with the flyweight. Encoded sizes are printed at setup. Run
+ * with {@code -prof gc} to compare allocation per order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"false", "true"})
+    public boolean withKey;
+
+    private final AccountValidator accountValidator = new AccountValidator();
+    private final TicketValidator ticketValidator = new TicketValidator();
+    private final TicketTypeTally ticketTypeTally = new TicketTypeTally();
+    private final PurchaseOrderFlyweight flyweight = new PurchaseOrderFlyweight();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PurchaseOrder purchaseOrder;
+    private ByteBuffer encodeBuffer;
+    private ByteBuffer encoded;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        purchaseOrder = new PurchaseOrder(withKey ? "reseller-7-000123" : null, 1_234_567L,
+                new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, 3),
+                new TicketTypeRequest(Type.INFANT, 1));
+
+        encodeBuffer = ByteBuffer.allocateDirect(256);
+        encoded = ByteBuffer.allocateDirect(PurchaseOrderCodec.encodedLength(purchaseOrder));
+        PurchaseOrderCodec.encode(purchaseOrder, encoded);
+        encoded.flip();
+        json = objectMapper.writeValueAsBytes(OrderJson.of(purchaseOrder));
+
+        System.out.println("binary " + encoded.remaining() + " bytes, json " + json.length + " bytes");
+    }
+
+    @Benchmark
+    public int binaryEncode() {
+        encodeBuffer.clear();
+        return PurchaseOrderCodec.encode(purchaseOrder, encodeBuffer);
+    }
+
+    @Benchmark
+    public PurchaseOrder binaryDecode() {
+        encoded.rewind();
+        return PurchaseOrderCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public ValidationResult binaryDecodeAndValidate() {
+        encoded.rewind();
+        return validate(PurchaseOrderCodec.decode(encoded));
+    }
+
+    @Benchmark
+    public ValidationResult flyweightValidate() {
+        return flyweight.wrap(encoded, 0).validate(accountValidator, ticketValidator, ticketTypeTally);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(OrderJson.of(purchaseOrder));
+    }
+
+    @Benchmark
+    public PurchaseOrder jsonDecode() throws IOException {
+        return objectMapper.readValue(json, OrderJson.class).toPurchaseOrder();
+    }
+
+    @Benchmark
+    public ValidationResult jsonDecodeAndValidate() throws IOException {
+        return validate(objectMapper.readValue(json, OrderJson.class).toPurchaseOrder());
+    }
+
+    private ValidationResult validate(PurchaseOrder purchaseOrder) {
+        ValidationResult validationResult = accountValidator.checkAccount(purchaseOrder.getAccountId());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        validationResult = ticketValidator.checkTicketRequests(purchaseOrder.getTicketTypeRequests());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        return ticketValidator.checkTicketRatio(ticketTypeTally.reset().addAll(purchaseOrder.getTicketTypeRequests()));
+    }
+
+    /**
+     * JSON shape of an order, as a REST client would send it.
+     */
+    public static class OrderJson {
+        public Long accountId;
+        public String idempotencyKey;
+        public List<TicketJson> tickets;
+
+        static OrderJson of(PurchaseOrder purchaseOrder) {
+            OrderJson orderJson = new OrderJson();
+            orderJson.accountId = purchaseOrder.getAccountId();
+            orderJson.idempotencyKey = purchaseOrder.getIdempotencyKey();
+            orderJson.tickets = new ArrayList<>();
+            for (TicketTypeRequest ticketTypeRequest : purchaseOrder.getTicketTypeRequests()) {
+                TicketJson ticketJson = new TicketJson();
+                ticketJson.type = ticketTypeRequest.getTicketType();
+                ticketJson.count = ticketTypeRequest.getNoOfTickets();
+                orderJson.tickets.add(ticketJson);
+            }
+            return orderJson;
+        }
+
+        PurchaseOrder toPurchaseOrder() {
+            TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[tickets.size()];
+            for (int i = 0; i < ticketTypeRequests.length; i++) {
+                ticketTypeRequests[i] = new TicketTypeRequest(tickets.get(i).type, tickets.get(i).count);
+            }
+            return new PurchaseOrder(idempotencyKey, accountId, ticketTypeRequests);
+        }
+    }
+
+    public static class TicketJson {
+        public Type type;
+        public int count;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventLog;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventSink;
+import uk.gov.dwp.uc.pairtest.events.SalesAnalytics;
+import uk.gov.dwp.uc.pairtest.events.SalesTotals;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * What logging purchase events adds to the purchase path: a purchase with the no-op sink against one
+ * publishing to the event log, with free gateways so the publish is all that differs, and the publish
+ * on its own. Sample time gives the tail as well as the mean. The drainer writes segments to a temporary
+ * directory meanwhile; the tear down prints events dropped, segments written and how long a parallel
+ * scan over them takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPublishBenchmark {
+
+    private final Long accountId = 1001L;
+    private final TicketTypeRequest[] mixedTypeOrder = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2),
+            new TicketTypeRequest(Type.INFANT, 1)
+    };
+    private final TicketTypeTally ticketTypeTally = TicketTypeTally.of(2, 2, 1);
+
+    private Path directory;
+    private PurchaseEventLog purchaseEventLog;
+    private TicketService unloggedTicketService;
+    private TicketService loggedTicketService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("purchase-events");
+        purchaseEventLog = PurchaseEventLog.open(directory, new SalesAnalytics(TimeUnit.SECONDS.toMillis(1), 3600));
+        unloggedTicketService = createTicketService(PurchaseEventSink.NO_OP);
+        loggedTicketService = createTicketService(purchaseEventLog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        purchaseEventLog.flush();
+        long scanStart = System.nanoTime();
+        SalesTotals scanned = purchaseEventLog.scan(0L, Long.MAX_VALUE, ForkJoinPool.commonPool());
+        long scanNanos = System.nanoTime() - scanStart;
+        System.out.printf("%nlogged %d events in %d segments, dropped %d, scanned in %d ms%n",
+                scanned.getPurchases(), purchaseEventLog.getSegments().size(), purchaseEventLog.getDroppedEvents(),
+                TimeUnit.NANOSECONDS.toMillis(scanNanos));
+        purchaseEventLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void unlogged() {
+        unloggedTicketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    @Benchmark
+    public void logged() {
+        loggedTicketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    @Benchmark
+    public void publish() {
+        purchaseEventLog.purchased(accountId, ticketTypeTally, 80);
+    }
+
+    private static TicketService createTicketService(PurchaseEventSink purchaseEventSink) {
+        TicketValidator ticketValidator = new TicketValidator();
+        return new TicketServiceImpl(new AccountValidator(), ticketValidator,
+                StubGateways.NO_OP_SEAT_RESERVATION, StubGateways.NO_OP_TICKET_PAYMENT, PurchaseMetrics.NO_OP,
+                PurchaseJournal.NO_OP, new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)),
+                AccountLedger.NO_OP, purchaseEventSink);
+    }
+}
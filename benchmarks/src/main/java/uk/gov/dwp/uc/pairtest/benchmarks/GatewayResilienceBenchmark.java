@@ -0,0 +1,84 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.GatewayExecutors;
+import uk.gov.dwp.uc.pairtest.gateway.CircuitBreaker;
+import uk.gov.dwp.uc.pairtest.gateway.GuardedSeatReservationService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat reservation latency distribution against a stub provider following a {@link StubGateways.GatewayProfile}:
+ * called directly, guarded by a 10 ms timeout and circuit breaker, and guarded with a 1 ms hedge. Sample
+ * time mode reports the percentiles; failed calls are counted in the distribution like successful ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class GatewayResilienceBenchmark {
+
+    @Param({"healthy", "slowTail", "failing"})
+    public String profile;
+
+    private ExecutorService executor;
+    private SeatReservationService direct;
+    private SeatReservationService guarded;
+    private SeatReservationService hedged;
+
+    @Setup
+    public void setUp() {
+        executor = GatewayExecutors.newGatewayExecutor(64);
+        direct = StubGateways.profiledSeatReservation(StubGateways.GatewayProfile.named(profile));
+        guarded = new GuardedSeatReservationService(direct, executor, 10, TimeUnit.MILLISECONDS,
+                new CircuitBreaker(20, 100, TimeUnit.MILLISECONDS));
+        hedged = new GuardedSeatReservationService(direct, executor, 10_000, 1_000, TimeUnit.MICROSECONDS,
+                new CircuitBreaker(20, 100, TimeUnit.MILLISECONDS));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return reserve(direct);
+    }
+
+    @Benchmark
+    public boolean guarded() {
+        return reserve(guarded);
+    }
+
+    @Benchmark
+    public boolean hedged() {
+        return reserve(hedged);
+    }
+
+    private static boolean reserve(SeatReservationService seatReservationService) {
+        try {
+            seatReservationService.reserveSeat(1001L, 2);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.concurrent.HierarchicalTimingWheel;
+import uk.gov.dwp.uc.pairtest.concurrent.HierarchicalTimingWheel.TimerEntry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hold expiry scheduling with a million or more holds outstanding: taking and closing a hold on the timing
+ * wheel against a task per hold on a {@link ScheduledThreadPoolExecutor}, and the cost of one 10 ms wheel
+ * tick in a steady state where every expired hold is replaced by a new one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class HoldExpiryBenchmark {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long HOLD_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    @Param({"1000000", "4000000"})
+    public int outstandingHolds;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private HierarchicalTimingWheel<Long> wheel;
+    private long now;
+    private Consumer<Long> renewHold;
+
+    private ScheduledThreadPoolExecutor scheduledExecutor;
+    private final Runnable releaseHold = () -> { };
+
+    @Setup
+    public void setUp() {
+        wheel = new HierarchicalTimingWheel<>(TICK_NANOS, TimeUnit.NANOSECONDS, 0);
+        for (long holdId = 0; holdId < outstandingHolds; holdId++) {
+            wheel.schedule(holdId, 1 + random.nextLong(HOLD_NANOS));
+        }
+        renewHold = holdId -> wheel.schedule(holdId, now + HOLD_NANOS);
+
+        scheduledExecutor = new ScheduledThreadPoolExecutor(1);
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        for (int i = 0; i < outstandingHolds; i++) {
+            scheduledExecutor.schedule(releaseHold, HOLD_NANOS + random.nextLong(HOLD_NANOS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheelHoldAndClose() {
+        TimerEntry<Long> timerEntry = wheel.schedule(0L, now + random.nextLong(HOLD_NANOS));
+        return wheel.cancel(timerEntry);
+    }
+
+    @Benchmark
+    public boolean scheduledTaskHoldAndClose() {
+        ScheduledFuture<?> scheduledFuture = scheduledExecutor.schedule(releaseHold,
+                HOLD_NANOS + random.nextLong(HOLD_NANOS), TimeUnit.NANOSECONDS);
+        return scheduledFuture.cancel(false);
+    }
+
+    @Benchmark
+    public int wheelTick() {
+        now += TICK_NANOS;
+        return wheel.advance(now, renewHold);
+    }
+}
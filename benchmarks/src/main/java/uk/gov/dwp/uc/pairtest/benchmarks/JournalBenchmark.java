@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.journal.FileChannelPurchaseJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journalled purchases per second from 16 concurrent purchasers at different group commit windows.
+ * Each operation is one purchase: begin, sync, complete, sync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(16)
+public class JournalBenchmark {
+
+    @Param({"0", "200", "1000"})
+    public long groupCommitWindowMicros;
+
+    private Path path;
+    private FileChannelPurchaseJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("purchases", ".journal");
+        journal = FileChannelPurchaseJournal.open(path, groupCommitWindowMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public void journalledPurchase() {
+        long purchaseId = journal.begin(1001L, 4, 80);
+        journal.sync();
+        journal.completed(purchaseId);
+        journal.sync();
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.metrics.InMemoryPurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purchase cost with the no-op metrics default against the in-memory registry, with free gateways
+ * (worst case, instrumentation is all there is to pay for) and with gateways that spin for a few
+ * microseconds to stand in for a fast remote call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"0", "5000"})
+    public long gatewayWorkNanos;
+
+    private final Long accountId = 1001L;
+    private final TicketTypeRequest[] mixedTypeOrder = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2),
+            new TicketTypeRequest(Type.INFANT, 1)
+    };
+
+    private TicketService uninstrumentedTicketService;
+    private TicketService instrumentedTicketService;
+
+    @Setup
+    public void setUp() {
+        long workNanos = gatewayWorkNanos;
+        uninstrumentedTicketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                (accountId, seats) -> spin(workNanos), (accountId, amount) -> spin(workNanos), PurchaseMetrics.NO_OP);
+        instrumentedTicketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                (accountId, seats) -> spin(workNanos), (accountId, amount) -> spin(workNanos), new InMemoryPurchaseMetrics());
+    }
+
+    @Benchmark
+    public void noOpMetrics() {
+        uninstrumentedTicketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    @Benchmark
+    public void inMemoryMetrics() {
+        instrumentedTicketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    private static void spin(long nanos) {
+        if (nanos > 0) {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
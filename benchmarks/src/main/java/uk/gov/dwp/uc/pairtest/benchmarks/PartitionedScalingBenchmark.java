@@ -0,0 +1,83 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.PartitionedTicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purchase throughput of {@link PartitionedTicketService} as shards are added. Each purchase burns a fixed
+ * amount of CPU in its gateways to stand in for per-account work, so throughput should grow with the shard
+ * count up to the number of cores available and then level off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionedScalingBenchmark {
+
+    private static final int PURCHASES_PER_OPERATION = 1024;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"2000"})
+    public long gatewayWorkNanos;
+
+    private final TicketTypeRequest[] adultOrder = {new TicketTypeRequest(Type.ADULT, 2)};
+    private final CompletableFuture<?>[] purchaseResults = new CompletableFuture<?>[PURCHASES_PER_OPERATION];
+
+    private PartitionedTicketService ticketService;
+    private long nextAccountId;
+
+    @Setup
+    public void setUp() {
+        long workNanos = gatewayWorkNanos;
+        ticketService = new PartitionedTicketService(shards, 4096, 64,
+                shard -> new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                        (accountId, seats) -> spin(workNanos), (accountId, amount) -> { }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ticketService.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURCHASES_PER_OPERATION)
+    public void purchases() {
+        for (int i = 0; i < PURCHASES_PER_OPERATION; i++) {
+            CompletableFuture<PurchaseResult> purchaseResult = ticketService.purchaseTickets(++nextAccountId, adultOrder);
+            purchaseResults[i] = purchaseResult;
+        }
+        CompletableFuture.allOf(purchaseResults).join();
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
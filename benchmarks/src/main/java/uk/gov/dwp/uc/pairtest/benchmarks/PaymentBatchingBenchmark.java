@@ -0,0 +1,80 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.gateway.BatchTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.gateway.MicroBatchingTicketPaymentService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payments from many threads against a provider charging 500 us per call over 2 connections: each made
+ * directly, and gathered by a {@link MicroBatchingTicketPaymentService} with no linger and with a 200 us
+ * linger. Throughput shows what batching gains; sample time shows the p99 a payment pays for it while
+ * waiting for its batch. The single threaded pair is the worst case for batching, with nothing to gather,
+ * so the linger and hand-offs are all it adds. The tear down prints the average batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class PaymentBatchingBenchmark {
+
+    @Param({"0", "200"})
+    public long lingerMicros;
+
+    private BatchTicketPaymentService direct;
+    private MicroBatchingTicketPaymentService batched;
+
+    @Setup
+    public void setUp() {
+        direct = StubGateways.perCallTicketPayment(500, 2);
+        batched = new MicroBatchingTicketPaymentService(direct, 64, lingerMicros, TimeUnit.MICROSECONDS, 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batched.close();
+        if (batched.getBatchCount() > 0) {
+            System.out.printf("%naverage batch %.1f payments over %d batches%n",
+                    (double) batched.getPaymentCount() / batched.getBatchCount(), batched.getBatchCount());
+        }
+    }
+
+    @Benchmark
+    public void direct() {
+        direct.makePayment(ThreadLocalRandom.current().nextLong(1, 1_000_000), 65);
+    }
+
+    @Benchmark
+    public void batched() {
+        batched.makePayment(ThreadLocalRandom.current().nextLong(1, 1_000_000), 65);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void directAlone() {
+        direct.makePayment(ThreadLocalRandom.current().nextLong(1, 1_000_000), 65);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void batchedAlone() {
+        batched.makePayment(ThreadLocalRandom.current().nextLong(1, 1_000_000), 65);
+    }
+}
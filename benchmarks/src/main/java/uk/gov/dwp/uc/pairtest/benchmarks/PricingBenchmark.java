@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price lookups against the enum and the price table, and whole-purchase pricing through the engine for a
+ * one-ticket and a full 25-ticket order, with and without discount and bundle rules. Times should not move
+ * with order size or rules, and nothing should allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean withRules;
+
+    private final TicketTypeTally singleTicket = TicketTypeTally.of(1, 0, 0);
+    private final TicketTypeTally fullOrder = TicketTypeTally.of(13, 12, 10);
+
+    private PricingEngine pricingEngine;
+    private PriceTable priceTable;
+    private Type ticketType = Type.CHILD;
+    private PriceTier tier = PriceTier.OFF_PEAK;
+
+    @Setup
+    public void setUp() {
+        priceTable = withRules
+                ? PriceTable.defaultBuilder()
+                        .discount(PriceTier.STANDARD, Type.CHILD, 10)
+                        .discount(PriceTier.OFF_PEAK, Type.ADULT, 20)
+                        .familyBundle(PriceTier.STANDARD, 2, 2, 70)
+                        .build()
+                : PriceTable.DEFAULT;
+        pricingEngine = new PricingEngine(priceTable);
+    }
+
+    @Benchmark
+    public int enumPriceForType() {
+        return TicketPrice.ADULT.getPriceForType(ticketType);
+    }
+
+    @Benchmark
+    public int tablePrice() {
+        return priceTable.getPrice(tier, ticketType);
+    }
+
+    @Benchmark
+    public int engineSingleTicket() {
+        return pricingEngine.getTotalAmount(singleTicket);
+    }
+
+    @Benchmark
+    public int engineFullOrder() {
+        return pricingEngine.getTotalAmount(fullOrder);
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end {@link TicketServiceImpl#purchaseTickets} cost with free gateways, for accepted and rejected orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurchaseBenchmark {
+
+    private final Long accountId = 1001L;
+    private final Long invalidAccountId = 0L;
+
+    private final TicketTypeRequest[] singleTypeOrder = {new TicketTypeRequest(Type.ADULT, 4)};
+    private final TicketTypeRequest[] mixedTypeOrder = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2),
+            new TicketTypeRequest(Type.INFANT, 1)
+    };
+    private final TicketTypeRequest[] maxTicketOrder = {
+            new TicketTypeRequest(Type.ADULT, 15),
+            new TicketTypeRequest(Type.CHILD, 10),
+            new TicketTypeRequest(Type.INFANT, 15)
+    };
+    private final TicketTypeRequest[] noAdultOrder = {new TicketTypeRequest(Type.CHILD, 3)};
+    private final TicketTypeRequest[] overMaxOrder = {
+            new TicketTypeRequest(Type.ADULT, 20),
+            new TicketTypeRequest(Type.CHILD, 10)
+    };
+
+    private TicketService ticketService;
+
+    @Setup
+    public void setUp() {
+        ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                StubGateways.NO_OP_SEAT_RESERVATION, StubGateways.NO_OP_TICKET_PAYMENT);
+    }
+
+    @Benchmark
+    public void singleTypeOrder() {
+        ticketService.purchaseTickets(accountId, singleTypeOrder);
+    }
+
+    @Benchmark
+    public void mixedTypeOrder() {
+        ticketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    @Benchmark
+    public void maxTicketOrder() {
+        ticketService.purchaseTickets(accountId, maxTicketOrder);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void contendedMixedTypeOrder() {
+        ticketService.purchaseTickets(accountId, mixedTypeOrder);
+    }
+
+    @Benchmark
+    public void rejectInvalidAccount(Blackhole blackhole) {
+        purchaseExpectingRejection(invalidAccountId, mixedTypeOrder, blackhole);
+    }
+
+    @Benchmark
+    public void rejectNoAdultOrder(Blackhole blackhole) {
+        purchaseExpectingRejection(accountId, noAdultOrder, blackhole);
+    }
+
+    @Benchmark
+    public void rejectOverMaxOrder(Blackhole blackhole) {
+        purchaseExpectingRejection(accountId, overMaxOrder, blackhole);
+    }
+
+    private void purchaseExpectingRejection(Long accountId, TicketTypeRequest[] ticketTypeRequests, Blackhole blackhole) {
+        try {
+            ticketService.purchaseTickets(accountId, ticketTypeRequests);
+        } catch (InvalidPurchaseException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteTable;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ratio validation and pricing of a purchase by the rules (validator then pricing engine) against one
+ * quote table lookup, over a mixed stream of valid and invalid orders so neither path gets a perfectly
+ * predicted branch. {@code buildTable} is the startup and reload cost of the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteBenchmark {
+
+    private static final int ORDERS = 1024;
+
+    private final TicketValidator ticketValidator = new TicketValidator();
+    private final PriceTable priceTable = PriceTable.defaultBuilder()
+            .discount(PriceTier.STANDARD, Type.CHILD, 10)
+            .familyBundle(PriceTier.STANDARD, 2, 2, 70)
+            .build();
+    private final PricingEngine pricingEngine = new PricingEngine(priceTable);
+    private final QuoteEngine quoteEngine = new QuoteEngine(ticketValidator, pricingEngine);
+    private final TicketTypeTally[] tallies = new TicketTypeTally[ORDERS];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int i = 0; i < ORDERS; i++) {
+            tallies[i] = TicketTypeTally.of(random.nextInt(12), random.nextInt(16), random.nextInt(6));
+        }
+    }
+
+    @Benchmark
+    public long rules() {
+        TicketTypeTally ticketTypeTally = tallies[next++ & (ORDERS - 1)];
+        ValidationResult validationResult = ticketValidator.checkTicketRatio(ticketTypeTally);
+        if (!validationResult.isValid()) {
+            return validationResult.ordinal();
+        }
+        return (long) ticketTypeTally.getSeatCount() << 32 | pricingEngine.getTotalAmount(ticketTypeTally);
+    }
+
+    @Benchmark
+    public long lookup() {
+        return quoteEngine.quote(tallies[next++ & (ORDERS - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public QuoteTable buildTable() {
+        return QuoteTable.build(ticketValidator, priceTable);
+    }
+}
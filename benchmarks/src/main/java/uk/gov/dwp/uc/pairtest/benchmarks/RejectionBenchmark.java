@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting an over-limit order: a freshly built exception with a stack trace and formatted
+ * message (the old validator behaviour), the cached stackless exception, and the plain result code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    private static final int MAX_ALLOWED_TICKETS = 25;
+
+    private final TicketValidator ticketValidator = new TicketValidator();
+    private final TicketTypeTally overMaxTally = TicketTypeTally.of(20, 10, 0);
+
+    @Benchmark
+    public void newExceptionWithStackTrace(Blackhole blackhole) {
+        try {
+            if (overMaxTally.getSeatCount() > MAX_ALLOWED_TICKETS) {
+                throw new InvalidPurchaseException(String.format("Cannot purchase more than %s tickets at a time", MAX_ALLOWED_TICKETS));
+            }
+        } catch (InvalidPurchaseException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void cachedStacklessException(Blackhole blackhole) {
+        try {
+            ticketValidator.validateTicketRatio(overMaxTally);
+        } catch (InvalidPurchaseException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public ValidationResult resultCode() {
+        return ticketValidator.checkTicketRatio(overMaxTally);
+    }
+}
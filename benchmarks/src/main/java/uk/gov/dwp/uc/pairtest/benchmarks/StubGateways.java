@@ -0,0 +1,119 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.gateway.BatchTicketPaymentService;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway stubs for benchmarks: free, blocking for a fixed time to stand in for a remote call, charging a
+ * fixed overhead per call over a few connections, or following a {@link GatewayProfile} of typical latency,
+ * a slow tail and failures.
+ */
+final class StubGateways {
+
+    static final SeatReservationService NO_OP_SEAT_RESERVATION = (accountId, totalSeatsToAllocate) -> { };
+    static final TicketPaymentService NO_OP_TICKET_PAYMENT = (accountId, totalAmountToPay) -> { };
+
+    private StubGateways() {
+    }
+
+    static SeatReservationService slowSeatReservation(long latencyMicros) {
+        return (accountId, totalSeatsToAllocate) -> sleepMicros(latencyMicros);
+    }
+
+    static TicketPaymentService slowTicketPayment(long latencyMicros) {
+        return (accountId, totalAmountToPay) -> sleepMicros(latencyMicros);
+    }
+
+    /**
+     * Payment provider charging a fixed overhead per call however many payments it carries, and taking at
+     * most the given number of calls at once, as with a pooled connection to a remote service.
+     */
+    static BatchTicketPaymentService perCallTicketPayment(long callOverheadMicros, int maxConcurrentCalls) {
+        Semaphore connections = new Semaphore(maxConcurrentCalls, true);
+        return new BatchTicketPaymentService() {
+            @Override
+            public void makePayment(long accountId, int totalAmountToPay) {
+                call();
+            }
+
+            @Override
+            public void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+                call();
+            }
+
+            private void call() {
+                connections.acquireUninterruptibly();
+                try {
+                    sleepMicros(callOverheadMicros);
+                } finally {
+                    connections.release();
+                }
+            }
+        };
+    }
+
+    static SeatReservationService profiledSeatReservation(GatewayProfile profile) {
+        return (accountId, totalSeatsToAllocate) -> profile.call();
+    }
+
+    static TicketPaymentService profiledTicketPayment(GatewayProfile profile) {
+        return (accountId, totalAmountToPay) -> profile.call();
+    }
+
+    /**
+     * Latency and failure behaviour of a stub provider. Each call takes the typical latency, or the slow
+     * latency with the slow probability, then fails with the failure probability.
+     */
+    static final class GatewayProfile {
+
+        static final GatewayProfile HEALTHY = new GatewayProfile(200, 0, 0, 0);
+        static final GatewayProfile SLOW_TAIL = new GatewayProfile(200, 0.05, 20_000, 0);
+        static final GatewayProfile FAILING = new GatewayProfile(200, 0.10, 50_000, 0.5);
+
+        private final long typicalMicros;
+        private final double slowProbability;
+        private final long slowMicros;
+        private final double failureProbability;
+
+        GatewayProfile(long typicalMicros, double slowProbability, long slowMicros, double failureProbability) {
+            this.typicalMicros = typicalMicros;
+            this.slowProbability = slowProbability;
+            this.slowMicros = slowMicros;
+            this.failureProbability = failureProbability;
+        }
+
+        static GatewayProfile named(String name) {
+            switch (name) {
+                case "healthy":
+                    return HEALTHY;
+                case "slowTail":
+                    return SLOW_TAIL;
+                case "failing":
+                    return FAILING;
+                default:
+                    throw new IllegalArgumentException("Unknown gateway profile: " + name);
+            }
+        }
+
+        void call() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleepMicros(random.nextDouble() < slowProbability ? slowMicros : typicalMicros);
+            if (random.nextDouble() < failureProbability) {
+                throw new IllegalStateException("Injected gateway failure");
+            }
+        }
+    }
+
+    private static void sleepMicros(long latencyMicros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(latencyMicros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
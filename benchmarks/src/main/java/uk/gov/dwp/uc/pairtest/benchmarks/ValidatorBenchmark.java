@@ -0,0 +1,56 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountValidator} and {@link TicketValidator} in isolation, on the accepting path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final AccountValidator accountValidator = new AccountValidator();
+    private final TicketValidator ticketValidator = new TicketValidator();
+
+    private final Long accountId = 1001L;
+    private final TicketTypeRequest[] mixedTypeOrder = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2),
+            new TicketTypeRequest(Type.INFANT, 1)
+    };
+    private final TicketTypeTally mixedTypeTally = TicketTypeTally.of(2, 2, 1);
+
+    @Benchmark
+    public boolean validateAccount() {
+        return accountValidator.validateAccount(accountId);
+    }
+
+    @Benchmark
+    public boolean validateTicketRequests() {
+        return ticketValidator.validateTicketRequests(mixedTypeOrder);
+    }
+
+    @Benchmark
+    public boolean validateTicketRatio() {
+        return ticketValidator.validateTicketRatio(mixedTypeTally);
+    }
+}
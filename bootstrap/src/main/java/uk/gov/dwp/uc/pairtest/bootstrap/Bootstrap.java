@@ -0,0 +1,95 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationService;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the ticket service from a config file: wires the {@link ServiceGraph}, which recovers any purchases
+ * a crash left incomplete, warms up the purchase path with {@link WarmUp}, then reports ready. Run with an
+ * optional properties file and overrides, see {@link BootstrapConfig}:
+ * <pre>
+ * java -jar bootstrap/target/bootstrap.jar bootstrap/bootstrap.properties warmup.purchases=50000
+ * </pre>
+ * For a faster JVM start, record the classes a start up loads into a class data sharing archive with a
+ * training run, then start from the archive (Java 13 and later):
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=bootstrap.jsa -jar bootstrap.jar bootstrap.properties exitWhenReady=true
+ * java -XX:SharedArchiveFile=bootstrap.jsa -jar bootstrap.jar bootstrap.properties
+ * </pre>
+ */
+public final class Bootstrap {
+
+    private Bootstrap() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        BootstrapConfig config = BootstrapConfig.fromArgs(args);
+        // the providers here reach nothing, so a second pair of the same classes serves the warm up
+        ServiceGraph serviceGraph = start(config, new SeatReservationServiceImpl(), new TicketPaymentServiceImpl(),
+                new SeatReservationServiceImpl(), new TicketPaymentServiceImpl());
+        if (config.isExitWhenReady()) {
+            serviceGraph.close();
+            return;
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                serviceGraph.close();
+            } catch (IOException e) {
+                System.err.println("ticket service did not close cleanly: " + e);
+            } finally {
+                stopped.countDown();
+            }
+        }, "ticket-service-shutdown"));
+        stopped.await();
+    }
+
+    /**
+     * Wire the graph, recovering the journal, and warm it up, then write the ready file if the config names one.
+     *
+     * @param config
+     * @param seatReservationService
+     * @param ticketPaymentService
+     * @param warmUpSeatReservationService the same class as seatReservationService, reserving nothing, see {@link WarmUp}
+     * @param warmUpTicketPaymentService the same class as ticketPaymentService, taking no payments
+     * @return the graph, ready for traffic
+     * @throws IOException when the graph cannot be wired or the ready file written
+     */
+    public static ServiceGraph start(BootstrapConfig config, SeatReservationService seatReservationService,
+                                     TicketPaymentService ticketPaymentService,
+                                     SeatReservationService warmUpSeatReservationService,
+                                     TicketPaymentService warmUpTicketPaymentService) throws IOException {
+        long start = System.nanoTime();
+        ServiceGraph serviceGraph = ServiceGraph.wire(config, seatReservationService, ticketPaymentService);
+        try {
+            long wired = System.nanoTime();
+            int warmUpPurchases = WarmUp.run(config, warmUpSeatReservationService, warmUpTicketPaymentService);
+            long warm = System.nanoTime();
+
+            System.out.printf("wired in %d ms recovering %d purchases, warmed up with %d purchases in %d ms, "
+                            + "ready %d ms after JVM start%n",
+                    TimeUnit.NANOSECONDS.toMillis(wired - start), serviceGraph.getRecoveredPurchases(), warmUpPurchases,
+                    TimeUnit.NANOSECONDS.toMillis(warm - wired), ManagementFactory.getRuntimeMXBean().getUptime());
+            Path readyFile = config.getReadyFile();
+            if (readyFile != null) {
+                Files.write(readyFile, "ready\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            return serviceGraph;
+        } catch (IOException | RuntimeException e) {
+            serviceGraph.close();
+            throw e;
+        }
+    }
+}
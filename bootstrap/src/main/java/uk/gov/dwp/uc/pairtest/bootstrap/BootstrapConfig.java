@@ -0,0 +1,251 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Immutable Object
+ * <p>
+ * How to wire the ticket service, read from a properties file with {@code key=value} overrides from the
+ * command line. Every key is optional, and an empty path turns that part off:
+ * <pre>
+ * pricing=                    prices file, see {@link uk.gov.dwp.uc.pairtest.pricing.PriceTable#fromProperties}; empty for list prices
+ * maxTickets=25               most tickets in one purchase
+ * metrics=true                time each purchase stage, see {@link uk.gov.dwp.uc.pairtest.metrics.InMemoryPurchaseMetrics}
+ * gateway.timeoutMillis=2000  0 calls the providers directly, without a timeout or circuit breaker
+ * gateway.threads=64          platform threads for provider calls when virtual threads are unavailable
+ * gateway.breakerFailures=20  consecutive failures that open a provider's circuit breaker
+ * gateway.breakerOpenMillis=1000
+ * payment.batchSize=0         above 1 gathers concurrent payments into batches of up to this many
+ * payment.lingerMicros=200    longest a payment waits for its batch to fill
+ * journal=                    purchase journal file
+ * journal.commitMicros=200    group commit window
+ * journal.recovery=           {@link uk.gov.dwp.uc.pairtest.journal.RecoveryHandler} class, with a public no-argument
+ *                             constructor, that resolves purchases a crash left incomplete and, while running,
+ *                             those that fail after their seats were reserved; empty refuses to start while
+ *                             there are any
+ * ledger=                     account ledger file capping tickets per account
+ * ledger.accounts=1000000     accounts the ledger is sized for
+ * ledger.limit=50             tickets one account may buy
+ * events=                     purchase event log directory
+ * warmup.purchases=20000      synthetic purchases run before reporting ready; 0 skips the warm up
+ * warmup.seed=42
+ * readyFile=                  written once ready, for a readiness probe
+ * exitWhenReady=false         exit instead of serving, for a class data sharing training run
+ * </pre>
+ */
+public final class BootstrapConfig {
+
+    private final Properties properties;
+
+    private final String pricing;
+    private final int maxTickets;
+    private final boolean metrics;
+    private final long gatewayTimeoutMillis;
+    private final int gatewayThreads;
+    private final int gatewayBreakerFailures;
+    private final long gatewayBreakerOpenMillis;
+    private final int paymentBatchSize;
+    private final long paymentLingerMicros;
+    private final String journal;
+    private final long journalCommitMicros;
+    private final String journalRecovery;
+    private final String ledger;
+    private final long ledgerAccounts;
+    private final int ledgerLimit;
+    private final String events;
+    private final int warmupPurchases;
+    private final long warmupSeed;
+    private final String readyFile;
+    private final boolean exitWhenReady;
+
+    private BootstrapConfig(Properties properties) {
+        this.properties = properties;
+        pricing = get("pricing", "");
+        maxTickets = Integer.parseInt(get("maxTickets", "25"));
+        metrics = Boolean.parseBoolean(get("metrics", "true"));
+        gatewayTimeoutMillis = Long.parseLong(get("gateway.timeoutMillis", "2000"));
+        gatewayThreads = Integer.parseInt(get("gateway.threads", "64"));
+        gatewayBreakerFailures = Integer.parseInt(get("gateway.breakerFailures", "20"));
+        gatewayBreakerOpenMillis = Long.parseLong(get("gateway.breakerOpenMillis", "1000"));
+        paymentBatchSize = Integer.parseInt(get("payment.batchSize", "0"));
+        paymentLingerMicros = Long.parseLong(get("payment.lingerMicros", "200"));
+        journal = get("journal", "");
+        journalCommitMicros = Long.parseLong(get("journal.commitMicros", "200"));
+        journalRecovery = get("journal.recovery", "");
+        ledger = get("ledger", "");
+        ledgerAccounts = Long.parseLong(get("ledger.accounts", "1000000"));
+        ledgerLimit = Integer.parseInt(get("ledger.limit", "50"));
+        events = get("events", "");
+        warmupPurchases = Integer.parseInt(get("warmup.purchases", "20000"));
+        warmupSeed = Long.parseLong(get("warmup.seed", "42"));
+        readyFile = get("readyFile", "");
+        exitWhenReady = Boolean.parseBoolean(get("exitWhenReady", "false"));
+
+        if (maxTickets < 1 || gatewayTimeoutMillis < 0 || gatewayThreads < 1 || paymentBatchSize < 0
+                || paymentLingerMicros < 0 || journalCommitMicros < 0 || warmupPurchases < 0) {
+            throw new IllegalArgumentException("maxTickets and gateway.threads must be at least 1, other counts and times at least 0");
+        }
+    }
+
+    /**
+     * @param args an optional properties file followed by {@code key=value} overrides
+     * @return
+     * @throws IOException when the properties file cannot be read
+     */
+    public static BootstrapConfig fromArgs(String... args) throws IOException {
+        Properties properties = new Properties();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                properties.setProperty(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+            } else {
+                Properties file = new Properties();
+                try (Reader reader = Files.newBufferedReader(Paths.get(arg), StandardCharsets.UTF_8)) {
+                    file.load(reader);
+                }
+                // overrides given before the file still win
+                file.putAll(properties);
+                properties = file;
+            }
+        }
+        return new BootstrapConfig(properties);
+    }
+
+    /**
+     * @param overrides settings to replace
+     * @return a copy of this config with the overrides applied
+     */
+    public BootstrapConfig with(Map<String, String> overrides) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        overrides.forEach(copy::setProperty);
+        return new BootstrapConfig(copy);
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = properties.getProperty(key, defaultValue).trim();
+        properties.setProperty(key, value);
+        return value;
+    }
+
+    private static Path path(String value) {
+        return value.isEmpty() ? null : Paths.get(value);
+    }
+
+    /**
+     * @return every setting, defaults included, in key order
+     */
+    public TreeMap<String, String> asMap() {
+        TreeMap<String, String> settings = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            settings.put(key, properties.getProperty(key));
+        }
+        return settings;
+    }
+
+    /**
+     * @return the prices file, or null for list prices
+     */
+    public Path getPricing() {
+        return path(pricing);
+    }
+
+    public int getMaxTickets() {
+        return maxTickets;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public long getGatewayTimeoutMillis() {
+        return gatewayTimeoutMillis;
+    }
+
+    public int getGatewayThreads() {
+        return gatewayThreads;
+    }
+
+    public int getGatewayBreakerFailures() {
+        return gatewayBreakerFailures;
+    }
+
+    public long getGatewayBreakerOpenMillis() {
+        return gatewayBreakerOpenMillis;
+    }
+
+    public int getPaymentBatchSize() {
+        return paymentBatchSize;
+    }
+
+    public long getPaymentLingerMicros() {
+        return paymentLingerMicros;
+    }
+
+    /**
+     * @return the journal file, or null for no journal
+     */
+    public Path getJournal() {
+        return path(journal);
+    }
+
+    public long getJournalCommitMicros() {
+        return journalCommitMicros;
+    }
+
+    /**
+     * @return the recovery handler class name, or null for none
+     */
+    public String getJournalRecovery() {
+        return journalRecovery.isEmpty() ? null : journalRecovery;
+    }
+
+    /**
+     * @return the ledger file, or null for no cap per account
+     */
+    public Path getLedger() {
+        return path(ledger);
+    }
+
+    public long getLedgerAccounts() {
+        return ledgerAccounts;
+    }
+
+    public int getLedgerLimit() {
+        return ledgerLimit;
+    }
+
+    /**
+     * @return the event log directory, or null for no event log
+     */
+    public Path getEvents() {
+        return path(events);
+    }
+
+    public int getWarmupPurchases() {
+        return warmupPurchases;
+    }
+
+    public long getWarmupSeed() {
+        return warmupSeed;
+    }
+
+    /**
+     * @return the file written once ready, or null for none
+     */
+    public Path getReadyFile() {
+        return path(readyFile);
+    }
+
+    public boolean isExitWhenReady() {
+        return exitWhenReady;
+    }
+}
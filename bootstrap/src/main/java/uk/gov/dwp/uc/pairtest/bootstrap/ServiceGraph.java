@@ -0,0 +1,292 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.GatewayExecutors;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventLog;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventSink;
+import uk.gov.dwp.uc.pairtest.events.SalesAnalytics;
+import uk.gov.dwp.uc.pairtest.gateway.CircuitBreaker;
+import uk.gov.dwp.uc.pairtest.gateway.GuardedSeatReservationService;
+import uk.gov.dwp.uc.pairtest.gateway.GuardedTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.gateway.MicroBatchingTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.gateway.TicketPaymentBatchAdapter;
+import uk.gov.dwp.uc.pairtest.journal.FileChannelPurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.JournalEntry;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.RecoveryHandler;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.ledger.MappedAccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.InMemoryPurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TicketServiceImpl} and everything it was wired from, built from a {@link BootstrapConfig} by
+ * plain constructor calls. Closing the graph closes its parts in the reverse order they were opened, so
+ * the service stops taking payments before the journal and ledger behind it are closed.
+ * <p>
+ * Purchases a crash left incomplete in the journal are resolved by the configured
+ * {@link RecoveryHandler} before the service is built, so no new purchase is taken until they are. Purchases
+ * that fail after their seats were reserved are then handed to the same handler as they fail, on a thread of
+ * its own.
+ */
+public final class ServiceGraph implements Closeable {
+
+    private final TicketService ticketService;
+    private final PurchaseMetrics purchaseMetrics;
+    private final int recoveredPurchases;
+    private final Deque<Closeable> closeables;
+
+    private ServiceGraph(TicketService ticketService, PurchaseMetrics purchaseMetrics, int recoveredPurchases,
+                         Deque<Closeable> closeables) {
+        this.ticketService = ticketService;
+        this.purchaseMetrics = purchaseMetrics;
+        this.recoveredPurchases = recoveredPurchases;
+        this.closeables = closeables;
+    }
+
+    /**
+     * @param config
+     * @param seatReservationService the seat provider, guarded as the config says
+     * @param ticketPaymentService the payment provider, batched and guarded as the config says
+     * @return the wired graph
+     * @throws IOException when the prices file, journal, ledger or event log cannot be opened
+     * @throws IllegalStateException when the journal has incomplete purchases and no recovery handler is configured
+     */
+    public static ServiceGraph wire(BootstrapConfig config, SeatReservationService seatReservationService,
+                                    TicketPaymentService ticketPaymentService) throws IOException {
+        Deque<Closeable> closeables = new ArrayDeque<>();
+        try {
+            TicketValidator ticketValidator = new TicketValidator(config.getMaxTickets());
+            PricingEngine pricingEngine = new PricingEngine(priceTable(config.getPricing()));
+            QuoteEngine quoteEngine = new QuoteEngine(ticketValidator, pricingEngine);
+            PurchaseMetrics purchaseMetrics = config.isMetrics() ? new InMemoryPurchaseMetrics() : PurchaseMetrics.NO_OP;
+
+            PurchaseJournal purchaseJournal = PurchaseJournal.NO_OP;
+            FileChannelPurchaseJournal journal = null;
+            if (config.getJournal() != null) {
+                journal = FileChannelPurchaseJournal.open(config.getJournal(), config.getJournalCommitMicros(),
+                        TimeUnit.MICROSECONDS);
+                closeables.push(journal);
+                purchaseJournal = journal;
+            }
+            AccountLedger accountLedger = AccountLedger.NO_OP;
+            if (config.getLedger() != null) {
+                MappedAccountLedger ledger = MappedAccountLedger.open(config.getLedger(), config.getLedgerAccounts(),
+                        config.getLedgerLimit());
+                closeables.push(ledger);
+                accountLedger = ledger;
+            }
+            int recoveredPurchases = 0;
+            if (journal != null) {
+                RecoveryHandler recoveryHandler = config.getJournalRecovery() == null ? null
+                        : new LedgerRecoveryHandler(recoveryHandler(config.getJournalRecovery()), accountLedger);
+                recoveredPurchases = recover(config, journal, recoveryHandler);
+                if (recoveryHandler != null) {
+                    ExecutorService recoveryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "purchase-recovery");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    // closed before the journal and ledger it resolves purchases in
+                    closeables.push(() -> shutdown(recoveryExecutor));
+                    journal.resolveFailuresWith(recoveryHandler, recoveryExecutor);
+                }
+            }
+            PurchaseEventSink purchaseEventSink = PurchaseEventSink.NO_OP;
+            if (config.getEvents() != null) {
+                Files.createDirectories(config.getEvents());
+                PurchaseEventLog eventLog = PurchaseEventLog.open(config.getEvents(),
+                        new SalesAnalytics(TimeUnit.MINUTES.toMillis(1), 24 * 60, pricingEngine));
+                closeables.push(eventLog);
+                purchaseEventSink = eventLog;
+            }
+
+            TicketPaymentService payment = ticketPaymentService;
+            if (config.getPaymentBatchSize() > 1) {
+                MicroBatchingTicketPaymentService batching = new MicroBatchingTicketPaymentService(
+                        TicketPaymentBatchAdapter.adapt(payment), config.getPaymentBatchSize(),
+                        config.getPaymentLingerMicros(), TimeUnit.MICROSECONDS, 4 * config.getGatewayThreads());
+                closeables.push(batching);
+                payment = batching;
+            }
+            SeatReservationService seatReservation = seatReservationService;
+            if (config.getGatewayTimeoutMillis() > 0) {
+                ExecutorService executor = GatewayExecutors.newGatewayExecutor(config.getGatewayThreads());
+                closeables.push(executor::shutdownNow);
+                if (executor instanceof ThreadPoolExecutor) {
+                    // starting pool threads here rather than on the first purchases keeps that cost out of their latency
+                    ((ThreadPoolExecutor) executor).prestartAllCoreThreads();
+                }
+                seatReservation = new GuardedSeatReservationService(seatReservation, executor,
+                        config.getGatewayTimeoutMillis(), TimeUnit.MILLISECONDS, circuitBreaker(config));
+                payment = new GuardedTicketPaymentService(payment, executor,
+                        config.getGatewayTimeoutMillis(), TimeUnit.MILLISECONDS, circuitBreaker(config));
+            }
+
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), ticketValidator,
+                    seatReservation, payment, purchaseMetrics, purchaseJournal, quoteEngine, accountLedger,
+                    purchaseEventSink);
+            return new ServiceGraph(ticketService, purchaseMetrics, recoveredPurchases, closeables);
+        } catch (IOException | RuntimeException e) {
+            closeAll(closeables, e);
+            throw e;
+        }
+    }
+
+    public TicketService getTicketService() {
+        return ticketService;
+    }
+
+    /**
+     * @return purchases found incomplete in the journal and resolved while wiring
+     */
+    public int getRecoveredPurchases() {
+        return recoveredPurchases;
+    }
+
+    /**
+     * @return the stage timings, or {@link PurchaseMetrics#NO_OP} when metrics are off
+     */
+    public PurchaseMetrics getPurchaseMetrics() {
+        return purchaseMetrics;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = closeAll(closeables, null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static PriceTable priceTable(Path pricing) throws IOException {
+        if (pricing == null) {
+            return PriceTable.DEFAULT;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(pricing, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return PriceTable.fromProperties(properties);
+    }
+
+    /**
+     * Resolve the purchases a crash left incomplete.
+     */
+    private static int recover(BootstrapConfig config, FileChannelPurchaseJournal journal,
+                               RecoveryHandler recoveryHandler) {
+        int incomplete = journal.getIncompletePurchases().size();
+        if (incomplete == 0) {
+            return 0;
+        }
+        if (recoveryHandler == null) {
+            throw new IllegalStateException("Purchase journal " + config.getJournal() + " has " + incomplete
+                    + " incomplete purchases; set journal.recovery to resolve them");
+        }
+        return journal.recover(recoveryHandler);
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RecoveryHandler recoveryHandler(String className) {
+        try {
+            return Class.forName(className).asSubclass(RecoveryHandler.class).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("journal.recovery " + className
+                    + " is not a RecoveryHandler with a public no-argument constructor", e);
+        }
+    }
+
+    /**
+     * Keeps the ledger in step with how purchases are resolved. Seats of a compensated purchase that was still
+     * open are released only once its resolution is durable, so a crash part way through recovery cannot
+     * release them twice. A purchase that failed after its seats were reserved already gave its seats back
+     * to the ledger when it failed, so it is only added back if recovery finds it was paid for.
+     */
+    private static final class LedgerRecoveryHandler implements RecoveryHandler {
+
+        private final RecoveryHandler recoveryHandler;
+        private final AccountLedger accountLedger;
+
+        private LedgerRecoveryHandler(RecoveryHandler recoveryHandler, AccountLedger accountLedger) {
+            this.recoveryHandler = recoveryHandler;
+            this.accountLedger = accountLedger;
+        }
+
+        @Override
+        public JournalEntry.State recover(JournalEntry incompletePurchase) {
+            return recoveryHandler.recover(incompletePurchase);
+        }
+
+        @Override
+        public void resolved(JournalEntry purchase, JournalEntry.State resolution) {
+            boolean failed = purchase.getState() == JournalEntry.State.FAILED_AFTER_RESERVATION
+                    || purchase.getState() == JournalEntry.State.PAYMENT_DECLINED;
+            if (resolution == JournalEntry.State.COMPENSATED && !failed) {
+                accountLedger.release(purchase.getAccountId(), purchase.getSeatCount());
+            } else if (resolution == JournalEntry.State.COMPLETED && failed) {
+                // the tickets were bought; an account that has since bought up to its cap keeps its current total
+                accountLedger.tryAdd(purchase.getAccountId(), purchase.getSeatCount());
+            }
+            recoveryHandler.resolved(purchase, resolution);
+        }
+    }
+
+    private static CircuitBreaker circuitBreaker(BootstrapConfig config) {
+        return new CircuitBreaker(config.getGatewayBreakerFailures(), config.getGatewayBreakerOpenMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Close everything, most recently opened first, carrying on past failures.
+     *
+     * @return the first failure to close when there was no earlier one to attach it to, otherwise null
+     */
+    private static IOException closeAll(Deque<Closeable> closeables, Exception earlier) {
+        IOException failure = null;
+        Closeable closeable;
+        while ((closeable = closeables.poll()) != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                if (earlier != null) {
+                    earlier.addSuppressed(e);
+                } else if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+}
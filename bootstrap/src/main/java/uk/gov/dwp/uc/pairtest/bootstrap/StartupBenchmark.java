@@ -0,0 +1,162 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Times fresh JVMs starting the ticket service through {@link StartupProbe}, with and without the warm up
+ * and, on Java 13 and later, with and without a class data sharing archive made by a training run first.
+ * Each scenario runs in several JVMs and reports medians of:
+ * <ul>
+ *     <li>ready: from launching the JVM to the service reporting ready</li>
+ *     <li>first purchase: from launching the JVM to the first purchase completing, and how long that purchase took</li>
+ *     <li>steady state: from launching the JVM to purchase latency settling, and the settled median</li>
+ * </ul>
+ * Run with the bootstrap config arguments, which every child is given:
+ * <pre>
+ * java -cp bootstrap/target/bootstrap.jar uk.gov.dwp.uc.pairtest.bootstrap.StartupBenchmark bootstrap/bootstrap.properties
+ * </pre>
+ * {@code -Dstartup.runs=5} sets the JVMs per scenario.
+ */
+public final class StartupBenchmark {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, URISyntaxException {
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = Paths.get(StartupProbe.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .toString();
+        List<String> coldArgs = new ArrayList<>(Arrays.asList(args));
+        coldArgs.add("warmup.purchases=0");
+
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("cold", List.of(), coldArgs));
+        scenarios.add(new Scenario("warm-up", List.of(), Arrays.asList(args)));
+
+        Path archiveDirectory = null;
+        if (Runtime.version().feature() >= 13) {
+            archiveDirectory = Files.createTempDirectory("ticket-service-cds");
+            Path archive = archiveDirectory.resolve("bootstrap.jsa");
+            // the training run records every class a start up and the probe's purchases load
+            launch(java, classPath, List.of("-XX:ArchiveClassesAtExit=" + archive), Arrays.asList(args));
+            List<String> shared = List.of("-XX:SharedArchiveFile=" + archive);
+            scenarios.add(new Scenario("cold+cds", shared, coldArgs));
+            scenarios.add(new Scenario("warm-up+cds", shared, Arrays.asList(args)));
+        } else {
+            System.out.println("class data sharing archives of application classes need Java 13 or later, skipped");
+        }
+
+        try {
+            System.out.printf("%-12s %10s %16s %14s %15s %14s%n", "scenario", "ready ms", "first purchase ms",
+                    "first us", "steady ms", "steady us");
+            for (Scenario scenario : scenarios) {
+                Run[] runs = new Run[RUNS];
+                for (int i = 0; i < RUNS; i++) {
+                    runs[i] = launch(java, classPath, scenario.jvmArgs, scenario.args);
+                }
+                System.out.printf("%-12s %10.1f %16.1f %14.1f %15.1f %14.2f%n", scenario.name,
+                        millis(median(runs, run -> run.readyNanos)),
+                        millis(median(runs, run -> run.firstPurchaseNanos)),
+                        median(runs, run -> run.firstPurchaseLatencyNanos) / 1e3,
+                        millis(median(runs, run -> run.steadyNanos)),
+                        median(runs, run -> run.steadyMedianNanos) / 1e3);
+            }
+        } finally {
+            if (archiveDirectory != null) {
+                Files.deleteIfExists(archiveDirectory.resolve("bootstrap.jsa"));
+                Files.deleteIfExists(archiveDirectory);
+            }
+        }
+    }
+
+    /**
+     * Start a probe JVM and timestamp its report lines as they arrive.
+     */
+    private static Run launch(String java, String classPath, List<String> jvmArgs, List<String> args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(StartupProbe.class.getName());
+        command.addAll(args);
+
+        Run run = new Run();
+        List<String> output = new ArrayList<>();
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long arrived = System.nanoTime() - launched;
+                output.add(line);
+                String[] fields = line.split(" ");
+                if (fields[0].equals("ready")) {
+                    run.readyNanos = arrived;
+                } else if (fields[0].equals("first") && fields.length == 2) {
+                    run.firstPurchaseNanos = arrived;
+                    run.firstPurchaseLatencyNanos = Long.parseLong(fields[1]);
+                } else if (fields[0].equals("steady") && fields.length == 4) {
+                    run.steadyNanos = run.firstPurchaseNanos + Long.parseLong(fields[1]);
+                    run.steadyMedianNanos = Long.parseLong(fields[2]);
+                }
+            }
+        }
+        if (process.waitFor() != 0 || run.steadyMedianNanos == 0) {
+            throw new IllegalStateException("Startup probe failed:\n" + String.join("\n", output));
+        }
+        return run;
+    }
+
+    private static long median(Run[] runs, ToLongFunction<Run> measure) {
+        long[] values = new long[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            values[i] = measure.applyAsLong(runs[i]);
+        }
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Scenario {
+
+        private final String name;
+        private final List<String> jvmArgs;
+        private final List<String> args;
+
+        Scenario(String name, List<String> jvmArgs, List<String> args) {
+            this.name = name;
+            this.jvmArgs = jvmArgs;
+            this.args = args;
+        }
+    }
+
+    private static final class Run {
+
+        private long readyNanos;
+        private long firstPurchaseNanos;
+        private long firstPurchaseLatencyNanos;
+        private long steadyNanos;
+        private long steadyMedianNanos;
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The child process {@link StartupBenchmark} times: starts the service with {@link Bootstrap}, then
+ * purchases a family order from a new account at a time, and reports on standard out as it goes:
+ * <pre>
+ * ready                                  the service is ready
+ * first &lt;nanos&gt;                          the first purchase is done, and how long it took
+ * steady &lt;nanos&gt; &lt;nanos&gt; &lt;nanos&gt;          time from the first purchase to steady state, steady median, median of the first window
+ * </pre>
+ * Purchases are timed in windows. Steady state starts with the window after the last one whose median is
+ * more than a quarter above the median of the final tenth of windows.
+ */
+public final class StartupProbe {
+
+    private static final int WINDOWS = 400;
+    private static final int WINDOW_SIZE = 500;
+    private static final double STEADY_MARGIN = 1.25;
+
+    private static final TicketTypeRequest[] FAMILY = {
+            new TicketTypeRequest(Type.ADULT, 2),
+            new TicketTypeRequest(Type.CHILD, 2),
+            new TicketTypeRequest(Type.INFANT, 1)
+    };
+
+    private StartupProbe() {
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        BootstrapConfig config = BootstrapConfig.fromArgs(args);
+        try (ServiceGraph serviceGraph = Bootstrap.start(config, new SeatReservationServiceImpl(),
+                new TicketPaymentServiceImpl(), new SeatReservationServiceImpl(), new TicketPaymentServiceImpl())) {
+            System.out.println("ready");
+            TicketService ticketService = serviceGraph.getTicketService();
+
+            long accountId = 1;
+            long firstStart = System.nanoTime();
+            ticketService.purchaseTickets(accountId++, FAMILY);
+            long firstEnd = System.nanoTime();
+            System.out.println("first " + (firstEnd - firstStart));
+
+            long[] windowMedians = new long[WINDOWS];
+            long[] windowEnds = new long[WINDOWS];
+            long[] latencies = new long[WINDOW_SIZE];
+            for (int window = 0; window < WINDOWS; window++) {
+                for (int i = 0; i < WINDOW_SIZE; i++) {
+                    long start = System.nanoTime();
+                    ticketService.purchaseTickets(accountId++, FAMILY);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                windowEnds[window] = System.nanoTime() - firstEnd;
+                Arrays.sort(latencies);
+                windowMedians[window] = latencies[WINDOW_SIZE / 2];
+            }
+
+            long[] tail = Arrays.copyOfRange(windowMedians, WINDOWS - WINDOWS / 10, WINDOWS);
+            Arrays.sort(tail);
+            long steadyMedian = tail[tail.length / 2];
+            int lastSlow = -1;
+            for (int window = 0; window < WINDOWS; window++) {
+                if (windowMedians[window] > steadyMedian * STEADY_MARGIN) {
+                    lastSlow = window;
+                }
+            }
+            long steadyAfter = lastSlow < 0 ? 0 : windowEnds[lastSlow];
+            System.out.println("steady " + steadyAfter + " " + steadyMedian + " " + windowMedians[0]);
+        }
+    }
+}
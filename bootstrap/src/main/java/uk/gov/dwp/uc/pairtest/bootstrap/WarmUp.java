@@ -0,0 +1,129 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Runs synthetic purchases through a twin of the service graph so the JIT has compiled the purchase path
+ * before real orders arrive. Compiled code belongs to the classes, not the instances, so the real graph
+ * starts warm.
+ * <p>
+ * The twin is wired from the same config, with the journal, ledger and event log in a scratch directory
+ * deleted afterwards, so no purchase reaches a durable record. Its providers must be the same classes as
+ * the real graph's, in a mode that reaches no provider: the JIT inlines provider calls for the classes it
+ * saw, so warming up on any other class would have the first real purchases deoptimise and recompile the
+ * purchase path. The orders are the usual family groups with the occasional large party, a share of the
+ * rejections the validators report, and some batches.
+ */
+final class WarmUp {
+
+    private static final int BATCH_EVERY = 32;
+    private static final int BATCH_SIZE = 8;
+
+    private static final TicketTypeRequest[][] MIXES = {
+            {new TicketTypeRequest(Type.ADULT, 1)},
+            {new TicketTypeRequest(Type.ADULT, 2)},
+            {new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.CHILD, 1)},
+            {new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 2)},
+            {new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 2), new TicketTypeRequest(Type.INFANT, 1)},
+            {new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.INFANT, 1)},
+            {new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.CHILD, 3)},
+            {new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1), new TicketTypeRequest(Type.CHILD, 1)},
+            {new TicketTypeRequest(Type.ADULT, 10), new TicketTypeRequest(Type.CHILD, 12)},
+            // rejections: no adult, too many tickets, too many infants, a negative count
+            {new TicketTypeRequest(Type.CHILD, 2)},
+            {new TicketTypeRequest(Type.ADULT, 20), new TicketTypeRequest(Type.CHILD, 10)},
+            {new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.INFANT, 2)},
+            {new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, -1)}
+    };
+
+    private WarmUp() {
+    }
+
+    /**
+     * @param config the real graph's config
+     * @param seatReservationService the real seat provider's class, reserving nothing
+     * @param ticketPaymentService the real payment provider's class, taking no payments
+     * @return purchases run
+     * @throws IOException when the scratch directory cannot be made or the twin cannot be wired
+     */
+    static int run(BootstrapConfig config, SeatReservationService seatReservationService,
+                   TicketPaymentService ticketPaymentService) throws IOException {
+        int purchases = config.getWarmupPurchases();
+        if (purchases == 0) {
+            return 0;
+        }
+        Path scratch = Files.createTempDirectory("ticket-service-warmup");
+        try {
+            try (ServiceGraph twin = ServiceGraph.wire(config.with(scratchSettings(config, scratch)),
+                    seatReservationService, ticketPaymentService)) {
+                purchase(twin.getTicketService(), purchases, new SplittableRandom(config.getWarmupSeed()));
+            }
+        } finally {
+            delete(scratch);
+        }
+        return purchases;
+    }
+
+    private static Map<String, String> scratchSettings(BootstrapConfig config, Path scratch) {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("readyFile", "");
+        if (config.getJournal() != null) {
+            settings.put("journal", scratch.resolve("journal").toString());
+        }
+        if (config.getLedger() != null) {
+            // one account per purchase, so the cap rejects no more often than it would in real traffic
+            settings.put("ledger", scratch.resolve("ledger").toString());
+            settings.put("ledger.accounts", Integer.toString(config.getWarmupPurchases()));
+        }
+        if (config.getEvents() != null) {
+            settings.put("events", scratch.resolve("events").toString());
+        }
+        return settings;
+    }
+
+    private static void purchase(TicketService ticketService, int purchases, SplittableRandom random) {
+        List<PurchaseOrder> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= purchases; i++) {
+            TicketTypeRequest[] mix = MIXES[random.nextInt(MIXES.length)];
+            long accountId = i;
+            if (i % BATCH_EVERY == 0) {
+                batch.clear();
+                for (int b = 0; b < BATCH_SIZE; b++) {
+                    batch.add(new PurchaseOrder(accountId, MIXES[random.nextInt(MIXES.length)]));
+                }
+                ticketService.purchaseTicketsBatch(batch);
+                continue;
+            }
+            try {
+                ticketService.purchaseTickets(accountId, mix);
+            } catch (InvalidPurchaseException e) {
+                // rejections are part of the mix
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
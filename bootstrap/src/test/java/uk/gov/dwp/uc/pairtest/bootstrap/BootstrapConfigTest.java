@@ -0,0 +1,58 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+class BootstrapConfigTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read the file, let command line overrides win, and default the rest")
+    public void testFromArgs_overridesAndDefaults() throws IOException {
+        Path file = tempDir.resolve("bootstrap.properties");
+        Files.write(file, "warmup.purchases=500\nledger=accounts.ledger\npayment.batchSize=4\n".getBytes(StandardCharsets.UTF_8));
+
+        BootstrapConfig config = BootstrapConfig.fromArgs("payment.batchSize=16", file.toString(), "journal=purchases.journal");
+
+        Assertions.assertEquals(500, config.getWarmupPurchases());
+        Assertions.assertEquals(16, config.getPaymentBatchSize());
+        Assertions.assertEquals(Paths.get("accounts.ledger"), config.getLedger());
+        Assertions.assertEquals(Paths.get("purchases.journal"), config.getJournal());
+        Assertions.assertNull(config.getEvents());
+        Assertions.assertNull(config.getPricing());
+        Assertions.assertEquals(25, config.getMaxTickets());
+        Assertions.assertEquals("2000", config.asMap().get("gateway.timeoutMillis"));
+    }
+
+    @Test
+    @DisplayName("Should copy with overrides, leaving the original unchanged")
+    public void testWith_copies() throws IOException {
+        BootstrapConfig config = BootstrapConfig.fromArgs("ledger=accounts.ledger");
+
+        BootstrapConfig copy = config.with(Map.of("ledger", "", "warmup.purchases", "10"));
+
+        Assertions.assertNull(copy.getLedger());
+        Assertions.assertEquals(10, copy.getWarmupPurchases());
+        Assertions.assertEquals(Paths.get("accounts.ledger"), config.getLedger());
+        Assertions.assertEquals(20_000, config.getWarmupPurchases());
+    }
+
+    @Test
+    @DisplayName("Should reject settings out of range")
+    public void testFromArgs_invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BootstrapConfig.fromArgs("maxTickets=0"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BootstrapConfig.fromArgs("warmup.purchases=-1"));
+        Assertions.assertThrows(NumberFormatException.class, () -> BootstrapConfig.fromArgs("gateway.threads=many"));
+    }
+}
@@ -0,0 +1,139 @@
+package uk.gov.dwp.uc.pairtest.bootstrap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.FileChannelPurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.JournalEntry;
+import uk.gov.dwp.uc.pairtest.journal.RecoveryHandler;
+import uk.gov.dwp.uc.pairtest.ledger.MappedAccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.InMemoryPurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseStage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+class ServiceGraphTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger seatsReserved = new AtomicInteger();
+    private final AtomicInteger amountPaid = new AtomicInteger();
+    private final SeatReservationService seatReservationService = (accountId, seats) -> seatsReserved.addAndGet(seats);
+    private final TicketPaymentService ticketPaymentService = (accountId, amount) -> amountPaid.addAndGet(amount);
+    private final AtomicInteger warmUpCalls = new AtomicInteger();
+    private final SeatReservationService warmUpSeatReservationService = (accountId, seats) -> warmUpCalls.incrementAndGet();
+    private final TicketPaymentService warmUpTicketPaymentService = (accountId, amount) -> warmUpCalls.incrementAndGet();
+
+    @Test
+    @DisplayName("Should wire every configured part, with custom prices, the ledger cap and batched guarded payments")
+    public void testWire_everyPart() throws IOException {
+        Path pricing = tempDir.resolve("prices.properties");
+        Files.write(pricing, "price.STANDARD.ADULT=30\n".getBytes(StandardCharsets.UTF_8));
+        BootstrapConfig config = BootstrapConfig.fromArgs("pricing=" + pricing, "maxTickets=10",
+                "journal=" + tempDir.resolve("purchases.journal"), "ledger=" + tempDir.resolve("accounts.ledger"),
+                "ledger.accounts=100", "ledger.limit=4", "events=" + tempDir.resolve("events"),
+                "payment.batchSize=8", "payment.lingerMicros=0");
+
+        try (ServiceGraph serviceGraph = ServiceGraph.wire(config, seatReservationService, ticketPaymentService)) {
+            serviceGraph.getTicketService().purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 2),
+                    new TicketTypeRequest(Type.CHILD, 1));
+            Assertions.assertThrows(InvalidPurchaseException.class, () -> serviceGraph.getTicketService()
+                    .purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 2)));
+            Assertions.assertThrows(InvalidPurchaseException.class, () -> serviceGraph.getTicketService()
+                    .purchaseTickets(2L, new TicketTypeRequest(Type.ADULT, 11)));
+
+            Assertions.assertEquals(3, seatsReserved.get());
+            Assertions.assertEquals(2 * 30 + 15, amountPaid.get());
+            InMemoryPurchaseMetrics metrics = (InMemoryPurchaseMetrics) serviceGraph.getPurchaseMetrics();
+            Assertions.assertEquals(1, metrics.getStageLatency(PurchaseStage.PURCHASE).getCount());
+        }
+        Assertions.assertTrue(Files.size(tempDir.resolve("purchases.journal")) > 0);
+        Assertions.assertTrue(Files.exists(tempDir.resolve("accounts.ledger")));
+    }
+
+    @Test
+    @DisplayName("Should warm up on the warm up providers and scratch storage, leaving nothing behind, before writing the ready file")
+    public void testStart_warmsUpWithoutSideEffects() throws IOException {
+        Path readyFile = tempDir.resolve("ready");
+        Path journal = tempDir.resolve("purchases.journal");
+        BootstrapConfig config = BootstrapConfig.fromArgs("warmup.purchases=2000", "journal=" + journal,
+                "journal.commitMicros=0", "ledger=" + tempDir.resolve("accounts.ledger"), "ledger.accounts=100",
+                "ledger.limit=25", "readyFile=" + readyFile);
+        long scratchBefore = countScratchDirectories();
+
+        try (ServiceGraph serviceGraph = Bootstrap.start(config, seatReservationService, ticketPaymentService,
+                warmUpSeatReservationService, warmUpTicketPaymentService)) {
+            Assertions.assertTrue(Files.exists(readyFile));
+            Assertions.assertTrue(warmUpCalls.get() > 0);
+            Assertions.assertEquals(0, seatsReserved.get());
+            Assertions.assertEquals(0, amountPaid.get());
+            Assertions.assertEquals(0, Files.size(journal));
+            // no account in the real ledger was charged by the warm up
+            serviceGraph.getTicketService().purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 25));
+            Assertions.assertEquals(25, seatsReserved.get());
+        }
+        Assertions.assertEquals(scratchBefore, countScratchDirectories());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with incomplete purchases until a recovery handler resolves them")
+    public void testStart_recoversJournal() throws IOException {
+        Path journalPath = tempDir.resolve("purchases.journal");
+        Path ledgerPath = tempDir.resolve("accounts.ledger");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(journalPath, 0, TimeUnit.MILLISECONDS);
+             MappedAccountLedger ledger = MappedAccountLedger.open(ledgerPath, 100, 10)) {
+            ledger.tryAdd(1L, 4);
+            journal.seatsReserved(journal.begin(1L, 4, 100));
+            ledger.tryAdd(2L, 3);
+            journal.begin(2L, 3, 75);
+            journal.sync();
+        }
+        BootstrapConfig config = BootstrapConfig.fromArgs("warmup.purchases=100", "journal=" + journalPath,
+                "ledger=" + ledgerPath, "ledger.accounts=100", "ledger.limit=10");
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                () -> Bootstrap.start(config, seatReservationService, ticketPaymentService,
+                        warmUpSeatReservationService, warmUpTicketPaymentService));
+        Assertions.assertTrue(exception.getMessage().contains("2 incomplete purchases"), exception.getMessage());
+
+        BootstrapConfig recovering = config.with(Map.of("journal.recovery", CompensateEverything.class.getName()));
+        try (ServiceGraph serviceGraph = Bootstrap.start(recovering, seatReservationService, ticketPaymentService,
+                warmUpSeatReservationService, warmUpTicketPaymentService)) {
+            Assertions.assertEquals(2, serviceGraph.getRecoveredPurchases());
+            // compensated purchases no longer count towards the accounts' caps
+            serviceGraph.getTicketService().purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 10));
+            Assertions.assertEquals(10, seatsReserved.get());
+        }
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(journalPath, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+    }
+
+    public static final class CompensateEverything implements RecoveryHandler {
+
+        @Override
+        public JournalEntry.State recover(JournalEntry incompletePurchase) {
+            return JournalEntry.State.COMPENSATED;
+        }
+    }
+
+    private static long countScratchDirectories() throws IOException {
+        try (Stream<Path> paths = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return paths.filter(path -> path.getFileName().toString().startsWith("ticket-service-warmup")).count();
+        }
+    }
+}
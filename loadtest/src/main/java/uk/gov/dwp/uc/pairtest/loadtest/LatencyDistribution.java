@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.util.Random;
+
+/**
+ * Latency of a simulated gateway call, parsed from a spec of the form {@code kind:arguments} with times in
+ * microseconds:
+ * <pre>
+ * fixed:300                  every call takes 300us
+ * uniform:100-500            evenly spread between 100us and 500us
+ * exp:300                    exponential with a 300us mean, a long but light tail
+ * bimodal:300,0.02,50000     300us, or 50ms for 2% of calls, a provider with occasional stalls
+ * </pre>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = random -> 0;
+
+    long nextNanos(Random random);
+
+    static LatencyDistribution parse(String spec) {
+
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec.trim() : spec.substring(0, colon).trim();
+        String arguments = colon < 0 ? "" : spec.substring(colon + 1).trim();
+        try {
+            switch (kind) {
+                case "none":
+                    return NONE;
+                case "fixed": {
+                    long nanos = micros(arguments);
+                    return random -> nanos;
+                }
+                case "uniform": {
+                    String[] range = arguments.split("-");
+                    long min = micros(range[0]);
+                    long max = micros(range[1]);
+                    if (max < min) {
+                        throw new IllegalArgumentException("Range is reversed");
+                    }
+                    return random -> min + (long) (random.nextDouble() * (max - min));
+                }
+                case "exp": {
+                    long mean = micros(arguments);
+                    return random -> (long) (-Math.log(1.0 - random.nextDouble()) * mean);
+                }
+                case "bimodal": {
+                    String[] parts = arguments.split(",");
+                    long typical = micros(parts[0]);
+                    double slowProbability = Double.parseDouble(parts[1].trim());
+                    long slow = micros(parts[2]);
+                    return random -> random.nextDouble() < slowProbability ? slow : typical;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown kind " + kind);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency distribution '" + spec + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static long micros(String value) {
+        long micros = Long.parseLong(value.trim());
+        if (micros < 0) {
+            throw new IllegalArgumentException("Negative latency");
+        }
+        return micros * 1000;
+    }
+}
@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records each request twice: its service time, from when it was actually sent, and its response time
+ * corrected for coordinated omission.
+ * <p>
+ * A load generator that waits for a slow response before sending the next request quietly skips the
+ * requests a real client would have sent in the meantime, so the stall is recorded once instead of once
+ * per waiting user. The open loop avoids this by timing each request from when it was scheduled; the closed
+ * loop back-fills the requests it failed to send at its expected interval, as HdrHistogram's
+ * {@code recordValueWithExpectedInterval} does.
+ * <p>
+ * Both run totals and the current reporting interval are kept; {@link #nextInterval()} hands the interval
+ * to the reporter and starts a new one. A request finishing exactly at the swap may be counted in either.
+ */
+public final class LatencyRecorder {
+
+    public enum Outcome {
+        PURCHASED,
+        REJECTED,
+        FAILED
+    }
+
+    private final Stats total = new Stats();
+    private final AtomicReference<Stats> interval = new AtomicReference<>(new Stats());
+
+    /**
+     * @param outcome
+     * @param serviceNanos time from send to completion
+     * @param responseNanos time from the scheduled send to completion
+     */
+    public void record(Outcome outcome, long serviceNanos, long responseNanos) {
+        total.record(outcome, serviceNanos, responseNanos);
+        interval.get().record(outcome, serviceNanos, responseNanos);
+    }
+
+    /**
+     * Record a request from a loop that meant to send one every {@code expectedIntervalNanos}, adding the
+     * response times of the requests that could not be sent while this one was outstanding.
+     *
+     * @param outcome
+     * @param serviceNanos
+     * @param expectedIntervalNanos 0 when the loop is not paced, which records the service time alone
+     */
+    public void recordCorrected(Outcome outcome, long serviceNanos, long expectedIntervalNanos) {
+        record(outcome, serviceNanos, serviceNanos);
+        if (expectedIntervalNanos <= 0) {
+            return;
+        }
+        Stats current = interval.get();
+        for (long missed = serviceNanos - expectedIntervalNanos; missed >= expectedIntervalNanos;
+             missed -= expectedIntervalNanos) {
+            total.responseNanos.record(missed);
+            current.responseNanos.record(missed);
+        }
+    }
+
+    public Stats getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the interval recorded since the last call
+     */
+    public Stats nextInterval() {
+        return interval.getAndSet(new Stats());
+    }
+
+    /**
+     * Outcome counts and latency histograms for a run or one interval of it.
+     */
+    public static final class Stats {
+
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        private final LatencyHistogram serviceNanos = new LatencyHistogram();
+        private final LatencyHistogram responseNanos = new LatencyHistogram();
+
+        Stats() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        void record(Outcome outcome, long serviceNanos, long responseNanos) {
+            outcomes[outcome.ordinal()].increment();
+            this.serviceNanos.record(serviceNanos);
+            this.responseNanos.record(responseNanos);
+        }
+
+        public long getCount(Outcome outcome) {
+            return outcomes[outcome.ordinal()].sum();
+        }
+
+        public long getRequestCount() {
+            long count = 0;
+            for (LongAdder outcome : outcomes) {
+                count += outcome.sum();
+            }
+            return count;
+        }
+
+        /**
+         * @return time from send to completion, what the service itself took
+         */
+        public LatencyHistogram getServiceNanos() {
+            return serviceNanos;
+        }
+
+        /**
+         * @return time from when the request should have been sent, what a user would have waited
+         */
+        public LatencyHistogram getResponseNanos() {
+            return responseNanos;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.loadtest.LatencyRecorder.Outcome;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link TicketService} with a mix of valid and invalid orders and reports the latency a user
+ * would have seen. Run with an optional properties file and overrides, see {@link LoadTestConfig}:
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar loadtest/onsale.properties rate=5000 duration=600
+ * </pre>
+ * The open loop sends on a fixed schedule whatever the responses, the way an on-sale crowd arrives, and
+ * times each request from when it was due. The closed loop keeps each thread to one request in flight, the
+ * way a fixed pool of clients behaves, and corrects for the requests it held back; see
+ * {@link LatencyRecorder}.
+ */
+public final class LoadGenerator {
+
+    private final LoadTestConfig config;
+    private final TicketService ticketService;
+    private final OrderMix orderMix;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder unexpectedOutcomes = new LongAdder();
+    private volatile LatencyRecorder recorder = new LatencyRecorder();
+
+    private final SplittableRandom arrivalRandom;
+    private long startNanos;
+    private long endNanos;
+    private double scheduledNanos;
+
+    public LoadGenerator(LoadTestConfig config, TicketService ticketService, OrderMix orderMix) {
+        this.config = config;
+        this.ticketService = ticketService;
+        this.orderMix = orderMix;
+        this.arrivalRandom = new SplittableRandom(config.getSeed());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        SimulatedGateway seatReservation = new SimulatedGateway("seat reservation", config.getSeatLatency(),
+                config.getSeatFailureRate());
+        SimulatedGateway ticketPayment = new SimulatedGateway("ticket payment", config.getPaymentLatency(),
+                config.getPaymentFailureRate());
+        TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservation, ticketPayment);
+
+        LoadReport report = new LoadReport(config, System.out);
+        new LoadGenerator(config, ticketService, new OrderMix(config.getInvalidRatio(), 1 << 16, config.getSeed()))
+                .run(report, Arrays.asList(seatReservation, ticketPayment));
+        System.out.println("results written to " + report.write());
+    }
+
+    /**
+     * Warm up, then measure for the configured duration, printing a line per reporting interval.
+     *
+     * @param report receives progress and the final results
+     * @param gateways whose call counts go in the report
+     * @throws InterruptedException
+     */
+    public void run(LoadReport report, List<SimulatedGateway> gateways) throws InterruptedException {
+
+        report.started();
+        startNanos = System.nanoTime();
+        long measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+
+        List<Thread> threads = new ArrayList<>(config.getThreads());
+        for (int i = 0; i < config.getThreads(); i++) {
+            Thread thread = new Thread(config.getArrival() == LoadTestConfig.Arrival.OPEN ? this::openLoop : this::closedLoop,
+                    "load-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // the warm up is recorded into a recorder that is then thrown away
+        parkUntil(measureStartNanos);
+        LatencyRecorder measured = new LatencyRecorder();
+        recorder = measured;
+        unexpectedOutcomes.reset();
+
+        for (long second = config.getReportIntervalSeconds(); second <= config.getDurationSeconds();
+             second += config.getReportIntervalSeconds()) {
+            parkUntil(measureStartNanos + TimeUnit.SECONDS.toNanos(second));
+            report.interval(second, measured.nextInterval());
+        }
+
+        parkUntil(endNanos);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report.finished(measured.getTotal(), endNanos - measureStartNanos, unexpectedOutcomes.sum(), gateways);
+    }
+
+    private void openLoop() {
+        while (true) {
+            long scheduled = nextScheduledNanos();
+            if (scheduled - endNanos >= 0) {
+                return;
+            }
+            parkUntil(scheduled);
+            long sent = System.nanoTime();
+            Outcome outcome = purchase(sequence.getAndIncrement());
+            long done = System.nanoTime();
+            recorder.record(outcome, done - sent, done - scheduled);
+        }
+    }
+
+    private void closedLoop() {
+        long expectedIntervalNanos = config.getRate() > 0
+                ? (long) (config.getThreads() * 1e9 / config.getRate())
+                : 0;
+        while (true) {
+            long sent = System.nanoTime();
+            if (sent - endNanos >= 0) {
+                return;
+            }
+            Outcome outcome = purchase(sequence.getAndIncrement());
+            long done = System.nanoTime();
+            recorder.recordCorrected(outcome, done - sent, expectedIntervalNanos);
+            if (expectedIntervalNanos > 0) {
+                parkUntil(sent + expectedIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Next send time of the shared open loop schedule, evenly spaced or with exponential gaps. Threads that
+     * fall behind take send times already in the past, and that lateness is counted in the response time.
+     */
+    private synchronized long nextScheduledNanos() {
+        double gapNanos = 1e9 / config.getRate();
+        long scheduled = startNanos + (long) scheduledNanos;
+        scheduledNanos += config.isPoisson() ? -Math.log(1.0 - arrivalRandom.nextDouble()) * gapNanos : gapNanos;
+        return scheduled;
+    }
+
+    private Outcome purchase(long sequence) {
+        PurchaseOrder purchaseOrder = orderMix.get(sequence);
+        Outcome outcome;
+        try {
+            ticketService.purchaseTickets(purchaseOrder.getAccountId(), purchaseOrder.getTicketTypeRequests());
+            outcome = Outcome.PURCHASED;
+        } catch (InvalidPurchaseException e) {
+            outcome = Outcome.REJECTED;
+        } catch (RuntimeException e) {
+            outcome = Outcome.FAILED;
+        }
+        // a valid order may fail at a gateway, but only an invalid one should be rejected
+        if (orderMix.isValid(sequence) == (outcome == Outcome.REJECTED)) {
+            unexpectedOutcomes.increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * Block until the deadline, or until interrupted.
+     */
+    static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
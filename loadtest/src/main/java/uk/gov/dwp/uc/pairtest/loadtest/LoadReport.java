@@ -0,0 +1,179 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.loadtest.LatencyRecorder.Outcome;
+import uk.gov.dwp.uc.pairtest.loadtest.LatencyRecorder.Stats;
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Progress lines while a run is going and a percentile summary at the end, printed and written to a
+ * directory per run:
+ * <pre>
+ * summary.properties   settings and headline results, one key per line so two runs diff cleanly
+ * percentiles.csv      service and response time at each percentile, in microseconds
+ * intervals.csv        one row per reporting interval, to spot drift over a soak
+ * </pre>
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.5, 99.9, 99.95, 99.99, 100};
+    private static final double[] SUMMARY_PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+    private static final String INTERVALS_HEADER = "second,requests,purchased,rejected,failed,"
+            + "service_p50_us,service_p99_us,response_p50_us,response_p99_us,response_max_us";
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final LoadTestConfig config;
+    private final PrintStream out;
+    private final List<String> intervalRows = new ArrayList<>();
+
+    private Stats total;
+    private long elapsedNanos;
+    private long unexpectedOutcomes;
+    private List<SimulatedGateway> gateways = new ArrayList<>();
+
+    public LoadReport(LoadTestConfig config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+    }
+
+    void started() {
+        out.printf(Locale.ROOT, "%s loop, %s, %d threads, %ds warm up, %ds measured%n",
+                config.getArrival().name().toLowerCase(Locale.ROOT),
+                config.getRate() > 0 ? String.format(Locale.ROOT, "%.0f req/s", config.getRate()) : "unpaced",
+                config.getThreads(), config.getWarmupSeconds(), config.getDurationSeconds());
+    }
+
+    void interval(long second, Stats interval) {
+        double seconds = config.getReportIntervalSeconds();
+        out.printf(Locale.ROOT, "%5ds %8.0f req/s  ok %7d  rejected %6d  failed %5d  response p50 %9s  p99 %9s  max %9s%n",
+                second, interval.getRequestCount() / seconds,
+                interval.getCount(Outcome.PURCHASED), interval.getCount(Outcome.REJECTED),
+                interval.getCount(Outcome.FAILED),
+                formatMicros(interval.getResponseNanos().getValueAtPercentile(50)),
+                formatMicros(interval.getResponseNanos().getValueAtPercentile(99)),
+                formatMicros(interval.getResponseNanos().getMaxValue()));
+
+        intervalRows.add(second
+                + "," + interval.getRequestCount()
+                + "," + interval.getCount(Outcome.PURCHASED)
+                + "," + interval.getCount(Outcome.REJECTED)
+                + "," + interval.getCount(Outcome.FAILED)
+                + "," + micros(interval.getServiceNanos().getValueAtPercentile(50))
+                + "," + micros(interval.getServiceNanos().getValueAtPercentile(99))
+                + "," + micros(interval.getResponseNanos().getValueAtPercentile(50))
+                + "," + micros(interval.getResponseNanos().getValueAtPercentile(99))
+                + "," + micros(interval.getResponseNanos().getMaxValue()));
+    }
+
+    void finished(Stats total, long elapsedNanos, long unexpectedOutcomes, List<SimulatedGateway> gateways) {
+        this.total = total;
+        this.elapsedNanos = elapsedNanos;
+        this.unexpectedOutcomes = unexpectedOutcomes;
+        this.gateways = gateways;
+
+        out.println();
+        out.printf(Locale.ROOT, "requests %d (%.1f/s)  purchased %d  rejected %d  failed %d  unexpected %d%n",
+                total.getRequestCount(), getThroughput(), total.getCount(Outcome.PURCHASED),
+                total.getCount(Outcome.REJECTED), total.getCount(Outcome.FAILED), unexpectedOutcomes);
+        out.printf("%-12s %12s %12s%n", "percentile", "service", "response");
+        for (double percentile : SUMMARY_PERCENTILES) {
+            out.printf("%-12s %12s %12s%n", percentile == 100 ? "max" : formatPercentile(percentile),
+                    formatMicros(valueAt(total.getServiceNanos(), percentile)),
+                    formatMicros(valueAt(total.getResponseNanos(), percentile)));
+        }
+        for (SimulatedGateway gateway : gateways) {
+            out.printf("%s: %d calls, %d failed, warm up included%n", gateway.getName(), gateway.getCallCount(), gateway.getFailureCount());
+        }
+    }
+
+    /**
+     * Write the result files into a new directory under the configured output directory.
+     *
+     * @return the run's directory
+     * @throws IOException
+     */
+    public Path write() throws IOException {
+
+        Path runDirectory = config.getOutput().resolve(LocalDateTime.now().format(RUN_ID) + "-"
+                + config.getArrival().name().toLowerCase(Locale.ROOT));
+        Files.createDirectories(runDirectory);
+
+        try (Writer writer = Files.newBufferedWriter(runDirectory.resolve("summary.properties"), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> setting : config.asMap().entrySet()) {
+                writer.write("config." + setting.getKey() + "=" + setting.getValue() + "\n");
+            }
+            writer.write("result.elapsedSeconds=" + String.format(Locale.ROOT, "%.3f", elapsedNanos / 1e9) + "\n");
+            writer.write("result.requests=" + total.getRequestCount() + "\n");
+            writer.write("result.throughput=" + String.format(Locale.ROOT, "%.1f", getThroughput()) + "\n");
+            for (Outcome outcome : Outcome.values()) {
+                writer.write("result." + outcome.name().toLowerCase(Locale.ROOT) + "=" + total.getCount(outcome) + "\n");
+            }
+            writer.write("result.unexpected=" + unexpectedOutcomes + "\n");
+            for (double percentile : SUMMARY_PERCENTILES) {
+                String key = percentile == 100 ? "max" : "p" + formatPercentile(percentile);
+                writer.write("result.service." + key + "_us=" + micros(valueAt(total.getServiceNanos(), percentile)) + "\n");
+                writer.write("result.response." + key + "_us=" + micros(valueAt(total.getResponseNanos(), percentile)) + "\n");
+            }
+            for (SimulatedGateway gateway : gateways) {
+                String key = "gateway." + gateway.getName().replace(' ', '-');
+                writer.write(key + ".calls=" + gateway.getCallCount() + "\n");
+                writer.write(key + ".failures=" + gateway.getFailureCount() + "\n");
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(runDirectory.resolve("percentiles.csv"), StandardCharsets.UTF_8)) {
+            writer.write("percentile,service_us,response_us\n");
+            for (double percentile : PERCENTILES) {
+                writer.write(formatPercentile(percentile)
+                        + "," + micros(valueAt(total.getServiceNanos(), percentile))
+                        + "," + micros(valueAt(total.getResponseNanos(), percentile)) + "\n");
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(runDirectory.resolve("intervals.csv"), StandardCharsets.UTF_8)) {
+            writer.write(INTERVALS_HEADER + "\n");
+            for (String row : intervalRows) {
+                writer.write(row + "\n");
+            }
+        }
+        return runDirectory;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : total.getRequestCount() * 1e9 / elapsedNanos;
+    }
+
+    private static long valueAt(LatencyHistogram histogram, double percentile) {
+        return percentile == 100 ? histogram.getMaxValue() : histogram.getValueAtPercentile(percentile);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    private static String formatMicros(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        }
+        if (nanos >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+    }
+}
@@ -0,0 +1,182 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Immutable Object
+ * <p>
+ * Settings for one load test run, read from a properties file with {@code key=value} overrides from the
+ * command line. Every key is optional:
+ * <pre>
+ * arrival=open               open: send at the rate whatever the responses; closed: each thread waits for its reply
+ * rate=2000                  requests per second; 0 in a closed loop sends as fast as replies allow
+ * poisson=false              open loop only: random gaps averaging the rate instead of even spacing
+ * threads=16                 sending threads; in an open loop this caps requests in flight
+ * warmup=10                  seconds run but not recorded
+ * duration=60                seconds recorded
+ * reportInterval=1           seconds between progress lines
+ * invalidRatio=0.1           share of orders the validators should reject
+ * seed=42                    order pool seed
+ * seat.latency=exp:300       see {@link LatencyDistribution}
+ * seat.failureRate=0
+ * payment.latency=bimodal:500,0.01,50000
+ * payment.failureRate=0.001
+ * output=target/runs         each run writes a directory of result files here
+ * </pre>
+ */
+public final class LoadTestConfig {
+
+    public enum Arrival {
+        OPEN,
+        CLOSED
+    }
+
+    private final Properties properties;
+
+    private final Arrival arrival;
+    private final double rate;
+    private final boolean poisson;
+    private final int threads;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int reportIntervalSeconds;
+    private final double invalidRatio;
+    private final long seed;
+    private final String seatLatency;
+    private final double seatFailureRate;
+    private final String paymentLatency;
+    private final double paymentFailureRate;
+    private final Path output;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+        arrival = Arrival.valueOf(get("arrival", "open").toUpperCase());
+        rate = Double.parseDouble(get("rate", "2000"));
+        poisson = Boolean.parseBoolean(get("poisson", "false"));
+        threads = Integer.parseInt(get("threads", "16"));
+        warmupSeconds = Integer.parseInt(get("warmup", "10"));
+        durationSeconds = Integer.parseInt(get("duration", "60"));
+        reportIntervalSeconds = Integer.parseInt(get("reportInterval", "1"));
+        invalidRatio = Double.parseDouble(get("invalidRatio", "0.1"));
+        seed = Long.parseLong(get("seed", "42"));
+        seatLatency = get("seat.latency", "exp:300");
+        seatFailureRate = Double.parseDouble(get("seat.failureRate", "0"));
+        paymentLatency = get("payment.latency", "bimodal:500,0.01,50000");
+        paymentFailureRate = Double.parseDouble(get("payment.failureRate", "0.001"));
+        output = Paths.get(get("output", "target/runs"));
+
+        if (arrival == Arrival.OPEN && rate <= 0) {
+            throw new IllegalArgumentException("An open loop needs a rate above 0");
+        }
+        if (threads < 1 || durationSeconds < 1 || reportIntervalSeconds < 1 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("threads, duration and reportInterval must be at least 1, warmup at least 0");
+        }
+        // parse now so a typo fails before the warm up rather than after it
+        LatencyDistribution.parse(seatLatency);
+        LatencyDistribution.parse(paymentLatency);
+    }
+
+    /**
+     * @param args an optional properties file followed by {@code key=value} overrides
+     * @return
+     * @throws IOException when the properties file cannot be read
+     */
+    public static LoadTestConfig fromArgs(String... args) throws IOException {
+        Properties properties = new Properties();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                properties.setProperty(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+            } else {
+                Properties file = new Properties();
+                try (Reader reader = Files.newBufferedReader(Paths.get(arg), StandardCharsets.UTF_8)) {
+                    file.load(reader);
+                }
+                // overrides given before the file still win
+                file.putAll(properties);
+                properties = file;
+            }
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = properties.getProperty(key, defaultValue).trim();
+        properties.setProperty(key, value);
+        return value;
+    }
+
+    /**
+     * @return every setting, defaults included, in key order for writing alongside the results
+     */
+    public TreeMap<String, String> asMap() {
+        TreeMap<String, String> settings = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            settings.put(key, properties.getProperty(key));
+        }
+        return settings;
+    }
+
+    public Arrival getArrival() {
+        return arrival;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public boolean isPoisson() {
+        return poisson;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+
+    public double getInvalidRatio() {
+        return invalidRatio;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public LatencyDistribution getSeatLatency() {
+        return LatencyDistribution.parse(seatLatency);
+    }
+
+    public double getSeatFailureRate() {
+        return seatFailureRate;
+    }
+
+    public LatencyDistribution getPaymentLatency() {
+        return LatencyDistribution.parse(paymentLatency);
+    }
+
+    public double getPaymentFailureRate() {
+        return paymentFailureRate;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
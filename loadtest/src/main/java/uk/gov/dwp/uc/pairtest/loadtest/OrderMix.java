@@ -0,0 +1,116 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed pool of purchase orders replayed in sequence, so generating load costs an array read rather than
+ * competing with the service for CPU and allocation.
+ * <p>
+ * Valid orders are mostly small family groups with the occasional large party. The invalid share cycles
+ * through every way a request can be rejected, in equal measure.
+ */
+public final class OrderMix {
+
+    /**
+     * Ways an order can be invalid, one per rejection the validators can report.
+     */
+    enum Invalid {
+        INVALID_ACCOUNT,
+        NO_TICKETS,
+        EMPTY_TICKET_TYPE,
+        NEGATIVE_TICKETS,
+        NO_ADULT_TICKETS,
+        TOO_MANY_TICKETS,
+        TOO_MANY_INFANTS
+    }
+
+    private static final Invalid[] INVALID = Invalid.values();
+    private static final int MAX_TICKETS = 25;
+
+    private final PurchaseOrder[] purchaseOrders;
+    private final boolean[] valid;
+    private final int mask;
+
+    /**
+     * @param invalidRatio share of orders that should be rejected, between 0 and 1
+     * @param poolSize rounded up to a power of two
+     * @param seed the same seed always builds the same pool
+     */
+    public OrderMix(double invalidRatio, int poolSize, long seed) {
+        if (invalidRatio < 0 || invalidRatio > 1) {
+            throw new IllegalArgumentException("Invalid ratio must be between 0 and 1: " + invalidRatio);
+        }
+        int size = Integer.highestOneBit(Math.max(1, poolSize - 1)) << 1;
+        purchaseOrders = new PurchaseOrder[size];
+        valid = new boolean[size];
+        mask = size - 1;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int invalidCount = 0;
+        for (int i = 0; i < size; i++) {
+            long accountId = 1 + random.nextLong(1_000_000);
+            if (random.nextDouble() < invalidRatio) {
+                purchaseOrders[i] = invalidOrder(INVALID[invalidCount++ % INVALID.length], accountId, random);
+            } else {
+                purchaseOrders[i] = validOrder(accountId, random);
+                valid[i] = true;
+            }
+        }
+    }
+
+    public PurchaseOrder get(long sequence) {
+        return purchaseOrders[(int) (sequence & mask)];
+    }
+
+    /**
+     * @param sequence
+     * @return whether the order at the sequence should be accepted by the validators
+     */
+    public boolean isValid(long sequence) {
+        return valid[(int) (sequence & mask)];
+    }
+
+    public int size() {
+        return purchaseOrders.length;
+    }
+
+    private static PurchaseOrder validOrder(long accountId, SplittableRandom random) {
+        boolean largeParty = random.nextInt(20) == 0;
+        int adults = largeParty ? 1 + random.nextInt(MAX_TICKETS) : 1 + random.nextInt(2);
+        int children = largeParty ? random.nextInt(MAX_TICKETS - adults + 1) : random.nextInt(4);
+        int infants = random.nextInt(4) == 0 ? 1 + random.nextInt(adults) : 0;
+        return order(accountId, adults, children, infants);
+    }
+
+    private static PurchaseOrder invalidOrder(Invalid invalid, long accountId, SplittableRandom random) {
+        switch (invalid) {
+            case INVALID_ACCOUNT:
+                return new PurchaseOrder(-accountId, new TicketTypeRequest(Type.ADULT, 1));
+            case NO_TICKETS:
+                return new PurchaseOrder(accountId);
+            case EMPTY_TICKET_TYPE:
+                return new PurchaseOrder(accountId, new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(null, 1));
+            case NEGATIVE_TICKETS:
+                return new PurchaseOrder(accountId, new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, -1));
+            case NO_ADULT_TICKETS:
+                return order(accountId, 0, 1 + random.nextInt(3), 0);
+            case TOO_MANY_TICKETS:
+                return order(accountId, MAX_TICKETS + 1 - random.nextInt(10), 10, 0);
+            case TOO_MANY_INFANTS:
+                return order(accountId, 1, 0, 2 + random.nextInt(2));
+            default:
+                throw new IllegalStateException("Unhandled " + invalid);
+        }
+    }
+
+    private static PurchaseOrder order(long accountId, int adults, int children, int infants) {
+        return new PurchaseOrder(accountId,
+                new TicketTypeRequest(Type.ADULT, adults),
+                new TicketTypeRequest(Type.CHILD, children),
+                new TicketTypeRequest(Type.INFANT, infants));
+    }
+}
@@ -0,0 +1,63 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for a remote seat or payment provider. Each call blocks the caller for a time drawn from the
+ * latency distribution, then fails with the failure rate, as a real provider holds a request thread.
+ */
+public class SimulatedGateway implements SeatReservationService, TicketPaymentService {
+
+    private final String name;
+    private final LatencyDistribution latencyDistribution;
+    private final double failureRate;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SimulatedGateway(String name, LatencyDistribution latencyDistribution, double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1: " + failureRate);
+        }
+        this.name = name;
+        this.latencyDistribution = latencyDistribution;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        call();
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        call();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    private void call() {
+        calls.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadGenerator.parkUntil(System.nanoTime() + latencyDistribution.nextNanos(random));
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            failures.increment();
+            throw new IllegalStateException("Simulated " + name + " failure");
+        }
+    }
+}
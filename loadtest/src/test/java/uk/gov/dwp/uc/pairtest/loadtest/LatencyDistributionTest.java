@@ -0,0 +1,45 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class LatencyDistributionTest {
+
+    @Test
+    @DisplayName("Should parse each kind of distribution with times in microseconds")
+    public void testParse() {
+        Random random = new Random(3);
+
+        Assertions.assertEquals(300_000, LatencyDistribution.parse("fixed:300").nextNanos(random));
+        Assertions.assertEquals(0, LatencyDistribution.parse("none").nextNanos(random));
+
+        LatencyDistribution uniform = LatencyDistribution.parse("uniform:100-200");
+        LatencyDistribution bimodal = LatencyDistribution.parse("bimodal:100,0.1,5000");
+        LatencyDistribution exponential = LatencyDistribution.parse("exp:300");
+        long slow = 0;
+        double exponentialTotal = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long uniformNanos = uniform.nextNanos(random);
+            Assertions.assertTrue(uniformNanos >= 100_000 && uniformNanos <= 200_000);
+            if (bimodal.nextNanos(random) == 5_000_000) {
+                slow++;
+            }
+            exponentialTotal += exponential.nextNanos(random);
+        }
+        Assertions.assertEquals(10_000, slow, 1_000);
+        Assertions.assertEquals(300_000, exponentialTotal / 100_000, 10_000);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed specs with the spec in the message")
+    public void testParse_invalid() {
+        for (String spec : new String[]{"gaussian:100", "fixed:-1", "uniform:300-100", "bimodal:100", "fixed:abc"}) {
+            IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> LatencyDistribution.parse(spec));
+            Assertions.assertTrue(exception.getMessage().contains(spec), exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.loadtest.LatencyRecorder.Outcome;
+import uk.gov.dwp.uc.pairtest.loadtest.LatencyRecorder.Stats;
+
+class LatencyRecorderTest {
+
+    @Test
+    @DisplayName("Should back-fill the requests a paced closed loop could not send during a stall")
+    public void testRecordCorrected_backFillsStall() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        for (int i = 0; i < 99; i++) {
+            recorder.recordCorrected(Outcome.PURCHASED, 1_000, 10_000);
+        }
+        // one 100us stall with a request due every 10us hides 9 more requests waiting 90us, 80us ... 10us
+        recorder.recordCorrected(Outcome.PURCHASED, 100_000, 10_000);
+
+        Stats total = recorder.getTotal();
+        Assertions.assertEquals(100, total.getRequestCount());
+        Assertions.assertEquals(100, total.getServiceNanos().getCount());
+        Assertions.assertEquals(109, total.getResponseNanos().getCount());
+        Assertions.assertTrue(total.getServiceNanos().getValueAtPercentile(99) < 2_000);
+        Assertions.assertTrue(total.getResponseNanos().getValueAtPercentile(95) >= 50_000);
+    }
+
+    @Test
+    @DisplayName("Should record service time alone when the closed loop is not paced")
+    public void testRecordCorrected_unpaced() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        recorder.recordCorrected(Outcome.REJECTED, 100_000, 0);
+
+        Assertions.assertEquals(1, recorder.getTotal().getResponseNanos().getCount());
+        Assertions.assertEquals(1, recorder.getTotal().getCount(Outcome.REJECTED));
+    }
+
+    @Test
+    @DisplayName("Should start a new interval on each hand over while keeping run totals")
+    public void testNextInterval() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        recorder.record(Outcome.PURCHASED, 1_000, 5_000);
+        recorder.record(Outcome.FAILED, 2_000, 2_000);
+        Stats first = recorder.nextInterval();
+        recorder.record(Outcome.PURCHASED, 1_000, 1_000);
+        Stats second = recorder.nextInterval();
+
+        Assertions.assertEquals(2, first.getRequestCount());
+        Assertions.assertEquals(1, first.getCount(Outcome.FAILED));
+        Assertions.assertEquals(1, second.getRequestCount());
+        Assertions.assertEquals(3, recorder.getTotal().getRequestCount());
+        Assertions.assertEquals(2, recorder.getTotal().getCount(Outcome.PURCHASED));
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+class OrderMixTest {
+
+    private final AccountValidator accountValidator = new AccountValidator();
+    private final TicketValidator ticketValidator = new TicketValidator();
+
+    @Test
+    @DisplayName("Should build orders the validators judge as labelled, in the requested ratio, covering every rejection")
+    public void testOrders_matchValidators() {
+        OrderMix orderMix = new OrderMix(0.2, 10_000, 7);
+        Set<ValidationResult> rejections = EnumSet.noneOf(ValidationResult.class);
+        int invalid = 0;
+
+        for (int i = 0; i < orderMix.size(); i++) {
+            ValidationResult validationResult = validate(orderMix.get(i));
+            Assertions.assertEquals(orderMix.isValid(i), validationResult.isValid(), "order " + i);
+            if (!validationResult.isValid()) {
+                rejections.add(validationResult);
+                invalid++;
+            }
+        }
+
+        Assertions.assertEquals(16_384, orderMix.size());
+        Assertions.assertEquals(0.2, invalid / (double) orderMix.size(), 0.02);
+        Assertions.assertEquals(OrderMix.Invalid.values().length, rejections.size());
+    }
+
+    @Test
+    @DisplayName("Should build the same pool from the same seed and wrap sequences around it")
+    public void testOrders_repeatable() {
+        OrderMix first = new OrderMix(0.5, 64, 11);
+        OrderMix second = new OrderMix(0.5, 64, 11);
+
+        for (int i = 0; i < 64; i++) {
+            Assertions.assertEquals(first.get(i).getAccountId(), second.get(i).getAccountId());
+            Assertions.assertEquals(first.isValid(i), second.isValid(i));
+        }
+        Assertions.assertSame(first.get(3), first.get(64 + 3));
+    }
+
+    private ValidationResult validate(PurchaseOrder purchaseOrder) {
+        ValidationResult validationResult = accountValidator.checkAccount(purchaseOrder.getAccountId());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        validationResult = ticketValidator.checkTicketRequests(purchaseOrder.getTicketTypeRequests());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        return ticketValidator.checkTicketRatio(new TicketTypeTally().addAll(purchaseOrder.getTicketTypeRequests()));
+    }
+}
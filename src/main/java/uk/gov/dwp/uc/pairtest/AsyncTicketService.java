@@ -0,0 +1,19 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncTicketService {
+
+    /**
+     * Validate the purchase on the calling thread, then reserve seats and take payment without blocking it.
+     *
+     * @param accountId
+     * @param ticketTypeRequests
+     * @return future completed with a failed result for an invalid purchase, or exceptionally if a gateway call fails
+     */
+    CompletableFuture<PurchaseResult> purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests);
+
+}
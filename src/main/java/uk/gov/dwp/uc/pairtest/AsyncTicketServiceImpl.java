@@ -0,0 +1,98 @@
+package uk.gov.dwp.uc.pairtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.concurrent.BoundedExecutor;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteTable;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+
+    private AccountValidator accountValidator;
+    private TicketValidator ticketValidator;
+
+    private SeatReservationService seatReservationService;
+    private TicketPaymentService ticketPaymentService;
+
+    private QuoteEngine quoteEngine;
+
+    /**
+     * Caps on in-flight calls to each gateway, so a slow provider cannot hold every executor thread.
+     * Calls over the cap queue rather than park an executor thread waiting for a permit.
+     */
+    private BoundedExecutor seatReservationExecutor;
+    private BoundedExecutor ticketPaymentExecutor;
+
+    private final ThreadLocal<TicketTypeTally> ticketTypeTally = ThreadLocal.withInitial(TicketTypeTally::new);
+
+    public AsyncTicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                                  SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                                  Executor gatewayExecutor, int maxInFlightReservations, int maxInFlightPayments) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), gatewayExecutor,
+                maxInFlightReservations, maxInFlightPayments);
+    }
+
+    public AsyncTicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                                  SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                                  QuoteEngine quoteEngine, Executor gatewayExecutor, int maxInFlightReservations,
+                                  int maxInFlightPayments) {
+        this.accountValidator = accountValidator;
+        this.ticketValidator = ticketValidator;
+        this.seatReservationService = seatReservationService;
+        this.ticketPaymentService = ticketPaymentService;
+        this.quoteEngine = quoteEngine;
+        this.seatReservationExecutor = new BoundedExecutor(gatewayExecutor, maxInFlightReservations);
+        this.ticketPaymentExecutor = new BoundedExecutor(gatewayExecutor, maxInFlightPayments);
+    }
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+
+        long quote = validatePurchase(accountId, ticketTypeRequests, this.ticketTypeTally.get());
+        ValidationResult validationResult = QuoteTable.getValidationResult(quote);
+        if (!validationResult.isValid()) {
+            return CompletableFuture.completedFuture(PurchaseResult.failure(accountId,
+                    quoteEngine.getTicketValidator().getMessage(validationResult)));
+        }
+
+        int reserveSeatCount = QuoteTable.getSeatCount(quote);
+        int totalAmount = QuoteTable.getTotalAmount(quote);
+
+        return seatReservationExecutor
+                .submit(() -> seatReservationService.reserveSeat(accountId, reserveSeatCount))
+                .thenCompose(ignored -> ticketPaymentExecutor
+                        .submit(() -> ticketPaymentService.makePayment(accountId, totalAmount)))
+                .thenApply(ignored -> PurchaseResult.success(accountId, reserveSeatCount, totalAmount));
+    }
+
+    /**
+     * Validate account and ticket requests without throwing, then check the ratio and price the tickets
+     * with one quote lookup, as {@link TicketServiceImpl} does
+     *
+     * @return packed quote, see {@link QuoteTable}
+     */
+    private long validatePurchase(Long accountId, TicketTypeRequest[] ticketTypeRequests, TicketTypeTally ticketTypeTally) {
+
+        ValidationResult validationResult = accountValidator.checkAccount(accountId);
+        if (validationResult.isValid()) {
+            validationResult = ticketValidator.checkTicketRequests(ticketTypeRequests);
+        }
+        if (!validationResult.isValid()) {
+            return QuoteTable.rejected(validationResult);
+        }
+        return quoteEngine.quote(ticketTypeTally.reset().addAll(ticketTypeRequests));
+    }
+
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for blocking third-party gateway calls.
+ */
+public final class GatewayExecutors {
+
+    private GatewayExecutors() {
+    }
+
+    /**
+     * Virtual thread per task when the runtime supports it (Java 21+), otherwise a fixed pool of platform threads.
+     * Looked up reflectively so the project still compiles and runs on Java 11.
+     *
+     * @param fallbackThreads size of the platform thread pool used when virtual threads are unavailable
+     * @return
+     */
+    public static ExecutorService newGatewayExecutor(int fallbackThreads) {
+        try {
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(fallbackThreads);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.seating.SeatAllocation;
+
+/**
+ * Immutable Object
+ * <p>
+ * A purchase begun by {@link TicketServiceImpl#beginHeldPurchase} whose seats are taken and counted against
+ * the account's cap, but not yet paid for.
+ */
+public final class HeldPurchase {
+
+    private final long purchaseId;
+    private final long accountId;
+    private final SeatAllocation seatAllocation;
+    private final int totalAmount;
+    private final TicketTypeTally ticketTypeTally;
+
+    HeldPurchase(long purchaseId, long accountId, SeatAllocation seatAllocation, int totalAmount,
+                 TicketTypeTally ticketTypeTally) {
+        this.purchaseId = purchaseId;
+        this.accountId = accountId;
+        this.seatAllocation = seatAllocation;
+        this.totalAmount = totalAmount;
+        this.ticketTypeTally = ticketTypeTally;
+    }
+
+    long getPurchaseId() {
+        return purchaseId;
+    }
+
+    TicketTypeTally getTicketTypeTally() {
+        return ticketTypeTally;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public SeatAllocation getSeatAllocation() {
+        return seatAllocation;
+    }
+
+    public int getSeatCount() {
+        return seatAllocation.getSeatCount();
+    }
+
+    /**
+     * @return amount to pay, priced when the purchase was begun
+     */
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+}
@@ -0,0 +1,223 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.concurrent.MpscRingBuffer;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.io.Closeable;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * {@link AsyncTicketService} that hashes each account to one of a fixed number of shards.
+ * <p>
+ * Every shard owns a {@link TicketService} built for it alone and a single thread that feeds it from an
+ * {@link MpscRingBuffer}, so all purchases for an account run in order on one thread and per-account state
+ * behind the shard's service can be mutated without locks. The shard thread drains whatever has queued,
+ * up to the maximum batch size, into one {@link TicketService#purchaseTicketsBatch(List)} call.
+ * <p>
+ * Unlike {@link AsyncTicketServiceImpl}, validation runs on the shard. A full shard queue completes the
+ * future at once with a {@link ValidationResult#SERVICE_BUSY} failure. Dependent stages added without an
+ * executor run on the shard thread, so keep them short or use the async variants. Anything a shard's
+ * service throws, {@link Error}s included, fails only the batch it was thrown for.
+ */
+public class PartitionedTicketService implements AsyncTicketService, Closeable {
+
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private static final int YIELDS_BEFORE_PARK = 10;
+
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    /**
+     * @param shardCount number of shards and shard threads
+     * @param queueCapacity purchases each shard may have waiting
+     * @param maxBatchSize most purchases handed to a shard's service at once
+     * @param shardTicketService builds the service for each shard index
+     */
+    public PartitionedTicketService(int shardCount, int queueCapacity, int maxBatchSize,
+                                    IntFunction<TicketService> shardTicketService) {
+        if (shardCount <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Shard count and batch size must be positive");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardTicketService.apply(i), queueCapacity, maxBatchSize);
+        }
+        for (int i = 0; i < shardCount; i++) {
+            shards[i].thread = new Thread(shards[i], "ticket-shard-" + i);
+            shards[i].thread.setDaemon(true);
+            shards[i].thread.start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        CompletableFuture<PurchaseResult> purchaseResult = new CompletableFuture<>();
+        if (!running) {
+            purchaseResult.completeExceptionally(new RejectedExecutionException("Ticket service is closed"));
+            return purchaseResult;
+        }
+
+        Shard shard = shards[shardFor(accountId)];
+        PendingPurchase pendingPurchase = new PendingPurchase(new PurchaseOrder(accountId, ticketTypeRequests), purchaseResult);
+        if (!shard.pendingPurchases.offer(pendingPurchase)) {
+            purchaseResult.complete(PurchaseResult.failure(accountId, ValidationResult.SERVICE_BUSY.getMessage()));
+            return purchaseResult;
+        }
+        // the queue's publishing store must be visible before reading the flags, or a wake up could be missed
+        VarHandle.fullFence();
+        if (!running && pendingPurchase.claim()) {
+            // closed while offering, so the shard may already have stopped; it has not taken this purchase
+            purchaseResult.completeExceptionally(new RejectedExecutionException("Ticket service is closed"));
+            return purchaseResult;
+        }
+        if (shard.parked) {
+            LockSupport.unpark(shard.thread);
+        }
+        return purchaseResult;
+    }
+
+    /**
+     * @param accountId
+     * @return index of the shard that handles the account; null ids go to shard 0 to be rejected there
+     */
+    public int shardFor(Long accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Stop taking purchases, finish those already queued, and stop the shard threads.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A queued purchase, claimed by whichever of its shard and its submitter gets to it first: the shard to
+     * run it, or the submitter to refuse it when the service closed while it was being offered.
+     */
+    private static final class PendingPurchase {
+
+        final PurchaseOrder purchaseOrder;
+        final CompletableFuture<PurchaseResult> purchaseResult;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingPurchase(PurchaseOrder purchaseOrder, CompletableFuture<PurchaseResult> purchaseResult) {
+            this.purchaseOrder = purchaseOrder;
+            this.purchaseResult = purchaseResult;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        final TicketService ticketService;
+        final MpscRingBuffer<PendingPurchase> pendingPurchases;
+        final List<PurchaseOrder> purchaseOrders;
+        final PendingPurchase[] batch;
+        Thread thread;
+        volatile boolean parked;
+
+        Shard(TicketService ticketService, int queueCapacity, int maxBatchSize) {
+            this.ticketService = ticketService;
+            this.pendingPurchases = new MpscRingBuffer<>(queueCapacity);
+            this.purchaseOrders = new ArrayList<>(maxBatchSize);
+            this.batch = new PendingPurchase[maxBatchSize];
+        }
+
+        @Override
+        public void run() {
+            int idleRounds = 0;
+            while (running || !pendingPurchases.isEmpty()) {
+                int batchSize = drain();
+                if (batchSize > 0) {
+                    purchase(batchSize);
+                    idleRounds = 0;
+                } else {
+                    idle(idleRounds++);
+                }
+            }
+        }
+
+        private int drain() {
+            int batchSize = 0;
+            PendingPurchase pendingPurchase;
+            while (batchSize < batch.length && (pendingPurchase = pendingPurchases.poll()) != null) {
+                if (pendingPurchase.claim()) {
+                    batch[batchSize++] = pendingPurchase;
+                    purchaseOrders.add(pendingPurchase.purchaseOrder);
+                }
+            }
+            return batchSize;
+        }
+
+        private void purchase(int batchSize) {
+            try {
+                List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(purchaseOrders);
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i].purchaseResult.complete(purchaseResults.get(i));
+                }
+            } catch (Throwable t) {
+                // fail the whole batch, including anything a short result list left open, and keep the shard running
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i].purchaseResult.completeExceptionally(t);
+                }
+            } finally {
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i] = null;
+                }
+                purchaseOrders.clear();
+            }
+        }
+
+        /**
+         * Spin, then yield, then park until a producer unparks us. The queue is checked again after
+         * announcing the park, so a purchase offered in between is never missed.
+         */
+        private void idle(int idleRounds) {
+            if (idleRounds < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else if (idleRounds < SPINS_BEFORE_YIELD + YIELDS_BEFORE_PARK) {
+                Thread.yield();
+            } else {
+                parked = true;
+                if (running && pendingPurchases.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+}
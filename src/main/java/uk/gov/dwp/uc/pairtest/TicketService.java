@@ -1,10 +1,23 @@
 package uk.gov.dwp.uc.pairtest;
 
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
+import java.util.List;
+
 public interface TicketService {
 
     void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException;
 
+    /**
+     * Purchase tickets for many accounts at once. Invalid orders, and orders a gateway failed on their own,
+     * are reported in their result rather than failing the whole batch.
+     *
+     * @param purchaseOrders
+     * @return one result per order, in order
+     */
+    List<PurchaseResult> purchaseTicketsBatch(List<PurchaseOrder> purchaseOrders);
+
 }
@@ -2,15 +2,36 @@ package uk.gov.dwp.uc.pairtest;
 
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
-import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventSink;
+import uk.gov.dwp.uc.pairtest.exception.BatchPaymentException;
+import uk.gov.dwp.uc.pairtest.exception.BatchSeatReservationException;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PaymentDeclinedException;
+import uk.gov.dwp.uc.pairtest.gateway.BatchSeatReservationService;
+import uk.gov.dwp.uc.pairtest.gateway.BatchTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.gateway.SeatReservationBatchAdapter;
+import uk.gov.dwp.uc.pairtest.gateway.TicketPaymentBatchAdapter;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteTable;
+import uk.gov.dwp.uc.pairtest.seating.SeatAllocation;
 import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
 import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.function.IntFunction;
 
 public class TicketServiceImpl implements TicketService {
 
@@ -20,75 +41,679 @@ public class TicketServiceImpl implements TicketService {
     private SeatReservationService seatReservationService;
     private TicketPaymentService ticketPaymentService;
 
+    private BatchSeatReservationService batchSeatReservationService;
+    private BatchTicketPaymentService batchTicketPaymentService;
+
+    private PurchaseMetrics purchaseMetrics;
+    private PurchaseJournal purchaseJournal;
+    private QuoteEngine quoteEngine;
+    private AccountLedger accountLedger;
+    private PurchaseEventSink purchaseEventSink;
+
+    /**
+     * One reusable tally per calling thread, so steady-state purchases do not allocate.
+     */
+    private final ThreadLocal<TicketTypeTally> ticketTypeTally = ThreadLocal.withInitial(TicketTypeTally::new);
+
     public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
                              SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, PurchaseMetrics.NO_OP);
+    }
+
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, purchaseMetrics,
+                PurchaseJournal.NO_OP);
+    }
+
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics, PurchaseJournal purchaseJournal) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, purchaseMetrics,
+                purchaseJournal, new PricingEngine(PriceTable.DEFAULT));
+    }
+
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics, PurchaseJournal purchaseJournal, PricingEngine pricingEngine) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, purchaseMetrics,
+                purchaseJournal, new QuoteEngine(ticketValidator, pricingEngine));
+    }
+
+    /**
+     * @param quoteEngine checks the ticket ratio and prices each purchase; its validator's limit applies
+     */
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics, PurchaseJournal purchaseJournal, QuoteEngine quoteEngine) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, purchaseMetrics,
+                purchaseJournal, quoteEngine, AccountLedger.NO_OP);
+    }
+
+    /**
+     * @param quoteEngine checks the ticket ratio and prices each purchase; its validator's limit applies
+     * @param accountLedger caps the seats each account buys across purchases
+     */
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics, PurchaseJournal purchaseJournal, QuoteEngine quoteEngine,
+                             AccountLedger accountLedger) {
+        this(accountValidator, ticketValidator, seatReservationService, ticketPaymentService, purchaseMetrics,
+                purchaseJournal, quoteEngine, accountLedger, PurchaseEventSink.NO_OP);
+    }
+
+    /**
+     * @param quoteEngine checks the ticket ratio and prices each purchase; its validator's limit applies
+     * @param accountLedger caps the seats each account buys across purchases
+     * @param purchaseEventSink told of every completed purchase
+     */
+    public TicketServiceImpl(AccountValidator accountValidator, TicketValidator ticketValidator,
+                             SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PurchaseMetrics purchaseMetrics, PurchaseJournal purchaseJournal, QuoteEngine quoteEngine,
+                             AccountLedger accountLedger, PurchaseEventSink purchaseEventSink) {
         this.accountValidator = accountValidator;
         this.ticketValidator = ticketValidator;
         this.seatReservationService = seatReservationService;
         this.ticketPaymentService = ticketPaymentService;
+        this.batchSeatReservationService = SeatReservationBatchAdapter.adapt(seatReservationService);
+        this.batchTicketPaymentService = TicketPaymentBatchAdapter.adapt(ticketPaymentService);
+        this.purchaseMetrics = purchaseMetrics;
+        this.purchaseJournal = purchaseJournal;
+        this.quoteEngine = quoteEngine;
+        this.accountLedger = accountLedger;
+        this.purchaseEventSink = purchaseEventSink;
     }
 
     /**
-     * Should only have private methods other than the one below.
+     * Should only have private methods other than the purchase entry points below.
      */
     @Override
     public void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
 
-        accountValidator.validateAccount(accountId);
-        ticketValidator.validateTicketRequests(ticketTypeRequests);
+        long purchaseStart = purchaseMetrics.nanoTime();
+        purchaseMetrics.purchasesStarted(1);
+        try {
+            TicketTypeTally ticketTypeTally = this.ticketTypeTally.get();
+            long quote = validatePurchase(accountId, ticketTypeRequests, ticketTypeTally);
+            long stageEnd = recordStage(PurchaseStage.VALIDATION, purchaseStart);
+            ValidationResult validationResult = QuoteTable.getValidationResult(quote);
+            if (!validationResult.isValid()) {
+                purchaseMetrics.recordRejection(validationResult);
+                throw quoteEngine.getTicketValidator().asException(validationResult);
+            }
+
+            int reserveSeatCount = QuoteTable.getSeatCount(quote);
+            int totalAmount = QuoteTable.getTotalAmount(quote);
 
-        Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap = createTicketTypeCountMap(ticketTypeRequests);
-        ticketValidator.validateTicketRatio(ticketTypeCountMap);
+            boolean added = accountLedger.tryAdd(accountId, reserveSeatCount);
+            recordStage(PurchaseStage.ACCOUNT_LIMIT, stageEnd);
+            if (!added) {
+                purchaseMetrics.recordRejection(ValidationResult.ACCOUNT_LIMIT_REACHED);
+                throw ValidationResult.ACCOUNT_LIMIT_REACHED.asException();
+            }
 
-        doSeatReservation(accountId, ticketTypeCountMap);
-        doTicketPayment(accountId, ticketTypeCountMap);
+            long purchaseId;
+            long paidAt;
+            try {
+                // the intent must be durable before any gateway is called, so a crash part way through can be recovered
+                purchaseId = purchaseJournal.begin(accountId, reserveSeatCount, totalAmount);
+                boolean seatsReserved = false;
+                try {
+                    purchaseJournal.sync();
+
+                    long reservedAt = doSeatReservation(accountId, reserveSeatCount);
+                    seatsReserved = true;
+                    purchaseJournal.seatsReserved(purchaseId);
+
+                    paidAt = doTicketPayment(accountId, totalAmount, reservedAt);
+                } catch (RuntimeException e) {
+                    if (seatsReserved) {
+                        journalFailureAfterReservation(e, new long[]{purchaseId}, new long[]{accountId},
+                                new int[]{reserveSeatCount}, new int[]{totalAmount});
+                    } else {
+                        journalFailure(e, purchaseId);
+                    }
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                // the seats were not bought, so they do not count towards the account's cap
+                accountLedger.release(accountId, reserveSeatCount);
+                throw e;
+            }
+            // paid for, so the seats stay counted against the cap even if the completion cannot be journalled
+            purchaseJournal.completed(purchaseId);
+            purchaseJournal.sync();
+            purchaseEventSink.purchased(accountId, ticketTypeTally, totalAmount);
+
+            purchaseMetrics.recordStage(PurchaseStage.PURCHASE, paidAt - purchaseStart);
+        } finally {
+            purchaseMetrics.purchasesFinished(1);
+        }
+    }
+
+    @Override
+    public List<PurchaseResult> purchaseTicketsBatch(List<PurchaseOrder> purchaseOrders) {
+
+        int orderCount = purchaseOrders.size();
+        List<PurchaseResult> purchaseResults = new ArrayList<>(orderCount);
+        purchaseMetrics.purchasesStarted(orderCount);
+        try {
+            return purchaseBatch(purchaseOrders, purchaseResults);
+        } finally {
+            purchaseMetrics.purchasesFinished(orderCount);
+        }
     }
 
     /**
-     * Reserve Seat allocation
+     * First half of a hold-then-pay purchase: validate and price it, count it against the account's cap and
+     * journal it like any other purchase, then take its seats with {@code reserveSeats} instead of the seat
+     * gateway. Finish it with {@link #payForHeldPurchase(HeldPurchase)} or
+     * {@link #abandonHeldPurchase(HeldPurchase)} once its seats have been given back.
      *
      * @param accountId
-     * @param ticketTypeCountMap
+     * @param ticketTypeRequests
+     * @param reserveSeats takes the given number of seats
+     * @return the purchase, holding its seats
+     * @throws InvalidPurchaseException if the purchase is invalid or over the account's cap
      */
-    private void doSeatReservation(Long accountId, Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap) {
+    public HeldPurchase beginHeldPurchase(Long accountId, TicketTypeRequest[] ticketTypeRequests,
+                                          IntFunction<SeatAllocation> reserveSeats) throws InvalidPurchaseException {
+
+        TicketTypeTally ticketTypeTally = this.ticketTypeTally.get();
+        long stageStart = purchaseMetrics.nanoTime();
+        long quote = validatePurchase(accountId, ticketTypeRequests, ticketTypeTally);
+        stageStart = recordStage(PurchaseStage.VALIDATION, stageStart);
+        ValidationResult validationResult = QuoteTable.getValidationResult(quote);
+        if (!validationResult.isValid()) {
+            purchaseMetrics.recordRejection(validationResult);
+            throw quoteEngine.getTicketValidator().asException(validationResult);
+        }
+
+        int reserveSeatCount = QuoteTable.getSeatCount(quote);
+        int totalAmount = QuoteTable.getTotalAmount(quote);
+        boolean added = accountLedger.tryAdd(accountId, reserveSeatCount);
+        stageStart = recordStage(PurchaseStage.ACCOUNT_LIMIT, stageStart);
+        if (!added) {
+            purchaseMetrics.recordRejection(ValidationResult.ACCOUNT_LIMIT_REACHED);
+            throw ValidationResult.ACCOUNT_LIMIT_REACHED.asException();
+        }
 
-        int reserveSeatCount = ticketTypeCountMap.get(TicketTypeRequest.Type.ADULT) + ticketTypeCountMap.get(TicketTypeRequest.Type.CHILD);
-        seatReservationService.reserveSeat(accountId, reserveSeatCount);
+        long purchaseId;
+        SeatAllocation seatAllocation;
+        try {
+            purchaseId = purchaseJournal.begin(accountId, reserveSeatCount, totalAmount);
+            try {
+                purchaseJournal.sync();
+                stageStart = purchaseMetrics.nanoTime();
+                try {
+                    seatAllocation = reserveSeats.apply(reserveSeatCount);
+                } catch (RuntimeException e) {
+                    purchaseMetrics.recordFailure(PurchaseStage.SEAT_RESERVATION);
+                    throw e;
+                }
+                recordStage(PurchaseStage.SEAT_RESERVATION, stageStart);
+                purchaseJournal.seatsReserved(purchaseId);
+            } catch (RuntimeException e) {
+                journalFailure(e, purchaseId);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            accountLedger.release(accountId, reserveSeatCount);
+            throw e;
+        }
+        return new HeldPurchase(purchaseId, accountId, seatAllocation, totalAmount, ticketTypeTally.copy());
     }
 
     /**
-     * Calculate and process payment for valid tickets
+     * Take payment for a held purchase through the payment gateway. If it fails, the purchase is journalled
+     * as failed after reservation and no longer counts against the account's cap; the caller still holds its
+     * seats.
      *
-     * @param accountId
-     * @param ticketTypeCountMap
+     * @param heldPurchase
      */
-    private void doTicketPayment(Long accountId, Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap) {
+    public void payForHeldPurchase(HeldPurchase heldPurchase) {
+
+        long accountId = heldPurchase.getAccountId();
+        try {
+            doTicketPayment(accountId, heldPurchase.getTotalAmount(), purchaseMetrics.nanoTime());
+        } catch (RuntimeException e) {
+            journalFailureAfterReservation(e, new long[]{heldPurchase.getPurchaseId()}, new long[]{accountId},
+                    new int[]{heldPurchase.getSeatCount()}, new int[]{heldPurchase.getTotalAmount()});
+            accountLedger.release(accountId, heldPurchase.getSeatCount());
+            throw e;
+        }
+        // paid for, so the seats stay counted against the cap even if the completion cannot be journalled
+        purchaseJournal.completed(heldPurchase.getPurchaseId());
+        purchaseJournal.sync();
+        purchaseEventSink.purchased(accountId, heldPurchase.getTicketTypeTally(), heldPurchase.getTotalAmount());
+    }
 
-        int adultTicketsAmount = ticketTypeCountMap.get(TicketTypeRequest.Type.ADULT) * TicketPrice.ADULT.getPrice();
-        int childTicketsAmount = ticketTypeCountMap.get(TicketTypeRequest.Type.CHILD) * TicketPrice.CHILD.getPrice();
-        int totalAmount = adultTicketsAmount + childTicketsAmount;
+    /**
+     * Close a held purchase whose seats have been given back without paying for it.
+     *
+     * @param heldPurchase
+     */
+    public void abandonHeldPurchase(HeldPurchase heldPurchase) {
 
-        ticketPaymentService.makePayment(accountId, totalAmount);
+        try {
+            purchaseJournal.failed(heldPurchase.getPurchaseId());
+            purchaseJournal.sync();
+        } finally {
+            accountLedger.release(heldPurchase.getAccountId(), heldPurchase.getSeatCount());
+        }
     }
 
     /**
-     * Generate Map of Type and ticket count for each type
+     * Validate every order, then reserve and pay for the valid ones in one gateway call each. A valid order's
+     * result is only built once the gateways have answered for it; if they failed every valid order, the first
+     * failure is thrown instead.
      *
+     * @param purchaseOrders
+     * @param purchaseResults receives one result per order
+     * @return purchaseResults
+     */
+    private List<PurchaseResult> purchaseBatch(List<PurchaseOrder> purchaseOrders, List<PurchaseResult> purchaseResults) {
+
+        int orderCount = purchaseOrders.size();
+
+        long[] accountIds = new long[orderCount];
+        int[] reserveSeatCounts = new int[orderCount];
+        int[] totalAmounts = new int[orderCount];
+        TicketTypeTally[] ticketTypeTallies = new TicketTypeTally[orderCount];
+        int[] resultIndexes = new int[orderCount];
+        int validOrders = 0;
+
+        TicketTypeTally ticketTypeTally = this.ticketTypeTally.get();
+        // each order's stages start where the previous one's ended, so one clock read times each stage
+        long stageStart = purchaseMetrics.nanoTime();
+        try {
+            for (PurchaseOrder purchaseOrder : purchaseOrders) {
+                Long accountId = purchaseOrder.getAccountId();
+                long quote = validatePurchase(accountId, purchaseOrder.getTicketTypeRequests(), ticketTypeTally);
+                stageStart = recordStage(PurchaseStage.VALIDATION, stageStart);
+                ValidationResult validationResult = QuoteTable.getValidationResult(quote);
+                if (!validationResult.isValid()) {
+                    purchaseMetrics.recordRejection(validationResult);
+                    purchaseResults.add(PurchaseResult.failure(accountId,
+                            quoteEngine.getTicketValidator().getMessage(validationResult)));
+                    continue;
+                }
+
+                int reserveSeatCount = QuoteTable.getSeatCount(quote);
+                int totalAmount = QuoteTable.getTotalAmount(quote);
+                boolean added = accountLedger.tryAdd(accountId, reserveSeatCount);
+                if (added) {
+                    // counted straight away, so a failure later in the batch gives the seats back
+                    accountIds[validOrders] = accountId;
+                    reserveSeatCounts[validOrders] = reserveSeatCount;
+                    totalAmounts[validOrders] = totalAmount;
+                    validOrders++;
+                }
+                stageStart = recordStage(PurchaseStage.ACCOUNT_LIMIT, stageStart);
+                if (!added) {
+                    purchaseMetrics.recordRejection(ValidationResult.ACCOUNT_LIMIT_REACHED);
+                    purchaseResults.add(PurchaseResult.failure(accountId, ValidationResult.ACCOUNT_LIMIT_REACHED.getMessage()));
+                    continue;
+                }
+
+                ticketTypeTallies[validOrders - 1] = ticketTypeTally.copy();
+                resultIndexes[validOrders - 1] = purchaseResults.size();
+                purchaseResults.add(null);
+            }
+        } catch (RuntimeException e) {
+            // no gateway has been called, so none of the batch counts towards the accounts' caps
+            releaseAccountLimits(accountIds, reserveSeatCounts, null, validOrders);
+            throw e;
+        }
+
+        if (validOrders == 0) {
+            return purchaseResults;
+        }
+        RuntimeException[] failures = reserveAndPay(Arrays.copyOf(accountIds, validOrders),
+                Arrays.copyOf(reserveSeatCounts, validOrders), Arrays.copyOf(totalAmounts, validOrders));
+        boolean anyPurchased = false;
+        for (int i = 0; i < validOrders; i++) {
+            if (failures[i] == null) {
+                anyPurchased = true;
+                purchaseResults.set(resultIndexes[i], PurchaseResult.success(accountIds[i], reserveSeatCounts[i],
+                        totalAmounts[i]));
+                purchaseEventSink.purchased(accountIds[i], ticketTypeTallies[i], totalAmounts[i]);
+            } else {
+                purchaseResults.set(resultIndexes[i], PurchaseResult.failure(accountIds[i], failures[i]));
+            }
+        }
+        if (!anyPurchased) {
+            // nothing got through the gateways, so fail the batch as a whole as a single purchase would
+            throw failures[0];
+        }
+        return purchaseResults;
+    }
+
+    /**
+     * Journal, reserve and pay for a batch of valid orders, one gateway call each. An order a gateway fails
+     * on its own is journalled and given back to its account's cap by itself, and the rest of the batch
+     * carries on; a gateway call that fails as a whole fails every order in it, and is rethrown.
+     *
+     * @param accountIds
+     * @param reserveSeatCounts
+     * @param totalAmounts
+     * @return one entry per order: why it failed, or null when it was paid for
+     */
+    private RuntimeException[] reserveAndPay(long[] accountIds, int[] reserveSeatCounts, int[] totalAmounts) {
+
+        int validOrders = accountIds.length;
+        long[] purchaseIds = new long[validOrders];
+        int begun = 0;
+        try {
+            for (; begun < validOrders; begun++) {
+                purchaseIds[begun] = purchaseJournal.begin(accountIds[begun], reserveSeatCounts[begun], totalAmounts[begun]);
+            }
+            purchaseJournal.sync();
+        } catch (RuntimeException e) {
+            journalFailure(e, Arrays.copyOf(purchaseIds, begun));
+            releaseAccountLimits(accountIds, reserveSeatCounts, null, validOrders);
+            throw e;
+        }
+
+        RuntimeException[] failures = new RuntimeException[validOrders];
+        long reservedAt;
+        try {
+            reservedAt = doSeatReservations(accountIds, reserveSeatCounts, failures);
+        } catch (RuntimeException e) {
+            journalFailure(e, purchaseIds);
+            releaseAccountLimits(accountIds, reserveSeatCounts, null, validOrders);
+            throw e;
+        }
+
+        boolean[] seatsReserved = new boolean[validOrders];
+        int[] reservedOrders = new int[validOrders];
+        int reservedCount = 0;
+        for (int i = 0; i < validOrders; i++) {
+            if (failures[i] == null) {
+                seatsReserved[i] = true;
+                reservedOrders[reservedCount++] = i;
+            }
+        }
+        if (reservedCount > 0) {
+            try {
+                long[] payingAccountIds = new long[reservedCount];
+                int[] payingAmounts = new int[reservedCount];
+                for (int i = 0; i < reservedCount; i++) {
+                    purchaseJournal.seatsReserved(purchaseIds[reservedOrders[i]]);
+                    payingAccountIds[i] = accountIds[reservedOrders[i]];
+                    payingAmounts[i] = totalAmounts[reservedOrders[i]];
+                }
+                doTicketPayments(payingAccountIds, payingAmounts, reservedAt, reservedOrders, failures);
+            } catch (RuntimeException e) {
+                // which payments were taken is unknown, so every reserved order is left for recovery
+                for (int i = 0; i < validOrders; i++) {
+                    if (failures[i] == null) {
+                        failures[i] = e;
+                    }
+                }
+                releaseAccountLimits(accountIds, reserveSeatCounts, failures, validOrders);
+                try {
+                    journalOutcomes(purchaseIds, accountIds, reserveSeatCounts, totalAmounts, seatsReserved, failures);
+                } catch (RuntimeException journalFailure) {
+                    e.addSuppressed(journalFailure);
+                }
+                throw e;
+            }
+        }
+
+        // failed orders were not bought whether or not their outcome can be journalled; paid ones stay counted
+        releaseAccountLimits(accountIds, reserveSeatCounts, failures, validOrders);
+        journalOutcomes(purchaseIds, accountIds, reserveSeatCounts, totalAmounts, seatsReserved, failures);
+        return failures;
+    }
+
+    /**
+     * Journal how each order of a batch ended: completed when paid for, declined or failed after reservation
+     * when its seats were reserved, otherwise failed.
+     *
+     * @param purchaseIds
+     * @param accountIds
+     * @param reserveSeatCounts
+     * @param totalAmounts
+     * @param seatsReserved
+     * @param failures why each order failed, or null when it was paid for
+     */
+    private void journalOutcomes(long[] purchaseIds, long[] accountIds, int[] reserveSeatCounts, int[] totalAmounts,
+                                 boolean[] seatsReserved, RuntimeException[] failures) {
+
+        for (int i = 0; i < purchaseIds.length; i++) {
+            if (failures[i] == null) {
+                purchaseJournal.completed(purchaseIds[i]);
+            } else if (seatsReserved[i]) {
+                journalFailureAfterReservation(failures[i], purchaseIds[i], accountIds[i], reserveSeatCounts[i],
+                        totalAmounts[i]);
+            } else {
+                purchaseJournal.failed(purchaseIds[i]);
+            }
+        }
+        purchaseJournal.sync();
+    }
+
+    /**
+     * Give failed orders' seats back to their accounts' caps
+     *
+     * @param accountIds
+     * @param reserveSeatCounts
+     * @param failures why each order failed, null when it was paid for; null to release every order
+     * @param orderCount orders to consider, from the first
+     */
+    private void releaseAccountLimits(long[] accountIds, int[] reserveSeatCounts, RuntimeException[] failures,
+                                      int orderCount) {
+
+        for (int i = 0; i < orderCount; i++) {
+            if (failures == null || failures[i] != null) {
+                accountLedger.release(accountIds[i], reserveSeatCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * Journal purchases the caller is about to be told failed before their seats were reserved, so recovery
+     * after a crash does not complete them. A journal that cannot be written is reported alongside the
+     * original failure, not instead of it.
+     *
+     * @param failure
+     * @param purchaseIds
+     */
+    private void journalFailure(RuntimeException failure, long... purchaseIds) {
+
+        try {
+            for (long purchaseId : purchaseIds) {
+                purchaseJournal.failed(purchaseId);
+            }
+            purchaseJournal.sync();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Journal purchases the caller is about to be told failed after their seats were reserved, so recovery
+     * can release the seats or finish them once the payment provider says whether they were charged.
+     *
+     * @param failure
+     * @param purchaseIds
+     * @param accountIds
+     * @param reserveSeatCounts
+     * @param totalAmounts
+     */
+    private void journalFailureAfterReservation(RuntimeException failure, long[] purchaseIds, long[] accountIds,
+                                                int[] reserveSeatCounts, int[] totalAmounts) {
+
+        try {
+            for (int i = 0; i < purchaseIds.length; i++) {
+                journalFailureAfterReservation(failure, purchaseIds[i], accountIds[i], reserveSeatCounts[i],
+                        totalAmounts[i]);
+            }
+            purchaseJournal.sync();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * A payment the provider declined took nothing, so recovery can release its seats without asking
+     *
+     * @param failure why the purchase failed
+     * @param purchaseId
+     * @param accountId
+     * @param reserveSeatCount
+     * @param totalAmount
+     */
+    private void journalFailureAfterReservation(RuntimeException failure, long purchaseId, long accountId,
+                                                int reserveSeatCount, int totalAmount) {
+
+        if (failure instanceof PaymentDeclinedException) {
+            purchaseJournal.paymentDeclined(purchaseId, accountId, reserveSeatCount, totalAmount);
+        } else {
+            purchaseJournal.failedAfterReservation(purchaseId, accountId, reserveSeatCount, totalAmount);
+        }
+    }
+
+    /**
+     * Validate account and ticket requests without throwing, then check the ratio and price the tickets
+     * with one quote lookup
+     *
+     * @param accountId
      * @param ticketTypeRequests
-     * @return
+     * @param ticketTypeTally reset and filled with the requested tickets once the requests are well formed
+     * @return packed quote, see {@link QuoteTable}
+     */
+    private long validatePurchase(Long accountId, TicketTypeRequest[] ticketTypeRequests, TicketTypeTally ticketTypeTally) {
+
+        ValidationResult validationResult = accountValidator.checkAccount(accountId);
+        if (!validationResult.isValid()) {
+            return QuoteTable.rejected(validationResult);
+        }
+
+        validationResult = ticketValidator.checkTicketRequests(ticketTypeRequests);
+        if (!validationResult.isValid()) {
+            return QuoteTable.rejected(validationResult);
+        }
+
+        ticketTypeTally.reset().addAll(ticketTypeRequests);
+        return quoteEngine.quote(ticketTypeTally);
+    }
+
+    /**
+     * Reserve Seat allocation
+     *
+     * @param accountId
+     * @param reserveSeatCount
+     * @return when the reservation returned
      */
-    private Map<TicketTypeRequest.Type, Integer> createTicketTypeCountMap(TicketTypeRequest[] ticketTypeRequests) {
+    private long doSeatReservation(Long accountId, int reserveSeatCount) {
+
+        long stageStart = purchaseMetrics.nanoTime();
+        try {
+            seatReservationService.reserveSeat(accountId, reserveSeatCount);
+        } catch (RuntimeException e) {
+            purchaseMetrics.recordFailure(PurchaseStage.SEAT_RESERVATION);
+            throw e;
+        }
+        return recordStage(PurchaseStage.SEAT_RESERVATION, stageStart);
+    }
 
-        Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap = Arrays.stream(ticketTypeRequests)
-                .collect(Collectors
-                        .groupingBy(TicketTypeRequest::getTicketType,
-                                Collectors.summingInt(TicketTypeRequest::getNoOfTickets)));
+    /**
+     * Process payment for valid tickets
+     *
+     * @param accountId
+     * @param totalAmount
+     * @param stageStart when the seat reservation returned, which is where payment starts
+     * @return when the payment returned
+     */
+    private long doTicketPayment(Long accountId, int totalAmount, long stageStart) {
 
-        for (TicketTypeRequest.Type type : TicketTypeRequest.Type.values()) {
-            ticketTypeCountMap.put(type, ticketTypeCountMap.getOrDefault(type, 0));
+        try {
+            ticketPaymentService.makePayment(accountId, totalAmount);
+        } catch (RuntimeException e) {
+            purchaseMetrics.recordFailure(PurchaseStage.TICKET_PAYMENT);
+            throw e;
         }
+        return recordStage(PurchaseStage.TICKET_PAYMENT, stageStart);
+    }
+
+    /**
+     * Reserve seats for a batch of orders in one gateway call
+     *
+     * @param accountIds
+     * @param reserveSeatCounts
+     * @param failures receives why each order's reservation failed when only some of them did
+     * @return when the reservation returned
+     */
+    private long doSeatReservations(long[] accountIds, int[] reserveSeatCounts, RuntimeException[] failures) {
+
+        long stageStart = purchaseMetrics.nanoTime();
+        try {
+            batchSeatReservationService.reserveSeats(accountIds, reserveSeatCounts);
+        } catch (BatchSeatReservationException e) {
+            if (e.getBatchSize() != accountIds.length) {
+                purchaseMetrics.recordFailure(PurchaseStage.SEAT_RESERVATION);
+                throw e;
+            }
+            for (int i = 0; i < accountIds.length; i++) {
+                failures[i] = e.getFailure(i);
+                if (failures[i] != null) {
+                    purchaseMetrics.recordFailure(PurchaseStage.SEAT_RESERVATION);
+                }
+            }
+        } catch (RuntimeException e) {
+            purchaseMetrics.recordFailure(PurchaseStage.SEAT_RESERVATION);
+            throw e;
+        }
+        return recordStage(PurchaseStage.SEAT_RESERVATION, stageStart);
+    }
+
+    /**
+     * Take payment for a batch of orders in one gateway call
+     *
+     * @param accountIds
+     * @param totalAmounts
+     * @param stageStart when the seat reservation returned, which is where payment starts
+     * @param orders position in the whole batch of each order paid for here
+     * @param failures receives, by position in the whole batch, why each payment failed when only some of them did
+     */
+    private void doTicketPayments(long[] accountIds, int[] totalAmounts, long stageStart, int[] orders,
+                                  RuntimeException[] failures) {
+
+        try {
+            batchTicketPaymentService.makePayments(accountIds, totalAmounts);
+        } catch (BatchPaymentException e) {
+            if (e.getBatchSize() != accountIds.length) {
+                purchaseMetrics.recordFailure(PurchaseStage.TICKET_PAYMENT);
+                throw e;
+            }
+            for (int i = 0; i < accountIds.length; i++) {
+                if (e.getFailure(i) != null) {
+                    failures[orders[i]] = e.getFailure(i);
+                    purchaseMetrics.recordFailure(PurchaseStage.TICKET_PAYMENT);
+                }
+            }
+        } catch (RuntimeException e) {
+            purchaseMetrics.recordFailure(PurchaseStage.TICKET_PAYMENT);
+            throw e;
+        }
+        recordStage(PurchaseStage.TICKET_PAYMENT, stageStart);
+    }
+
+    /**
+     * Record the time since a stage started
+     *
+     * @param stage
+     * @param stageStart
+     * @return the stage end time, which is where the next stage starts
+     */
+    private long recordStage(PurchaseStage stage, long stageStart) {
 
-        return ticketTypeCountMap;
+        long stageEnd = purchaseMetrics.nanoTime();
+        purchaseMetrics.recordStage(stage, stageEnd - stageStart);
+        return stageEnd;
     }
 
 }
@@ -0,0 +1,122 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-account token buckets in a fixed-size, set-associative table.
+ * <p>
+ * An account hashes to one set of {@value #WAYS} slots. When the set is full the slot refilled longest ago
+ * is reused, which resets that account to a full bucket; an idle account's bucket would have refilled to
+ * full anyway, so only very busy sets ever lose state. Memory is therefore fixed at construction however
+ * many distinct accounts arrive. Sets are guarded by striped locks, so threads working on different
+ * accounts rarely meet.
+ */
+public class AccountRateLimiter {
+
+    static final int WAYS = 8;
+
+    private static final long EMPTY = 0;
+    private static final long MICRO_TOKENS = 1_000_000;
+
+    private final long[] accountIds;
+    private final long[] microTokens;
+    private final long[] refilledAtNanos;
+    private final Object[] locks;
+    private final int setMask;
+    private final int lockMask;
+
+    private final long capacityMicroTokens;
+    private final double microTokensPerNano;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param maxTrackedAccounts table size, rounded up to a power of two multiple of {@value #WAYS}
+     * @param burst tokens a bucket holds when full
+     * @param permitsPerSecond tokens added to a bucket per second
+     */
+    public AccountRateLimiter(int maxTrackedAccounts, int burst, double permitsPerSecond) {
+        this(maxTrackedAccounts, burst, permitsPerSecond, Runtime.getRuntime().availableProcessors() * 16, System::nanoTime);
+    }
+
+    public AccountRateLimiter(int maxTrackedAccounts, int burst, double permitsPerSecond, int lockStripes, LongSupplier nanoClock) {
+        if (maxTrackedAccounts <= 0 || burst <= 0 || permitsPerSecond <= 0 || lockStripes <= 0) {
+            throw new IllegalArgumentException("Table size, burst, rate and lock stripes must be positive");
+        }
+        int sets = powerOfTwoAtLeast((maxTrackedAccounts + WAYS - 1) / WAYS);
+        this.accountIds = new long[sets * WAYS];
+        this.microTokens = new long[sets * WAYS];
+        this.refilledAtNanos = new long[sets * WAYS];
+        this.setMask = sets - 1;
+
+        int stripes = Math.min(powerOfTwoAtLeast(lockStripes), sets);
+        this.locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+        this.lockMask = stripes - 1;
+
+        this.capacityMicroTokens = burst * MICRO_TOKENS;
+        this.microTokensPerNano = permitsPerSecond * MICRO_TOKENS / TimeUnit.SECONDS.toNanos(1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Take one token from the account's bucket.
+     *
+     * @param accountId a positive account id
+     * @return false when the account has used up its burst and not yet refilled
+     */
+    public boolean tryAcquire(long accountId) {
+        int set = set(accountId);
+        int first = set * WAYS;
+        long now = nanoClock.getAsLong();
+
+        synchronized (locks[set & lockMask]) {
+            int slot = -1;
+            int victim = first;
+            for (int i = first; i < first + WAYS; i++) {
+                if (accountIds[i] == accountId) {
+                    slot = i;
+                    break;
+                }
+                if (accountIds[victim] != EMPTY
+                        && (accountIds[i] == EMPTY || refilledAtNanos[i] - refilledAtNanos[victim] < 0)) {
+                    victim = i;
+                }
+            }
+
+            if (slot < 0) {
+                slot = victim;
+                accountIds[slot] = accountId;
+                microTokens[slot] = capacityMicroTokens;
+            } else {
+                long refill = (long) ((now - refilledAtNanos[slot]) * microTokensPerNano);
+                microTokens[slot] = Math.min(capacityMicroTokens, microTokens[slot] + Math.max(0, refill));
+            }
+            refilledAtNanos[slot] = now;
+
+            if (microTokens[slot] < MICRO_TOKENS) {
+                return false;
+            }
+            microTokens[slot] -= MICRO_TOKENS;
+            return true;
+        }
+    }
+
+    /**
+     * @return number of account slots, fixed for the life of the limiter
+     */
+    public int getCapacity() {
+        return accountIds.length;
+    }
+
+    private int set(long accountId) {
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & setMask;
+    }
+
+    private static int powerOfTwoAtLeast(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link TicketService} decorator that sheds load before it reaches validation or the gateways.
+ * <p>
+ * A global limit caps the purchases in progress at once, and each account draws from its own
+ * {@link AccountRateLimiter} bucket. Both rejections use the cached stackless exceptions of
+ * {@link ValidationResult#SERVICE_BUSY} and {@link ValidationResult#RATE_LIMITED}, so turning a caller away
+ * costs a failed {@code tryAcquire} and nothing more. Ids that are not positive are left for the delegate
+ * to reject as invalid accounts.
+ */
+public class AdmissionControlledTicketService implements TicketService {
+
+    private final TicketService ticketService;
+    private final AccountRateLimiter accountRateLimiter;
+    private final Semaphore purchasesInProgress;
+
+    /**
+     * @param ticketService
+     * @param accountRateLimiter
+     * @param maxConcurrentPurchases purchases or batches allowed into the delegate at once
+     */
+    public AdmissionControlledTicketService(TicketService ticketService, AccountRateLimiter accountRateLimiter,
+                                            int maxConcurrentPurchases) {
+        if (maxConcurrentPurchases <= 0) {
+            throw new IllegalArgumentException("Concurrent purchase limit must be positive");
+        }
+        this.ticketService = ticketService;
+        this.accountRateLimiter = accountRateLimiter;
+        this.purchasesInProgress = new Semaphore(maxConcurrentPurchases);
+    }
+
+    @Override
+    public void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+        if (!purchasesInProgress.tryAcquire()) {
+            throw ValidationResult.SERVICE_BUSY.asException();
+        }
+        try {
+            if (!admitAccount(accountId)) {
+                throw ValidationResult.RATE_LIMITED.asException();
+            }
+            ticketService.purchaseTickets(accountId, ticketTypeRequests);
+        } finally {
+            purchasesInProgress.release();
+        }
+    }
+
+    /**
+     * A batch takes a single slot of the global limit. Orders from accounts over their rate fail on their
+     * own and the rest go to the delegate as one batch, with results returned in the original order.
+     */
+    @Override
+    public List<PurchaseResult> purchaseTicketsBatch(List<PurchaseOrder> purchaseOrders) {
+        int orderCount = purchaseOrders.size();
+        List<PurchaseResult> purchaseResults = new ArrayList<>(orderCount);
+
+        if (!purchasesInProgress.tryAcquire()) {
+            for (PurchaseOrder purchaseOrder : purchaseOrders) {
+                purchaseResults.add(PurchaseResult.failure(purchaseOrder.getAccountId(),
+                        ValidationResult.SERVICE_BUSY.getMessage()));
+            }
+            return purchaseResults;
+        }
+        try {
+            List<PurchaseOrder> admittedOrders = new ArrayList<>(orderCount);
+            for (PurchaseOrder purchaseOrder : purchaseOrders) {
+                if (admitAccount(purchaseOrder.getAccountId())) {
+                    admittedOrders.add(purchaseOrder);
+                    purchaseResults.add(null);
+                } else {
+                    purchaseResults.add(PurchaseResult.failure(purchaseOrder.getAccountId(),
+                            ValidationResult.RATE_LIMITED.getMessage()));
+                }
+            }
+            if (admittedOrders.isEmpty()) {
+                return purchaseResults;
+            }
+
+            List<PurchaseResult> admittedResults = ticketService.purchaseTicketsBatch(admittedOrders);
+            int next = 0;
+            for (int i = 0; i < orderCount; i++) {
+                if (purchaseResults.get(i) == null) {
+                    purchaseResults.set(i, admittedResults.get(next++));
+                }
+            }
+            return purchaseResults;
+        } finally {
+            purchasesInProgress.release();
+        }
+    }
+
+    private boolean admitAccount(Long accountId) {
+        return accountId == null || accountId <= 0 || accountRateLimiter.tryAcquire(accountId);
+    }
+}
@@ -0,0 +1,275 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary wire format for a {@link PurchaseOrder}:
+ * <pre>
+ * flags          1 byte   bit 0: account id present, bit 1: idempotency key present
+ * accountId      varint   zigzag encoded, only when present
+ * entryCount     varint
+ * entry          1 byte   ticket type in the top 2 bits, tickets in the low 6 bits,
+ *   [tickets]    varint   zigzag encoded, only when the low 6 bits are all set
+ * keyLength      varint   UTF-8 byte length, only when the key is present
+ * key            bytes
+ * </pre>
+ * A typical order is a handful of bytes: one per ticket type plus the account id. Every order the domain
+ * can build round-trips, including the ones validation would reject (missing account, null ticket type,
+ * negative tickets), so a decoded order is judged exactly as the original would have been. The one
+ * exception is a null request array, which decodes as an empty one; both are rejected as no tickets.
+ * <p>
+ * Encoding writes straight into the caller's buffer and allocates nothing. Decoding allocates only the
+ * order itself. Use {@link PurchaseOrderFlyweight} to validate an encoded order without decoding it.
+ */
+public final class PurchaseOrderCodec {
+
+    static final int FLAG_ACCOUNT_ID = 1;
+    static final int FLAG_IDEMPOTENCY_KEY = 1 << 1;
+
+    static final int TYPE_SHIFT = 6;
+    static final int TICKETS_MASK = (1 << TYPE_SHIFT) - 1;
+    /**
+     * Ticket type code for a request with no type; the codes below it are {@link Type} ordinals.
+     */
+    static final int NULL_TYPE = 3;
+
+    private static final Type[] TYPES = Type.values();
+
+    private PurchaseOrderCodec() {
+    }
+
+    /**
+     * @param purchaseOrder
+     * @return number of bytes {@link #encode} will write for the order
+     */
+    public static int encodedLength(PurchaseOrder purchaseOrder) {
+
+        int length = 1;
+        if (purchaseOrder.getAccountId() != null) {
+            length += varLongLength(zigZag(purchaseOrder.getAccountId()));
+        }
+        TicketTypeRequest[] ticketTypeRequests = requests(purchaseOrder);
+        length += varLongLength(ticketTypeRequests.length);
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            length += entryLength(ticketTypeRequest.getNoOfTickets());
+        }
+        String idempotencyKey = purchaseOrder.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            int keyLength = utf8Length(idempotencyKey);
+            length += varLongLength(keyLength) + keyLength;
+        }
+        return length;
+    }
+
+    /**
+     * Write the order at the buffer's position, advancing it past the order.
+     *
+     * @param purchaseOrder
+     * @param buffer
+     * @return number of bytes written
+     * @throws BufferOverflowException when the order does not fit in the remaining space
+     */
+    public static int encode(PurchaseOrder purchaseOrder, ByteBuffer buffer) {
+
+        int start = buffer.position();
+        Long accountId = purchaseOrder.getAccountId();
+        String idempotencyKey = purchaseOrder.getIdempotencyKey();
+        TicketTypeRequest[] ticketTypeRequests = requests(purchaseOrder);
+
+        buffer.put((byte) ((accountId != null ? FLAG_ACCOUNT_ID : 0)
+                | (idempotencyKey != null ? FLAG_IDEMPOTENCY_KEY : 0)));
+        if (accountId != null) {
+            putVarLong(buffer, zigZag(accountId));
+        }
+
+        putVarLong(buffer, ticketTypeRequests.length);
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            Type ticketType = ticketTypeRequest.getTicketType();
+            int noOfTickets = ticketTypeRequest.getNoOfTickets();
+            int typeCode = ticketType == null ? NULL_TYPE : ticketType.ordinal();
+            if (noOfTickets >= 0 && noOfTickets < TICKETS_MASK) {
+                buffer.put((byte) (typeCode << TYPE_SHIFT | noOfTickets));
+            } else {
+                buffer.put((byte) (typeCode << TYPE_SHIFT | TICKETS_MASK));
+                putVarLong(buffer, zigZag(noOfTickets));
+            }
+        }
+
+        if (idempotencyKey != null) {
+            putVarLong(buffer, utf8Length(idempotencyKey));
+            putUtf8(buffer, idempotencyKey);
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Read one order from the buffer's position, advancing it past the order.
+     *
+     * @param buffer
+     * @return the decoded order
+     * @throws BufferUnderflowException when the buffer ends part way through the order
+     * @throws IllegalArgumentException when the bytes are not an encoded order
+     */
+    public static PurchaseOrder decode(ByteBuffer buffer) {
+
+        int flags = checkFlags(buffer.get());
+        Long accountId = (flags & FLAG_ACCOUNT_ID) != 0 ? unZigZag(getVarLong(buffer)) : null;
+
+        int entryCount = toLength(getVarLong(buffer), buffer.remaining());
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            int entry = buffer.get() & 0xFF;
+            int noOfTickets = entry & TICKETS_MASK;
+            if (noOfTickets == TICKETS_MASK) {
+                noOfTickets = (int) unZigZag(getVarLong(buffer));
+            }
+            ticketTypeRequests[i] = new TicketTypeRequest(typeOf(entry >>> TYPE_SHIFT), noOfTickets);
+        }
+
+        String idempotencyKey = null;
+        if ((flags & FLAG_IDEMPOTENCY_KEY) != 0) {
+            int keyLength = toLength(getVarLong(buffer), buffer.remaining());
+            idempotencyKey = getUtf8(buffer, keyLength);
+        }
+        return new PurchaseOrder(idempotencyKey, accountId, ticketTypeRequests);
+    }
+
+    static int checkFlags(byte flags) {
+        if ((flags & ~(FLAG_ACCOUNT_ID | FLAG_IDEMPOTENCY_KEY)) != 0) {
+            throw new IllegalArgumentException("Unknown flags " + Integer.toHexString(flags & 0xFF));
+        }
+        return flags;
+    }
+
+    static Type typeOf(int typeCode) {
+        return typeCode == NULL_TYPE ? null : TYPES[typeCode];
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varLongLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * An entry count or key length is never longer than the bytes left to hold it, which stops a corrupt
+     * length from sizing a huge array.
+     */
+    static int toLength(long value, int remaining) {
+        if (value < 0 || value > remaining) {
+            throw new IllegalArgumentException("Invalid length " + value + " with " + remaining + " bytes remaining");
+        }
+        return (int) value;
+    }
+
+    private static TicketTypeRequest[] requests(PurchaseOrder purchaseOrder) {
+        TicketTypeRequest[] ticketTypeRequests = purchaseOrder.getTicketTypeRequests();
+        return ticketTypeRequests == null ? new TicketTypeRequest[0] : ticketTypeRequests;
+    }
+
+    private static int entryLength(int noOfTickets) {
+        return noOfTickets >= 0 && noOfTickets < TICKETS_MASK ? 1 : 1 + varLongLength(zigZag(noOfTickets));
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 10 bytes");
+    }
+
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write a string as UTF-8 without going through an intermediate byte array. An unpaired surrogate is
+     * written as its three byte form, so it will not survive the round trip; it is not a valid key anyway.
+     */
+    private static void putUtf8(ByteBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    static String getUtf8(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getUtf8(ByteBuffer buffer, int length) {
+        String value = getUtf8(buffer, buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+}
@@ -0,0 +1,229 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec.FLAG_ACCOUNT_ID;
+import static uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec.FLAG_IDEMPOTENCY_KEY;
+import static uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec.NULL_TYPE;
+import static uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec.TICKETS_MASK;
+import static uk.gov.dwp.uc.pairtest.codec.PurchaseOrderCodec.TYPE_SHIFT;
+
+/**
+ * Reusable read-only view of one order in {@link PurchaseOrderCodec} format, read in place with absolute
+ * gets so neither the buffer's position nor the heap is touched. {@link #wrap} checks the order is whole,
+ * after which it can be validated and its fields read any number of times.
+ * <p>
+ * Not thread safe; keep one per thread and wrap each order in turn.
+ */
+public final class PurchaseOrderFlyweight {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int flags;
+    private long accountId;
+    private int entryCount;
+    private int entriesOffset;
+    private int keyOffset;
+    private int keyLength;
+    private int length;
+    /**
+     * Where the varint last read by {@link #readVarLong} ended.
+     */
+    private int varLongEnd;
+
+    /**
+     * Point the view at the order starting at {@code offset}.
+     *
+     * @param buffer
+     * @param offset
+     * @return this view
+     * @throws BufferUnderflowException when the order runs past the buffer's limit
+     * @throws IllegalArgumentException when the bytes are not an encoded order
+     */
+    public PurchaseOrderFlyweight wrap(ByteBuffer buffer, int offset) {
+
+        this.buffer = buffer;
+        this.offset = offset;
+        int cursor = offset;
+
+        flags = PurchaseOrderCodec.checkFlags(getByte(cursor++));
+        accountId = 0;
+        if (hasAccountId()) {
+            accountId = PurchaseOrderCodec.unZigZag(readVarLong(cursor));
+            cursor = varLongEnd;
+        }
+
+        long count = readVarLong(cursor);
+        cursor = varLongEnd;
+        entryCount = PurchaseOrderCodec.toLength(count, buffer.limit() - cursor);
+        entriesOffset = cursor;
+        for (int i = 0; i < entryCount; i++) {
+            cursor = nextEntry(cursor);
+        }
+
+        keyOffset = cursor;
+        keyLength = 0;
+        if (hasIdempotencyKey()) {
+            long keyBytes = readVarLong(cursor);
+            keyOffset = varLongEnd;
+            keyLength = PurchaseOrderCodec.toLength(keyBytes, buffer.limit() - keyOffset);
+            cursor = keyOffset + keyLength;
+        }
+
+        length = cursor - offset;
+        return this;
+    }
+
+    /**
+     * Validate the order the way the ticket service validates a decoded one, with the same result for
+     * every input, and tally its tickets.
+     *
+     * @param accountValidator
+     * @param ticketValidator
+     * @param ticketTypeTally reset and filled with the requested tickets once the requests are well formed
+     * @return
+     */
+    public ValidationResult validate(AccountValidator accountValidator, TicketValidator ticketValidator,
+                                     TicketTypeTally ticketTypeTally) {
+
+        ValidationResult validationResult = hasAccountId()
+                ? accountValidator.checkAccount(accountId)
+                : accountValidator.checkAccount((Long) null);
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        if (entryCount == 0) {
+            return ValidationResult.NO_TICKETS;
+        }
+
+        ticketTypeTally.reset();
+        boolean emptyTicketType = false;
+        boolean negativeTickets = false;
+        int cursor = entriesOffset;
+        for (int i = 0; i < entryCount; i++) {
+            int typeCode = (getByte(cursor) & 0xFF) >>> TYPE_SHIFT;
+            int noOfTickets = ticketsAt(cursor);
+            cursor = nextEntry(cursor);
+            if (typeCode == NULL_TYPE) {
+                emptyTicketType = true;
+            } else if (noOfTickets < 0) {
+                negativeTickets = true;
+            } else {
+                ticketTypeTally.add(PurchaseOrderCodec.typeOf(typeCode), noOfTickets);
+            }
+        }
+        if (emptyTicketType) {
+            return ValidationResult.EMPTY_TICKET_TYPE;
+        }
+        if (negativeTickets) {
+            return ValidationResult.NEGATIVE_TICKETS;
+        }
+        return ticketValidator.checkTicketRatio(ticketTypeTally);
+    }
+
+    public boolean hasAccountId() {
+        return (flags & FLAG_ACCOUNT_ID) != 0;
+    }
+
+    /**
+     * @return the account id, or 0 when the order has none
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @param index
+     * @return the ticket type of the entry, or null when the request had none
+     */
+    public Type getTicketType(int index) {
+        return PurchaseOrderCodec.typeOf((getByte(entryOffset(index)) & 0xFF) >>> TYPE_SHIFT);
+    }
+
+    public int getNoOfTickets(int index) {
+        return ticketsAt(entryOffset(index));
+    }
+
+    public boolean hasIdempotencyKey() {
+        return (flags & FLAG_IDEMPOTENCY_KEY) != 0;
+    }
+
+    /**
+     * Builds a string, so prefer {@link #hasIdempotencyKey()} on paths that only need to know it is there.
+     *
+     * @return the idempotency key, or null when the order has none
+     */
+    public String getIdempotencyKey() {
+        return hasIdempotencyKey() ? PurchaseOrderCodec.getUtf8(buffer, keyOffset, keyLength) : null;
+    }
+
+    /**
+     * @return encoded size of the order, so the next order starts at {@code offset + getLength()}
+     */
+    public int getLength() {
+        return length;
+    }
+
+    private int entryOffset(int index) {
+        if (index < 0 || index >= entryCount) {
+            throw new IndexOutOfBoundsException("Entry " + index + " of " + entryCount);
+        }
+        int cursor = entriesOffset;
+        for (int i = 0; i < index; i++) {
+            cursor = nextEntry(cursor);
+        }
+        return cursor;
+    }
+
+    private int ticketsAt(int entryOffset) {
+        int noOfTickets = getByte(entryOffset) & TICKETS_MASK;
+        return noOfTickets == TICKETS_MASK
+                ? (int) PurchaseOrderCodec.unZigZag(readVarLong(entryOffset + 1))
+                : noOfTickets;
+    }
+
+    private int nextEntry(int entryOffset) {
+        return (getByte(entryOffset) & TICKETS_MASK) == TICKETS_MASK
+                ? skipVarLong(entryOffset + 1)
+                : entryOffset + 1;
+    }
+
+    private long readVarLong(int cursor) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = getByte(cursor++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                varLongEnd = cursor;
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 10 bytes");
+    }
+
+    private int skipVarLong(int cursor) {
+        while (getByte(cursor) < 0) {
+            cursor++;
+        }
+        return cursor + 1;
+    }
+
+    private byte getByte(int index) {
+        if (index >= buffer.limit()) {
+            throw new BufferUnderflowException();
+        }
+        return buffer.get(index);
+    }
+
+}
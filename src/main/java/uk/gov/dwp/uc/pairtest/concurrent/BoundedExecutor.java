@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many submitted calls run on an executor at once, without any thread waiting for a permit.
+ * <p>
+ * A call that finds no free permit is queued; whichever call finishes next hands its permit on by
+ * submitting the oldest queued call. Submitters and executor threads only ever {@link Semaphore#tryAcquire()},
+ * so a slow downstream holds at most the permitted number of executor threads, and the rest stay free.
+ */
+public final class BoundedExecutor {
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Queue<Call> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param executor
+     * @param maxInFlight most calls running on the executor at once
+     */
+    public BoundedExecutor(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight calls must be at least 1: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * @param task
+     * @return completes when the task has run, exceptionally with whatever it threw or if the executor
+     * refused it
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        Call call = new Call(task);
+        waiting.add(call);
+        drain();
+        return call.result;
+    }
+
+    /**
+     * Start queued calls while permits are free. Run after every enqueue and every release, so a call
+     * queued just as a permit is released is picked up by one side or the other.
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Call call = waiting.poll();
+            if (call == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(call);
+            } catch (Throwable t) {
+                permits.release();
+                call.result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private final class Call implements Runnable {
+
+        private final Runnable task;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Call(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            permits.release();
+            drain();
+            if (failure == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package uk.gov.dwp.uc.pairtest.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for very large numbers of timers.
+ * <p>
+ * Four wheels of 256 slots each cover 2^32 ticks. A timer goes in the finest wheel whose span covers its
+ * delay; when a finer wheel wraps, the next slot of the coarser wheel is cascaded down into it. Slots are
+ * intrusive doubly linked lists, so scheduling, cancelling and expiring a timer are each O(1), and a tick
+ * costs only the timers that actually fall due or cascade in it, however many are outstanding.
+ * <p>
+ * Not thread safe: call it from one thread or under the owner's lock. Timers fire on the first
+ * {@link #advance} at or after the tick holding their deadline, so resolution is one tick.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final TimerEntry<T>[][] slots;
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickDuration resolution of the wheel
+     * @param unit
+     * @param startNanos clock reading that tick 0 starts at
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickDuration, TimeUnit unit, long startNanos) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = startNanos;
+        this.slots = (TimerEntry<T>[][]) new TimerEntry<?>[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                TimerEntry<T> sentinel = new TimerEntry<>(null, 0);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * @param value handed to the expiry callback
+     * @param deadlineNanos clock reading the timer is due at; past deadlines fire on the next tick
+     * @return handle for {@link #cancel(TimerEntry)}
+     */
+    public TimerEntry<T> schedule(T value, long deadlineNanos) {
+        long deadlineTick = Math.floorDiv(deadlineNanos - startNanos + tickNanos - 1, tickNanos);
+        TimerEntry<T> entry = new TimerEntry<>(value, Math.max(deadlineTick, currentTick + 1));
+        insert(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * @param entry
+     * @return false if the timer had already fired or been cancelled
+     */
+    public boolean cancel(TimerEntry<T> entry) {
+        if (entry.next == null) {
+            return false;
+        }
+        unlink(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Move the wheel up to the given time, handing every timer that falls due to the callback.
+     *
+     * @param nowNanos current clock reading
+     * @param expired called once per expired timer, in deadline order to tick resolution
+     * @return number of timers expired
+     */
+    public int advance(long nowNanos, Consumer<? super T> expired) {
+        long targetTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        int expiredCount = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            int slot = (int) currentTick & WHEEL_MASK;
+            if (slot == 0) {
+                cascade(1);
+            }
+            TimerEntry<T> sentinel = slots[0][slot];
+            for (TimerEntry<T> entry = sentinel.next; entry != sentinel; entry = sentinel.next) {
+                unlink(entry);
+                size--;
+                expiredCount++;
+                expired.accept(entry.value);
+            }
+        }
+        return expiredCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int slot = (int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+        TimerEntry<T> sentinel = slots[level][slot];
+        for (TimerEntry<T> entry = sentinel.next; entry != sentinel; entry = sentinel.next) {
+            unlink(entry);
+            insert(entry);
+        }
+    }
+
+    private void insert(TimerEntry<T> entry) {
+        long delay = Math.min(entry.deadlineTick - currentTick, MAX_DELAY_TICKS);
+        long tick = currentTick + delay;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        TimerEntry<T> sentinel = slots[level][(int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK];
+        entry.previous = sentinel.previous;
+        entry.next = sentinel;
+        sentinel.previous.next = entry;
+        sentinel.previous = entry;
+    }
+
+    private static <T> void unlink(TimerEntry<T> entry) {
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    /**
+     * A scheduled timer, linked into one wheel slot until it fires or is cancelled.
+     */
+    public static final class TimerEntry<T> {
+
+        private final T value;
+        private final long deadlineTick;
+        private TimerEntry<T> previous;
+        private TimerEntry<T> next;
+
+        private TimerEntry(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
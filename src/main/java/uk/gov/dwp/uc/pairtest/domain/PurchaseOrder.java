@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * Immutable Object
+ * <p>
+ * One account's ticket requests, as submitted in a batch purchase. An optional client supplied
+ * idempotency key lets a retried order be recognised as a duplicate.
+ */
+public final class PurchaseOrder {
+
+    private final String idempotencyKey;
+    private final Long accountId;
+    private final TicketTypeRequest[] ticketTypeRequests;
+
+    public PurchaseOrder(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        this(null, accountId, ticketTypeRequests);
+    }
+
+    public PurchaseOrder(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        this.idempotencyKey = idempotencyKey;
+        this.accountId = accountId;
+        this.ticketTypeRequests = ticketTypeRequests;
+    }
+
+    /**
+     * @return the client's idempotency key, or null when the order may not be deduplicated
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public TicketTypeRequest[] getTicketTypeRequests() {
+        return ticketTypeRequests;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * Immutable Object
+ * <p>
+ * Outcome of a single purchase: the seats reserved and amount charged when successful,
+ * otherwise the reason the purchase was rejected, and the gateway failure behind it if there was one.
+ */
+public final class PurchaseResult {
+
+    private final Long accountId;
+    private final boolean successful;
+    private final int seatCount;
+    private final int totalAmount;
+    private final String failureReason;
+    private final RuntimeException failureCause;
+
+    private PurchaseResult(Long accountId, boolean successful, int seatCount, int totalAmount, String failureReason,
+                           RuntimeException failureCause) {
+        this.accountId = accountId;
+        this.successful = successful;
+        this.seatCount = seatCount;
+        this.totalAmount = totalAmount;
+        this.failureReason = failureReason;
+        this.failureCause = failureCause;
+    }
+
+    public static PurchaseResult success(Long accountId, int seatCount, int totalAmount) {
+        return new PurchaseResult(accountId, true, seatCount, totalAmount, null, null);
+    }
+
+    public static PurchaseResult failure(Long accountId, String failureReason) {
+        return new PurchaseResult(accountId, false, 0, 0, failureReason, null);
+    }
+
+    /**
+     * @param accountId
+     * @param failureCause what a gateway threw for this purchase alone
+     * @return a failure whose reason is the cause's message
+     */
+    public static PurchaseResult failure(Long accountId, RuntimeException failureCause) {
+        return new PurchaseResult(accountId, false, 0, 0, String.valueOf(failureCause.getMessage()), failureCause);
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * @return what a gateway threw for this purchase, or null if it was rejected before reaching one
+     */
+    public RuntimeException getFailureCause() {
+        return failureCause;
+    }
+
+    @Override
+    public String toString() {
+        return successful
+                ? "PurchaseResult{accountId=" + accountId + ", seatCount=" + seatCount + ", totalAmount=" + totalAmount + "}"
+                : "PurchaseResult{accountId=" + accountId + ", failureReason='" + failureReason + "'}";
+    }
+}
@@ -11,6 +11,14 @@ public enum TicketPrice {
     CHILD(Type.CHILD, 15),
     INFANT(Type.INFANT, 0);
 
+    private static final int[] PRICES_BY_TYPE = new int[Type.values().length];
+
+    static {
+        for (TicketPrice ticketPrice : values()) {
+            PRICES_BY_TYPE[ticketPrice.getTicketType().ordinal()] = ticketPrice.getPrice();
+        }
+    }
+
     private final Type ticketType;
     private final int ticketTypePrice;
 
@@ -28,14 +36,10 @@ public enum TicketPrice {
     }
 
     public int getPriceForType(Type ticketType) {
-        int price = 0;
-        for(TicketPrice ticketPrice: values()) {
-            if(ticketPrice.getTicketType() == ticketType) {
-                price =  ticketPrice.getPrice();
-                break;
-            }
+        if (ticketType == null) {
+            return 0;
         }
-        return price;
+        return PRICES_BY_TYPE[ticketType.ordinal()];
     }
 
 }
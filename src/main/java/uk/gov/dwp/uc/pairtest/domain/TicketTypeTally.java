@@ -0,0 +1,71 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Primitive tally of ticket counts per {@link Type}, indexed by {@link Type#ordinal()}.
+ * <p>
+ * Mutable and reusable so the purchase path can count, validate and price a request without boxing.
+ * Call {@link #reset()} before tallying a new purchase.
+ */
+public final class TicketTypeTally {
+
+    private static final Type[] TYPES = Type.values();
+
+    private final int[] counts = new int[TYPES.length];
+
+    public static TicketTypeTally of(int adultTickets, int childTickets, int infantTickets) {
+        return new TicketTypeTally()
+                .add(Type.ADULT, adultTickets)
+                .add(Type.CHILD, childTickets)
+                .add(Type.INFANT, infantTickets);
+    }
+
+    /**
+     * @return a new tally with the same counts, for keeping after this one is reused
+     */
+    public TicketTypeTally copy() {
+        TicketTypeTally copy = new TicketTypeTally();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        return copy;
+    }
+
+    public TicketTypeTally reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        return this;
+    }
+
+    public TicketTypeTally add(Type ticketType, int noOfTickets) {
+        counts[ticketType.ordinal()] += noOfTickets;
+        return this;
+    }
+
+    /**
+     * Add every request to the tally. Requests are expected to have been validated already.
+     *
+     * @param ticketTypeRequests
+     * @return this tally
+     */
+    public TicketTypeTally addAll(TicketTypeRequest[] ticketTypeRequests) {
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            counts[ticketTypeRequest.getTicketType().ordinal()] += ticketTypeRequest.getNoOfTickets();
+        }
+        return this;
+    }
+
+    public int getCount(Type ticketType) {
+        return counts[ticketType.ordinal()];
+    }
+
+    /**
+     * Infants sit on an adult's lap, so only adult and child tickets need a seat.
+     *
+     * @return number of seats to reserve
+     */
+    public int getSeatCount() {
+        return counts[Type.ADULT.ordinal()] + counts[Type.CHILD.ordinal()];
+    }
+
+}
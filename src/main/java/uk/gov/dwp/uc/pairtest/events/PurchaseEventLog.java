@@ -0,0 +1,297 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link PurchaseEventSink} that keeps every purchase as an event in columnar segment files and feeds
+ * the running totals of a {@link SalesAnalytics}.
+ * <p>
+ * Publishing stamps the time, splits the amount between ticket types by the current prices and writes
+ * the event into a {@link PurchaseEventRing} slot, with no lock, allocation or I/O on the purchase path.
+ * One drainer thread polls the ring every millisecond, updates the analytics and collects events into a
+ * segment, written out when full. If the drainer falls so far behind that the ring fills, further events
+ * are dropped and counted rather than slowing purchases.
+ * <p>
+ * A flush or close notes the ring's tail position when it is called and completes once the drainer has
+ * drained past it, so it waits only for the events published before it, however busy the ring stays.
+ * <p>
+ * Events not yet in a segment file are lost if the process dies; the purchase journal, not this log, is
+ * the record used for recovery.
+ */
+public final class PurchaseEventLog implements PurchaseEventSink, Closeable {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int DEFAULT_RING_CAPACITY = 1 << 16;
+    private static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Path directory;
+    private final PurchaseEventRing ring;
+    private final PurchaseSegment.Builder segmentBuilder;
+    private final PurchaseEventRing.Handler appender = this::append;
+    private final int segmentRows;
+    private final SalesAnalytics salesAnalytics;
+    private final LongAdder droppedEvents = new LongAdder();
+    private long nextSegment;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private long flushRequests;
+    private long flushesDone;
+    private long flushPosition;
+    private long writeFailures;
+    private IOException lastWriteFailure;
+    private boolean closed;
+
+    private final Thread drainer;
+
+    private PurchaseEventLog(Path directory, long nextSegment, SalesAnalytics salesAnalytics, int ringCapacity,
+                             int segmentRows) {
+        this.directory = directory;
+        this.nextSegment = nextSegment;
+        this.salesAnalytics = salesAnalytics;
+        this.ring = new PurchaseEventRing(ringCapacity);
+        this.segmentBuilder = new PurchaseSegment.Builder(segmentRows);
+        this.segmentRows = segmentRows;
+        this.drainer = new Thread(this::drainLoop, "purchase-event-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Open a log writing segments into a directory, after any segments already there.
+     *
+     * @param directory created if missing
+     * @param salesAnalytics receives every event as it is drained
+     * @return the open log
+     * @throws IOException
+     */
+    public static PurchaseEventLog open(Path directory, SalesAnalytics salesAnalytics) throws IOException {
+        return open(directory, salesAnalytics, DEFAULT_RING_CAPACITY, DEFAULT_SEGMENT_ROWS);
+    }
+
+    static PurchaseEventLog open(Path directory, SalesAnalytics salesAnalytics, int ringCapacity, int segmentRows)
+            throws IOException {
+        Files.createDirectories(directory);
+        long nextSegment = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // left by a crash part way through writing a segment
+                    Files.delete(file);
+                } else {
+                    nextSegment = Math.max(nextSegment, segmentNumber(file) + 1);
+                }
+            }
+        }
+        return new PurchaseEventLog(directory, nextSegment, salesAnalytics, ringCapacity, segmentRows);
+    }
+
+    @Override
+    public void purchased(long accountId, TicketTypeTally ticketTypeTally, int totalAmount) {
+        PricingEngine pricingEngine = salesAnalytics.getPricingEngine();
+        PriceTable priceTable = pricingEngine.getPriceTable();
+        PriceTier tier = pricingEngine.getCurrentTier();
+        int adults = ticketTypeTally.getCount(Type.ADULT);
+        int children = ticketTypeTally.getCount(Type.CHILD);
+        int infants = ticketTypeTally.getCount(Type.INFANT);
+        if (!ring.offer(System.currentTimeMillis(), accountId, adults, children, infants, totalAmount,
+                SalesTotals.split(Type.CHILD, adults, children, infants, totalAmount, priceTable, tier),
+                SalesTotals.split(Type.INFANT, adults, children, infants, totalAmount, priceTable, tier))) {
+            droppedEvents.increment();
+        }
+    }
+
+    /**
+     * Block until every event published before the call is in a segment file.
+     *
+     * @throws UncheckedIOException when a segment failed to be written while waiting, so some of those
+     * events may be lost
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Purchase event log is closed");
+            }
+            long failures = writeFailures;
+            long target = ++flushRequests;
+            flushPosition = ring.tailPosition();
+            LockSupport.unpark(drainer);
+            while (flushesDone < target) {
+                flushed.awaitUninterruptibly();
+            }
+            if (writeFailures != failures) {
+                throw new UncheckedIOException(lastWriteFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return segment files in the order they were written
+     * @throws IOException
+     */
+    public List<Path> getSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Total the purchases in a time range from the segment files; flush first to include recent events.
+     *
+     * @param fromMillis inclusive
+     * @param toMillis exclusive
+     * @param pool
+     * @return totals of the purchases in range
+     * @throws IOException
+     */
+    public SalesTotals scan(long fromMillis, long toMillis, ForkJoinPool pool) throws IOException {
+        return SalesAnalytics.scan(getSegments(), fromMillis, toMillis, pool);
+    }
+
+    public SalesAnalytics getSalesAnalytics() {
+        return salesAnalytics;
+    }
+
+    /**
+     * @return events refused because the ring was full, or lost with a segment that could not be written
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Drain the events published before the call, write the last segment and stop the drainer. Events
+     * published after the call are not written.
+     *
+     * @throws IOException when a segment failed to be written while closing
+     */
+    @Override
+    public void close() throws IOException {
+        long failures;
+        lock.lock();
+        try {
+            failures = writeFailures;
+            closed = true;
+            flushPosition = ring.tailPosition();
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (writeFailures != failures) {
+                throw lastWriteFailure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int drained = ring.drain(appender, segmentRows);
+
+            long requested;
+            long position;
+            boolean stopping;
+            lock.lock();
+            try {
+                // read together, so no flush requested before closing is missed
+                requested = flushRequests;
+                position = flushPosition;
+                stopping = closed;
+            } finally {
+                lock.unlock();
+            }
+            if ((requested > flushesDone || stopping) && ring.headPosition() >= position) {
+                writeSegment();
+                lock.lock();
+                try {
+                    flushesDone = requested;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (stopping) {
+                    return;
+                }
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    private void append(long timeMillis, long accountId, int adults, int children, int infants, int totalAmount,
+                        int childAmount, int infantAmount) {
+        salesAnalytics.record(timeMillis, adults, children, infants, totalAmount, childAmount, infantAmount);
+        if (!segmentBuilder.accepts(timeMillis)) {
+            writeSegment();
+        }
+        segmentBuilder.add(timeMillis, accountId, adults, children, infants, totalAmount, childAmount, infantAmount);
+    }
+
+    private void writeSegment() {
+        if (segmentBuilder.isEmpty()) {
+            return;
+        }
+        try {
+            segmentBuilder.writeTo(directory.resolve(String.format("%016d%s", nextSegment++, SEGMENT_SUFFIX)));
+        } catch (IOException e) {
+            // the rows cannot be kept without the drainer stalling, so they are counted as dropped
+            droppedEvents.add(segmentBuilder.clear());
+            lock.lock();
+            try {
+                writeFailures++;
+                lastWriteFailure = e;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of purchase events for many producers and a single consumer.
+ * <p>
+ * Works like {@link uk.gov.dwp.uc.pairtest.concurrent.MpscRingBuffer}, but each event is written as
+ * primitive fields into a preallocated slot instead of being queued as an object, so publishing
+ * allocates nothing. A full ring refuses the event rather than blocking the purchase.
+ */
+final class PurchaseEventRing {
+
+    /**
+     * Receives drained events on the consumer thread.
+     */
+    interface Handler {
+        void onPurchase(long timeMillis, long accountId, int adults, int children, int infants, int totalAmount,
+                        int childAmount, int infantAmount);
+    }
+
+    private static final int FIELDS = 5;
+    private static final int COUNT_BITS = 16;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    private final long[] fields;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    PurchaseEventRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 26) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^26");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.fields = new long[size * FIELDS];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Safe to call from any thread. Counts above 65535 are cut to their low 16 bits, well past any ticket
+     * limit a {@link uk.gov.dwp.uc.pairtest.pricing.QuoteTable} covers.
+     *
+     * @param childAmount part of the total paid for children
+     * @param infantAmount part of the total paid for infants
+     * @return false if the ring is full
+     */
+    boolean offer(long timeMillis, long accountId, int adults, int children, int infants, int totalAmount,
+                  int childAmount, int infantAmount) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    int field = index * FIELDS;
+                    fields[field] = timeMillis;
+                    fields[field + 1] = accountId;
+                    fields[field + 2] = (long) (adults & COUNT_MASK) << (2 * COUNT_BITS)
+                            | (long) (children & COUNT_MASK) << COUNT_BITS
+                            | infants & COUNT_MASK;
+                    fields[field + 3] = totalAmount;
+                    fields[field + 4] = (long) childAmount << 32 | infantAmount & 0xFFFFFFFFL;
+                    // the release store publishes the plain writes above to the consumer
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @param handler
+     * @param maxEvents
+     * @return number of events handed to the handler
+     */
+    int drain(Handler handler, int maxEvents) {
+        int drained = 0;
+        while (drained < maxEvents) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            int field = index * FIELDS;
+            long ticketCounts = fields[field + 2];
+            long amounts = fields[field + 4];
+            handler.onPurchase(fields[field], fields[field + 1],
+                    (int) (ticketCounts >>> (2 * COUNT_BITS)) & COUNT_MASK,
+                    (int) (ticketCounts >>> COUNT_BITS) & COUNT_MASK,
+                    (int) ticketCounts & COUNT_MASK,
+                    (int) fields[field + 3],
+                    (int) (amounts >>> 32),
+                    (int) amounts);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Safe to call from any thread.
+     *
+     * @return the position the next event offered will take; every event offered before the call is below it
+     */
+    long tailPosition() {
+        return tail.get();
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the position of the next event to drain; every event below it has been drained
+     */
+    long headPosition() {
+        return head;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
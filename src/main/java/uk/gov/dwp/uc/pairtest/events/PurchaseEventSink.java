@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+
+/**
+ * Receives an event for every completed purchase, once the payment has gone through.
+ * <p>
+ * Called on the purchase path, so implementations must return quickly and must not throw.
+ */
+public interface PurchaseEventSink {
+
+    /**
+     * Keeps nothing, for services that do not record sales.
+     */
+    PurchaseEventSink NO_OP = (accountId, ticketTypeTally, totalAmount) -> {
+    };
+
+    /**
+     * @param accountId
+     * @param ticketTypeTally tickets bought; only read during the call, so it may be reused afterwards
+     * @param totalAmount amount paid
+     */
+    void purchased(long accountId, TicketTypeTally ticketTypeTally, int totalAmount);
+}
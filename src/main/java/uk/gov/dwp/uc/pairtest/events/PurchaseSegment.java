@@ -0,0 +1,279 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable Object
+ * <p>
+ * One segment file of purchase events, stored a column at a time so a scan reads each field as a
+ * contiguous run:
+ * <pre>
+ * header   int magic, int rows, long baseTime, long minTime, long maxTime, int CRC32 of the columns,
+ *          int format version
+ * columns  int timeDelta[rows]     milliseconds after baseTime
+ *          long accountId[rows]
+ *          u16 adults[rows], u16 children[rows], u16 infants[rows]
+ *          int totalAmount[rows]
+ *          int childAmount[rows], int infantAmount[rows]     adults paid the rest of the total
+ * </pre>
+ * That is 30 bytes an event. Each purchase's amount is stored split between types as it was when the
+ * purchase was published, so later price changes never restate it. The header's time range lets a scan skip a segment without reading its
+ * columns. Segments are written whole to a temporary file and renamed into place, so a crash never
+ * leaves a partial one.
+ */
+public final class PurchaseSegment {
+
+    static final int HEADER_SIZE = 40;
+    static final int ROW_SIZE = 4 + 8 + 3 * 2 + 3 * 4;
+
+    private static final int MAGIC = 0x50534547;
+    private static final int VERSION = 1;
+
+    private final int rows;
+    private final long baseTime;
+    private final long minTime;
+    private final long maxTime;
+    private final ByteBuffer columns;
+
+    private PurchaseSegment(int rows, long baseTime, long minTime, long maxTime, ByteBuffer columns) {
+        this.rows = rows;
+        this.baseTime = baseTime;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.columns = columns;
+    }
+
+    /**
+     * @param path
+     * @return the segment's rows and columns, checksum verified
+     * @throws IOException when the file cannot be read or is not a whole segment
+     */
+    public static PurchaseSegment read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, path);
+            int rows = header.getInt(4);
+            ByteBuffer columns = ByteBuffer.allocate(rows * ROW_SIZE);
+            while (columns.hasRemaining()) {
+                if (channel.read(columns, HEADER_SIZE + columns.position()) < 0) {
+                    throw new IOException("Segment " + path + " is shorter than its " + rows + " rows");
+                }
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(columns.array());
+            if ((int) checksum.getValue() != header.getInt(32)) {
+                throw new IOException("Segment " + path + " fails its checksum");
+            }
+            return new PurchaseSegment(rows, header.getLong(8), header.getLong(16), header.getLong(24), columns);
+        }
+    }
+
+    /**
+     * Read only the header, to decide whether a scan needs the segment at all.
+     *
+     * @param path
+     * @param fromMillis inclusive
+     * @param toMillis exclusive
+     * @return whether any event in the segment can fall in the range
+     * @throws IOException
+     */
+    public static boolean overlaps(Path path, long fromMillis, long toMillis) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, path);
+            return header.getLong(16) < toMillis && header.getLong(24) >= fromMillis;
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Segment " + path + " has no header");
+            }
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) < 0) {
+            throw new IOException(path + " is not a purchase segment");
+        }
+        if (header.getInt(36) != VERSION) {
+            throw new IOException("Segment " + path + " is format version " + header.getInt(36) + ", not " + VERSION);
+        }
+        return header;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getMinTime() {
+        return minTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public long getTime(int row) {
+        return baseTime + columns.getInt(row * 4);
+    }
+
+    public long getAccountId(int row) {
+        return columns.getLong(rows * 4 + row * 8);
+    }
+
+    public int getCount(Type ticketType, int row) {
+        return columns.getShort(rows * (12 + 2 * ticketType.ordinal()) + row * 2) & 0xFFFF;
+    }
+
+    public int getTotalAmount(int row) {
+        return columns.getInt(rows * 18 + row * 4);
+    }
+
+    /**
+     * @param ticketType
+     * @param row
+     * @return part of the row's total paid for that type
+     */
+    public int getAmount(Type ticketType, int row) {
+        switch (ticketType) {
+            case CHILD:
+                return columns.getInt(rows * 22 + row * 4);
+            case INFANT:
+                return columns.getInt(rows * 26 + row * 4);
+            default:
+                return getTotalAmount(row) - getAmount(Type.CHILD, row) - getAmount(Type.INFANT, row);
+        }
+    }
+
+    /**
+     * Collects events in columns until there are enough for a segment. Single threaded.
+     */
+    static final class Builder {
+
+        private final long[] times;
+        private final long[] accountIds;
+        private final short[] adults;
+        private final short[] children;
+        private final short[] infants;
+        private final int[] totalAmounts;
+        private final int[] childAmounts;
+        private final int[] infantAmounts;
+        private final CRC32 checksum = new CRC32();
+
+        private int rows;
+        private long baseTime;
+        private long minTime;
+        private long maxTime;
+
+        Builder(int maxRows) {
+            if (maxRows < 1) {
+                throw new IllegalArgumentException("A segment must hold at least 1 row");
+            }
+            this.times = new long[maxRows];
+            this.accountIds = new long[maxRows];
+            this.adults = new short[maxRows];
+            this.children = new short[maxRows];
+            this.infants = new short[maxRows];
+            this.totalAmounts = new int[maxRows];
+            this.childAmounts = new int[maxRows];
+            this.infantAmounts = new int[maxRows];
+        }
+
+        /**
+         * @param timeMillis
+         * @return false when the segment is full, or the time is too far from the first row's for an int delta
+         */
+        boolean accepts(long timeMillis) {
+            if (rows == 0) {
+                return true;
+            }
+            long delta = timeMillis - baseTime;
+            return rows < times.length && delta <= Integer.MAX_VALUE && delta >= Integer.MIN_VALUE;
+        }
+
+        void add(long timeMillis, long accountId, int adults, int children, int infants, int totalAmount,
+                 int childAmount, int infantAmount) {
+            if (rows == 0) {
+                baseTime = timeMillis;
+                minTime = timeMillis;
+                maxTime = timeMillis;
+            }
+            times[rows] = timeMillis;
+            accountIds[rows] = accountId;
+            this.adults[rows] = (short) adults;
+            this.children[rows] = (short) children;
+            this.infants[rows] = (short) infants;
+            totalAmounts[rows] = totalAmount;
+            childAmounts[rows] = childAmount;
+            infantAmounts[rows] = infantAmount;
+            minTime = Math.min(minTime, timeMillis);
+            maxTime = Math.max(maxTime, timeMillis);
+            rows++;
+        }
+
+        boolean isEmpty() {
+            return rows == 0;
+        }
+
+        /**
+         * @return number of rows thrown away
+         */
+        int clear() {
+            int cleared = rows;
+            rows = 0;
+            return cleared;
+        }
+
+        /**
+         * Write the rows to a new segment file and start empty again.
+         *
+         * @param path where the segment ends up; a temporary file beside it is written first
+         * @throws IOException
+         */
+        void writeTo(Path path) throws IOException {
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + rows * ROW_SIZE);
+            buffer.position(HEADER_SIZE);
+            for (int i = 0; i < rows; i++) {
+                buffer.putInt((int) (times[i] - baseTime));
+            }
+            for (int i = 0; i < rows; i++) {
+                buffer.putLong(accountIds[i]);
+            }
+            for (short[] counts : new short[][]{adults, children, infants}) {
+                for (int i = 0; i < rows; i++) {
+                    buffer.putShort(counts[i]);
+                }
+            }
+            for (int[] amounts : new int[][]{totalAmounts, childAmounts, infantAmounts}) {
+                for (int i = 0; i < rows; i++) {
+                    buffer.putInt(amounts[i]);
+                }
+            }
+            checksum.reset();
+            checksum.update(buffer.array(), HEADER_SIZE, rows * ROW_SIZE);
+            buffer.putInt(0, MAGIC).putInt(4, rows)
+                    .putLong(8, baseTime).putLong(16, minTime).putLong(24, maxTime)
+                    .putInt(32, (int) checksum.getValue()).putInt(36, VERSION);
+            buffer.rewind();
+
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            rows = 0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sales analytics over purchase events: running totals kept up to date as events are drained, and
+ * parallel scans over the segment files for history.
+ * <p>
+ * Running totals cover everything recorded since start up, overall and per time bucket; only the most
+ * recent buckets are kept, older ones being left to {@link #scan}. Recording is done by the one thread
+ * draining events, and reads take a copy, so finance can query at any time without touching the
+ * purchase path.
+ * <p>
+ * Each event carries its amount already split between ticket types, by the prices of the
+ * {@link PricingEngine} the service charges from as they were when it was published, so totals for
+ * the past are never restated by a later price reload or tier change.
+ */
+public final class SalesAnalytics {
+
+    private final long bucketMillis;
+    private final int retainedBuckets;
+    private final PricingEngine pricingEngine;
+
+    private final SalesTotals totals = new SalesTotals();
+    private final TreeMap<Long, SalesTotals> buckets = new TreeMap<>();
+    private long currentBucketStart = Long.MIN_VALUE;
+    private SalesTotals currentBucket;
+
+    /**
+     * @param bucketMillis width of each time bucket
+     * @param retainedBuckets most recent buckets to keep running totals for
+     */
+    public SalesAnalytics(long bucketMillis, int retainedBuckets) {
+        this(bucketMillis, retainedBuckets, new PricingEngine(PriceTable.DEFAULT));
+    }
+
+    /**
+     * @param bucketMillis width of each time bucket
+     * @param retainedBuckets most recent buckets to keep running totals for
+     * @param pricingEngine the engine purchases are priced by, whose prices split each one as it is published
+     */
+    public SalesAnalytics(long bucketMillis, int retainedBuckets, PricingEngine pricingEngine) {
+        if (bucketMillis < 1 || retainedBuckets < 1) {
+            throw new IllegalArgumentException("Bucket width and retained buckets must be at least 1");
+        }
+        this.bucketMillis = bucketMillis;
+        this.retainedBuckets = retainedBuckets;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Add one purchase to the running totals.
+     *
+     * @param timeMillis
+     * @param adults
+     * @param children
+     * @param infants
+     * @param totalAmount
+     * @param childAmount part of the total paid for children
+     * @param infantAmount part of the total paid for infants; adults paid the rest
+     */
+    public synchronized void record(long timeMillis, int adults, int children, int infants, int totalAmount,
+                                    int childAmount, int infantAmount) {
+        totals.add(adults, children, infants, totalAmount, childAmount, infantAmount);
+
+        long bucketStart = Math.floorDiv(timeMillis, bucketMillis) * bucketMillis;
+        if (bucketStart != currentBucketStart) {
+            // events arrive close to time order, so a new bucket is rare and this map lookup with it
+            currentBucket = buckets.computeIfAbsent(bucketStart, start -> new SalesTotals());
+            currentBucketStart = bucketStart;
+            while (buckets.size() > retainedBuckets) {
+                if (buckets.pollFirstEntry().getValue() == currentBucket) {
+                    currentBucketStart = Long.MIN_VALUE;
+                }
+            }
+        }
+        if (currentBucketStart != Long.MIN_VALUE) {
+            currentBucket.add(adults, children, infants, totalAmount, childAmount, infantAmount);
+        }
+    }
+
+    /**
+     * @return totals of every purchase recorded
+     */
+    public synchronized SalesTotals getTotals() {
+        return totals.copy();
+    }
+
+    /**
+     * @return totals of each retained bucket, keyed by the bucket's start time in milliseconds
+     */
+    public synchronized NavigableMap<Long, SalesTotals> getBuckets() {
+        NavigableMap<Long, SalesTotals> copy = new TreeMap<>();
+        for (Map.Entry<Long, SalesTotals> bucket : buckets.entrySet()) {
+            copy.put(bucket.getKey(), bucket.getValue().copy());
+        }
+        return copy;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public PricingEngine getPricingEngine() {
+        return pricingEngine;
+    }
+
+    /**
+     * Total the purchases in a time range across segment files, reading the segments in parallel.
+     * Segments whose header shows no event in the range are not read.
+     *
+     * @param segments
+     * @param fromMillis inclusive
+     * @param toMillis exclusive
+     * @param pool runs the scan
+     * @return totals of the purchases in range
+     * @throws IOException when a segment cannot be read
+     */
+    public static SalesTotals scan(List<Path> segments, long fromMillis, long toMillis, ForkJoinPool pool)
+            throws IOException {
+        try {
+            return pool.invoke(new ScanTask(segments, fromMillis, toMillis));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Splits the segment list in half until one segment is left, then totals that segment's rows.
+     */
+    private static final class ScanTask extends RecursiveTask<SalesTotals> {
+
+        private final List<Path> segments;
+        private final long fromMillis;
+        private final long toMillis;
+
+        ScanTask(List<Path> segments, long fromMillis, long toMillis) {
+            this.segments = segments;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        @Override
+        protected SalesTotals compute() {
+            int size = segments.size();
+            if (size > 1) {
+                ScanTask right = new ScanTask(segments.subList(size / 2, size), fromMillis, toMillis);
+                right.fork();
+                SalesTotals left = new ScanTask(segments.subList(0, size / 2), fromMillis, toMillis).compute();
+                return left.addAll(right.join());
+            }
+            SalesTotals salesTotals = new SalesTotals();
+            if (size == 1) {
+                try {
+                    scanSegment(segments.get(0), salesTotals);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return salesTotals;
+        }
+
+        private void scanSegment(Path path, SalesTotals salesTotals) throws IOException {
+            if (!PurchaseSegment.overlaps(path, fromMillis, toMillis)) {
+                return;
+            }
+            PurchaseSegment segment = PurchaseSegment.read(path);
+            boolean allInRange = segment.getMinTime() >= fromMillis && segment.getMaxTime() < toMillis;
+            for (int row = 0; row < segment.getRows(); row++) {
+                if (allInRange || segment.getTime(row) >= fromMillis && segment.getTime(row) < toMillis) {
+                    salesTotals.add(segment.getCount(Type.ADULT, row),
+                            segment.getCount(Type.CHILD, row),
+                            segment.getCount(Type.INFANT, row),
+                            segment.getTotalAmount(row),
+                            segment.getAmount(Type.CHILD, row),
+                            segment.getAmount(Type.INFANT, row));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+
+/**
+ * Purchases, tickets and revenue per {@link Type} over some set of purchase events. Not thread safe;
+ * {@link SalesAnalytics} hands out copies.
+ * <p>
+ * A purchase is paid as one amount, and discounts and bundles mean it is not always the sum of its
+ * tickets' prices. Its amount is split between the types in proportion to each type's share of the
+ * purchase's ticket prices in a {@link PriceTable}, so revenue per type always adds up to the amount
+ * actually paid. The split is made once, with the prices of the time, and recorded with the purchase.
+ */
+public final class SalesTotals {
+
+    private static final Type[] TYPES = Type.values();
+    private static final int ADULT = Type.ADULT.ordinal();
+    private static final int CHILD = Type.CHILD.ordinal();
+    private static final int INFANT = Type.INFANT.ordinal();
+
+    private long purchases;
+    private final long[] tickets = new long[TYPES.length];
+    private final long[] revenue = new long[TYPES.length];
+
+    public SalesTotals() {
+    }
+
+    private SalesTotals(SalesTotals salesTotals) {
+        addAll(salesTotals);
+    }
+
+    /**
+     * @param adults
+     * @param children
+     * @param infants
+     * @param totalAmount paid for the whole purchase
+     * @param childAmount part of the total paid for children
+     * @param infantAmount part of the total paid for infants; adults paid the rest
+     * @return this
+     */
+    public SalesTotals add(int adults, int children, int infants, int totalAmount, int childAmount, int infantAmount) {
+        purchases++;
+        tickets[ADULT] += adults;
+        tickets[CHILD] += children;
+        tickets[INFANT] += infants;
+        revenue[ADULT] += totalAmount - childAmount - infantAmount;
+        revenue[CHILD] += childAmount;
+        revenue[INFANT] += infantAmount;
+        return this;
+    }
+
+    /**
+     * Split a purchase's amount by its tickets' prices, for recording with it.
+     *
+     * @param ticketType
+     * @param adults
+     * @param children
+     * @param infants
+     * @param totalAmount paid for the whole purchase
+     * @param priceTable prices the amount is split by
+     * @param tier
+     * @return part of the total paid for that type; adults take the rounding remainder
+     */
+    public static int split(Type ticketType, int adults, int children, int infants, int totalAmount,
+                            PriceTable priceTable, PriceTier tier) {
+        long adultWeight = (long) adults * priceTable.getPrice(tier, Type.ADULT);
+        long childWeight = (long) children * priceTable.getPrice(tier, Type.CHILD);
+        long infantWeight = (long) infants * priceTable.getPrice(tier, Type.INFANT);
+        long weight = adultWeight + childWeight + infantWeight;
+        if (weight == 0) {
+            return ticketType == Type.ADULT ? totalAmount : 0;
+        }
+        int childAmount = (int) (totalAmount * childWeight / weight);
+        int infantAmount = (int) (totalAmount * infantWeight / weight);
+        switch (ticketType) {
+            case CHILD:
+                return childAmount;
+            case INFANT:
+                return infantAmount;
+            default:
+                return totalAmount - childAmount - infantAmount;
+        }
+    }
+
+    /**
+     * @param salesTotals
+     * @return this
+     */
+    public SalesTotals addAll(SalesTotals salesTotals) {
+        purchases += salesTotals.purchases;
+        for (int i = 0; i < TYPES.length; i++) {
+            tickets[i] += salesTotals.tickets[i];
+            revenue[i] += salesTotals.revenue[i];
+        }
+        return this;
+    }
+
+    public SalesTotals copy() {
+        return new SalesTotals(this);
+    }
+
+    public long getPurchases() {
+        return purchases;
+    }
+
+    public long getTickets(Type ticketType) {
+        return tickets[ticketType.ordinal()];
+    }
+
+    public long getRevenue(Type ticketType) {
+        return revenue[ticketType.ordinal()];
+    }
+
+    public long getTotalRevenue() {
+        long totalRevenue = 0;
+        for (long typeRevenue : revenue) {
+            totalRevenue += typeRevenue;
+        }
+        return totalRevenue;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesTotals{purchases=" + purchases
+                + ", adults=" + tickets[ADULT] + ", children=" + tickets[CHILD] + ", infants=" + tickets[INFANT]
+                + ", revenue=" + getTotalRevenue() + "}";
+    }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown by a batch payment gateway when only some payments in a batch failed. The rest were taken, so
+ * only the failed ones need to be reported to their callers.
+ */
+public class BatchPaymentException extends RuntimeException {
+
+    private final RuntimeException[] failures;
+
+    /**
+     * @param message
+     * @param failures one entry per payment in the batch, in batch order: the failure, or null if it was taken
+     */
+    public BatchPaymentException(String message, RuntimeException[] failures) {
+        super(message);
+        this.failures = failures.clone();
+    }
+
+    /**
+     * @param index position of the payment in the batch
+     * @return why the payment failed, or null if it was taken
+     */
+    public RuntimeException getFailure(int index) {
+        return failures[index];
+    }
+
+    public int getBatchSize() {
+        return failures.length;
+    }
+}
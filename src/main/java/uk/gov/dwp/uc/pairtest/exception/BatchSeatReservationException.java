@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown by a batch seat reservation gateway when only some reservations in a batch failed. The rest were
+ * reserved, so only the failed ones need to be reported to their callers.
+ */
+public class BatchSeatReservationException extends RuntimeException {
+
+    private final RuntimeException[] failures;
+
+    /**
+     * @param message
+     * @param failures one entry per reservation in the batch, in batch order: the failure, or null if it was made
+     */
+    public BatchSeatReservationException(String message, RuntimeException[] failures) {
+        super(message);
+        this.failures = failures.clone();
+    }
+
+    /**
+     * @param index position of the reservation in the batch
+     * @return why the reservation failed, or null if it was made
+     */
+    public RuntimeException getFailure(int index) {
+        return failures[index];
+    }
+
+    public int getBatchSize() {
+        return failures.length;
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * A third-party gateway did not answer in time, or is being bypassed while its circuit breaker is open.
+ */
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+
+    public GatewayUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    private GatewayUnavailableException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * Exception without a stack trace or suppressed exceptions, cheap enough to create once and rethrow
+     * on every fast failure.
+     *
+     * @param message
+     * @return
+     */
+    public static GatewayUnavailableException stackless(String message) {
+        return new GatewayUnavailableException(message, false);
+    }
+}
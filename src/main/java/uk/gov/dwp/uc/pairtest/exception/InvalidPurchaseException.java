@@ -17,4 +17,19 @@ public class InvalidPurchaseException extends RuntimeException {
     public InvalidPurchaseException(Throwable cause) {
         super(cause);
     }
+
+    private InvalidPurchaseException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * Exception without a stack trace or suppressed exceptions, cheap enough to create once and rethrow
+     * for every rejection of the same kind.
+     *
+     * @param message
+     * @return
+     */
+    public static InvalidPurchaseException stackless(String message) {
+        return new InvalidPurchaseException(message, false);
+    }
 }
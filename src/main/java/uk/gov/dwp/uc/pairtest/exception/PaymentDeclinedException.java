@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown by a payment gateway when the provider refused the payment outright, so nothing was taken.
+ * Anything else a payment throws leaves it unknown whether the account was charged.
+ */
+public class PaymentDeclinedException extends RuntimeException {
+
+    public PaymentDeclinedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * Seat reservation gateway able to reserve seats for many accounts in one round trip.
+ */
+public interface BatchSeatReservationService extends SeatReservationService {
+
+    /**
+     * Reserve seats for each account, where {@code totalSeatsToAllocate[i]} belongs to {@code accountIds[i]}.
+     *
+     * @param accountIds
+     * @param totalSeatsToAllocate
+     * @throws uk.gov.dwp.uc.pairtest.exception.BatchSeatReservationException naming the failed reservations
+     * when only some failed; any other exception means none of them were made
+     */
+    void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate);
+
+}
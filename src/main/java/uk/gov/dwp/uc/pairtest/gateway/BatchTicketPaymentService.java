@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * Payment gateway able to take payment for many accounts in one round trip.
+ */
+public interface BatchTicketPaymentService extends TicketPaymentService {
+
+    /**
+     * Take payment from each account, where {@code totalAmountsToPay[i]} is charged to {@code accountIds[i]}.
+     *
+     * @param accountIds
+     * @param totalAmountsToPay
+     * @throws uk.gov.dwp.uc.pairtest.exception.BatchPaymentException naming the failed payments when only some
+     * failed; after any other exception it is unknown which of them were taken
+     */
+    void makePayments(long[] accountIds, int[] totalAmountsToPay);
+
+}
@@ -0,0 +1,83 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free circuit breaker for a gateway.
+ * <p>
+ * Closed, calls go through and consecutive failures are counted; reaching the threshold opens the breaker.
+ * Open, calls are refused until the open period has passed, when a single trial call is let through
+ * (half open). The trial succeeding closes the breaker, failing opens it for another period. Every
+ * transition is a compare-and-set, so callers never block on each other.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAtNanos;
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this(failureThreshold, openDuration, unit, System::nanoTime);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, LongSupplier nanoClock) {
+        if (failureThreshold <= 0 || openDuration <= 0) {
+            throw new IllegalArgumentException("Failure threshold and open duration must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return true if the call may go ahead; the caller must then report {@link #onSuccess()} or {@link #onFailure()}
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() == State.HALF_OPEN) {
+            state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+            state.compareAndSet(State.HALF_OPEN, State.OPEN);
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            // written before the state so that anyone who sees OPEN also sees when it opened
+            openedAtNanos = nanoClock.getAsLong();
+            if (state.compareAndSet(State.CLOSED, State.OPEN)) {
+                consecutiveFailures.set(0);
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+}
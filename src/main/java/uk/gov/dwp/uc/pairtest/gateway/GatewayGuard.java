@@ -0,0 +1,202 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.PaymentDeclinedException;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs gateway calls on an executor so the caller can give up after a timeout, behind a circuit breaker,
+ * optionally hedging a slow call with a second attempt. Shared by the guarded gateway decorators.
+ */
+final class GatewayGuard {
+
+    private final Executor executor;
+    private final long timeoutNanos;
+    private final CircuitBreaker circuitBreaker;
+
+    private final GatewayUnavailableException circuitOpenException;
+    private final GatewayUnavailableException timeoutException;
+    private final GatewayUnavailableException rejectedException;
+    private final String gatewayName;
+
+    private final LongAdder hedgedCalls = new LongAdder();
+
+    GatewayGuard(String gatewayName, Executor executor, long timeout, TimeUnit unit, CircuitBreaker circuitBreaker) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.gatewayName = gatewayName;
+        this.executor = executor;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.circuitBreaker = circuitBreaker;
+        this.circuitOpenException = GatewayUnavailableException.stackless(gatewayName + " circuit is open");
+        this.timeoutException = GatewayUnavailableException.stackless(
+                gatewayName + " timed out after " + timeout + " " + abbreviation(unit));
+        this.rejectedException = GatewayUnavailableException.stackless(gatewayName + " executor is saturated");
+    }
+
+    /**
+     * @param call the gateway call
+     * @param hedgeDelayNanos send a second attempt if the first has not finished by then, 0 for never
+     */
+    void call(Runnable call, long hedgeDelayNanos) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw circuitOpenException;
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        Attempt primary;
+        try {
+            primary = submit(call);
+        } catch (RejectedExecutionException e) {
+            // the breaker let this call through, so it must hear how it went or a half open trial never ends
+            circuitBreaker.onFailure();
+            throw rejectedException;
+        }
+        Attempt hedge = null;
+        try {
+            if (hedgeDelayNanos > 0 && hedgeDelayNanos < timeoutNanos) {
+                try {
+                    primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    try {
+                        hedge = submit(call);
+                    } catch (RejectedExecutionException rejected) {
+                        // the first attempt still holds its thread, so give it the rest of the timeout alone
+                    }
+                    if (hedge == null) {
+                        primary.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    } else {
+                        hedgedCalls.increment();
+                        firstSuccess(primary, hedge).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    }
+                }
+            } else {
+                primary.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            circuitBreaker.onSuccess();
+        } catch (TimeoutException e) {
+            circuitBreaker.onFailure();
+            throw timeoutException;
+        } catch (ExecutionException e) {
+            throw failed(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onFailure();
+            throw new GatewayUnavailableException(gatewayName + " call interrupted", e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    long getHedgedCallCount() {
+        return hedgedCalls.sum();
+    }
+
+    /**
+     * So a timeout reads in the unit it was configured in; a sub-millisecond one would otherwise read as 0 ms.
+     */
+    private static String abbreviation(TimeUnit unit) {
+        switch (unit) {
+            case NANOSECONDS:
+                return "ns";
+            case MICROSECONDS:
+                return "us";
+            case MILLISECONDS:
+                return "ms";
+            case SECONDS:
+                return "s";
+            case MINUTES:
+                return "min";
+            case HOURS:
+                return "h";
+            default:
+                return "d";
+        }
+    }
+
+    private Attempt submit(Runnable call) {
+        Attempt attempt = new Attempt(call);
+        executor.execute(attempt);
+        return attempt;
+    }
+
+    /**
+     * A gateway that answers, even to say there are no seats or to decline a payment, is healthy as far as the
+     * breaker is concerned.
+     */
+    private RuntimeException failed(Throwable cause) {
+        if (cause instanceof SeatsUnavailableException || cause instanceof PaymentDeclinedException) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new GatewayUnavailableException(gatewayName + " failed", cause);
+    }
+
+    /**
+     * @return completes when either attempt succeeds, or exceptionally once both have failed
+     */
+    private static CompletableFuture<Void> firstSuccess(Attempt first, Attempt second) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        for (Attempt attempt : new Attempt[]{first, second}) {
+            attempt.outcome.whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    outcome.complete(null);
+                } else if (remaining.decrementAndGet() == 0) {
+                    outcome.completeExceptionally(failure);
+                }
+            });
+        }
+        return outcome;
+    }
+
+    /**
+     * A cancellable call that also reports its outcome as a future, so attempts can be raced.
+     */
+    private static final class Attempt extends FutureTask<Void> {
+
+        final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        Attempt(Runnable call) {
+            super(call, null);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                outcome.cancel(false);
+                return;
+            }
+            try {
+                get();
+                outcome.complete(null);
+            } catch (ExecutionException e) {
+                outcome.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcome.completeExceptionally(e);
+            }
+        }
+    }
+}
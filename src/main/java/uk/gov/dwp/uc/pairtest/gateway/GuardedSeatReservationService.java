@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SeatReservationService} decorator that bounds each reservation by a timeout and fails fast with
+ * a {@link uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException} while its {@link CircuitBreaker}
+ * is open.
+ * <p>
+ * With a hedge delay, a reservation still running after that delay is sent again and whichever attempt
+ * succeeds first wins, trimming the tail at the cost of a few duplicate calls. Only enable hedging for a
+ * provider whose reservations are idempotent for the same account and seat count.
+ */
+public class GuardedSeatReservationService implements SeatReservationService {
+
+    private final SeatReservationService seatReservationService;
+    private final GatewayGuard gatewayGuard;
+    private final long hedgeDelayNanos;
+
+    public GuardedSeatReservationService(SeatReservationService seatReservationService, Executor executor,
+                                         long timeout, TimeUnit unit, CircuitBreaker circuitBreaker) {
+        this(seatReservationService, executor, timeout, 0, unit, circuitBreaker);
+    }
+
+    /**
+     * @param seatReservationService
+     * @param executor runs the gateway calls, see {@link uk.gov.dwp.uc.pairtest.GatewayExecutors}
+     * @param timeout
+     * @param hedgeDelay 0 to never hedge
+     * @param unit
+     * @param circuitBreaker
+     */
+    public GuardedSeatReservationService(SeatReservationService seatReservationService, Executor executor,
+                                         long timeout, long hedgeDelay, TimeUnit unit, CircuitBreaker circuitBreaker) {
+        this.seatReservationService = seatReservationService;
+        this.gatewayGuard = new GatewayGuard("Seat reservation", executor, timeout, unit, circuitBreaker);
+        this.hedgeDelayNanos = unit.toNanos(hedgeDelay);
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        gatewayGuard.call(() -> seatReservationService.reserveSeat(accountId, totalSeatsToAllocate), hedgeDelayNanos);
+    }
+
+    /**
+     * @return reservations that were sent a second time
+     */
+    public long getHedgedCallCount() {
+        return gatewayGuard.getHedgedCallCount();
+    }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TicketPaymentService} decorator that bounds each payment by a timeout and fails fast with
+ * a {@link uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException} while its {@link CircuitBreaker}
+ * is open.
+ * <p>
+ * Payments are never retried or hedged. A payment that times out may still be taken by the provider,
+ * so the journal keeps such purchases as {@code FAILED_AFTER_RESERVATION} for recovery to reconcile.
+ */
+public class GuardedTicketPaymentService implements TicketPaymentService {
+
+    private final TicketPaymentService ticketPaymentService;
+    private final GatewayGuard gatewayGuard;
+
+    public GuardedTicketPaymentService(TicketPaymentService ticketPaymentService, Executor executor,
+                                       long timeout, TimeUnit unit, CircuitBreaker circuitBreaker) {
+        this.ticketPaymentService = ticketPaymentService;
+        this.gatewayGuard = new GatewayGuard("Ticket payment", executor, timeout, unit, circuitBreaker);
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        gatewayGuard.call(() -> ticketPaymentService.makePayment(accountId, totalAmountToPay), 0);
+    }
+}
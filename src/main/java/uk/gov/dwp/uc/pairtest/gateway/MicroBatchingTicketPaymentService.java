@@ -0,0 +1,270 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import uk.gov.dwp.uc.pairtest.concurrent.MpscRingBuffer;
+import uk.gov.dwp.uc.pairtest.exception.BatchPaymentException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+
+import java.io.Closeable;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link BatchTicketPaymentService} decorator that gathers concurrent single payments into batches, so a
+ * provider that charges and rate limits per call sees one call for many purchases.
+ * <p>
+ * Callers queue their payment on a {@link MpscRingBuffer} and block until it is settled. One dispatcher
+ * thread takes the first waiting payment, then keeps collecting until the batch is full or the linger
+ * time since that first payment has passed, and sends the batch in one {@code makePayments} call. While
+ * a batch is with the provider, further payments queue up and go in the next one, so under load batches
+ * fill without lingering.
+ * <p>
+ * Each caller gets its own outcome. If the provider throws a {@link BatchPaymentException}, only the
+ * payments it names as failed fail; any other exception fails every payment in the batch, since which of
+ * them were taken is unknown, each caller getting its own {@link GatewayUnavailableException} caused by it
+ * so no two callers share an exception they might add suppressed ones to. Payments are never retried.
+ * A full queue fails the payment straight away with a {@link GatewayUnavailableException} rather than
+ * letting callers pile up.
+ */
+public class MicroBatchingTicketPaymentService implements BatchTicketPaymentService, Closeable {
+
+    private static final GatewayUnavailableException QUEUE_FULL =
+            GatewayUnavailableException.stackless("Ticket payment queue is full");
+    private static final GatewayUnavailableException CLOSED =
+            GatewayUnavailableException.stackless("Ticket payment batching has been closed");
+    private static final long CLOSING_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BatchTicketPaymentService batchTicketPaymentService;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final MpscRingBuffer<PendingPayment> queue;
+
+    private final Thread dispatcher;
+    private volatile boolean dispatcherIdle;
+    private volatile boolean closed;
+
+    private volatile long batchCount;
+    private volatile long paymentCount;
+
+    /**
+     * @param batchTicketPaymentService provider taking each batch in one call
+     * @param maxBatchSize most payments sent in one call
+     * @param maxLinger longest a payment waits for others to join its batch, may be zero
+     * @param unit
+     * @param queueCapacity payments that may wait at once, rounded up to a power of two
+     */
+    public MicroBatchingTicketPaymentService(BatchTicketPaymentService batchTicketPaymentService, int maxBatchSize,
+                                             long maxLinger, TimeUnit unit, int queueCapacity) {
+        if (maxBatchSize < 1 || maxLinger < 0) {
+            throw new IllegalArgumentException("Batch size must be at least 1 and linger not negative");
+        }
+        this.batchTicketPaymentService = batchTicketPaymentService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = unit.toNanos(maxLinger);
+        this.queue = new MpscRingBuffer<>(queueCapacity);
+        this.dispatcher = new Thread(this::dispatchLoop, "ticket-payment-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue the payment and block until the batch it went in has been settled.
+     *
+     * @param accountId
+     * @param totalAmountToPay
+     * @throws GatewayUnavailableException when the queue is full or the batcher is closed
+     */
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        if (closed) {
+            throw CLOSED;
+        }
+        PendingPayment pendingPayment = new PendingPayment(accountId, totalAmountToPay, Thread.currentThread());
+        if (!queue.offer(pendingPayment)) {
+            throw QUEUE_FULL;
+        }
+        // the queue's publishing store must be visible before reading the flag, or a wake up could be missed
+        VarHandle.fullFence();
+        if (dispatcherIdle) {
+            LockSupport.unpark(dispatcher);
+        }
+        // queued before close was seen, the dispatcher is bound to take it; otherwise it may have already stopped
+        boolean closing = closed;
+
+        // the payment cannot be called off once queued, so an interrupt is kept for later rather than acted on
+        boolean interrupted = false;
+        try {
+            while (!pendingPayment.settled) {
+                if (!closing) {
+                    LockSupport.park(this);
+                } else if (dispatcher.isAlive()) {
+                    LockSupport.parkNanos(this, CLOSING_POLL_NANOS);
+                } else if (!pendingPayment.settled) {
+                    throw CLOSED;
+                }
+                interrupted |= Thread.interrupted();
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pendingPayment.failure != null) {
+            throw pendingPayment.failure;
+        }
+    }
+
+    /**
+     * Already a batch, so it goes straight to the provider.
+     */
+    @Override
+    public void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+        batchTicketPaymentService.makePayments(accountIds, totalAmountsToPay);
+    }
+
+    /**
+     * @return batches sent to the provider
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return single payments sent to the provider in batches
+     */
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    /**
+     * Settle the payments already queued and stop the dispatcher; later payments fail straight away.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        PendingPayment[] batch = new PendingPayment[maxBatchSize];
+        while (true) {
+            PendingPayment first = queue.poll();
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    // a payment queued while closing is failed rather than left waiting forever
+                    failRemaining();
+                    return;
+                }
+                awaitPayments(0);
+                continue;
+            }
+
+            batch[0] = first;
+            int size = 1;
+            long lingerDeadline = System.nanoTime() + maxLingerNanos;
+            while (size < maxBatchSize) {
+                PendingPayment next = queue.poll();
+                if (next != null) {
+                    batch[size++] = next;
+                    continue;
+                }
+                long remaining = lingerDeadline - System.nanoTime();
+                if (remaining <= 0 || closed) {
+                    break;
+                }
+                awaitPayments(remaining);
+            }
+            send(batch, size);
+            Arrays.fill(batch, 0, size, null);
+        }
+    }
+
+    /**
+     * Park until a caller queues a payment, or for at most the given time when it is above zero.
+     */
+    private void awaitPayments(long timeoutNanos) {
+        dispatcherIdle = true;
+        // checked again after raising the flag, since a payment queued just before it would not wake us
+        if (queue.isEmpty() && !closed) {
+            if (timeoutNanos > 0) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        dispatcherIdle = false;
+    }
+
+    private void send(PendingPayment[] batch, int size) {
+        long[] accountIds = new long[size];
+        int[] totalAmountsToPay = new int[size];
+        for (int i = 0; i < size; i++) {
+            accountIds[i] = batch[i].accountId;
+            totalAmountsToPay[i] = batch[i].totalAmountToPay;
+        }
+
+        Throwable batchFailure = null;
+        BatchPaymentException partialFailure = null;
+        try {
+            batchTicketPaymentService.makePayments(accountIds, totalAmountsToPay);
+        } catch (BatchPaymentException e) {
+            if (e.getBatchSize() == size) {
+                partialFailure = e;
+            } else {
+                batchFailure = e;
+            }
+        } catch (RuntimeException | Error e) {
+            batchFailure = e;
+        }
+        batchCount++;
+        paymentCount += size;
+
+        for (int i = 0; i < size; i++) {
+            if (partialFailure != null) {
+                batch[i].settle(partialFailure.getFailure(i));
+            } else if (batchFailure != null) {
+                batch[i].settle(new GatewayUnavailableException("Ticket payment batch failed", batchFailure));
+            } else {
+                batch[i].settle(null);
+            }
+        }
+    }
+
+    private void failRemaining() {
+        PendingPayment pendingPayment;
+        while ((pendingPayment = queue.poll()) != null) {
+            pendingPayment.settle(CLOSED);
+        }
+    }
+
+    /**
+     * One caller's payment, settled by the dispatcher and read by the caller once {@link #settled} is set.
+     */
+    private static final class PendingPayment {
+
+        private final long accountId;
+        private final int totalAmountToPay;
+        private final Thread caller;
+
+        private RuntimeException failure;
+        private volatile boolean settled;
+
+        PendingPayment(long accountId, int totalAmountToPay, Thread caller) {
+            this.accountId = accountId;
+            this.totalAmountToPay = totalAmountToPay;
+            this.caller = caller;
+        }
+
+        void settle(RuntimeException failure) {
+            this.failure = failure;
+            settled = true;
+            LockSupport.unpark(caller);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.BatchSeatReservationException;
+
+/**
+ * Exposes a single-call {@link SeatReservationService} as a {@link BatchSeatReservationService}
+ * by falling back to one {@code reserveSeat} call per account. Every account is tried; those that failed
+ * are reported together in a {@link BatchSeatReservationException}.
+ */
+public class SeatReservationBatchAdapter implements BatchSeatReservationService {
+
+    private final SeatReservationService seatReservationService;
+
+    private SeatReservationBatchAdapter(SeatReservationService seatReservationService) {
+        this.seatReservationService = seatReservationService;
+    }
+
+    /**
+     * @param seatReservationService
+     * @return the service itself when it is already batch capable, otherwise a per-item adapter
+     */
+    public static BatchSeatReservationService adapt(SeatReservationService seatReservationService) {
+        if (seatReservationService instanceof BatchSeatReservationService) {
+            return (BatchSeatReservationService) seatReservationService;
+        }
+        return new SeatReservationBatchAdapter(seatReservationService);
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        seatReservationService.reserveSeat(accountId, totalSeatsToAllocate);
+    }
+
+    @Override
+    public void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate) {
+        RuntimeException[] failures = null;
+        for (int i = 0; i < accountIds.length; i++) {
+            try {
+                seatReservationService.reserveSeat(accountIds[i], totalSeatsToAllocate[i]);
+            } catch (RuntimeException e) {
+                if (failures == null) {
+                    failures = new RuntimeException[accountIds.length];
+                }
+                failures[i] = e;
+            }
+        }
+        if (failures != null) {
+            throw new BatchSeatReservationException("Some seat reservations in the batch failed", failures);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.BatchPaymentException;
+
+/**
+ * Exposes a single-call {@link TicketPaymentService} as a {@link BatchTicketPaymentService}
+ * by falling back to one {@code makePayment} call per account. Every account is tried; those that failed
+ * are reported together in a {@link BatchPaymentException}.
+ */
+public class TicketPaymentBatchAdapter implements BatchTicketPaymentService {
+
+    private final TicketPaymentService ticketPaymentService;
+
+    private TicketPaymentBatchAdapter(TicketPaymentService ticketPaymentService) {
+        this.ticketPaymentService = ticketPaymentService;
+    }
+
+    /**
+     * @param ticketPaymentService
+     * @return the service itself when it is already batch capable, otherwise a per-item adapter
+     */
+    public static BatchTicketPaymentService adapt(TicketPaymentService ticketPaymentService) {
+        if (ticketPaymentService instanceof BatchTicketPaymentService) {
+            return (BatchTicketPaymentService) ticketPaymentService;
+        }
+        return new TicketPaymentBatchAdapter(ticketPaymentService);
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        ticketPaymentService.makePayment(accountId, totalAmountToPay);
+    }
+
+    @Override
+    public void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+        RuntimeException[] failures = null;
+        for (int i = 0; i < accountIds.length; i++) {
+            try {
+                ticketPaymentService.makePayment(accountIds[i], totalAmountsToPay[i]);
+            } catch (RuntimeException e) {
+                if (failures == null) {
+                    failures = new RuntimeException[accountIds.length];
+                }
+                failures[i] = e;
+            }
+        }
+        if (failures != null) {
+            throw new BatchPaymentException("Some payments in the batch failed", failures);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import uk.gov.dwp.uc.pairtest.HeldPurchase;
+import uk.gov.dwp.uc.pairtest.seating.SeatAllocation;
+
+/**
+ * Immutable Object
+ * <p>
+ * Seats set aside for an account at a fixed price until the hold is confirmed, released or expires.
+ */
+public final class SeatHold {
+
+    private final long holdId;
+    private final HeldPurchase heldPurchase;
+    private final long expiresAtNanos;
+
+    SeatHold(long holdId, HeldPurchase heldPurchase, long expiresAtNanos) {
+        this.holdId = holdId;
+        this.heldPurchase = heldPurchase;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    HeldPurchase getHeldPurchase() {
+        return heldPurchase;
+    }
+
+    public long getHoldId() {
+        return holdId;
+    }
+
+    public long getAccountId() {
+        return heldPurchase.getAccountId();
+    }
+
+    public SeatAllocation getSeatAllocation() {
+        return heldPurchase.getSeatAllocation();
+    }
+
+    public int getSeatCount() {
+        return heldPurchase.getSeatCount();
+    }
+
+    /**
+     * @return amount to pay on confirmation, priced when the hold was taken
+     */
+    public int getTotalAmount() {
+        return heldPurchase.getTotalAmount();
+    }
+
+    /**
+     * @return clock reading the hold expires at
+     */
+    public long getExpiresAtNanos() {
+        return expiresAtNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SeatHold{holdId=" + holdId + ", accountId=" + getAccountId() + ", seats=" + getSeatCount()
+                + ", totalAmount=" + getTotalAmount() + "}";
+    }
+}
@@ -0,0 +1,168 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import uk.gov.dwp.uc.pairtest.HeldPurchase;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.concurrent.HierarchicalTimingWheel;
+import uk.gov.dwp.uc.pairtest.concurrent.HierarchicalTimingWheel.TimerEntry;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.seating.InventorySeatReservationService;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Hold-then-pay purchases: seats are taken from the inventory and held at a fixed price for a while,
+ * then either confirmed or released.
+ * <p>
+ * Holds are validated, priced, capped per account, journalled, paid for and reported through a
+ * {@link TicketServiceImpl}, so they are bought the same way as its other purchases; only the seats come
+ * from the inventory rather than its seat gateway. A held purchase counts against the account's cap from
+ * the moment it is held.
+ * <p>
+ * Holds need the in-process {@link InventorySeatReservationService}, since a plain
+ * {@link thirdparty.seatbooking.SeatReservationService} cannot give seats back. Expiry is driven by a
+ * {@link HierarchicalTimingWheel} rather than a scheduled task per hold or a scan of every hold: call
+ * {@link #expireHolds()} once per tick from a single scheduler thread, and each call costs only the holds
+ * that fall due.
+ */
+public class SeatHoldService {
+
+    private final TicketServiceImpl ticketService;
+    private final InventorySeatReservationService seatReservationService;
+
+    private final long holdNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Guards the wheel, the open holds and the hold id sequence.
+     */
+    private final Object lock = new Object();
+    private final HierarchicalTimingWheel<SeatHold> expiryWheel;
+    private final Map<Long, TimerEntry<SeatHold>> openHolds = new HashMap<>();
+    private long lastHoldId;
+
+    public SeatHoldService(TicketServiceImpl ticketService, InventorySeatReservationService seatReservationService,
+                           long holdDuration, long tickDuration, TimeUnit unit) {
+        this(ticketService, seatReservationService, holdDuration, tickDuration, unit, System::nanoTime);
+    }
+
+    public SeatHoldService(TicketServiceImpl ticketService, InventorySeatReservationService seatReservationService,
+                           long holdDuration, long tickDuration, TimeUnit unit, LongSupplier nanoClock) {
+        if (holdDuration <= 0) {
+            throw new IllegalArgumentException("Hold duration must be positive");
+        }
+        this.ticketService = ticketService;
+        this.seatReservationService = seatReservationService;
+        this.holdNanos = unit.toNanos(holdDuration);
+        this.nanoClock = nanoClock;
+        this.expiryWheel = new HierarchicalTimingWheel<>(tickDuration, unit, nanoClock.getAsLong());
+    }
+
+    /**
+     * Validate and price the tickets, take the seats and hold them.
+     *
+     * @param accountId
+     * @param ticketTypeRequests
+     * @return the hold, to confirm or release by its id
+     * @throws InvalidPurchaseException if the purchase is invalid or over the account's cap
+     * @throws uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException if the showing cannot seat them
+     */
+    public SeatHold hold(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+        HeldPurchase heldPurchase = ticketService.beginHeldPurchase(accountId, ticketTypeRequests,
+                seatCount -> seatReservationService.allocate(accountId, seatCount));
+        long expiresAtNanos = nanoClock.getAsLong() + holdNanos;
+
+        SeatHold seatHold;
+        synchronized (lock) {
+            seatHold = new SeatHold(++lastHoldId, heldPurchase, expiresAtNanos);
+            openHolds.put(seatHold.getHoldId(), expiryWheel.schedule(seatHold, expiresAtNanos));
+        }
+        return seatHold;
+    }
+
+    /**
+     * Take payment for a held purchase. The hold is closed before paying, so it cannot expire or be confirmed
+     * twice meanwhile; if the payment fails the seats are released and the exception rethrown.
+     *
+     * @param holdId
+     * @return the purchase, or a failed result if the hold has expired or does not exist
+     */
+    public PurchaseResult confirm(long holdId) {
+        SeatHold seatHold = close(holdId);
+        if (seatHold == null) {
+            return PurchaseResult.failure(null, ValidationResult.HOLD_NOT_FOUND.getMessage());
+        }
+
+        try {
+            ticketService.payForHeldPurchase(seatHold.getHeldPurchase());
+        } catch (RuntimeException e) {
+            seatReservationService.release(seatHold.getSeatAllocation());
+            throw e;
+        }
+        return PurchaseResult.success(seatHold.getAccountId(), seatHold.getSeatCount(), seatHold.getTotalAmount());
+    }
+
+    /**
+     * Give held seats back before the hold expires.
+     *
+     * @param holdId
+     * @return false if the hold had already expired, been confirmed or released
+     */
+    public boolean release(long holdId) {
+        SeatHold seatHold = close(holdId);
+        if (seatHold == null) {
+            return false;
+        }
+        seatReservationService.release(seatHold.getSeatAllocation());
+        ticketService.abandonHeldPurchase(seatHold.getHeldPurchase());
+        return true;
+    }
+
+    /**
+     * Release every hold that has expired by now. Seats are given back after the lock is dropped, so holds
+     * can still be taken while a large batch is released.
+     *
+     * @return number of holds expired
+     */
+    public int expireHolds() {
+        List<SeatHold> expiredHolds = new ArrayList<>();
+        synchronized (lock) {
+            expiryWheel.advance(nanoClock.getAsLong(), seatHold -> {
+                openHolds.remove(seatHold.getHoldId());
+                expiredHolds.add(seatHold);
+            });
+        }
+        for (SeatHold seatHold : expiredHolds) {
+            seatReservationService.release(seatHold.getSeatAllocation());
+        }
+        // every expired hold's seats are back in the showing before any journal write can fail
+        for (SeatHold seatHold : expiredHolds) {
+            ticketService.abandonHeldPurchase(seatHold.getHeldPurchase());
+        }
+        return expiredHolds.size();
+    }
+
+    public int getOpenHoldCount() {
+        synchronized (lock) {
+            return openHolds.size();
+        }
+    }
+
+    private SeatHold close(long holdId) {
+        synchronized (lock) {
+            TimerEntry<SeatHold> timerEntry = openHolds.remove(holdId);
+            if (timerEntry == null) {
+                return null;
+            }
+            expiryWheel.cancel(timerEntry);
+            return timerEntry.getValue();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded concurrent cache whose entries expire a fixed time after they are written.
+ * <p>
+ * Keys are spread over lock-striped segments so lookups for different keys rarely contend. Each segment
+ * keeps entries in write order, which with a single time-to-live is also expiry order, so expired and
+ * over-capacity entries are always evicted from the head in O(1).
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxEntries, long timeToLive, TimeUnit unit) {
+        this(maxEntries, timeToLive, unit, Runtime.getRuntime().availableProcessors() * 4, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ExpiringCache(int maxEntries, long timeToLive, TimeUnit unit, int concurrencyLevel, LongSupplier nanoClock) {
+        if (maxEntries <= 0 || timeToLive <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Capacity, time to live and concurrency level must be positive");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(concurrencyLevel, maxEntries) * 2 - 1);
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        int segmentCapacity = (maxEntries + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param key
+     * @return the live value for the key, or null
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = nanoClock.getAsLong();
+        V value;
+        synchronized (segment) {
+            value = segment.get(key, now);
+        }
+        record(value);
+        return value;
+    }
+
+    /**
+     * Store the value unless the key already has a live value.
+     *
+     * @param key
+     * @param value
+     * @return the existing live value, or null when this value was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = nanoClock.getAsLong();
+        V existing;
+        synchronized (segment) {
+            existing = segment.get(key, now);
+            if (existing == null) {
+                evictions.add(segment.put(key, value, now + timeToLiveNanos, now));
+            }
+        }
+        record(existing);
+        return existing;
+    }
+
+    /**
+     * Remove the key only while it still maps to the given value.
+     *
+     * @param key
+     * @param value
+     */
+    public void remove(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry != null && entry.value == value) {
+                segment.entries.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void record(V value) {
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        private final int capacity;
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(Math.min(capacity, 1024) * 4 / 3 + 1);
+        }
+
+        private V get(K key, long now) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtNanos - now <= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        /**
+         * @return number of entries evicted to make room or because they expired
+         */
+        private int put(K key, V value, long expiresAtNanos, long now) {
+            int evicted = 0;
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (eldest.hasNext()) {
+                Entry<V> entry = eldest.next().getValue();
+                if (entries.size() < capacity && entry.expiresAtNanos - now > 0) {
+                    break;
+                }
+                eldest.remove();
+                evicted++;
+            }
+            entries.put(key, new Entry<>(value, expiresAtNanos));
+            return evicted;
+        }
+    }
+}
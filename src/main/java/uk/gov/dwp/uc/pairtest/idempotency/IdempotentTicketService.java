@@ -0,0 +1,127 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link TicketService} decorator that deduplicates retried purchases carrying an idempotency key.
+ * <p>
+ * The first purchase for a key runs against the delegate and its {@link PurchaseResult} is recorded;
+ * a retry with the same key and account returns the recorded result without calling the gateways again,
+ * waiting for it if the original is still in flight. Purchases that fail in a gateway, whether thrown or
+ * reported in their result, are not recorded, so they can be retried. Orders without a key pass straight
+ * through.
+ */
+public class IdempotentTicketService implements TicketService {
+
+    private final TicketService ticketService;
+    private final ExpiringCache<String, CompletableFuture<PurchaseResult>> recordedPurchases;
+
+    public IdempotentTicketService(TicketService ticketService,
+                                   ExpiringCache<String, CompletableFuture<PurchaseResult>> recordedPurchases) {
+        this.ticketService = ticketService;
+        this.recordedPurchases = recordedPurchases;
+    }
+
+    @Override
+    public void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+        ticketService.purchaseTickets(accountId, ticketTypeRequests);
+    }
+
+    /**
+     * Purchase tickets at most once per idempotency key and account.
+     *
+     * @param idempotencyKey
+     * @param accountId
+     * @param ticketTypeRequests
+     * @return the result of the original purchase for this key
+     */
+    public PurchaseResult purchaseTickets(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests) {
+        return purchaseTicketsBatch(Collections.singletonList(
+                new PurchaseOrder(idempotencyKey, accountId, ticketTypeRequests))).get(0);
+    }
+
+    @Override
+    public List<PurchaseResult> purchaseTicketsBatch(List<PurchaseOrder> purchaseOrders) {
+
+        int orderCount = purchaseOrders.size();
+        List<CompletableFuture<PurchaseResult>> outcomes = new ArrayList<>(orderCount);
+        List<PurchaseOrder> newOrders = new ArrayList<>(orderCount);
+        List<CompletableFuture<PurchaseResult>> newOutcomes = new ArrayList<>(orderCount);
+
+        for (PurchaseOrder purchaseOrder : purchaseOrders) {
+            CompletableFuture<PurchaseResult> pending = new CompletableFuture<>();
+            CompletableFuture<PurchaseResult> recorded = purchaseOrder.getIdempotencyKey() == null
+                    ? null
+                    : recordedPurchases.putIfAbsent(cacheKey(purchaseOrder), pending);
+            if (recorded != null) {
+                outcomes.add(recorded);
+            } else {
+                outcomes.add(pending);
+                newOrders.add(purchaseOrder);
+                newOutcomes.add(pending);
+            }
+        }
+
+        if (!newOrders.isEmpty()) {
+            completeNewOrders(newOrders, newOutcomes);
+        }
+
+        List<PurchaseResult> purchaseResults = new ArrayList<>(orderCount);
+        for (CompletableFuture<PurchaseResult> outcome : outcomes) {
+            purchaseResults.add(join(outcome));
+        }
+        return purchaseResults;
+    }
+
+    private void completeNewOrders(List<PurchaseOrder> newOrders, List<CompletableFuture<PurchaseResult>> newOutcomes) {
+        List<PurchaseResult> purchaseResults;
+        try {
+            purchaseResults = ticketService.purchaseTicketsBatch(newOrders);
+        } catch (Throwable t) {
+            // Errors included, or retries with these keys would wait forever on futures nothing completes
+            for (int i = 0; i < newOrders.size(); i++) {
+                if (newOrders.get(i).getIdempotencyKey() != null) {
+                    recordedPurchases.remove(cacheKey(newOrders.get(i)), newOutcomes.get(i));
+                }
+                newOutcomes.get(i).completeExceptionally(t);
+            }
+            throw t;
+        }
+        for (int i = 0; i < newOrders.size(); i++) {
+            PurchaseResult purchaseResult = purchaseResults.get(i);
+            if (purchaseResult.getFailureCause() != null && newOrders.get(i).getIdempotencyKey() != null) {
+                // failed in a gateway, so a retry gets to run it again
+                recordedPurchases.remove(cacheKey(newOrders.get(i)), newOutcomes.get(i));
+            }
+            newOutcomes.get(i).complete(purchaseResult);
+        }
+    }
+
+    /**
+     * Keys are scoped to the account, so one account can never be handed another account's result.
+     */
+    private static String cacheKey(PurchaseOrder purchaseOrder) {
+        return purchaseOrder.getAccountId() + ":" + purchaseOrder.getIdempotencyKey();
+    }
+
+    private static PurchaseResult join(CompletableFuture<PurchaseResult> outcome) {
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
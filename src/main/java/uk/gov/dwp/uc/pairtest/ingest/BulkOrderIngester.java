@@ -0,0 +1,360 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs an order file through {@link TicketService#purchaseTicketsBatch(List)} and writes one result line
+ * per order, in file order:
+ * <pre>
+ * lineNumber,accountId,PURCHASED,seats,amount
+ * lineNumber,accountId,REJECTED|UNKNOWN,reason
+ * lineNumber,,MALFORMED,reason
+ * </pre>
+ * Reasons are quoted as CSV fields when they hold a comma, quote or line break.
+ * The calling thread reads and parses while a worker thread purchases and writes results. They hand over a
+ * fixed set of batches through two bounded queues, so a slow gateway stalls the reader rather than
+ * letting parsed orders pile up; memory is bounded by the batch size and batches in flight, not the file.
+ * A batch that a gateway throws for may have been partly reserved or charged before the throw, so its
+ * orders are written as UNKNOWN, to be reconciled against the purchase journal and the providers, and
+ * ingestion carries on.
+ */
+public class BulkOrderIngester {
+
+    /**
+     * Ticket counts up to the purchase limit share request instances; larger ones fail validation anyway.
+     */
+    private static final int CACHED_TICKET_COUNTS = 26;
+    private static final TicketTypeRequest[][] TICKET_TYPE_REQUESTS = new TicketTypeRequest[Type.values().length][CACHED_TICKET_COUNTS];
+
+    static {
+        for (Type type : Type.values()) {
+            for (int count = 0; count < CACHED_TICKET_COUNTS; count++) {
+                TICKET_TYPE_REQUESTS[type.ordinal()][count] = new TicketTypeRequest(type, count);
+            }
+        }
+    }
+
+    private final TicketService ticketService;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final OrderFileReader orderFileReader;
+
+    public BulkOrderIngester(TicketService ticketService, int batchSize, int maxBatchesInFlight) {
+        this(ticketService, batchSize, maxBatchesInFlight, new OrderFileReader());
+    }
+
+    public BulkOrderIngester(TicketService ticketService, int batchSize, int maxBatchesInFlight,
+                             OrderFileReader orderFileReader) {
+        if (batchSize <= 0 || maxBatchesInFlight <= 0) {
+            throw new IllegalArgumentException("Batch size and batches in flight must be positive");
+        }
+        this.ticketService = ticketService;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.orderFileReader = orderFileReader;
+    }
+
+    /**
+     * Purchase every order in the file. Not thread safe; ingest one file at a time per ingester.
+     *
+     * @param orderFile
+     * @param resultsFile created or replaced
+     * @return totals for the file
+     * @throws IOException if the order file cannot be read or the results file written
+     * @throws RuntimeException or {@link Error} that the worker hit while purchasing or writing a batch
+     */
+    public IngestionReport ingest(Path orderFile, Path resultsFile) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        BlockingQueue<OrderBatch> freeBatches = new ArrayBlockingQueue<>(maxBatchesInFlight);
+        BlockingQueue<OrderBatch> fullBatches = new ArrayBlockingQueue<>(maxBatchesInFlight + 1);
+        for (int i = 0; i < maxBatchesInFlight; i++) {
+            freeBatches.add(new OrderBatch(batchSize));
+        }
+
+        try (Writer resultsWriter = Files.newBufferedWriter(resultsFile, StandardCharsets.UTF_8)) {
+            ResultWriter resultWriter = new ResultWriter(resultsWriter, freeBatches, fullBatches);
+            Thread worker = new Thread(resultWriter, "bulk-order-ingest");
+            worker.setDaemon(true);
+            worker.start();
+
+            BatchFiller batchFiller = new BatchFiller(freeBatches, fullBatches, resultWriter);
+            try {
+                orderFileReader.read(orderFile, batchFiller);
+                batchFiller.handOver();
+            } catch (StopReading e) {
+                // the worker has failed, which is rethrown below
+            } finally {
+                fullBatches.put(OrderBatch.END);
+                worker.join();
+            }
+
+            rethrow(resultWriter.failure);
+            return new IngestionReport(resultWriter.ordersPurchased, resultWriter.ordersRejected,
+                    resultWriter.ordersUnknown, resultWriter.ordersMalformed, System.nanoTime() - start);
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    /**
+     * Order lines in file order. Malformed lines keep their place but have no purchase order.
+     */
+    private static final class OrderBatch {
+
+        static final OrderBatch END = new OrderBatch(0);
+
+        final long[] lineNumbers;
+        final long[] accountIds;
+        final String[] malformedReasons;
+        final List<PurchaseOrder> purchaseOrders;
+        int size;
+
+        OrderBatch(int batchSize) {
+            this.lineNumbers = new long[batchSize];
+            this.accountIds = new long[batchSize];
+            this.malformedReasons = new String[batchSize];
+            this.purchaseOrders = new ArrayList<>(batchSize);
+        }
+
+        boolean isFull() {
+            return size == lineNumbers.length;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                malformedReasons[i] = null;
+            }
+            purchaseOrders.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Thrown through the reader to stop it once the worker has failed.
+     */
+    private static final class StopReading extends RuntimeException {
+
+        static final StopReading INSTANCE = new StopReading();
+
+        private StopReading() {
+            super("Worker failed", null, false, false);
+        }
+    }
+
+    /**
+     * Fills batches on the reading thread, waiting for a free batch when every batch is in flight. Stops the
+     * reader once the worker has failed, since nothing read after that would be purchased.
+     */
+    private static final class BatchFiller implements OrderLineHandler {
+
+        private final BlockingQueue<OrderBatch> freeBatches;
+        private final BlockingQueue<OrderBatch> fullBatches;
+        private final ResultWriter resultWriter;
+        private OrderBatch batch;
+
+        BatchFiller(BlockingQueue<OrderBatch> freeBatches, BlockingQueue<OrderBatch> fullBatches,
+                    ResultWriter resultWriter) {
+            this.freeBatches = freeBatches;
+            this.fullBatches = fullBatches;
+            this.resultWriter = resultWriter;
+        }
+
+        @Override
+        public void onOrder(long lineNumber, long accountId, int adultTickets, int childTickets, int infantTickets,
+                            String idempotencyKey) throws InterruptedException {
+            OrderBatch batch = currentBatch();
+            batch.lineNumbers[batch.size] = lineNumber;
+            batch.accountIds[batch.size] = accountId;
+            batch.purchaseOrders.add(new PurchaseOrder(idempotencyKey, accountId,
+                    ticketTypeRequest(Type.ADULT, adultTickets),
+                    ticketTypeRequest(Type.CHILD, childTickets),
+                    ticketTypeRequest(Type.INFANT, infantTickets)));
+            batch.size++;
+            handOverIfFull(batch);
+        }
+
+        @Override
+        public void onMalformed(long lineNumber, String reason) throws InterruptedException {
+            OrderBatch batch = currentBatch();
+            batch.lineNumbers[batch.size] = lineNumber;
+            batch.malformedReasons[batch.size] = reason;
+            batch.size++;
+            handOverIfFull(batch);
+        }
+
+        void handOver() throws InterruptedException {
+            if (batch != null && batch.size > 0) {
+                fullBatches.put(batch);
+            }
+            batch = null;
+        }
+
+        private OrderBatch currentBatch() throws InterruptedException {
+            if (batch == null) {
+                OrderBatch freeBatch = freeBatches.take();
+                // the worker records its failure before handing the batch back, so it is seen here
+                if (resultWriter.failure != null) {
+                    freeBatches.put(freeBatch);
+                    throw StopReading.INSTANCE;
+                }
+                batch = freeBatch;
+            }
+            return batch;
+        }
+
+        private void handOverIfFull(OrderBatch batch) throws InterruptedException {
+            if (batch.isFull()) {
+                handOver();
+            }
+        }
+
+        private static TicketTypeRequest ticketTypeRequest(Type type, int noOfTickets) {
+            return noOfTickets >= 0 && noOfTickets < CACHED_TICKET_COUNTS
+                    ? TICKET_TYPE_REQUESTS[type.ordinal()][noOfTickets]
+                    : new TicketTypeRequest(type, noOfTickets);
+        }
+    }
+
+    /**
+     * Purchases each batch and appends its results on the worker thread. After a batch fails, for any
+     * reason, it keeps returning batches unprocessed, so the reader is never left waiting for a free batch.
+     */
+    private final class ResultWriter implements Runnable {
+
+        private final Writer resultsWriter;
+        private final BlockingQueue<OrderBatch> freeBatches;
+        private final BlockingQueue<OrderBatch> fullBatches;
+        private final StringBuilder line = new StringBuilder(128);
+
+        long ordersPurchased;
+        long ordersRejected;
+        long ordersUnknown;
+        long ordersMalformed;
+        volatile Throwable failure;
+
+        ResultWriter(Writer resultsWriter, BlockingQueue<OrderBatch> freeBatches, BlockingQueue<OrderBatch> fullBatches) {
+            this.resultsWriter = resultsWriter;
+            this.freeBatches = freeBatches;
+            this.fullBatches = fullBatches;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (OrderBatch batch = fullBatches.take(); batch != OrderBatch.END; batch = fullBatches.take()) {
+                    if (failure == null) {
+                        try {
+                            process(batch);
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                    batch.clear();
+                    freeBatches.put(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void process(OrderBatch batch) throws IOException {
+            List<PurchaseResult> purchaseResults = null;
+            String failureReason = null;
+            if (!batch.purchaseOrders.isEmpty()) {
+                try {
+                    purchaseResults = ticketService.purchaseTicketsBatch(batch.purchaseOrders);
+                } catch (RuntimeException e) {
+                    failureReason = String.valueOf(e.getMessage());
+                }
+                if (purchaseResults != null && purchaseResults.size() != batch.purchaseOrders.size()) {
+                    throw new IllegalStateException("Expected " + batch.purchaseOrders.size()
+                            + " purchase results but got " + purchaseResults.size());
+                }
+            }
+
+            int next = 0;
+            for (int i = 0; i < batch.size; i++) {
+                line.setLength(0);
+                line.append(batch.lineNumbers[i]).append(',');
+                if (batch.malformedReasons[i] != null) {
+                    line.append(",MALFORMED,");
+                    appendField(batch.malformedReasons[i]);
+                    ordersMalformed++;
+                } else {
+                    line.append(batch.accountIds[i]);
+                    if (failureReason != null) {
+                        line.append(",UNKNOWN,");
+                        appendField(failureReason);
+                        ordersUnknown++;
+                    } else {
+                        PurchaseResult purchaseResult = purchaseResults.get(next++);
+                        if (purchaseResult.isSuccessful()) {
+                            line.append(",PURCHASED,").append(purchaseResult.getSeatCount())
+                                    .append(',').append(purchaseResult.getTotalAmount());
+                            ordersPurchased++;
+                        } else {
+                            line.append(",REJECTED,");
+                            appendField(purchaseResult.getFailureReason());
+                            ordersRejected++;
+                        }
+                    }
+                }
+                line.append('\n');
+                resultsWriter.append(line);
+            }
+            resultsWriter.flush();
+        }
+
+        /**
+         * Append a field, quoted with inner quotes doubled when it would otherwise break the line's CSV
+         */
+        private void appendField(String field) {
+            boolean quoted = false;
+            for (int i = 0; i < field.length() && !quoted; i++) {
+                char c = field.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quoted) {
+                line.append(field);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable Object
+ * <p>
+ * Totals for one order file run through {@link BulkOrderIngester}.
+ */
+public final class IngestionReport {
+
+    private final long ordersPurchased;
+    private final long ordersRejected;
+    private final long ordersUnknown;
+    private final long ordersMalformed;
+    private final long elapsedNanos;
+
+    public IngestionReport(long ordersPurchased, long ordersRejected, long ordersUnknown, long ordersMalformed,
+                           long elapsedNanos) {
+        this.ordersPurchased = ordersPurchased;
+        this.ordersRejected = ordersRejected;
+        this.ordersUnknown = ordersUnknown;
+        this.ordersMalformed = ordersMalformed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return every order line in the file, whatever its outcome
+     */
+    public long getOrdersRead() {
+        return ordersPurchased + ordersRejected + ordersUnknown + ordersMalformed;
+    }
+
+    public long getOrdersPurchased() {
+        return ordersPurchased;
+    }
+
+    /**
+     * @return orders that failed validation
+     */
+    public long getOrdersRejected() {
+        return ordersRejected;
+    }
+
+    /**
+     * @return orders in a batch that a gateway threw for, which may or may not have been charged
+     */
+    public long getOrdersUnknown() {
+        return ordersUnknown;
+    }
+
+    public long getOrdersMalformed() {
+        return ordersMalformed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : getOrdersRead() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d orders (%d purchased, %d rejected, %d unknown, %d malformed) in %d ms, %.0f orders/s",
+                getOrdersRead(), ordersPurchased, ordersRejected, ordersUnknown, ordersMalformed,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getOrdersPerSecond());
+    }
+}
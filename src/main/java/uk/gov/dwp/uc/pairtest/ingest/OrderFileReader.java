@@ -0,0 +1,270 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a CSV order file, one order per line:
+ * <pre>
+ * accountId,adultTickets,childTickets,infantTickets[,idempotencyKey]
+ * </pre>
+ * Blank lines and lines starting with {@code #} are skipped, as is a first line starting with a letter
+ * (a header). Fields are parsed straight from the bytes, so no string is built for a line unless it
+ * carries an idempotency key.
+ * <p>
+ * The file is read one window at a time: files of at least {@code mapThreshold} bytes are memory mapped a
+ * window at a time, smaller ones are read into a single reused direct buffer. A line cut by the end of a
+ * window is re-read at the start of the next, so memory stays at one window whatever the file size.
+ * Each mapped window is unmapped as soon as it is parsed rather than left for the garbage collector, so
+ * only one mapping is live at a time; on a JVM that does not allow this, windows are left to the
+ * collector.
+ */
+public class OrderFileReader {
+
+    static final int DEFAULT_READ_BUFFER_SIZE = 1 << 20;
+    static final int DEFAULT_MAP_WINDOW_SIZE = 64 << 20;
+    static final long DEFAULT_MAP_THRESHOLD = 64L << 20;
+
+    private static final int MAX_KEY_LENGTH = 256;
+
+    /**
+     * {@code sun.misc.Unsafe.invokeCleaner}, bound to the instance, or null when it cannot be reached
+     */
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private final int readBufferSize;
+    private final int mapWindowSize;
+    private final long mapThreshold;
+
+    private ByteBuffer readBuffer;
+    private final byte[] keyBytes = new byte[MAX_KEY_LENGTH];
+
+    private long lineNumber;
+
+    public OrderFileReader() {
+        this(DEFAULT_READ_BUFFER_SIZE, DEFAULT_MAP_WINDOW_SIZE, DEFAULT_MAP_THRESHOLD);
+    }
+
+    /**
+     * @param readBufferSize size of the reused buffer for files read without mapping
+     * @param mapWindowSize bytes mapped at a time for large files
+     * @param mapThreshold file size from which the file is memory mapped
+     */
+    public OrderFileReader(int readBufferSize, int mapWindowSize, long mapThreshold) {
+        if (readBufferSize <= 0 || mapWindowSize <= 0) {
+            throw new IllegalArgumentException("Buffer and window sizes must be positive");
+        }
+        this.readBufferSize = readBufferSize;
+        this.mapWindowSize = mapWindowSize;
+        this.mapThreshold = mapThreshold;
+    }
+
+    /**
+     * Parse every line of the file, in order, into the handler. Not thread safe; use one reader per thread.
+     *
+     * @param orderFile
+     * @param handler
+     * @return number of lines read, including skipped ones
+     * @throws IOException if the file cannot be read or holds a line longer than a window
+     */
+    public long read(Path orderFile, OrderLineHandler handler) throws IOException, InterruptedException {
+        lineNumber = 0;
+        try (FileChannel channel = FileChannel.open(orderFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean mapped = size >= mapThreshold;
+            long position = 0;
+            while (position < size) {
+                ByteBuffer window = mapped ? map(channel, position, size) : fill(channel, position, size);
+                boolean lastWindow = position + window.limit() >= size;
+                int consumed;
+                try {
+                    consumed = parseLines(window, lastWindow, handler);
+                } finally {
+                    if (mapped) {
+                        unmap((MappedByteBuffer) window);
+                    }
+                }
+                if (consumed == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than the read window");
+                }
+                position += consumed;
+            }
+        }
+        return lineNumber;
+    }
+
+    private ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(mapWindowSize, size - position));
+    }
+
+    /**
+     * Release a window's mapping now; it must not be read again.
+     */
+    private static void unmap(MappedByteBuffer window) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) window);
+        } catch (Throwable e) {
+            // left for the garbage collector to unmap
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private ByteBuffer fill(FileChannel channel, long position, long size) throws IOException {
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+        }
+        readBuffer.clear();
+        if (size - position < readBuffer.capacity()) {
+            readBuffer.limit((int) (size - position));
+        }
+        while (readBuffer.hasRemaining()) {
+            if (channel.read(readBuffer, position + readBuffer.position()) < 0) {
+                break;
+            }
+        }
+        readBuffer.flip();
+        return readBuffer;
+    }
+
+    /**
+     * @return bytes up to and including the last complete line in the window
+     */
+    private int parseLines(ByteBuffer window, boolean lastWindow, OrderLineHandler handler) throws InterruptedException {
+        int limit = window.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (window.get(i) == '\n') {
+                parseLine(window, lineStart, i, handler);
+                lineStart = i + 1;
+            }
+        }
+        if (lastWindow && lineStart < limit) {
+            parseLine(window, lineStart, limit, handler);
+            lineStart = limit;
+        }
+        return lineStart;
+    }
+
+    private void parseLine(ByteBuffer window, int start, int end, OrderLineHandler handler) throws InterruptedException {
+        lineNumber++;
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start || window.get(start) == '#') {
+            return;
+        }
+        if (lineNumber == 1 && Character.isLetter(window.get(start))) {
+            return;
+        }
+
+        int fieldEnd = nextField(window, start, end);
+        long accountId = parseLong(window, start, fieldEnd);
+        if (accountId == Long.MIN_VALUE) {
+            handler.onMalformed(lineNumber, "Account id is not a number");
+            return;
+        }
+
+        int adultTickets = 0;
+        int childTickets = 0;
+        int infantTickets = 0;
+        for (int field = 0; field < 3; field++) {
+            if (fieldEnd >= end) {
+                handler.onMalformed(lineNumber, "Expected accountId,adultTickets,childTickets,infantTickets");
+                return;
+            }
+            int fieldStart = fieldEnd + 1;
+            fieldEnd = nextField(window, fieldStart, end);
+            long count = parseLong(window, fieldStart, fieldEnd);
+            if (count == Long.MIN_VALUE || count < Integer.MIN_VALUE || count > Integer.MAX_VALUE) {
+                handler.onMalformed(lineNumber, "Ticket count is not a number");
+                return;
+            }
+            if (field == 0) {
+                adultTickets = (int) count;
+            } else if (field == 1) {
+                childTickets = (int) count;
+            } else {
+                infantTickets = (int) count;
+            }
+        }
+
+        String idempotencyKey = null;
+        if (fieldEnd < end) {
+            int keyStart = fieldEnd + 1;
+            int keyLength = end - keyStart;
+            if (keyLength > MAX_KEY_LENGTH) {
+                handler.onMalformed(lineNumber, "Idempotency key is longer than " + MAX_KEY_LENGTH + " bytes");
+                return;
+            }
+            if (keyLength > 0) {
+                for (int i = 0; i < keyLength; i++) {
+                    keyBytes[i] = window.get(keyStart + i);
+                }
+                idempotencyKey = new String(keyBytes, 0, keyLength, StandardCharsets.UTF_8).trim();
+            }
+        }
+
+        handler.onOrder(lineNumber, accountId, adultTickets, childTickets, infantTickets, idempotencyKey);
+    }
+
+    private static int nextField(ByteBuffer window, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (window.get(i) == ',') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return the number between start and end, ignoring surrounding spaces, or Long.MIN_VALUE if there is none
+     */
+    private static long parseLong(ByteBuffer window, int start, int end) {
+        while (start < end && window.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && window.get(end - 1) == ' ') {
+            end--;
+        }
+        boolean negative = start < end && window.get(start) == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+}
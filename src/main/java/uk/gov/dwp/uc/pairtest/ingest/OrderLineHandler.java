@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+/**
+ * Receives each order line parsed by {@link OrderFileReader}, as primitives so reading allocates nothing
+ * per line. Blocking in a callback holds back the reader, which is how ingestion applies back pressure.
+ */
+public interface OrderLineHandler {
+
+    /**
+     * @param lineNumber one-based line in the order file
+     * @param accountId
+     * @param adultTickets
+     * @param childTickets
+     * @param infantTickets
+     * @param idempotencyKey optional fifth column, null when absent
+     */
+    void onOrder(long lineNumber, long accountId, int adultTickets, int childTickets, int infantTickets,
+                 String idempotencyKey) throws InterruptedException;
+
+    /**
+     * @param lineNumber one-based line in the order file
+     * @param reason why the line could not be read as an order
+     */
+    void onMalformed(long lineNumber, String reason) throws InterruptedException;
+
+}
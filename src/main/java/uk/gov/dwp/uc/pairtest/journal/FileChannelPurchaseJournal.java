@@ -0,0 +1,543 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only {@link PurchaseJournal} over a {@link FileChannel} with group commit.
+ * <p>
+ * Records are fixed size and checksummed. Appenders copy records into an in-memory buffer; one flusher
+ * thread swaps it for an empty one, writes it and calls {@code force} once for everything it held, so
+ * concurrent purchases share the cost of each fsync. A non-zero group commit window makes the flusher
+ * linger after the first pending record to collect more of them per fsync.
+ * <p>
+ * On open the existing file is replayed to find incomplete purchases; a torn record at the tail left
+ * by a crash is discarded.
+ * <p>
+ * Purchases that failed after their seats were reserved are kept with the replayed ones until recovered:
+ * at the next start, or as soon as they fail once {@link #resolveFailuresWith(RecoveryHandler, Executor)}
+ * has been called.
+ * <p>
+ * So replay does not grow with all-time traffic, once the file passes a size threshold the flusher
+ * compacts it after any fsync that leaves no purchase open or unrecovered: it overwrites the first record with a
+ * checkpoint carrying the last purchase id, forces, then truncates the file to that one record.
+ */
+public class FileChannelPurchaseJournal implements PurchaseJournal, Closeable {
+
+    static final int RECORD_SIZE = 32;
+
+    private static final int BUFFER_RECORDS = 4096;
+    private static final long COMPACTION_THRESHOLD = 16L * 1024 * 1024;
+    private static final JournalEntry.State[] STATES = JournalEntry.State.values();
+
+    private final FileChannel channel;
+    private final long groupCommitWindowNanos;
+    private final long compactionThreshold;
+    private final AtomicLong nextPurchaseId;
+    private final Map<Long, JournalEntry> incompletePurchases;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAppended = lock.newCondition();
+    private final Condition recordsDurable = lock.newCondition();
+    private final Condition bufferSwapped = lock.newCondition();
+    private final CRC32 checksum = new CRC32();
+
+    private ByteBuffer activeBuffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+    private ByteBuffer flushBuffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+    private long appendedSequence;
+    private long durableSequence;
+    private long forceCount;
+    private long compactionCount;
+    private int openPurchases;
+    private IOException flushFailure;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    private volatile Executor failureExecutor;
+    private volatile RecoveryHandler failureHandler;
+
+    private FileChannelPurchaseJournal(FileChannel channel, long groupCommitWindowNanos, long compactionThreshold,
+                                       long lastPurchaseId, Map<Long, JournalEntry> incompletePurchases) {
+        this.channel = channel;
+        this.groupCommitWindowNanos = groupCommitWindowNanos;
+        this.compactionThreshold = compactionThreshold;
+        this.nextPurchaseId = new AtomicLong(lastPurchaseId + 1);
+        this.incompletePurchases = incompletePurchases;
+        this.flusher = new Thread(this::flushLoop, "purchase-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Open or create a journal, replaying any existing records.
+     *
+     * @param path
+     * @param groupCommitWindow how long the flusher lingers to collect records before each fsync, may be zero
+     * @param unit
+     * @return the open journal
+     * @throws IOException
+     */
+    public static FileChannelPurchaseJournal open(Path path, long groupCommitWindow, TimeUnit unit) throws IOException {
+        return open(path, groupCommitWindow, unit, COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param compactionThreshold file size in bytes from which the journal is compacted whenever no purchase is open
+     */
+    static FileChannelPurchaseJournal open(Path path, long groupCommitWindow, TimeUnit unit, long compactionThreshold)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Replay replay = replay(channel);
+            // drop a torn tail so new records are appended after the last good one
+            channel.truncate(replay.validLength);
+            channel.position(replay.validLength);
+            return new FileChannelPurchaseJournal(channel, unit.toNanos(groupCommitWindow), compactionThreshold,
+                    replay.lastPurchaseId, replay.incompletePurchases);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return purchases found incomplete when the journal was opened, or that failed after their seats
+     * were reserved since, and not yet recovered
+     */
+    public List<JournalEntry> getIncompletePurchases() {
+        synchronized (incompletePurchases) {
+            return new ArrayList<>(incompletePurchases.values());
+        }
+    }
+
+    /**
+     * Hand every incomplete purchase to the handler and journal how it was resolved.
+     *
+     * @param recoveryHandler
+     * @return number of purchases recovered
+     */
+    public int recover(RecoveryHandler recoveryHandler) {
+        List<JournalEntry> toRecover = getIncompletePurchases();
+        JournalEntry.State[] resolutions = new JournalEntry.State[toRecover.size()];
+        for (int i = 0; i < resolutions.length; i++) {
+            resolutions[i] = resolve(recoveryHandler, toRecover.get(i));
+        }
+        sync();
+        synchronized (incompletePurchases) {
+            for (JournalEntry recovered : toRecover) {
+                incompletePurchases.remove(recovered.getPurchaseId());
+            }
+        }
+        for (int i = 0; i < resolutions.length; i++) {
+            recoveryHandler.resolved(toRecover.get(i), resolutions[i]);
+        }
+        return toRecover.size();
+    }
+
+    /**
+     * Resolve each purchase that fails after its seats were reserved from now on as soon as it is journalled,
+     * on the executor rather than the purchase thread, so it neither holds its seats nor stops compaction
+     * until the next start. A purchase the handler or executor fails on is left for the next start.
+     *
+     * @param recoveryHandler
+     * @param executor
+     */
+    public void resolveFailuresWith(RecoveryHandler recoveryHandler, Executor executor) {
+        this.failureExecutor = executor;
+        this.failureHandler = recoveryHandler;
+    }
+
+    @Override
+    public long begin(long accountId, int seatCount, int totalAmount) {
+        long purchaseId = nextPurchaseId.getAndIncrement();
+        append(JournalEntry.State.STARTED, purchaseId, accountId, seatCount, totalAmount, 1);
+        return purchaseId;
+    }
+
+    @Override
+    public void seatsReserved(long purchaseId) {
+        append(JournalEntry.State.SEATS_RESERVED, purchaseId, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void completed(long purchaseId) {
+        append(JournalEntry.State.COMPLETED, purchaseId, 0, 0, 0, -1);
+    }
+
+    @Override
+    public void failed(long purchaseId) {
+        append(JournalEntry.State.ABORTED, purchaseId, 0, 0, 0, -1);
+    }
+
+    @Override
+    public void failedAfterReservation(long purchaseId, long accountId, int seatCount, int totalAmount) {
+        failedHoldingSeats(JournalEntry.State.FAILED_AFTER_RESERVATION, purchaseId, accountId, seatCount, totalAmount);
+    }
+
+    @Override
+    public void paymentDeclined(long purchaseId, long accountId, int seatCount, int totalAmount) {
+        failedHoldingSeats(JournalEntry.State.PAYMENT_DECLINED, purchaseId, accountId, seatCount, totalAmount);
+    }
+
+    @Override
+    public void sync() {
+        lock.lock();
+        try {
+            long target = appendedSequence;
+            while (durableSequence < target) {
+                throwIfFailedOrClosed();
+                recordsDurable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of fsyncs issued, each covering one group of records
+     */
+    public long getForceCount() {
+        lock.lock();
+        try {
+            return forceCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of times the file has been truncated to a checkpoint
+     */
+    public long getCompactionCount() {
+        lock.lock();
+        try {
+            return compactionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            long target = appendedSequence;
+            while (durableSequence < target && flushFailure == null) {
+                recordsDurable.awaitUninterruptibly();
+            }
+            closed = true;
+            recordsAppended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void failedHoldingSeats(JournalEntry.State state, long purchaseId, long accountId, int seatCount,
+                                    int totalAmount) {
+        JournalEntry failedPurchase = new JournalEntry(purchaseId, accountId, seatCount, totalAmount, state);
+        // tracked before it stops counting as open, so the flusher never compacts it away
+        synchronized (incompletePurchases) {
+            incompletePurchases.put(purchaseId, failedPurchase);
+        }
+        try {
+            // the record carries the whole purchase, so replay finds it even without the records before it
+            append(state, purchaseId, accountId, seatCount, totalAmount, -1);
+        } catch (RuntimeException e) {
+            synchronized (incompletePurchases) {
+                incompletePurchases.remove(purchaseId);
+            }
+            throw e;
+        }
+
+        RecoveryHandler recoveryHandler = failureHandler;
+        if (recoveryHandler != null) {
+            try {
+                failureExecutor.execute(() -> resolveFailure(recoveryHandler, failedPurchase));
+            } catch (RejectedExecutionException e) {
+                // left incomplete for recovery at the next start
+            }
+        }
+    }
+
+    private void resolveFailure(RecoveryHandler recoveryHandler, JournalEntry failedPurchase) {
+        JournalEntry.State resolution;
+        try {
+            // the failure is durable before it is acted on, so a crash cannot leave it looking unresolved
+            sync();
+            resolution = resolve(recoveryHandler, failedPurchase);
+            sync();
+        } catch (RuntimeException e) {
+            // left incomplete for recovery at the next start
+            return;
+        }
+        synchronized (incompletePurchases) {
+            incompletePurchases.remove(failedPurchase.getPurchaseId());
+        }
+        recoveryHandler.resolved(failedPurchase, resolution);
+    }
+
+    /**
+     * Ask the handler how an incomplete purchase was resolved and append the resolution.
+     */
+    private JournalEntry.State resolve(RecoveryHandler recoveryHandler, JournalEntry incompletePurchase) {
+        JournalEntry.State resolution = recoveryHandler.recover(incompletePurchase);
+        if (incompletePurchase.getState() == JournalEntry.State.PAYMENT_DECLINED) {
+            if (resolution != JournalEntry.State.COMPENSATED) {
+                throw new IllegalStateException("Recovery must compensate declined purchase "
+                        + incompletePurchase.getPurchaseId() + " but returned " + resolution);
+            }
+        } else if (resolution != JournalEntry.State.COMPLETED && resolution != JournalEntry.State.COMPENSATED) {
+            throw new IllegalStateException("Recovery must complete or compensate purchase "
+                    + incompletePurchase.getPurchaseId() + " but returned " + resolution);
+        }
+        // replayed and failed purchases are not counted as open, so resolving them leaves the count alone
+        append(resolution, incompletePurchase.getPurchaseId(), 0, 0, 0, 0);
+        return resolution;
+    }
+
+    /**
+     * @param openDelta change in the number of purchases begun and not yet completed or failed
+     */
+    private void append(JournalEntry.State state, long purchaseId, long accountId, int seatCount, int totalAmount,
+                        int openDelta) {
+        lock.lock();
+        try {
+            while (activeBuffer.remaining() < RECORD_SIZE) {
+                throwIfFailedOrClosed();
+                recordsAppended.signal();
+                bufferSwapped.awaitUninterruptibly();
+            }
+            throwIfFailedOrClosed();
+            writeRecord(activeBuffer, checksum, state, purchaseId, accountId, seatCount, totalAmount);
+            appendedSequence++;
+            openPurchases += openDelta;
+            recordsAppended.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (appendedSequence == durableSequence && !closed) {
+                    recordsAppended.awaitUninterruptibly();
+                }
+                if (appendedSequence == durableSequence) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+
+            long target;
+            ByteBuffer toFlush;
+            boolean quiescent;
+            lock.lock();
+            try {
+                target = appendedSequence;
+                // every purchase begun so far has its completing record in this buffer or already on disk
+                quiescent = openPurchases == 0;
+                toFlush = activeBuffer;
+                activeBuffer = flushBuffer;
+                flushBuffer = toFlush;
+                bufferSwapped.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                toFlush.flip();
+                while (toFlush.hasRemaining()) {
+                    channel.write(toFlush);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                toFlush.clear();
+            }
+            boolean compacted = false;
+            if (failure == null && quiescent) {
+                try {
+                    compacted = compactIfDue();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+
+            lock.lock();
+            try {
+                if (compacted) {
+                    compactionCount++;
+                }
+                if (failure != null) {
+                    flushFailure = failure;
+                    recordsDurable.signalAll();
+                    bufferSwapped.signalAll();
+                    return;
+                }
+                durableSequence = target;
+                forceCount++;
+                recordsDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replace the file with a checkpoint record once it is large enough and nothing replay would report
+     * is left in it. Only the flusher writes to the channel, so the checkpoint cannot race an append.
+     * <p>
+     * The checkpoint is forced before the truncate, so a crash in between leaves a file that replays to
+     * the same state: the overwritten first record belonged to a purchase that is complete.
+     *
+     * @return true when the file was compacted
+     */
+    private boolean compactIfDue() throws IOException {
+        long length = channel.position();
+        if (length < compactionThreshold) {
+            return false;
+        }
+        synchronized (incompletePurchases) {
+            if (!incompletePurchases.isEmpty()) {
+                return false;
+            }
+        }
+        ByteBuffer checkpoint = ByteBuffer.allocate(RECORD_SIZE);
+        writeRecord(checkpoint, new CRC32(), JournalEntry.State.COMPLETED, nextPurchaseId.get() - 1, 0, 0, 0);
+        checkpoint.flip();
+        while (checkpoint.hasRemaining()) {
+            channel.write(checkpoint, checkpoint.position());
+        }
+        channel.force(false);
+        channel.truncate(RECORD_SIZE);
+        channel.force(false);
+        return true;
+    }
+
+    private void throwIfFailedOrClosed() {
+        if (flushFailure != null) {
+            throw new UncheckedIOException("Purchase journal can no longer be written", flushFailure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Purchase journal is closed");
+        }
+    }
+
+    static void writeRecord(ByteBuffer buffer, CRC32 checksum, JournalEntry.State state, long purchaseId,
+                            long accountId, int seatCount, int totalAmount) {
+        int start = buffer.position();
+        buffer.put((byte) state.ordinal())
+                .put((byte) 0).put((byte) 0).put((byte) 0)
+                .putInt(seatCount)
+                .putLong(purchaseId)
+                .putLong(accountId)
+                .putInt(totalAmount);
+        ByteBuffer record = buffer.duplicate();
+        record.position(start).limit(start + RECORD_SIZE - Integer.BYTES);
+        checksum.reset();
+        checksum.update(record);
+        buffer.putInt((int) checksum.getValue());
+    }
+
+    /**
+     * Read every intact record, tracking purchases without a completing record.
+     */
+    private static Replay replay(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+        CRC32 checksum = new CRC32();
+        Replay replay = new Replay();
+
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, replay.validLength);
+            if (read <= 0) {
+                return replay;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                int start = buffer.position();
+                ByteBuffer body = buffer.duplicate();
+                body.limit(start + RECORD_SIZE - Integer.BYTES);
+                checksum.reset();
+                checksum.update(body);
+
+                int stateOrdinal = buffer.get();
+                buffer.position(start + 4);
+                int seatCount = buffer.getInt();
+                long purchaseId = buffer.getLong();
+                long accountId = buffer.getLong();
+                int totalAmount = buffer.getInt();
+                int storedChecksum = buffer.getInt();
+
+                if (storedChecksum != (int) checksum.getValue() || stateOrdinal < 0 || stateOrdinal >= STATES.length) {
+                    return replay;
+                }
+                replay.apply(STATES[stateOrdinal], purchaseId, accountId, seatCount, totalAmount);
+                replay.validLength += RECORD_SIZE;
+            }
+            if (buffer.hasRemaining() && read < buffer.capacity()) {
+                return replay;
+            }
+        }
+    }
+
+    private static final class Replay {
+        private final Map<Long, JournalEntry> incompletePurchases = new LinkedHashMap<>();
+        private long validLength;
+        private long lastPurchaseId;
+
+        private void apply(JournalEntry.State state, long purchaseId, long accountId, int seatCount, int totalAmount) {
+            lastPurchaseId = Math.max(lastPurchaseId, purchaseId);
+            switch (state) {
+                case STARTED:
+                    incompletePurchases.put(purchaseId, new JournalEntry(purchaseId, accountId, seatCount, totalAmount, state));
+                    break;
+                case SEATS_RESERVED:
+                    incompletePurchases.computeIfPresent(purchaseId, (id, entry) -> entry.withState(state));
+                    break;
+                case FAILED_AFTER_RESERVATION:
+                case PAYMENT_DECLINED:
+                    incompletePurchases.put(purchaseId, new JournalEntry(purchaseId, accountId, seatCount, totalAmount, state));
+                    break;
+                default:
+                    incompletePurchases.remove(purchaseId);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Immutable Object
+ * <p>
+ * Last known state of a journalled purchase.
+ */
+public final class JournalEntry {
+
+    /**
+     * Record types, in the order a purchase moves through them except {@link #FAILED_AFTER_RESERVATION} and
+     * {@link #PAYMENT_DECLINED}, which come last so journals written before them replay unchanged. A purchase
+     * is complete once it reaches {@link #COMPLETED}, {@link #COMPENSATED} or {@link #ABORTED}.
+     */
+    public enum State {
+        /**
+         * Intent recorded; seats may or may not have been reserved.
+         */
+        STARTED,
+        /**
+         * Seats reserved; payment may or may not have been taken.
+         */
+        SEATS_RESERVED,
+        COMPLETED,
+        /**
+         * Resolved by recovery by undoing whatever the purchase did.
+         */
+        COMPENSATED,
+        /**
+         * Failed before its seats were reserved and reported to the caller as failed, so recovery must not
+         * complete it.
+         */
+        ABORTED,
+        /**
+         * Failed after its seats were reserved and reported to the caller as failed. The seats are still
+         * held and a payment that timed out may still have been taken by the provider, so it stays
+         * incomplete until recovery resolves it.
+         */
+        FAILED_AFTER_RESERVATION,
+        /**
+         * Declined by the payment provider after its seats were reserved and reported to the caller as failed.
+         * Nothing was taken, so recovery only has to release the seats and must compensate it.
+         */
+        PAYMENT_DECLINED
+    }
+
+    private final long purchaseId;
+    private final long accountId;
+    private final int seatCount;
+    private final int totalAmount;
+    private final State state;
+
+    JournalEntry(long purchaseId, long accountId, int seatCount, int totalAmount, State state) {
+        this.purchaseId = purchaseId;
+        this.accountId = accountId;
+        this.seatCount = seatCount;
+        this.totalAmount = totalAmount;
+        this.state = state;
+    }
+
+    JournalEntry withState(State state) {
+        return new JournalEntry(purchaseId, accountId, seatCount, totalAmount, state);
+    }
+
+    public long getPurchaseId() {
+        return purchaseId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isComplete() {
+        return state == State.COMPLETED || state == State.COMPENSATED || state == State.ABORTED;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalEntry{purchaseId=" + purchaseId + ", accountId=" + accountId + ", seatCount=" + seatCount
+                + ", totalAmount=" + totalAmount + ", state=" + state + "}";
+    }
+}
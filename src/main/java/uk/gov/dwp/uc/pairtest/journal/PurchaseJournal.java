@@ -0,0 +1,97 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Write-ahead record of purchases in progress, so a purchase interrupted between seat reservation and
+ * payment can be found and resolved after a crash.
+ * <p>
+ * Appends are buffered; {@link #sync()} blocks until everything appended so far is durable. A purchase
+ * is begun and synced before any gateway is called, and synced again once paid or failed.
+ */
+public interface PurchaseJournal {
+
+    /**
+     * Records nothing, for services that do not need crash recovery.
+     */
+    PurchaseJournal NO_OP = new PurchaseJournal() {
+        @Override
+        public long begin(long accountId, int seatCount, int totalAmount) {
+            return 0;
+        }
+
+        @Override
+        public void seatsReserved(long purchaseId) {
+        }
+
+        @Override
+        public void completed(long purchaseId) {
+        }
+
+        @Override
+        public void failed(long purchaseId) {
+        }
+
+        @Override
+        public void failedAfterReservation(long purchaseId, long accountId, int seatCount, int totalAmount) {
+        }
+
+        @Override
+        public void paymentDeclined(long purchaseId, long accountId, int seatCount, int totalAmount) {
+        }
+
+        @Override
+        public void sync() {
+        }
+    };
+
+    /**
+     * Append the intent to reserve and pay.
+     *
+     * @param accountId
+     * @param seatCount
+     * @param totalAmount
+     * @return id of the new purchase
+     */
+    long begin(long accountId, int seatCount, int totalAmount);
+
+    void seatsReserved(long purchaseId);
+
+    void completed(long purchaseId);
+
+    /**
+     * Record that the purchase failed before its seats were reserved and the caller was told so; sync
+     * before reporting the failure, so recovery after a crash does not complete it.
+     *
+     * @param purchaseId
+     */
+    void failed(long purchaseId);
+
+    /**
+     * Record that the purchase failed after its seats were reserved and the caller was told so; sync
+     * before reporting the failure. The purchase stays incomplete, so recovery can release its seats or
+     * finish it once the payment provider says whether it was charged.
+     *
+     * @param purchaseId
+     * @param accountId
+     * @param seatCount
+     * @param totalAmount
+     */
+    void failedAfterReservation(long purchaseId, long accountId, int seatCount, int totalAmount);
+
+    /**
+     * Record that the payment provider declined the purchase after its seats were reserved and the caller
+     * was told so; sync before reporting the failure. Nothing was taken, so recovery only has to release
+     * its seats.
+     *
+     * @param purchaseId
+     * @param accountId
+     * @param seatCount
+     * @param totalAmount
+     */
+    void paymentDeclined(long purchaseId, long accountId, int seatCount, int totalAmount);
+
+    /**
+     * Wait until every record appended before this call is durable.
+     */
+    void sync();
+
+}
@@ -0,0 +1,29 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Resolves a purchase the journal found incomplete at startup, or one that failed after its seats were
+ * reserved, typically by asking the payment provider whether it was charged and then either finishing
+ * the purchase or releasing its seats. A declined payment was not charged, so it is only ever compensated.
+ */
+@FunctionalInterface
+public interface RecoveryHandler {
+
+    /**
+     * @param incompletePurchase a purchase in state {@code STARTED}, {@code SEATS_RESERVED},
+     * {@code FAILED_AFTER_RESERVATION} or {@code PAYMENT_DECLINED}
+     * @return {@code COMPLETED} or {@code COMPENSATED}, depending on how the purchase was resolved;
+     * always {@code COMPENSATED} for {@code PAYMENT_DECLINED}
+     */
+    JournalEntry.State recover(JournalEntry incompletePurchase);
+
+    /**
+     * Called once the resolution of a purchase is durable in the journal, so anything kept alongside it,
+     * such as an account's seat count, is only adjusted for a resolution a crash cannot undo.
+     *
+     * @param purchase the purchase as it was handed to {@link #recover(JournalEntry)}
+     * @param resolution what recover returned
+     */
+    default void resolved(JournalEntry purchase, JournalEntry.State resolution) {
+    }
+
+}
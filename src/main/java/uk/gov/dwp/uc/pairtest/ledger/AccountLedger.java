@@ -0,0 +1,41 @@
+package uk.gov.dwp.uc.pairtest.ledger;
+
+/**
+ * Running total of tickets each account has bought for one showing, capped so repeated purchases cannot
+ * get around the per-purchase ticket limit.
+ * <p>
+ * Tickets are added before seats are reserved and released again if the purchase then fails.
+ */
+public interface AccountLedger {
+
+    /**
+     * Caps nothing, for services that only enforce the per-purchase limit.
+     */
+    AccountLedger NO_OP = new AccountLedger() {
+        @Override
+        public boolean tryAdd(long accountId, int tickets) {
+            return true;
+        }
+
+        @Override
+        public void release(long accountId, int tickets) {
+        }
+    };
+
+    /**
+     * Add tickets to the account's total unless that would take it over the cap, atomically.
+     *
+     * @param accountId
+     * @param tickets at least 1
+     * @return true when added, false when the total is left unchanged because it would pass the cap
+     */
+    boolean tryAdd(long accountId, int tickets);
+
+    /**
+     * Take back tickets added for a purchase that did not complete.
+     *
+     * @param accountId
+     * @param tickets
+     */
+    void release(long accountId, int tickets);
+}
@@ -0,0 +1,285 @@
+package uk.gov.dwp.uc.pairtest.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link AccountLedger} kept off heap in an open addressing hash table of account id to ticket count,
+ * mapped from a file so the totals survive a restart. Open one ledger per showing.
+ * <p>
+ * The file is a header page followed by a power of two number of 16 byte slots, each an account id, its
+ * count and 4 unused bytes; account id 0 marks an empty slot. Accounts are placed by linear probing from
+ * a hash of the id and never removed. Threads claim a slot by compare and set on its id and update the
+ * count by compare and set, so no lock is taken and the cap is never passed, even by concurrent purchases
+ * for the same account.
+ * <p>
+ * Updates land in the page cache as they are made, so a process restart loses nothing; {@link #force()}
+ * makes them durable against the machine going down too. The file uses the native byte order and is
+ * mapped in 1GB segments, the most one mapping can hold.
+ */
+public final class MappedAccountLedger implements AccountLedger, Closeable {
+
+    static final int HEADER_SIZE = 4096;
+    static final int SLOT_SIZE = 16;
+
+    private static final long MAGIC = 0x4143434C45444752L;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+
+    private static final int KEY_OFFSET = 0;
+    private static final int COUNT_OFFSET = 8;
+    private static final long EMPTY = 0L;
+
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final long MAX_CAPACITY = 1L << 40;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+    private final long maxSize;
+    private final int limit;
+
+    private MappedAccountLedger(FileChannel channel, MappedByteBuffer header, MappedByteBuffer[] segments,
+                                long capacity, int limit) {
+        this.channel = channel;
+        this.header = header;
+        this.segments = segments;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        // linear probing slows sharply as the table fills, so stop taking new accounts at 7/8 full
+        this.maxSize = capacity - (capacity >>> 3);
+        this.limit = limit;
+    }
+
+    /**
+     * Open an existing ledger, or create one sized for the expected number of accounts. An existing file
+     * keeps the capacity it was created with.
+     *
+     * @param path
+     * @param expectedAccounts accounts the ledger must hold; the table gets at least 1.5 slots for each
+     * @param limit most tickets an account may hold in total, may differ from the limit it was last opened with
+     * @return the open ledger
+     * @throws IOException when the file cannot be mapped or is not a ledger
+     */
+    public static MappedAccountLedger open(Path path, long expectedAccounts, int limit) throws IOException {
+        if (expectedAccounts < 1 || limit < 1) {
+            throw new IllegalArgumentException("Expected accounts and limit must be at least 1");
+        }
+        if (expectedAccounts > MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("Cannot hold " + expectedAccounts + " accounts in one ledger");
+        }
+        long capacity = Long.highestOneBit(Math.max(MIN_CAPACITY, expectedAccounts + (expectedAccounts >>> 1)) - 1) << 1;
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.nativeOrder());
+            if (created) {
+                header.putLong(CAPACITY_OFFSET, capacity);
+                header.putLong(SIZE_OFFSET, 0);
+            } else {
+                capacity = checkHeader(header, channel.size());
+            }
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long firstSlot = (long) i << SEGMENT_SHIFT;
+                long slots = Math.min(capacity - firstSlot, 1L << SEGMENT_SHIFT);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + firstSlot * SLOT_SIZE,
+                        slots * SLOT_SIZE);
+            }
+            if (created) {
+                // the magic goes in last, so a file cut short while being created is never taken for a ledger
+                header.putLong(MAGIC_OFFSET, MAGIC);
+                header.force();
+            }
+            return new MappedAccountLedger(channel, header, segments, capacity, limit);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long checkHeader(ByteBuffer header, long fileSize) throws IOException {
+        if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not an account ledger, or written with a different byte order");
+        }
+        long capacity = header.getLong(CAPACITY_OFFSET);
+        if (Long.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                || fileSize != HEADER_SIZE + capacity * SLOT_SIZE) {
+            throw new IOException("Account ledger header does not match its file size " + fileSize);
+        }
+        return capacity;
+    }
+
+    @Override
+    public boolean tryAdd(long accountId, int tickets) {
+        return addIfUnderLimit(accountId, tickets) >= 0;
+    }
+
+    /**
+     * @param accountId not 0
+     * @param tickets at least 1
+     * @return the account's new total, or -1 when it would pass the limit and was left unchanged
+     * @throws IllegalStateException when the account is new and the ledger is full
+     */
+    public int addIfUnderLimit(long accountId, int tickets) {
+        if (tickets < 1) {
+            throw new IllegalArgumentException("Tickets to add must be at least 1");
+        }
+        if (tickets > limit) {
+            // never claims a slot for an order that could not fit even in an empty account
+            return -1;
+        }
+        long slot = findSlot(accountId, true);
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot) + COUNT_OFFSET;
+        while (true) {
+            int count = (int) INTS.getVolatile(segment, offset);
+            if (count > limit - tickets) {
+                return -1;
+            }
+            if (INTS.compareAndSet(segment, offset, count, count + tickets)) {
+                return count + tickets;
+            }
+        }
+    }
+
+    @Override
+    public void release(long accountId, int tickets) {
+        long slot = findSlot(accountId, false);
+        if (slot < 0 || tickets < 1) {
+            return;
+        }
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot) + COUNT_OFFSET;
+        while (true) {
+            int count = (int) INTS.getVolatile(segment, offset);
+            if (INTS.compareAndSet(segment, offset, count, Math.max(0, count - tickets))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param accountId
+     * @return tickets held by the account, 0 if it has none
+     */
+    public int get(long accountId) {
+        long slot = findSlot(accountId, false);
+        return slot < 0 ? 0 : (int) INTS.getVolatile(segment(slot), offset(slot) + COUNT_OFFSET);
+    }
+
+    /**
+     * @return accounts in the ledger, including any whose tickets were all released
+     */
+    public long size() {
+        return (long) LONGS.getVolatile(header, SIZE_OFFSET);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Write every update so far to the storage device.
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Force and close the file. The mapping itself is released once the ledger is garbage collected, so
+     * the ledger must not be used after closing.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * @param accountId
+     * @param claim whether to take an empty slot for an account not yet in the table
+     * @return the account's slot, or -1 when it is not in the table and claim is false
+     */
+    private long findSlot(long accountId, boolean claim) {
+        if (accountId == EMPTY) {
+            throw new IllegalArgumentException("Account id 0 cannot be held in the ledger");
+        }
+        long slot = mix(accountId) & mask;
+        for (long probes = 0; probes < capacity; probes++) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot) + KEY_OFFSET;
+            long key = (long) LONGS.getVolatile(segment, offset);
+            if (key == accountId) {
+                return slot;
+            }
+            if (key == EMPTY) {
+                if (!claim) {
+                    return -1;
+                }
+                if (size() >= maxSize) {
+                    throw new IllegalStateException("Account ledger is full at " + size() + " accounts");
+                }
+                if (LONGS.compareAndSet(segment, offset, EMPTY, accountId)) {
+                    LONGS.getAndAdd(header, SIZE_OFFSET, 1L);
+                    return slot;
+                }
+                // another thread took the slot, possibly for this same account
+                if ((long) LONGS.getVolatile(segment, offset) == accountId) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!claim) {
+            return -1;
+        }
+        throw new IllegalStateException("Account ledger is full at " + size() + " accounts");
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot & SEGMENT_MASK) * SLOT_SIZE;
+    }
+
+    /**
+     * Spread sequential account ids across the table; the finaliser of MurmurHash3.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,110 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps stage latency histograms, rejection and failure counters and an in-flight gauge in memory,
+ * and renders them as a plain text percentile report.
+ */
+public class InMemoryPurchaseMetrics implements PurchaseMetrics {
+
+    private static final PurchaseStage[] STAGES = PurchaseStage.values();
+    private static final ValidationResult[] REASONS = ValidationResult.values();
+
+    private final LatencyHistogram[] stageLatencies = new LatencyHistogram[STAGES.length];
+    private final LongAdder[] rejections = new LongAdder[REASONS.length];
+    private final LongAdder[] failures = new LongAdder[STAGES.length];
+    private final LongAdder inFlight = new LongAdder();
+
+    public InMemoryPurchaseMetrics() {
+        for (int i = 0; i < STAGES.length; i++) {
+            stageLatencies[i] = new LatencyHistogram();
+            failures[i] = new LongAdder();
+        }
+        for (int i = 0; i < REASONS.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void recordStage(PurchaseStage stage, long elapsedNanos) {
+        stageLatencies[stage.ordinal()].record(elapsedNanos);
+    }
+
+    @Override
+    public void recordRejection(ValidationResult reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void recordFailure(PurchaseStage stage) {
+        failures[stage.ordinal()].increment();
+    }
+
+    @Override
+    public void purchasesStarted(int purchases) {
+        inFlight.add(purchases);
+    }
+
+    @Override
+    public void purchasesFinished(int purchases) {
+        inFlight.add(-purchases);
+    }
+
+    public LatencyHistogram getStageLatency(PurchaseStage stage) {
+        return stageLatencies[stage.ordinal()];
+    }
+
+    public long getRejectionCount(ValidationResult reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    public long getFailureCount(PurchaseStage stage) {
+        return failures[stage.ordinal()].sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return stage latency percentiles in microseconds, then non-zero rejection and failure counts
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-20s %10s %10s %10s %10s %10s %10s%n",
+                "stage (us)", "count", "p50", "p90", "p99", "p99.9", "max"));
+        for (PurchaseStage stage : STAGES) {
+            LatencyHistogram histogram = stageLatencies[stage.ordinal()];
+            report.append(String.format("%-20s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", stage, histogram.getCount(),
+                    micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(90)),
+                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMaxValue())));
+        }
+        for (ValidationResult reason : REASONS) {
+            long count = getRejectionCount(reason);
+            if (count > 0) {
+                report.append(String.format("rejected %-20s %10d%n", reason, count));
+            }
+        }
+        for (PurchaseStage stage : STAGES) {
+            long count = getFailureCount(stage);
+            if (count > 0) {
+                report.append(String.format("failed   %-20s %10d%n", stage, count));
+            }
+        }
+        report.append(String.format("in flight %d%n", getInFlight()));
+        return report.toString();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+final class NoOpPurchaseMetrics implements PurchaseMetrics {
+
+    @Override
+    public long nanoTime() {
+        return 0;
+    }
+
+    @Override
+    public void recordStage(PurchaseStage stage, long elapsedNanos) {
+    }
+
+    @Override
+    public void recordRejection(ValidationResult reason) {
+    }
+
+    @Override
+    public void recordFailure(PurchaseStage stage) {
+    }
+
+    @Override
+    public void purchasesStarted(int purchases) {
+    }
+
+    @Override
+    public void purchasesFinished(int purchases) {
+    }
+}
@@ -0,0 +1,40 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+/**
+ * Instrumentation surface of the purchase path. Implementations must be thread safe and must not block
+ * or allocate, as every call sits on the hot path.
+ */
+public interface PurchaseMetrics {
+
+    /**
+     * Discards everything. Its clock always reads zero, so an uninstrumented service pays no timer cost.
+     */
+    PurchaseMetrics NO_OP = new NoOpPurchaseMetrics();
+
+    /**
+     * @return current time from the clock stage timings are measured against
+     */
+    long nanoTime();
+
+    void recordStage(PurchaseStage stage, long elapsedNanos);
+
+    /**
+     * @param reason the validation failure a purchase was rejected for
+     */
+    void recordRejection(ValidationResult reason);
+
+    /**
+     * @param stage the gateway stage that threw
+     */
+    void recordFailure(PurchaseStage stage);
+
+    /**
+     * @param purchases number of purchases entering the service, one for a single purchase or the batch size
+     */
+    void purchasesStarted(int purchases);
+
+    void purchasesFinished(int purchases);
+
+}
@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * Timed stages of a purchase, in the order they run. A stage starts where the one before it ended, so timing a
+ * purchase takes about one clock read per stage.
+ */
+public enum PurchaseStage {
+    /**
+     * Account and request checks, the ticket tally and the quote; each takes tens of nanoseconds, too little
+     * to be worth a clock read of its own.
+     */
+    VALIDATION,
+    ACCOUNT_LIMIT,
+    SEAT_RESERVATION,
+    TICKET_PAYMENT,
+    /**
+     * The whole purchase, from entry to the payment returning.
+     */
+    PURCHASE
+}
@@ -0,0 +1,196 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Immutable Object
+ * <p>
+ * Ticket prices by {@link PriceTier} and {@link Type}, held in one flat array indexed by ordinal.
+ * Discounts are folded into the stored prices and family bundles reduced to a fixed saving per bundle
+ * when the table is built, so pricing a purchase is a handful of array reads and multiplications.
+ */
+public final class PriceTable {
+
+    private static final Type[] TYPES = Type.values();
+    private static final PriceTier[] TIERS = PriceTier.values();
+
+    /**
+     * Every tier priced as {@link TicketPrice}, with no discounts or bundles.
+     */
+    public static final PriceTable DEFAULT = defaultBuilder().build();
+
+    private final int[] prices;
+    private final int[] bundleAdults;
+    private final int[] bundleChildren;
+    private final int[] bundleSavings;
+
+    private PriceTable(int[] prices, int[] bundleAdults, int[] bundleChildren, int[] bundleSavings) {
+        this.prices = prices;
+        this.bundleAdults = bundleAdults;
+        this.bundleChildren = bundleChildren;
+        this.bundleSavings = bundleSavings;
+    }
+
+    public int getPrice(PriceTier tier, Type ticketType) {
+        return prices[tier.ordinal() * TYPES.length + ticketType.ordinal()];
+    }
+
+    /**
+     * Price a tally at the given tier, applying as many family bundles as it contains.
+     *
+     * @param tier
+     * @param ticketTypeTally
+     * @return total amount to pay
+     */
+    public int getTotalAmount(PriceTier tier, TicketTypeTally ticketTypeTally) {
+        int base = tier.ordinal() * TYPES.length;
+        int totalAmount = 0;
+        for (int i = 0; i < TYPES.length; i++) {
+            totalAmount += ticketTypeTally.getCount(TYPES[i]) * prices[base + i];
+        }
+
+        int bundleSaving = bundleSavings[tier.ordinal()];
+        if (bundleSaving > 0) {
+            int bundles = Math.min(ticketTypeTally.getCount(Type.ADULT) / bundleAdults[tier.ordinal()],
+                    ticketTypeTally.getCount(Type.CHILD) / bundleChildren[tier.ordinal()]);
+            totalAmount -= bundles * bundleSaving;
+        }
+        return totalAmount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder starting from the {@link TicketPrice} prices in every tier
+     */
+    public static Builder defaultBuilder() {
+        Builder builder = new Builder();
+        for (PriceTier tier : TIERS) {
+            for (TicketPrice ticketPrice : TicketPrice.values()) {
+                builder.price(tier, ticketPrice.getTicketType(), ticketPrice.getPrice());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Build a table from properties, starting from the {@link TicketPrice} defaults. Keys are
+     * <pre>
+     * price.&lt;TIER&gt;.&lt;TYPE&gt;=&lt;amount&gt;
+     * discount.&lt;TIER&gt;.&lt;TYPE&gt;=&lt;percent off&gt;
+     * bundle.&lt;TIER&gt;=&lt;adults&gt;,&lt;children&gt;,&lt;bundle price&gt;
+     * </pre>
+     *
+     * @param properties
+     * @return the table
+     * @throws IllegalArgumentException if a key or value cannot be parsed
+     */
+    public static PriceTable fromProperties(Properties properties) {
+        Builder builder = defaultBuilder();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            String[] parts = key.split("\\.");
+            try {
+                if (parts.length == 3 && parts[0].equals("price")) {
+                    builder.price(PriceTier.valueOf(parts[1]), Type.valueOf(parts[2]), Integer.parseInt(value));
+                } else if (parts.length == 3 && parts[0].equals("discount")) {
+                    builder.discount(PriceTier.valueOf(parts[1]), Type.valueOf(parts[2]), Integer.parseInt(value));
+                } else if (parts.length == 2 && parts[0].equals("bundle")) {
+                    String[] bundle = value.split(",");
+                    if (bundle.length != 3) {
+                        throw new IllegalArgumentException("Bundle must be adults,children,price: " + key);
+                    }
+                    builder.familyBundle(PriceTier.valueOf(parts[1]), Integer.parseInt(bundle[0].trim()),
+                            Integer.parseInt(bundle[1].trim()), Integer.parseInt(bundle[2].trim()));
+                } else {
+                    throw new IllegalArgumentException("Unknown pricing key: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects prices and rules, and compiles them into a {@link PriceTable} on {@link #build()}.
+     */
+    public static final class Builder {
+
+        private final int[] prices = new int[TIERS.length * TYPES.length];
+        private final int[] discounts = new int[TIERS.length * TYPES.length];
+        private final int[] bundleAdults = new int[TIERS.length];
+        private final int[] bundleChildren = new int[TIERS.length];
+        private final int[] bundlePrices = new int[TIERS.length];
+
+        private Builder() {
+        }
+
+        public Builder price(PriceTier tier, Type ticketType, int price) {
+            if (price < 0) {
+                throw new IllegalArgumentException("Price must not be negative");
+            }
+            prices[tier.ordinal() * TYPES.length + ticketType.ordinal()] = price;
+            return this;
+        }
+
+        /**
+         * @param tier
+         * @param ticketType
+         * @param percentOff rounded down to whole pounds off, so the discounted price rounds up
+         * @return this builder
+         */
+        public Builder discount(PriceTier tier, Type ticketType, int percentOff) {
+            if (percentOff < 0 || percentOff > 100) {
+                throw new IllegalArgumentException("Discount must be between 0 and 100 percent");
+            }
+            discounts[tier.ordinal() * TYPES.length + ticketType.ordinal()] = percentOff;
+            return this;
+        }
+
+        /**
+         * Charge a fixed price for every group of {@code adults} adults and {@code children} children.
+         */
+        public Builder familyBundle(PriceTier tier, int adults, int children, int bundlePrice) {
+            if (adults <= 0 || children <= 0 || bundlePrice < 0) {
+                throw new IllegalArgumentException("Bundle needs at least one adult and one child and a price");
+            }
+            bundleAdults[tier.ordinal()] = adults;
+            bundleChildren[tier.ordinal()] = children;
+            bundlePrices[tier.ordinal()] = bundlePrice;
+            return this;
+        }
+
+        public PriceTable build() {
+            int[] discountedPrices = new int[prices.length];
+            for (int i = 0; i < prices.length; i++) {
+                discountedPrices[i] = prices[i] - prices[i] * discounts[i] / 100;
+            }
+
+            int[] bundleSavings = new int[TIERS.length];
+            for (PriceTier tier : TIERS) {
+                int t = tier.ordinal();
+                if (bundleAdults[t] == 0) {
+                    continue;
+                }
+                int base = t * TYPES.length;
+                int unbundledPrice = bundleAdults[t] * discountedPrices[base + Type.ADULT.ordinal()]
+                        + bundleChildren[t] * discountedPrices[base + Type.CHILD.ordinal()];
+                if (bundlePrices[t] > unbundledPrice) {
+                    throw new IllegalArgumentException("Family bundle for " + tier + " costs more than the tickets in it");
+                }
+                bundleSavings[t] = unbundledPrice - bundlePrices[t];
+            }
+
+            return new PriceTable(discountedPrices, Arrays.copyOf(bundleAdults, bundleAdults.length),
+                    Arrays.copyOf(bundleChildren, bundleChildren.length), bundleSavings);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+/**
+ * Price bands a {@link PriceTable} holds a full set of prices for.
+ */
+public enum PriceTier {
+
+    STANDARD,
+    OFF_PEAK,
+    PEAK
+
+}
@@ -0,0 +1,14 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+/**
+ * Chooses the tier a purchase is priced at, for example off-peak before six in the evening.
+ * Called once per purchase, so implementations should be cheap and must not block.
+ */
+@FunctionalInterface
+public interface PriceTierSelector {
+
+    PriceTierSelector STANDARD = () -> PriceTier.STANDARD;
+
+    PriceTier currentTier();
+
+}
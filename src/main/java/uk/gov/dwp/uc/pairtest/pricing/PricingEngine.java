@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+
+/**
+ * Prices purchases against the current {@link PriceTable}.
+ * <p>
+ * The table is immutable and held in a volatile field, so {@link #reload(PriceTable)} swaps in a new one
+ * without blocking readers; a purchase reads the field once and is priced entirely from that table,
+ * never a mix of old and new prices.
+ */
+public class PricingEngine {
+
+    private final PriceTierSelector priceTierSelector;
+    private volatile PriceTable priceTable;
+
+    public PricingEngine(PriceTable priceTable) {
+        this(priceTable, PriceTierSelector.STANDARD);
+    }
+
+    public PricingEngine(PriceTable priceTable, PriceTierSelector priceTierSelector) {
+        this.priceTable = priceTable;
+        this.priceTierSelector = priceTierSelector;
+    }
+
+    /**
+     * @param ticketTypeTally validated tickets for one purchase
+     * @return total amount at the current tier
+     */
+    public int getTotalAmount(TicketTypeTally ticketTypeTally) {
+        return priceTable.getTotalAmount(priceTierSelector.currentTier(), ticketTypeTally);
+    }
+
+    public PriceTier getCurrentTier() {
+        return priceTierSelector.currentTier();
+    }
+
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    /**
+     * Replace the price table. Purchases already priced keep their amounts.
+     *
+     * @param priceTable
+     */
+    public void reload(PriceTable priceTable) {
+        if (priceTable == null) {
+            throw new IllegalArgumentException("Price table must not be null");
+        }
+        this.priceTable = priceTable;
+    }
+}
@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Validates the ticket ratio of a purchase and prices it in one {@link QuoteTable} lookup.
+ * <p>
+ * The table is rebuilt whenever its inputs change, never on a purchaser's thread: by the caller of
+ * {@link #reload(PriceTable)} or {@link #reload(TicketValidator)}, and on the rebuild executor when the
+ * price table was reloaded through the {@link PricingEngine} directly. Until the new table is published,
+ * quotes for the new prices are worked out by the rules, and quotes for a new validator come from the
+ * previous table; never a mix of the two.
+ */
+public class QuoteEngine {
+
+    private final PricingEngine pricingEngine;
+    private final Executor rebuildExecutor;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile QuoteTable quoteTable;
+
+    public QuoteEngine(TicketValidator ticketValidator, PricingEngine pricingEngine) {
+        this(ticketValidator, pricingEngine, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param rebuildExecutor rebuilds the table after the pricing engine is reloaded directly
+     */
+    public QuoteEngine(TicketValidator ticketValidator, PricingEngine pricingEngine, Executor rebuildExecutor) {
+        this.pricingEngine = pricingEngine;
+        this.rebuildExecutor = rebuildExecutor;
+        this.quoteTable = QuoteTable.build(ticketValidator, pricingEngine.getPriceTable());
+    }
+
+    /**
+     * @param ticketTypeTally tickets for one purchase, from well formed requests
+     * @return packed quote, read with the {@link QuoteTable} accessors
+     */
+    public long quote(TicketTypeTally ticketTypeTally) {
+
+        QuoteTable quoteTable = this.quoteTable;
+        PriceTable priceTable = pricingEngine.getPriceTable();
+        PriceTier tier = pricingEngine.getCurrentTier();
+        if (quoteTable.getPriceTable() != priceTable) {
+            scheduleRebuild();
+            return QuoteTable.compute(quoteTable.getTicketValidator(), priceTable, tier, ticketTypeTally);
+        }
+        long quote = quoteTable.getQuote(tier, ticketTypeTally.getCount(Type.ADULT),
+                ticketTypeTally.getCount(Type.CHILD), ticketTypeTally.getCount(Type.INFANT));
+        return quote != QuoteTable.NOT_COVERED ? quote : quoteTable.compute(tier, ticketTypeTally);
+    }
+
+    /**
+     * Replace the price table and rebuild the quotes from it on the calling thread.
+     *
+     * @param priceTable
+     */
+    public void reload(PriceTable priceTable) {
+        pricingEngine.reload(priceTable);
+        refresh();
+    }
+
+    /**
+     * Replace the validator, for example to change the ticket limit, and rebuild the quotes from it on the
+     * calling thread.
+     *
+     * @param ticketValidator
+     */
+    public synchronized void reload(TicketValidator ticketValidator) {
+        if (ticketValidator == null) {
+            throw new IllegalArgumentException("Ticket validator must not be null");
+        }
+        quoteTable = QuoteTable.build(ticketValidator, pricingEngine.getPriceTable());
+    }
+
+    public QuoteTable getQuoteTable() {
+        return quoteTable;
+    }
+
+    /**
+     * @return the validator whose rules and limit the quotes follow
+     */
+    public TicketValidator getTicketValidator() {
+        return quoteTable.getTicketValidator();
+    }
+
+    /**
+     * Hand one rebuild at a time to the executor; prices reloaded again during it are picked up by the
+     * next quote after it finishes.
+     */
+    private void scheduleRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildScheduled.set(false);
+        }
+    }
+
+    private synchronized void refresh() {
+        QuoteTable current = quoteTable;
+        PriceTable priceTable = pricingEngine.getPriceTable();
+        if (current.getPriceTable() != priceTable) {
+            quoteTable = QuoteTable.build(current.getTicketValidator(), priceTable);
+        }
+    }
+}
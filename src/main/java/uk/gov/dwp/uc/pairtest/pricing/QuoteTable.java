@@ -0,0 +1,153 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+/**
+ * Immutable Object
+ * <p>
+ * The ratio verdict, seat count and price of every order whose adult, child and infant counts are each
+ * within the ticket limit, worked out once per {@link PriceTier} when the table is built. Any valid order
+ * falls inside that cube, so a validated tally is checked and priced by one array read; the few orders
+ * outside it are all rejected and are judged by the validator instead.
+ * <p>
+ * Each entry is a packed quote: the {@link ValidationResult} ordinal in bits 48 to 55, the seat count in
+ * bits 32 to 47 and the total amount in the low 32 bits. Seat count and amount are 0 for rejected orders.
+ */
+public final class QuoteTable {
+
+    /**
+     * Returned by {@link #getQuote} for counts outside the table.
+     */
+    public static final long NOT_COVERED = -1L;
+
+    /**
+     * Largest ticket limit a table is built for; a limit of 100 already takes 3 x 101^3 entries, about 25MB.
+     */
+    static final int MAX_TABLE_LIMIT = 100;
+
+    private static final ValidationResult[] RESULTS = ValidationResult.values();
+    private static final PriceTier[] TIERS = PriceTier.values();
+
+    private final TicketValidator ticketValidator;
+    private final PriceTable priceTable;
+    private final int side;
+    private final long[] quotes;
+
+    private QuoteTable(TicketValidator ticketValidator, PriceTable priceTable) {
+        if (ticketValidator.getMaxAllowedTickets() > MAX_TABLE_LIMIT) {
+            throw new IllegalArgumentException("Ticket limit " + ticketValidator.getMaxAllowedTickets()
+                    + " is above the largest precomputed limit " + MAX_TABLE_LIMIT);
+        }
+        this.ticketValidator = ticketValidator;
+        this.priceTable = priceTable;
+        this.side = ticketValidator.getMaxAllowedTickets() + 1;
+        this.quotes = new long[TIERS.length * side * side * side];
+    }
+
+    /**
+     * @param ticketValidator whose limit bounds the table and whose rules give each verdict
+     * @param priceTable
+     * @return a table covering counts 0 to the limit for every tier, (limit + 1)^3 entries per tier
+     */
+    public static QuoteTable build(TicketValidator ticketValidator, PriceTable priceTable) {
+
+        QuoteTable quoteTable = new QuoteTable(ticketValidator, priceTable);
+        TicketTypeTally ticketTypeTally = new TicketTypeTally();
+        int side = quoteTable.side;
+        int index = 0;
+        for (PriceTier tier : TIERS) {
+            for (int adults = 0; adults < side; adults++) {
+                for (int children = 0; children < side; children++) {
+                    for (int infants = 0; infants < side; infants++) {
+                        ticketTypeTally.reset()
+                                .add(Type.ADULT, adults)
+                                .add(Type.CHILD, children)
+                                .add(Type.INFANT, infants);
+                        quoteTable.quotes[index++] = quoteTable.compute(tier, ticketTypeTally);
+                    }
+                }
+            }
+        }
+        return quoteTable;
+    }
+
+    /**
+     * @param tier
+     * @param adults
+     * @param children
+     * @param infants
+     * @return packed quote, or {@link #NOT_COVERED} when a count is negative or above the limit
+     */
+    public long getQuote(PriceTier tier, int adults, int children, int infants) {
+        if (adults < 0 || adults >= side || children < 0 || children >= side || infants < 0 || infants >= side) {
+            return NOT_COVERED;
+        }
+        return quotes[((tier.ordinal() * side + adults) * side + children) * side + infants];
+    }
+
+    /**
+     * Quote any tally by the rules, for counts outside the table.
+     *
+     * @param tier
+     * @param ticketTypeTally
+     * @return packed quote
+     */
+    public long compute(PriceTier tier, TicketTypeTally ticketTypeTally) {
+        return compute(ticketValidator, priceTable, tier, ticketTypeTally);
+    }
+
+    /**
+     * Quote any tally by the rules without a table, for prices no table has been built for yet.
+     *
+     * @param ticketValidator
+     * @param priceTable
+     * @param tier
+     * @param ticketTypeTally
+     * @return packed quote
+     */
+    public static long compute(TicketValidator ticketValidator, PriceTable priceTable, PriceTier tier,
+                               TicketTypeTally ticketTypeTally) {
+        ValidationResult validationResult = ticketValidator.checkTicketRatio(ticketTypeTally);
+        if (!validationResult.isValid()) {
+            return rejected(validationResult);
+        }
+        return pack(validationResult, ticketTypeTally.getSeatCount(), priceTable.getTotalAmount(tier, ticketTypeTally));
+    }
+
+    public TicketValidator getTicketValidator() {
+        return ticketValidator;
+    }
+
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    /**
+     * @param validationResult
+     * @return packed quote for an order rejected before it could be tallied
+     */
+    public static long rejected(ValidationResult validationResult) {
+        return pack(validationResult, 0, 0);
+    }
+
+    public static ValidationResult getValidationResult(long quote) {
+        return RESULTS[(int) (quote >>> 48) & 0xFF];
+    }
+
+    public static int getSeatCount(long quote) {
+        return (int) (quote >>> 32) & 0xFFFF;
+    }
+
+    public static int getTotalAmount(long quote) {
+        return (int) quote;
+    }
+
+    static long pack(ValidationResult validationResult, int seatCount, int totalAmount) {
+        return (long) validationResult.ordinal() << 48
+                | (long) (seatCount & 0xFFFF) << 32
+                | totalAmount & 0xFFFFFFFFL;
+    }
+}
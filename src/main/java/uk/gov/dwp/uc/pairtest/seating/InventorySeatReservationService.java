@@ -0,0 +1,47 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+/**
+ * {@link SeatReservationService} that books seats for one {@link Showing} from the in-process inventory,
+ * failing the reservation rather than overselling.
+ */
+public class InventorySeatReservationService implements SeatReservationService {
+
+    private final Showing showing;
+
+    public InventorySeatReservationService(Showing showing) {
+        this.showing = showing;
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        allocate(accountId, totalSeatsToAllocate);
+    }
+
+    /**
+     * Reserve seats and return where they are, so the caller can release them if the purchase does not complete.
+     *
+     * @param accountId
+     * @param totalSeatsToAllocate
+     * @return the seats taken
+     * @throws SeatsUnavailableException when the showing does not have enough free seats
+     */
+    public SeatAllocation allocate(long accountId, int totalSeatsToAllocate) {
+        SeatAllocation seatAllocation = showing.allocate(totalSeatsToAllocate);
+        if (seatAllocation == null) {
+            throw new SeatsUnavailableException("Not enough seats left in showing " + showing.getId()
+                    + " for account " + accountId);
+        }
+        return seatAllocation;
+    }
+
+    public void release(SeatAllocation seatAllocation) {
+        showing.release(seatAllocation);
+    }
+
+    public Showing getShowing() {
+        return showing;
+    }
+}
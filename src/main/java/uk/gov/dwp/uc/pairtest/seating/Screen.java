@@ -0,0 +1,44 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+/**
+ * Immutable Object
+ * <p>
+ * Seating layout of a screen: a grid of rows with the same number of seats each.
+ */
+public final class Screen {
+
+    /**
+     * Each row's seat state is packed into a single {@code long}.
+     */
+    public static final int MAX_SEATS_PER_ROW = Long.SIZE;
+
+    private final String name;
+    private final int rows;
+    private final int seatsPerRow;
+
+    public Screen(String name, int rows, int seatsPerRow) {
+        if (rows <= 0 || seatsPerRow <= 0 || seatsPerRow > MAX_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("A screen needs at least one row and between 1 and "
+                    + MAX_SEATS_PER_ROW + " seats per row");
+        }
+        this.name = name;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int getCapacity() {
+        return rows * seatsPerRow;
+    }
+}
@@ -0,0 +1,66 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.Arrays;
+
+/**
+ * Immutable Object
+ * <p>
+ * Seats taken by one reservation, as a bitmask of seat positions for each row touched.
+ */
+public final class SeatAllocation {
+
+    private final long showingId;
+    private final int[] rows;
+    private final long[] seatMasks;
+
+    SeatAllocation(long showingId, int[] rows, long[] seatMasks) {
+        this.showingId = showingId;
+        this.rows = rows;
+        this.seatMasks = seatMasks;
+    }
+
+    public long getShowingId() {
+        return showingId;
+    }
+
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * @param index
+     * @return bit {@code n} is set when seat {@code n} of the row is part of this allocation
+     */
+    public long getSeatMask(int index) {
+        return seatMasks[index];
+    }
+
+    public int getSeatCount() {
+        int seatCount = 0;
+        for (long seatMask : seatMasks) {
+            seatCount += Long.bitCount(seatMask);
+        }
+        return seatCount;
+    }
+
+    /**
+     * @return true when every seat is in one unbroken block of a single row
+     */
+    public boolean isAdjacent() {
+        if (rows.length != 1) {
+            return false;
+        }
+        long seatMask = seatMasks[0];
+        long shifted = seatMask >>> Long.numberOfTrailingZeros(seatMask);
+        return (shifted & (shifted + 1)) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SeatAllocation{showingId=" + showingId + ", rows=" + Arrays.toString(rows) + ", seats=" + getSeatCount() + "}";
+    }
+}
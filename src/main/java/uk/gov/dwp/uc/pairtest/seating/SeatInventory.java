@@ -0,0 +1,43 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process register of the showings seats can be reserved for.
+ */
+public class SeatInventory {
+
+    private final ConcurrentMap<Long, Showing> showings = new ConcurrentHashMap<>();
+
+    /**
+     * @param showingId
+     * @param screen
+     * @return the new showing
+     * @throws IllegalArgumentException when the showing already exists
+     */
+    public Showing addShowing(long showingId, Screen screen) {
+        Showing showing = new Showing(showingId, screen);
+        if (showings.putIfAbsent(showingId, showing) != null) {
+            throw new IllegalArgumentException("Showing " + showingId + " already exists");
+        }
+        return showing;
+    }
+
+    /**
+     * @param showingId
+     * @return the showing
+     * @throws IllegalArgumentException when the showing is unknown
+     */
+    public Showing getShowing(long showingId) {
+        Showing showing = showings.get(showingId);
+        if (showing == null) {
+            throw new IllegalArgumentException("Unknown showing " + showingId);
+        }
+        return showing;
+    }
+
+    public void removeShowing(long showingId) {
+        showings.remove(showingId);
+    }
+}
@@ -0,0 +1,198 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat state for one showing of a film on a {@link Screen}.
+ * <p>
+ * Every row is a single {@code long} bitset (bit set = seat taken) claimed with compare-and-set, so buyers
+ * never lock and buyers of different showings never touch the same memory.
+ * <p>
+ * A buyer first takes its seat count off a count of free seats, then claims that many seats from the
+ * rows. Claims never have to be rolled back, so two buyers racing for the last seats cannot both fail
+ * while there are enough free for one of them.
+ */
+public final class Showing {
+
+    private final long id;
+    private final Screen screen;
+    private final long fullRowMask;
+    private final AtomicLongArray takenSeats;
+    private final AtomicInteger freeSeats;
+
+    public Showing(long id, Screen screen) {
+        this.id = id;
+        this.screen = screen;
+        this.fullRowMask = lowBits(screen.getSeatsPerRow());
+        this.takenSeats = new AtomicLongArray(screen.getRows());
+        this.freeSeats = new AtomicInteger(screen.getRows() * screen.getSeatsPerRow());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Screen getScreen() {
+        return screen;
+    }
+
+    /**
+     * Allocate seats, preferring one adjacent block in the front-most row that has room and otherwise
+     * spreading the party over as few rows as a front-to-back scan finds.
+     *
+     * @param seatCount
+     * @return the allocation, or null when the showing does not have enough free seats
+     */
+    public SeatAllocation allocate(int seatCount) {
+        if (seatCount <= 0) {
+            throw new IllegalArgumentException("At least one seat must be allocated");
+        }
+        if (!takeFreeSeats(seatCount)) {
+            return null;
+        }
+        if (seatCount <= screen.getSeatsPerRow()) {
+            SeatAllocation adjacentBlock = allocateAdjacent(seatCount);
+            if (adjacentBlock != null) {
+                return adjacentBlock;
+            }
+        }
+        return allocateAcrossRows(seatCount);
+    }
+
+    /**
+     * Free every seat of an allocation previously returned by this showing.
+     *
+     * @param seatAllocation
+     */
+    public void release(SeatAllocation seatAllocation) {
+        if (seatAllocation.getShowingId() != id) {
+            throw new IllegalArgumentException("Allocation belongs to showing " + seatAllocation.getShowingId());
+        }
+        for (int i = 0; i < seatAllocation.getRowCount(); i++) {
+            clear(seatAllocation.getRow(i), seatAllocation.getSeatMask(i));
+        }
+        freeSeats.addAndGet(seatAllocation.getSeatCount());
+    }
+
+    /**
+     * @return seats no buyer has taken or is taking
+     */
+    public int getAvailableSeats() {
+        return freeSeats.get();
+    }
+
+    private boolean takeFreeSeats(int seatCount) {
+        int free;
+        do {
+            free = freeSeats.get();
+            if (free < seatCount) {
+                return false;
+            }
+        } while (!freeSeats.compareAndSet(free, free - seatCount));
+        return true;
+    }
+
+    private SeatAllocation allocateAdjacent(int seatCount) {
+        long blockMask = lowBits(seatCount);
+        for (int row = 0; row < takenSeats.length(); row++) {
+            long taken = takenSeats.get(row);
+            long blockStarts;
+            while ((blockStarts = blockStarts(~taken & fullRowMask, seatCount)) != 0) {
+                long seatMask = blockMask << Long.numberOfTrailingZeros(blockStarts);
+                if (takenSeats.compareAndSet(row, taken, taken | seatMask)) {
+                    return new SeatAllocation(id, new int[]{row}, new long[]{seatMask});
+                }
+                taken = takenSeats.get(row);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Claim seats front to back. The seats were already taken off the free count, so enough of them are
+     * free even when a racing buyer claims some of them first; scan again until found.
+     */
+    private SeatAllocation allocateAcrossRows(int seatCount) {
+        int[] rows = new int[takenSeats.length()];
+        long[] seatMasks = new long[takenSeats.length()];
+        int rowCount = 0;
+        int remaining = seatCount;
+
+        while (remaining > 0) {
+            for (int row = 0; row < takenSeats.length() && remaining > 0; row++) {
+                long taken = takenSeats.get(row);
+                while (true) {
+                    long seatMask = lowestBits(~taken & fullRowMask, remaining);
+                    if (seatMask == 0) {
+                        break;
+                    }
+                    if (takenSeats.compareAndSet(row, taken, taken | seatMask)) {
+                        rowCount = addRow(rows, seatMasks, rowCount, row, seatMask);
+                        remaining -= Long.bitCount(seatMask);
+                        break;
+                    }
+                    taken = takenSeats.get(row);
+                }
+            }
+            if (remaining > 0) {
+                Thread.onSpinWait();
+            }
+        }
+        return new SeatAllocation(id, Arrays.copyOf(rows, rowCount), Arrays.copyOf(seatMasks, rowCount));
+    }
+
+    /**
+     * @return the number of rows in the allocation, merging seats claimed in a row already in it
+     */
+    private static int addRow(int[] rows, long[] seatMasks, int rowCount, int row, long seatMask) {
+        for (int i = 0; i < rowCount; i++) {
+            if (rows[i] == row) {
+                seatMasks[i] |= seatMask;
+                return rowCount;
+            }
+        }
+        rows[rowCount] = row;
+        seatMasks[rowCount] = seatMask;
+        return rowCount + 1;
+    }
+
+    private void clear(int row, long seatMask) {
+        long taken;
+        do {
+            taken = takenSeats.get(row);
+            if ((taken & seatMask) != seatMask) {
+                throw new IllegalStateException("Releasing seats that are not taken in row " + row);
+            }
+        } while (!takenSeats.compareAndSet(row, taken, taken & ~seatMask));
+    }
+
+    /**
+     * @return bits set at each position where a run of {@code length} free seats starts
+     */
+    private static long blockStarts(long free, int length) {
+        long starts = free;
+        for (int i = 1; i < length && starts != 0; i++) {
+            starts &= free >>> i;
+        }
+        return starts;
+    }
+
+    /**
+     * @return the lowest {@code count} set bits of {@code bits}, or all of them if there are fewer
+     */
+    private static long lowestBits(long bits, int count) {
+        long selected = 0;
+        for (int i = 0; i < count && bits != 0; i++) {
+            long lowest = bits & -bits;
+            selected |= lowest;
+            bits ^= lowest;
+        }
+        return selected;
+    }
+
+    private static long lowBits(int count) {
+        return count == Long.SIZE ? -1L : (1L << count) - 1;
+    }
+}
@@ -5,9 +5,30 @@ import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 public class AccountValidator  {
 
     public boolean validateAccount(Long accountId) throws InvalidPurchaseException {
-        if(accountId == null || accountId <= 0) {
-            throw new InvalidPurchaseException("Invalid Account");
+        ValidationResult validationResult = checkAccount(accountId);
+        if(!validationResult.isValid()) {
+            throw validationResult.asException();
         }
         return true;
     }
+
+    public ValidationResult checkAccount(Long accountId) {
+        if(accountId == null) {
+            return ValidationResult.INVALID_ACCOUNT;
+        }
+        return checkAccount(accountId.longValue());
+    }
+
+    /**
+     * Unboxed check, for callers reading account ids straight from a buffer.
+     *
+     * @param accountId
+     * @return
+     */
+    public ValidationResult checkAccount(long accountId) {
+        if(accountId <= 0) {
+            return ValidationResult.INVALID_ACCOUNT;
+        }
+        return ValidationResult.VALID;
+    }
 }
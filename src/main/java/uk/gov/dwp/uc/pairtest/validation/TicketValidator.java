@@ -1,53 +1,129 @@
 package uk.gov.dwp.uc.pairtest.validation;
 
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
-import java.util.Arrays;
 import java.util.Map;
 
 public class TicketValidator {
 
-    private static int MAX_ALLOWED_TICKETS = 25;
+    static final int MAX_ALLOWED_TICKETS = 25;
+
+    private final int maxAllowedTickets;
+    private final String tooManyTicketsMessage;
+    private final InvalidPurchaseException tooManyTicketsException;
+
+    public TicketValidator() {
+        this(MAX_ALLOWED_TICKETS);
+    }
+
+    /**
+     * @param maxAllowedTickets most seated tickets in one purchase
+     */
+    public TicketValidator(int maxAllowedTickets) {
+        if (maxAllowedTickets < 1) {
+            throw new IllegalArgumentException("Max allowed tickets must be at least 1: " + maxAllowedTickets);
+        }
+        this.maxAllowedTickets = maxAllowedTickets;
+        if (maxAllowedTickets == MAX_ALLOWED_TICKETS) {
+            this.tooManyTicketsMessage = ValidationResult.TOO_MANY_TICKETS.getMessage();
+            this.tooManyTicketsException = ValidationResult.TOO_MANY_TICKETS.asException();
+        } else {
+            this.tooManyTicketsMessage = tooManyTicketsMessage(maxAllowedTickets);
+            this.tooManyTicketsException = InvalidPurchaseException.stackless(tooManyTicketsMessage);
+        }
+    }
+
+    public int getMaxAllowedTickets() {
+        return maxAllowedTickets;
+    }
+
+    /**
+     * @param validationResult a failure
+     * @return its message, quoting this validator's limit for {@link ValidationResult#TOO_MANY_TICKETS}
+     */
+    public String getMessage(ValidationResult validationResult) {
+        return validationResult == ValidationResult.TOO_MANY_TICKETS
+                ? tooManyTicketsMessage
+                : validationResult.getMessage();
+    }
+
+    /**
+     * @param validationResult a failure
+     * @return its cached exception, quoting this validator's limit for {@link ValidationResult#TOO_MANY_TICKETS}
+     */
+    public InvalidPurchaseException asException(ValidationResult validationResult) {
+        return validationResult == ValidationResult.TOO_MANY_TICKETS
+                ? tooManyTicketsException
+                : validationResult.asException();
+    }
+
+    static String tooManyTicketsMessage(int maxAllowedTickets) {
+        return "Cannot purchase more than " + maxAllowedTickets + " tickets at a time";
+    }
 
     public boolean validateTicketRequests(TicketTypeRequest[] ticketTypeRequests) throws InvalidPurchaseException {
+        return throwIfInvalid(checkTicketRequests(ticketTypeRequests));
+    }
+
+    public boolean validateTicketRatio(Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap) throws InvalidPurchaseException {
+
+        return validateTicketRatio(TicketTypeTally.of(ticketTypeCountMap.get(TicketTypeRequest.Type.ADULT),
+                ticketTypeCountMap.get(TicketTypeRequest.Type.CHILD),
+                ticketTypeCountMap.get(TicketTypeRequest.Type.INFANT)));
+    }
+
+    public boolean validateTicketRatio(TicketTypeTally ticketTypeTally) throws InvalidPurchaseException {
+        return throwIfInvalid(checkTicketRatio(ticketTypeTally));
+    }
+
+    public ValidationResult checkTicketRequests(TicketTypeRequest[] ticketTypeRequests) {
 
         if(ticketTypeRequests == null || ticketTypeRequests.length == 0) {
-            throw new InvalidPurchaseException("At least one ticket must be purchased");
+            return ValidationResult.NO_TICKETS;
         }
 
-        if(Arrays.stream(ticketTypeRequests).anyMatch(t -> t.getTicketType() == null)) {
-            throw new InvalidPurchaseException("The request type cannot be empty");
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            if (ticketTypeRequest.getTicketType() == null) {
+                return ValidationResult.EMPTY_TICKET_TYPE;
+            }
         }
 
-        if(Arrays.stream(ticketTypeRequests).anyMatch(t -> t.getNoOfTickets() < 0)) {
-            throw new InvalidPurchaseException("The number of tickets requested must not be negative");
+        for (TicketTypeRequest ticketTypeRequest : ticketTypeRequests) {
+            if (ticketTypeRequest.getNoOfTickets() < 0) {
+                return ValidationResult.NEGATIVE_TICKETS;
+            }
         }
 
-        return true;
+        return ValidationResult.VALID;
     }
 
-    public boolean validateTicketRatio(Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap) throws InvalidPurchaseException {
-
-        boolean isValid = true;
+    public ValidationResult checkTicketRatio(TicketTypeTally ticketTypeTally) {
 
-        int adultTickets = ticketTypeCountMap.get(TicketTypeRequest.Type.ADULT);
-        int childTickets = ticketTypeCountMap.get(TicketTypeRequest.Type.CHILD);
-        int infantTickets = ticketTypeCountMap.get(TicketTypeRequest.Type.INFANT);
+        int adultTickets = ticketTypeTally.getCount(TicketTypeRequest.Type.ADULT);
+        int infantTickets = ticketTypeTally.getCount(TicketTypeRequest.Type.INFANT);
 
-        int totalTickets = adultTickets + childTickets;
+        int totalTickets = ticketTypeTally.getSeatCount();
 
         if (totalTickets <= 0 ) {
-            throw new InvalidPurchaseException("At least one ticket must be purchased");
+            return ValidationResult.NO_TICKETS;
         } else if (adultTickets <= 0 ) {
-            throw new InvalidPurchaseException("At least one adult ticket must be purchased");
-        } else if (totalTickets > MAX_ALLOWED_TICKETS) {
-            throw new InvalidPurchaseException(String.format("Cannot purchase more than %s tickets at a time", MAX_ALLOWED_TICKETS));
+            return ValidationResult.NO_ADULT_TICKETS;
+        } else if (totalTickets > maxAllowedTickets) {
+            return ValidationResult.TOO_MANY_TICKETS;
         } else if (infantTickets > adultTickets) {
-            throw new InvalidPurchaseException("Number of infant tickets cannot exceed the number of adult tickets");
+            return ValidationResult.TOO_MANY_INFANTS;
         }
 
-        return isValid;
+        return ValidationResult.VALID;
+    }
+
+    private boolean throwIfInvalid(ValidationResult validationResult) {
+        if (!validationResult.isValid()) {
+            throw asException(validationResult);
+        }
+        return true;
     }
 
 }
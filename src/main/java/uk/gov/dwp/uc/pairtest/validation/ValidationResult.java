@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Outcome of a validation check. Failures carry a preformatted message and a cached stackless
+ * {@link InvalidPurchaseException}, so rejecting a request allocates nothing.
+ * <p>
+ * {@link #TOO_MANY_TICKETS} quotes the default limit; a {@link TicketValidator} with another limit
+ * gives its own message and exception through {@link TicketValidator#getMessage(ValidationResult)} and
+ * {@link TicketValidator#asException(ValidationResult)}.
+ */
+public enum ValidationResult {
+
+    VALID(null),
+    INVALID_ACCOUNT("Invalid Account"),
+    NO_TICKETS("At least one ticket must be purchased"),
+    EMPTY_TICKET_TYPE("The request type cannot be empty"),
+    NEGATIVE_TICKETS("The number of tickets requested must not be negative"),
+    NO_ADULT_TICKETS("At least one adult ticket must be purchased"),
+    TOO_MANY_TICKETS(TicketValidator.tooManyTicketsMessage(TicketValidator.MAX_ALLOWED_TICKETS)),
+    TOO_MANY_INFANTS("Number of infant tickets cannot exceed the number of adult tickets"),
+    RATE_LIMITED("Too many purchase attempts for this account, please try again shortly"),
+    SERVICE_BUSY("Ticket sales are busy, please try again shortly"),
+    HOLD_NOT_FOUND("Seat hold has expired or does not exist"),
+    ACCOUNT_LIMIT_REACHED("This account cannot buy any more tickets for this showing");
+
+    private final String message;
+    private final InvalidPurchaseException exception;
+
+    ValidationResult(String message) {
+        this.message = message;
+        this.exception = message == null ? null : InvalidPurchaseException.stackless(message);
+    }
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the cached exception for this failure
+     * @throws IllegalStateException when called on {@link #VALID}
+     */
+    public InvalidPurchaseException asException() {
+        if (exception == null) {
+            throw new IllegalStateException("A valid result has no exception");
+        }
+        return exception;
+    }
+}
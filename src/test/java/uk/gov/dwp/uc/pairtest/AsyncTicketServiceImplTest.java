@@ -0,0 +1,174 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+public class AsyncTicketServiceImplTest {
+
+    private static final long GATEWAY_LATENCY_MILLIS = 20;
+
+    private final ExecutorService gatewayExecutor = GatewayExecutors.newGatewayExecutor(64);
+
+    @AfterEach
+    public void tearDown() {
+        gatewayExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should reserve seats and take payment off the calling thread for a valid purchase")
+    public void testPurchaseTickets_withValidTickets() throws Exception {
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+        TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+        AsyncTicketService asyncTicketService = createAsyncTicketService(seatReservationService, ticketPaymentService, 4);
+
+        PurchaseResult purchaseResult = asyncTicketService.purchaseTickets(1001L,
+                new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1)).get(5, TimeUnit.SECONDS);
+
+        int totalAmount = 2 * TicketPrice.ADULT.getPrice() + TicketPrice.CHILD.getPrice();
+        Assertions.assertTrue(purchaseResult.isSuccessful());
+        Assertions.assertEquals(3, purchaseResult.getSeatCount());
+        Assertions.assertEquals(totalAmount, purchaseResult.getTotalAmount());
+        verify(seatReservationService).reserveSeat(1001L, 3);
+        verify(ticketPaymentService).makePayment(1001L, totalAmount);
+    }
+
+    @Test
+    @DisplayName("Should complete with a failed result and not call gateways for an invalid purchase")
+    public void testPurchaseTickets_withInvalidTickets() throws Exception {
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+        TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+        AsyncTicketService asyncTicketService = createAsyncTicketService(seatReservationService, ticketPaymentService, 4);
+
+        PurchaseResult purchaseResult = asyncTicketService.purchaseTickets(1001L,
+                new TicketTypeRequest(Type.CHILD, 2)).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertFalse(purchaseResult.isSuccessful());
+        Assertions.assertEquals("At least one adult ticket must be purchased", purchaseResult.getFailureReason());
+        verifyNoInteractions(seatReservationService, ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should charge the prices of the current table after a reload")
+    public void testPurchaseTickets_afterPriceReload() throws Exception {
+        TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+        TicketValidator ticketValidator = new TicketValidator();
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.DEFAULT);
+        AsyncTicketService asyncTicketService = new AsyncTicketServiceImpl(new AccountValidator(), ticketValidator,
+                mock(SeatReservationService.class), ticketPaymentService, new QuoteEngine(ticketValidator, pricingEngine),
+                gatewayExecutor, 4, 4);
+
+        asyncTicketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2)).get(5, TimeUnit.SECONDS);
+        pricingEngine.reload(PriceTable.defaultBuilder().price(PriceTier.STANDARD, Type.ADULT, 30).build());
+        PurchaseResult purchaseResult = asyncTicketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2))
+                .get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(60, purchaseResult.getTotalAmount());
+        verify(ticketPaymentService).makePayment(1001L, 2 * TicketPrice.ADULT.getPrice());
+        verify(ticketPaymentService).makePayment(1001L, 60);
+    }
+
+    @Test
+    @DisplayName("Should complete exceptionally when a gateway call fails")
+    public void testPurchaseTickets_whenGatewayFails() {
+        TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+        doThrow(new IllegalStateException("Payment declined")).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        AsyncTicketService asyncTicketService = createAsyncTicketService(mock(SeatReservationService.class), ticketPaymentService, 4);
+
+        CompletableFuture<PurchaseResult> purchase = asyncTicketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 1));
+
+        Assertions.assertThrows(Exception.class, () -> purchase.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(purchase.isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Should never exceed the in-flight limit of a slow gateway")
+    public void testPurchaseTickets_boundsInFlightGatewayCalls() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        SeatReservationService slowSeatReservationService = (accountId, totalSeatsToAllocate) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(GATEWAY_LATENCY_MILLIS);
+            inFlight.decrementAndGet();
+        };
+        AsyncTicketService asyncTicketService = createAsyncTicketService(slowSeatReservationService, mock(TicketPaymentService.class), 2);
+
+        purchaseAll(asyncTicketService, 20);
+
+        Assertions.assertTrue(maxInFlight.get() <= 2, "In-flight reservations exceeded limit: " + maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("Should overlap gateway latency across concurrent purchases")
+    public void testPurchaseTickets_overlapsGatewayLatency() {
+        int purchases = 32;
+        CountDownLatch allInFlight = new CountDownLatch(purchases);
+        AtomicInteger overlapped = new AtomicInteger();
+        SeatReservationService slowSeatReservationService = (accountId, totalSeatsToAllocate) -> {
+            allInFlight.countDown();
+            if (await(allInFlight)) {
+                overlapped.incrementAndGet();
+            }
+        };
+        AsyncTicketService asyncTicketService = createAsyncTicketService(slowSeatReservationService,
+                mock(TicketPaymentService.class), purchases);
+
+        purchaseAll(asyncTicketService, purchases);
+
+        Assertions.assertEquals(purchases, overlapped.get(), "Reservations did not all wait on the gateway together");
+    }
+
+    private AsyncTicketService createAsyncTicketService(SeatReservationService seatReservationService,
+                                                        TicketPaymentService ticketPaymentService, int maxInFlight) {
+        return new AsyncTicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService, gatewayExecutor, maxInFlight, maxInFlight);
+    }
+
+    private void purchaseAll(AsyncTicketService asyncTicketService, int purchases) {
+        List<CompletableFuture<PurchaseResult>> futures = new ArrayList<>();
+        for (int i = 1; i <= purchases; i++) {
+            futures.add(asyncTicketService.purchaseTickets((long) i, new TicketTypeRequest(Type.ADULT, 1)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
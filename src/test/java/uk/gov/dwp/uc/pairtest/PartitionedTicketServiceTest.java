@@ -0,0 +1,218 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+class PartitionedTicketServiceTest {
+
+    private static final TicketTypeRequest ADULT = new TicketTypeRequest(Type.ADULT, 1);
+
+    private PartitionedTicketService ticketService;
+
+    @AfterEach
+    public void tearDown() {
+        if (ticketService != null) {
+            ticketService.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete futures with purchase results, including validation failures")
+    public void testPurchaseTickets_completesResults() {
+        ticketService = new PartitionedTicketService(4, 64, 16,
+                shard -> newTicketService(mock(SeatReservationService.class), mock(TicketPaymentService.class)));
+
+        PurchaseResult purchased = ticketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, 1)).join();
+        PurchaseResult rejected = ticketService.purchaseTickets(1002L, new TicketTypeRequest(Type.CHILD, 1)).join();
+
+        Assertions.assertTrue(purchased.isSuccessful());
+        Assertions.assertEquals(65, purchased.getTotalAmount());
+        Assertions.assertEquals(ValidationResult.NO_ADULT_TICKETS.getMessage(), rejected.getFailureReason());
+    }
+
+    @Test
+    @DisplayName("Should run every purchase for an account on its own shard, in submission order")
+    public void testPurchaseTickets_accountAffinity() {
+        Map<Long, List<String>> threadsByAccount = new ConcurrentHashMap<>();
+        Map<Long, List<Integer>> seatsByAccount = new ConcurrentHashMap<>();
+        SeatReservationService recording = (accountId, seats) -> {
+            threadsByAccount.computeIfAbsent(accountId, id -> new ArrayList<>()).add(Thread.currentThread().getName());
+            seatsByAccount.computeIfAbsent(accountId, id -> new ArrayList<>()).add(seats);
+        };
+        ticketService = new PartitionedTicketService(4, 1024, 8,
+                shard -> newTicketService(recording, mock(TicketPaymentService.class)));
+
+        List<CompletableFuture<PurchaseResult>> purchaseResults = new ArrayList<>();
+        for (int seats = 1; seats <= 20; seats++) {
+            for (long accountId = 1; accountId <= 50; accountId++) {
+                purchaseResults.add(ticketService.purchaseTickets(accountId, new TicketTypeRequest(Type.ADULT, seats)));
+            }
+        }
+        purchaseResults.forEach(CompletableFuture::join);
+
+        for (long accountId = 1; accountId <= 50; accountId++) {
+            Assertions.assertEquals(1, threadsByAccount.get(accountId).stream().distinct().count());
+            Assertions.assertEquals("ticket-shard-" + ticketService.shardFor(accountId), threadsByAccount.get(accountId).get(0));
+            List<Integer> seats = seatsByAccount.get(accountId);
+            for (int i = 0; i < seats.size(); i++) {
+                Assertions.assertEquals(i + 1, seats.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete the batch's futures exceptionally when a gateway throws")
+    public void testPurchaseTickets_gatewayFailure() {
+        SeatReservationService failing = mock(SeatReservationService.class);
+        doThrow(new IllegalStateException("seat gateway down")).when(failing).reserveSeat(anyLong(), anyInt());
+        ticketService = new PartitionedTicketService(1, 16, 1,
+                shard -> newTicketService(failing, mock(TicketPaymentService.class)));
+
+        CompletionException exception = Assertions.assertThrows(CompletionException.class,
+                () -> ticketService.purchaseTickets(1001L, ADULT).join());
+
+        Assertions.assertEquals("seat gateway down", exception.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should fail the batch and keep the shard running when its service throws an Error")
+    public void testPurchaseTickets_serviceError() {
+        TicketService shardTicketService = mock(TicketService.class);
+        when(shardTicketService.purchaseTicketsBatch(anyList()))
+                .thenThrow(new AssertionError("shard service broke"))
+                .thenReturn(List.of())
+                .thenReturn(List.of(PurchaseResult.success(1001L, 1, 25)));
+        ticketService = new PartitionedTicketService(1, 16, 1, shard -> shardTicketService);
+
+        CompletionException error = Assertions.assertThrows(CompletionException.class,
+                () -> ticketService.purchaseTickets(1001L, ADULT).join());
+        CompletionException shortResults = Assertions.assertThrows(CompletionException.class,
+                () -> ticketService.purchaseTickets(1001L, ADULT).join());
+        PurchaseResult purchased = ticketService.purchaseTickets(1001L, ADULT).join();
+
+        Assertions.assertEquals("shard service broke", error.getCause().getMessage());
+        Assertions.assertInstanceOf(IndexOutOfBoundsException.class, shortResults.getCause());
+        Assertions.assertTrue(purchased.isSuccessful());
+    }
+
+    @Test
+    @DisplayName("Should turn purchases away while a shard queue is full")
+    public void testPurchaseTickets_fullQueueIsBusy() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TicketService blocking = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                (accountId, seats) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, mock(TicketPaymentService.class));
+        ticketService = new PartitionedTicketService(1, 2, 1, shard -> blocking);
+
+        CompletableFuture<PurchaseResult> inProgress = ticketService.purchaseTickets(1001L, ADULT);
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+        ticketService.purchaseTickets(1001L, ADULT);
+        ticketService.purchaseTickets(1001L, ADULT);
+
+        PurchaseResult busy = ticketService.purchaseTickets(1001L, ADULT).join();
+
+        Assertions.assertEquals(ValidationResult.SERVICE_BUSY.getMessage(), busy.getFailureReason());
+        release.countDown();
+        Assertions.assertTrue(inProgress.join().isSuccessful());
+    }
+
+    @Test
+    @DisplayName("Should finish queued purchases on close and refuse new ones")
+    public void testClose_drainsQueue() {
+        TicketService slow = mock(TicketService.class);
+        when(slow.purchaseTicketsBatch(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            List<PurchaseOrder> purchaseOrders = invocation.getArgument(0);
+            List<PurchaseResult> purchaseResults = new ArrayList<>();
+            for (PurchaseOrder purchaseOrder : purchaseOrders) {
+                purchaseResults.add(PurchaseResult.success(purchaseOrder.getAccountId(), 1, 25));
+            }
+            return purchaseResults;
+        });
+        ticketService = new PartitionedTicketService(2, 64, 1, shard -> slow);
+        List<CompletableFuture<PurchaseResult>> purchaseResults = new ArrayList<>();
+        for (long accountId = 1; accountId <= 20; accountId++) {
+            purchaseResults.add(ticketService.purchaseTickets(accountId, ADULT));
+        }
+
+        ticketService.close();
+
+        purchaseResults.forEach(purchaseResult -> Assertions.assertTrue(purchaseResult.isDone()));
+        CompletionException exception = Assertions.assertThrows(CompletionException.class,
+                () -> ticketService.purchaseTickets(1001L, ADULT).join());
+        Assertions.assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    @DisplayName("Should complete every future, purchased or refused, when closed while purchases are being submitted")
+    public void testClose_whileSubmitting() throws InterruptedException {
+        for (int round = 0; round < 100; round++) {
+            PartitionedTicketService closing = new PartitionedTicketService(2, 4096, 8,
+                    shard -> newTicketService(mock(SeatReservationService.class), mock(TicketPaymentService.class)));
+            List<CompletableFuture<PurchaseResult>> purchaseResults = new CopyOnWriteArrayList<>();
+            CountDownLatch submitting = new CountDownLatch(8);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread submitter = new Thread(() -> {
+                    List<CompletableFuture<PurchaseResult>> submitted = new ArrayList<>();
+                    submitting.countDown();
+                    for (long accountId = 1; accountId <= 500; accountId++) {
+                        submitted.add(closing.purchaseTickets(accountId, ADULT));
+                    }
+                    purchaseResults.addAll(submitted);
+                });
+                submitters.add(submitter);
+                submitter.start();
+            }
+            Assertions.assertTrue(submitting.await(5, TimeUnit.SECONDS));
+
+            closing.close();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+
+            Assertions.assertEquals(8 * 500, purchaseResults.size());
+            for (CompletableFuture<PurchaseResult> purchaseResult : purchaseResults) {
+                Assertions.assertTrue(purchaseResult.isDone(), "purchase left incomplete in round " + round);
+            }
+        }
+    }
+
+    private static TicketService newTicketService(SeatReservationService seatReservationService,
+                                                  TicketPaymentService ticketPaymentService) {
+        return new TicketServiceImpl(new AccountValidator(), new TicketValidator(), seatReservationService,
+                ticketPaymentService);
+    }
+}
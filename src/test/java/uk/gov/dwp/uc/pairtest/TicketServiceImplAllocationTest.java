@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.lang.management.ManagementFactory;
+
+public class TicketServiceImplAllocationTest {
+
+    private static final int WARM_UP_PURCHASES = 20_000;
+    private static final int MEASURED_PURCHASES = 100_000;
+
+    private final Long accountId = 1001L;
+
+    private final TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+            (accountId, totalSeatsToAllocate) -> { }, (accountId, totalAmountToPay) -> { });
+
+    private final TicketTypeRequest[] ticketTypeRequests = {
+            new TicketTypeRequest(Type.ADULT, 5),
+            new TicketTypeRequest(Type.CHILD, 3),
+            new TicketTypeRequest(Type.INFANT, 2)
+    };
+
+    @Test
+    @DisplayName("Should not allocate on the steady-state purchase path")
+    public void testPurchaseTickets_allocatesNothingPerPurchase() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        purchase(WARM_UP_PURCHASES);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        purchase(MEASURED_PURCHASES);
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // allow for the measurement calls themselves, but not a single byte per purchase
+        Assertions.assertTrue(allocatedBytes < MEASURED_PURCHASES,
+                "Expected no per-purchase allocation but " + allocatedBytes + " bytes were allocated");
+    }
+
+    private void purchase(int purchases) {
+        for (int i = 0; i < purchases; i++) {
+            ticketService.purchaseTickets(accountId, ticketTypeRequests);
+        }
+    }
+}
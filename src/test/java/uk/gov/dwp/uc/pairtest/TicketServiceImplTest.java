@@ -8,12 +8,29 @@ import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.paymentgateway.TicketPaymentServiceImpl;
 import thirdparty.seatbooking.SeatReservationService;
 import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
 import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.BatchPaymentException;
+import uk.gov.dwp.uc.pairtest.exception.BatchSeatReservationException;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.gateway.BatchSeatReservationService;
+import uk.gov.dwp.uc.pairtest.gateway.BatchTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
 import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
 import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.Arrays;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 
@@ -97,6 +114,279 @@ public class TicketServiceImplTest {
         verifyPurchaseTicket(15, 10, 10);
     }
 
+    @Test
+    @DisplayName("Should purchase valid orders in a batch and report invalid orders without failing the batch")
+    public void testPurchaseTicketsBatch_withValidAndInvalidOrders() {
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 2), createTicketRequest(Type.CHILD, 1)),
+                new PurchaseOrder(0L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(3L, createTicketRequest(Type.CHILD, 2)),
+                new PurchaseOrder(4L, createTicketRequest(Type.ADULT, 1), createTicketRequest(Type.INFANT, 1))));
+
+        Assertions.assertEquals(4, purchaseResults.size());
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertEquals(3, purchaseResults.get(0).getSeatCount());
+        Assertions.assertEquals(calculateTotalAmount(2, 1), purchaseResults.get(0).getTotalAmount());
+        Assertions.assertFalse(purchaseResults.get(1).isSuccessful());
+        Assertions.assertEquals("Invalid Account", purchaseResults.get(1).getFailureReason());
+        Assertions.assertFalse(purchaseResults.get(2).isSuccessful());
+        Assertions.assertTrue(purchaseResults.get(3).isSuccessful());
+
+        // single-call gateways are driven one account at a time
+        verify(seatReservationService).reserveSeat(1L, 3);
+        verify(seatReservationService).reserveSeat(4L, 1);
+        verify(ticketPaymentService).makePayment(1L, calculateTotalAmount(2, 1));
+        verify(ticketPaymentService).makePayment(4L, calculateTotalAmount(1, 0));
+        verifyNoMoreInteractions(seatReservationService, ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should coalesce valid orders into one call each on batch capable gateways")
+    public void testPurchaseTicketsBatch_withBatchGateways() {
+
+        BatchSeatReservationService batchSeatReservationService = mock(BatchSeatReservationService.class);
+        BatchTicketPaymentService batchTicketPaymentService = mock(BatchTicketPaymentService.class);
+        TicketService batchTicketService = new TicketServiceImpl(accountValidator, ticketValidator,
+                batchSeatReservationService, batchTicketPaymentService);
+
+        batchTicketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(2L, createTicketRequest(Type.INFANT, 2)),
+                new PurchaseOrder(3L, createTicketRequest(Type.ADULT, 1), createTicketRequest(Type.CHILD, 4))));
+
+        verify(batchSeatReservationService).reserveSeats(new long[]{1L, 3L}, new int[]{2, 5});
+        verify(batchTicketPaymentService).makePayments(new long[]{1L, 3L},
+                new int[]{calculateTotalAmount(2, 0), calculateTotalAmount(1, 4)});
+        verifyNoMoreInteractions(batchSeatReservationService, batchTicketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should not call gateways when every order in the batch is invalid")
+    public void testPurchaseTicketsBatch_withOnlyInvalidOrders() {
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(null, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(2L)));
+
+        Assertions.assertFalse(purchaseResults.get(0).isSuccessful());
+        Assertions.assertFalse(purchaseResults.get(1).isSuccessful());
+        verifyNoInteractions(seatReservationService, ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should charge the prices of the current table after a reload")
+    public void testPurchaseTickets_afterPriceReload() {
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.DEFAULT);
+        ticketService = new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService,
+                ticketPaymentService, PurchaseMetrics.NO_OP, PurchaseJournal.NO_OP, pricingEngine);
+
+        ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 2));
+        pricingEngine.reload(PriceTable.defaultBuilder().price(PriceTier.STANDARD, Type.ADULT, 30).build());
+        ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 2));
+
+        verify(ticketPaymentService).makePayment(accountId, 50);
+        verify(ticketPaymentService).makePayment(accountId, 60);
+    }
+
+    @Test
+    @DisplayName("Should apply a changed ticket limit to later purchases")
+    public void testPurchaseTickets_afterLimitChange() {
+        QuoteEngine quoteEngine = new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT));
+        ticketService = new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService,
+                ticketPaymentService, PurchaseMetrics.NO_OP, PurchaseJournal.NO_OP, quoteEngine);
+
+        ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 12));
+        quoteEngine.reload(new TicketValidator(10));
+        InvalidPurchaseException invalidPurchaseException = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 12)));
+
+        Assertions.assertEquals("Cannot purchase more than 10 tickets at a time", invalidPurchaseException.getMessage());
+
+        verify(seatReservationService).reserveSeat(accountId, 12);
+        verifyNoMoreInteractions(seatReservationService);
+    }
+
+    @Test
+    @DisplayName("Should reject a purchase that takes the account over its cap without calling the gateways")
+    public void testPurchaseTickets_overAccountLimit() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(accountId, 20)).thenReturn(true, false);
+        ticketService = createTicketService(accountLedger);
+
+        ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 20));
+        InvalidPurchaseException invalidPurchaseException = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 20)));
+
+        Assertions.assertEquals(ValidationResult.ACCOUNT_LIMIT_REACHED.getMessage(), invalidPurchaseException.getMessage());
+        verify(seatReservationService).reserveSeat(accountId, 20);
+        verifyNoMoreInteractions(seatReservationService);
+        verify(accountLedger, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should give seats back to the account's cap when the payment fails")
+    public void testPurchaseTickets_releasesAccountLimitOnFailure() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt())).thenReturn(true);
+        doThrow(new IllegalStateException("declined")).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        ticketService = createTicketService(accountLedger);
+
+        Assertions.assertThrowsExactly(IllegalStateException.class, () -> ticketService.purchaseTickets(accountId,
+                createTicketRequest(Type.ADULT, 2), createTicketRequest(Type.CHILD, 1)));
+
+        verify(accountLedger).release(accountId, 3);
+    }
+
+    @Test
+    @DisplayName("Should keep paid seats counted against the account's cap when the completion cannot be journalled")
+    public void testPurchaseTickets_keepsAccountLimitWhenJournalFailsAfterPayment() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt())).thenReturn(true);
+        PurchaseJournal purchaseJournal = mock(PurchaseJournal.class);
+        when(purchaseJournal.begin(anyLong(), anyInt(), anyInt())).thenReturn(7L);
+        doThrow(new IllegalStateException("Purchase journal is closed")).when(purchaseJournal).completed(7L);
+        ticketService = new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService,
+                ticketPaymentService, PurchaseMetrics.NO_OP, purchaseJournal,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), accountLedger);
+
+        Assertions.assertThrowsExactly(IllegalStateException.class,
+                () -> ticketService.purchaseTickets(accountId, createTicketRequest(Type.ADULT, 2)));
+
+        verify(ticketPaymentService).makePayment(accountId, 50);
+        verify(accountLedger, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should report orders over the account's cap as failures without failing the batch")
+    public void testPurchaseTicketsBatch_overAccountLimit() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt())).thenReturn(true);
+        when(accountLedger.tryAdd(2L, 4)).thenReturn(false);
+        ticketService = createTicketService(accountLedger);
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(2L, createTicketRequest(Type.ADULT, 4))));
+
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertFalse(purchaseResults.get(1).isSuccessful());
+        Assertions.assertEquals(ValidationResult.ACCOUNT_LIMIT_REACHED.getMessage(), purchaseResults.get(1).getFailureReason());
+        verify(seatReservationService).reserveSeat(1L, 2);
+        verifyNoMoreInteractions(seatReservationService);
+    }
+
+    @Test
+    @DisplayName("Should give earlier orders' seats back to their caps when the ledger fails part way through a batch")
+    public void testPurchaseTicketsBatch_releasesAccountLimitOnLedgerFailure() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt()))
+                .thenReturn(true, true)
+                .thenThrow(new IllegalStateException("Account ledger is full"));
+        ticketService = createTicketService(accountLedger);
+
+        Assertions.assertThrowsExactly(IllegalStateException.class, () -> ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(2L, createTicketRequest(Type.ADULT, 4)),
+                new PurchaseOrder(3L, createTicketRequest(Type.ADULT, 1)))));
+
+        verify(accountLedger).release(1L, 2);
+        verify(accountLedger).release(2L, 4);
+        verify(accountLedger, never()).release(eq(3L), anyInt());
+        verifyNoInteractions(seatReservationService, ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should fail only the order whose payment failed when a batch fails on its middle order")
+    public void testPurchaseTicketsBatch_whenMiddlePaymentFails() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt())).thenReturn(true);
+        PurchaseJournal purchaseJournal = mock(PurchaseJournal.class);
+        when(purchaseJournal.begin(anyLong(), anyInt(), anyInt())).thenReturn(11L, 12L, 13L);
+        doThrow(new IllegalStateException("Card declined")).when(ticketPaymentService).makePayment(2L, 50);
+        ticketService = new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService,
+                ticketPaymentService, PurchaseMetrics.NO_OP, purchaseJournal,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), accountLedger);
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 1)),
+                new PurchaseOrder(2L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(3L, createTicketRequest(Type.ADULT, 3))));
+
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertFalse(purchaseResults.get(1).isSuccessful());
+        Assertions.assertEquals("Card declined", purchaseResults.get(1).getFailureReason());
+        Assertions.assertTrue(purchaseResults.get(2).isSuccessful());
+        verify(ticketPaymentService).makePayment(3L, 75);
+        verify(accountLedger).release(2L, 2);
+        verify(accountLedger, times(1)).release(anyLong(), anyInt());
+        verify(purchaseJournal).completed(11L);
+        verify(purchaseJournal).failedAfterReservation(12L, 2L, 2, 50);
+        verify(purchaseJournal).completed(13L);
+        verify(purchaseJournal, never()).failed(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not take payment for an order whose seats could not be reserved in a batch")
+    public void testPurchaseTicketsBatch_whenMiddleReservationFails() {
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        when(accountLedger.tryAdd(anyLong(), anyInt())).thenReturn(true);
+        PurchaseJournal purchaseJournal = mock(PurchaseJournal.class);
+        when(purchaseJournal.begin(anyLong(), anyInt(), anyInt())).thenReturn(11L, 12L, 13L);
+        doThrow(new IllegalStateException("Seats unavailable")).when(seatReservationService).reserveSeat(2L, 2);
+        ticketService = new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService,
+                ticketPaymentService, PurchaseMetrics.NO_OP, purchaseJournal,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), accountLedger);
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 1)),
+                new PurchaseOrder(2L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(3L, createTicketRequest(Type.ADULT, 3))));
+
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertEquals("Seats unavailable", purchaseResults.get(1).getFailureReason());
+        Assertions.assertTrue(purchaseResults.get(2).isSuccessful());
+        verify(ticketPaymentService, never()).makePayment(eq(2L), anyInt());
+        verify(accountLedger).release(2L, 2);
+        verify(purchaseJournal, never()).seatsReserved(12L);
+        verify(purchaseJournal).failed(12L);
+        verify(purchaseJournal).completed(11L);
+        verify(purchaseJournal).completed(13L);
+    }
+
+    @Test
+    @DisplayName("Should map a batch payment gateway's per payment failures back to their orders")
+    public void testPurchaseTicketsBatch_withBatchPaymentException() {
+        BatchSeatReservationService batchSeatReservationService = mock(BatchSeatReservationService.class);
+        BatchTicketPaymentService batchTicketPaymentService = mock(BatchTicketPaymentService.class);
+        doThrow(new BatchSeatReservationException("Some seat reservations in the batch failed",
+                new RuntimeException[]{null, new IllegalStateException("Seats unavailable"), null, null}))
+                .when(batchSeatReservationService).reserveSeats(any(), any());
+        doThrow(new BatchPaymentException("Some payments in the batch failed",
+                new RuntimeException[]{null, new IllegalStateException("Card declined"), null}))
+                .when(batchTicketPaymentService).makePayments(any(), any());
+        TicketService batchTicketService = new TicketServiceImpl(accountValidator, ticketValidator,
+                batchSeatReservationService, batchTicketPaymentService);
+
+        List<PurchaseResult> purchaseResults = batchTicketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder(1L, createTicketRequest(Type.ADULT, 1)),
+                new PurchaseOrder(2L, createTicketRequest(Type.ADULT, 2)),
+                new PurchaseOrder(3L, createTicketRequest(Type.ADULT, 3)),
+                new PurchaseOrder(4L, createTicketRequest(Type.ADULT, 4))));
+
+        verify(batchTicketPaymentService).makePayments(new long[]{1L, 3L, 4L}, new int[]{25, 75, 100});
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertEquals("Seats unavailable", purchaseResults.get(1).getFailureReason());
+        Assertions.assertEquals("Card declined", purchaseResults.get(2).getFailureReason());
+        Assertions.assertTrue(purchaseResults.get(3).isSuccessful());
+    }
+
+    private TicketService createTicketService(AccountLedger accountLedger) {
+        return new TicketServiceImpl(accountValidator, ticketValidator, seatReservationService, ticketPaymentService,
+                PurchaseMetrics.NO_OP, PurchaseJournal.NO_OP,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), accountLedger);
+    }
+
     private void verifyPurchaseTicket(int adultTickets, int childTickets, int infantTickets) {
 
         int totalSeatToAllocate = adultTickets + childTickets;
@@ -0,0 +1,96 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AccountRateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(1);
+
+    private AccountRateLimiter rateLimiter(int maxTrackedAccounts, int burst, double permitsPerSecond) {
+        return new AccountRateLimiter(maxTrackedAccounts, burst, permitsPerSecond, 4, nanoTime::get);
+    }
+
+    @Test
+    @DisplayName("Should admit a burst and then reject until the bucket refills")
+    public void testTryAcquire_burstThenRefill() {
+        AccountRateLimiter rateLimiter = rateLimiter(64, 3, 2);
+
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertFalse(rateLimiter.tryAcquire(1001L));
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+        Assertions.assertFalse(rateLimiter.tryAcquire(1001L));
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertFalse(rateLimiter.tryAcquire(1001L));
+    }
+
+    @Test
+    @DisplayName("Should never refill a bucket beyond its burst")
+    public void testTryAcquire_refillCappedAtBurst() {
+        AccountRateLimiter rateLimiter = rateLimiter(64, 2, 100);
+        rateLimiter.tryAcquire(1001L);
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertFalse(rateLimiter.tryAcquire(1001L));
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per account")
+    public void testTryAcquire_accountsAreIndependent() {
+        AccountRateLimiter rateLimiter = rateLimiter(64, 1, 1);
+
+        Assertions.assertTrue(rateLimiter.tryAcquire(1001L));
+        Assertions.assertFalse(rateLimiter.tryAcquire(1001L));
+        Assertions.assertTrue(rateLimiter.tryAcquire(1002L));
+    }
+
+    @Test
+    @DisplayName("Should stay at a fixed size however many accounts are seen")
+    public void testTryAcquire_memoryBounded() {
+        AccountRateLimiter rateLimiter = rateLimiter(1_000, 1, 1);
+        int capacity = rateLimiter.getCapacity();
+
+        for (long accountId = 1; accountId <= 1_000_000; accountId++) {
+            rateLimiter.tryAcquire(accountId);
+            nanoTime.incrementAndGet();
+        }
+
+        Assertions.assertEquals(1_024, capacity);
+        Assertions.assertEquals(capacity, rateLimiter.getCapacity());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently seen account when its set is full")
+    public void testTryAcquire_evictsLeastRecentlySeen() {
+        AccountRateLimiter rateLimiter = rateLimiter(1, 1, 1);
+        for (long accountId = 1; accountId <= AccountRateLimiter.WAYS; accountId++) {
+            Assertions.assertTrue(rateLimiter.tryAcquire(accountId));
+            nanoTime.incrementAndGet();
+        }
+
+        Assertions.assertTrue(rateLimiter.tryAcquire(AccountRateLimiter.WAYS + 1));
+
+        Assertions.assertTrue(rateLimiter.tryAcquire(1L), "account 1 was evicted and starts with a full bucket");
+        Assertions.assertFalse(rateLimiter.tryAcquire(AccountRateLimiter.WAYS), "account 8 is still tracked");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid limiter settings")
+    public void testConstructor_invalidSettings() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> rateLimiter(0, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> rateLimiter(64, 0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> rateLimiter(64, 1, 0));
+    }
+}
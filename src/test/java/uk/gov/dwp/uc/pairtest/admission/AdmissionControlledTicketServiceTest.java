@@ -0,0 +1,123 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+class AdmissionControlledTicketServiceTest {
+
+    private static final TicketTypeRequest ADULT = new TicketTypeRequest(Type.ADULT, 1);
+
+    private TicketService delegate;
+    private AdmissionControlledTicketService ticketService;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(TicketService.class);
+        ticketService = new AdmissionControlledTicketService(delegate,
+                new AccountRateLimiter(64, 2, 0.001, 4, () -> 1L), 1);
+    }
+
+    @Test
+    @DisplayName("Should reject an account over its rate without calling the delegate")
+    public void testPurchaseTickets_rateLimited() {
+        ticketService.purchaseTickets(1001L, ADULT);
+        ticketService.purchaseTickets(1001L, ADULT);
+
+        InvalidPurchaseException exception = Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(1001L, ADULT));
+
+        Assertions.assertSame(ValidationResult.RATE_LIMITED.asException(), exception);
+        verify(delegate, times(2)).purchaseTickets(1001L, ADULT);
+    }
+
+    @Test
+    @DisplayName("Should leave invalid account ids for the delegate to reject")
+    public void testPurchaseTickets_invalidAccountPassesThrough() {
+        for (int i = 0; i < 5; i++) {
+            ticketService.purchaseTickets(0L, ADULT);
+        }
+
+        verify(delegate, times(5)).purchaseTickets(0L, ADULT);
+    }
+
+    @Test
+    @DisplayName("Should shed purchases beyond the concurrency limit")
+    public void testPurchaseTickets_serviceBusy() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return null;
+        }).when(delegate).purchaseTickets(1001L, ADULT);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> inProgress = executor.submit(() -> ticketService.purchaseTickets(1001L, ADULT));
+            Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            InvalidPurchaseException exception = Assertions.assertThrows(InvalidPurchaseException.class,
+                    () -> ticketService.purchaseTickets(1002L, ADULT));
+            Assertions.assertSame(ValidationResult.SERVICE_BUSY.asException(), exception);
+
+            release.countDown();
+            inProgress.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ticketService.purchaseTickets(1002L, ADULT);
+        verify(delegate).purchaseTickets(1002L, ADULT);
+    }
+
+    @Test
+    @DisplayName("Should release the concurrency slot when the delegate throws")
+    public void testPurchaseTickets_slotReleasedOnFailure() {
+        doThrow(new IllegalStateException("gateway down")).doNothing().when(delegate).purchaseTickets(1001L, ADULT);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(1001L, ADULT));
+        Assertions.assertDoesNotThrow(() -> ticketService.purchaseTickets(1001L, ADULT));
+    }
+
+    @Test
+    @DisplayName("Should fail rate limited orders in a batch and pass the rest through in order")
+    public void testPurchaseTicketsBatch_rateLimitedOrdersFail() {
+        PurchaseOrder first = new PurchaseOrder(1001L, ADULT);
+        PurchaseOrder second = new PurchaseOrder(1001L, ADULT);
+        PurchaseOrder limited = new PurchaseOrder(1001L, ADULT);
+        PurchaseOrder other = new PurchaseOrder(1002L, ADULT);
+        when(delegate.purchaseTicketsBatch(Arrays.asList(first, second, other))).thenReturn(Arrays.asList(
+                PurchaseResult.success(1001L, 1, 25),
+                PurchaseResult.success(1001L, 1, 25),
+                PurchaseResult.success(1002L, 1, 25)));
+
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(
+                Arrays.asList(first, second, limited, other));
+
+        Assertions.assertEquals(4, purchaseResults.size());
+        Assertions.assertTrue(purchaseResults.get(0).isSuccessful());
+        Assertions.assertTrue(purchaseResults.get(1).isSuccessful());
+        Assertions.assertFalse(purchaseResults.get(2).isSuccessful());
+        Assertions.assertEquals(ValidationResult.RATE_LIMITED.getMessage(), purchaseResults.get(2).getFailureReason());
+        Assertions.assertEquals(1002L, purchaseResults.get(3).getAccountId());
+    }
+}
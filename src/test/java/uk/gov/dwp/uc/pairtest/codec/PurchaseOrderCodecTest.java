@@ -0,0 +1,150 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+class PurchaseOrderCodecTest {
+
+    private static final String[] KEYS = {"", "order-1", "clé-ñ", "票-42", "emoji-🎬"};
+
+    @Test
+    @DisplayName("Should round-trip random orders, including invalid ones, through heap and direct buffers")
+    public void testRoundTrip_randomOrders() {
+        SplittableRandom random = new SplittableRandom(16);
+        ByteBuffer heap = ByteBuffer.allocate(256);
+        ByteBuffer direct = ByteBuffer.allocateDirect(256);
+
+        for (int i = 0; i < 10_000; i++) {
+            PurchaseOrder purchaseOrder = randomOrder(random);
+            for (ByteBuffer buffer : new ByteBuffer[]{heap, direct}) {
+                buffer.clear();
+                int written = PurchaseOrderCodec.encode(purchaseOrder, buffer);
+                Assertions.assertEquals(PurchaseOrderCodec.encodedLength(purchaseOrder), written);
+
+                buffer.flip();
+                assertSameOrder(purchaseOrder, PurchaseOrderCodec.decode(buffer));
+                Assertions.assertFalse(buffer.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode a typical order in a few bytes")
+    public void testEncode_compact() {
+        PurchaseOrder purchaseOrder = new PurchaseOrder(1001L, new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, 3), new TicketTypeRequest(Type.INFANT, 1));
+
+        // flags, two byte account id, entry count and one byte per entry
+        Assertions.assertEquals(7, PurchaseOrderCodec.encodedLength(purchaseOrder));
+    }
+
+    @Test
+    @DisplayName("Should decode orders written back to back")
+    public void testDecode_consecutiveOrders() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        PurchaseOrderCodec.encode(new PurchaseOrder(1L, new TicketTypeRequest(Type.ADULT, 1)), buffer);
+        PurchaseOrderCodec.encode(new PurchaseOrder("k", 2L, new TicketTypeRequest(Type.CHILD, 100)), buffer);
+        buffer.flip();
+
+        Assertions.assertEquals(1L, PurchaseOrderCodec.decode(buffer).getAccountId());
+        PurchaseOrder second = PurchaseOrderCodec.decode(buffer);
+        Assertions.assertEquals(2L, second.getAccountId());
+        Assertions.assertEquals("k", second.getIdempotencyKey());
+        Assertions.assertEquals(100, second.getTicketTypeRequests()[0].getNoOfTickets());
+    }
+
+    @Test
+    @DisplayName("Should fail rather than misread a truncated order")
+    public void testDecode_truncated() {
+        PurchaseOrder purchaseOrder = new PurchaseOrder("key-1", 123_456_789L, new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, -7));
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int length = PurchaseOrderCodec.encode(purchaseOrder, buffer);
+
+        for (int cut = 0; cut < length; cut++) {
+            ByteBuffer truncated = buffer.duplicate();
+            truncated.position(0).limit(cut);
+            RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                    () -> PurchaseOrderCodec.decode(truncated));
+            Assertions.assertTrue(exception instanceof BufferUnderflowException
+                    || exception instanceof IllegalArgumentException, exception.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject unknown flags and overlong varints")
+    public void testDecode_malformed() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PurchaseOrderCodec.decode(ByteBuffer.wrap(new byte[]{(byte) 0x80, 0})));
+
+        byte[] overlong = new byte[12];
+        overlong[0] = PurchaseOrderCodec.FLAG_ACCOUNT_ID;
+        for (int i = 1; i < overlong.length; i++) {
+            overlong[i] = (byte) 0x80;
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PurchaseOrderCodec.decode(ByteBuffer.wrap(overlong)));
+    }
+
+    @Test
+    @DisplayName("Should throw BufferOverflowException when the order does not fit")
+    public void testEncode_bufferTooSmall() {
+        Assertions.assertThrows(BufferOverflowException.class, () -> PurchaseOrderCodec.encode(
+                new PurchaseOrder(1001L, new TicketTypeRequest(Type.ADULT, 2)), ByteBuffer.allocate(3)));
+    }
+
+    static PurchaseOrder randomOrder(SplittableRandom random) {
+        Long accountId;
+        switch (random.nextInt(8)) {
+            case 0:
+                accountId = null;
+                break;
+            case 1:
+                accountId = random.nextLong();
+                break;
+            default:
+                accountId = (long) random.nextInt(-5, 1_000_000);
+        }
+
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[random.nextInt(5)];
+        for (int i = 0; i < ticketTypeRequests.length; i++) {
+            Type ticketType = random.nextInt(20) == 0 ? null : Type.values()[random.nextInt(Type.values().length)];
+            int noOfTickets;
+            switch (random.nextInt(10)) {
+                case 0:
+                    noOfTickets = random.nextInt();
+                    break;
+                case 1:
+                    noOfTickets = random.nextInt(-3, 0);
+                    break;
+                default:
+                    noOfTickets = random.nextInt(26);
+            }
+            ticketTypeRequests[i] = new TicketTypeRequest(ticketType, noOfTickets);
+        }
+
+        String idempotencyKey = random.nextBoolean() ? null : KEYS[random.nextInt(KEYS.length)];
+        return new PurchaseOrder(idempotencyKey, accountId, ticketTypeRequests);
+    }
+
+    private static void assertSameOrder(PurchaseOrder expected, PurchaseOrder actual) {
+        Assertions.assertEquals(expected.getAccountId(), actual.getAccountId());
+        Assertions.assertEquals(expected.getIdempotencyKey(), actual.getIdempotencyKey());
+        Assertions.assertEquals(expected.getTicketTypeRequests().length, actual.getTicketTypeRequests().length);
+        for (int i = 0; i < expected.getTicketTypeRequests().length; i++) {
+            Assertions.assertEquals(expected.getTicketTypeRequests()[i].getTicketType(),
+                    actual.getTicketTypeRequests()[i].getTicketType());
+            Assertions.assertEquals(expected.getTicketTypeRequests()[i].getNoOfTickets(),
+                    actual.getTicketTypeRequests()[i].getNoOfTickets());
+        }
+    }
+}
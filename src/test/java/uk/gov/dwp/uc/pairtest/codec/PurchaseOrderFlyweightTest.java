@@ -0,0 +1,126 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+class PurchaseOrderFlyweightTest {
+
+    private final AccountValidator accountValidator = new AccountValidator();
+    private final TicketValidator ticketValidator = new TicketValidator();
+
+    @Test
+    @DisplayName("Should validate encoded orders exactly as the validators judge the decoded order")
+    public void testValidate_matchesValidators() {
+        SplittableRandom random = new SplittableRandom(61);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        PurchaseOrderFlyweight flyweight = new PurchaseOrderFlyweight();
+        TicketTypeTally flyweightTally = new TicketTypeTally();
+        TicketTypeTally expectedTally = new TicketTypeTally();
+
+        for (int i = 0; i < 10_000; i++) {
+            PurchaseOrder purchaseOrder = PurchaseOrderCodecTest.randomOrder(random);
+            buffer.clear();
+            PurchaseOrderCodec.encode(purchaseOrder, buffer);
+
+            ValidationResult expected = validate(purchaseOrder, expectedTally);
+            ValidationResult actual = flyweight.wrap(buffer, 0).validate(accountValidator, ticketValidator, flyweightTally);
+
+            Assertions.assertEquals(expected, actual);
+            if (actual.isValid()) {
+                for (Type ticketType : Type.values()) {
+                    Assertions.assertEquals(expectedTally.getCount(ticketType), flyweightTally.getCount(ticketType));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should read fields in place without moving the buffer position")
+    public void testWrap_readsFields() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put((byte) 42);
+        PurchaseOrderCodec.encode(new PurchaseOrder("key-1", 1001L, new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(null, 70), new TicketTypeRequest(Type.INFANT, 1)), buffer);
+        int end = buffer.position();
+
+        PurchaseOrderFlyweight flyweight = new PurchaseOrderFlyweight().wrap(buffer, 1);
+
+        Assertions.assertEquals(end, buffer.position());
+        Assertions.assertTrue(flyweight.hasAccountId());
+        Assertions.assertEquals(1001L, flyweight.getAccountId());
+        Assertions.assertEquals(3, flyweight.getEntryCount());
+        Assertions.assertEquals(Type.ADULT, flyweight.getTicketType(0));
+        Assertions.assertNull(flyweight.getTicketType(1));
+        Assertions.assertEquals(70, flyweight.getNoOfTickets(1));
+        Assertions.assertEquals(Type.INFANT, flyweight.getTicketType(2));
+        Assertions.assertEquals("key-1", flyweight.getIdempotencyKey());
+        Assertions.assertEquals(end - 1, flyweight.getLength());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> flyweight.getTicketType(3));
+    }
+
+    @Test
+    @DisplayName("Should step through orders written back to back")
+    public void testWrap_consecutiveOrders() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        PurchaseOrderCodec.encode(new PurchaseOrder(1L, new TicketTypeRequest(Type.ADULT, 1)), buffer);
+        PurchaseOrderCodec.encode(new PurchaseOrder(null, new TicketTypeRequest(Type.ADULT, 1)), buffer);
+        buffer.flip();
+
+        PurchaseOrderFlyweight flyweight = new PurchaseOrderFlyweight();
+        TicketTypeTally ticketTypeTally = new TicketTypeTally();
+        flyweight.wrap(buffer, 0);
+        Assertions.assertEquals(ValidationResult.VALID,
+                flyweight.validate(accountValidator, ticketValidator, ticketTypeTally));
+
+        flyweight.wrap(buffer, flyweight.getLength());
+        Assertions.assertFalse(flyweight.hasAccountId());
+        Assertions.assertEquals(ValidationResult.INVALID_ACCOUNT,
+                flyweight.validate(accountValidator, ticketValidator, ticketTypeTally));
+        Assertions.assertNull(flyweight.getIdempotencyKey());
+    }
+
+    @Test
+    @DisplayName("Should refuse to wrap a truncated order")
+    public void testWrap_truncated() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int length = PurchaseOrderCodec.encode(new PurchaseOrder("key-1", 99L,
+                new TicketTypeRequest(Type.CHILD, -1), new TicketTypeRequest(Type.ADULT, 3)), buffer);
+        PurchaseOrderFlyweight flyweight = new PurchaseOrderFlyweight();
+
+        for (int cut = 0; cut < length; cut++) {
+            ByteBuffer truncated = buffer.duplicate();
+            truncated.limit(cut);
+            RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                    () -> flyweight.wrap(truncated, 0));
+            Assertions.assertTrue(exception instanceof BufferUnderflowException
+                    || exception instanceof IllegalArgumentException, exception.toString());
+        }
+    }
+
+    /**
+     * The same checks, in the same order, as the ticket service applies to a decoded order.
+     */
+    private ValidationResult validate(PurchaseOrder purchaseOrder, TicketTypeTally ticketTypeTally) {
+        ValidationResult validationResult = accountValidator.checkAccount(purchaseOrder.getAccountId());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        validationResult = ticketValidator.checkTicketRequests(purchaseOrder.getTicketTypeRequests());
+        if (!validationResult.isValid()) {
+            return validationResult;
+        }
+        return ticketValidator.checkTicketRatio(ticketTypeTally.reset().addAll(purchaseOrder.getTicketTypeRequests()));
+    }
+}
@@ -0,0 +1,93 @@
+package uk.gov.dwp.uc.pairtest.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BoundedExecutorTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should queue calls over the limit instead of handing them to executor threads")
+    public void testSubmit_queuesOverLimit() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        Executor countingExecutor = command -> {
+            executed.incrementAndGet();
+            executorService.execute(command);
+        };
+        BoundedExecutor boundedExecutor = new BoundedExecutor(countingExecutor, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = boundedExecutor.submit(() -> await(release));
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int call = i;
+            queued.add(boundedExecutor.submit(() -> order.add(call)));
+        }
+
+        Assertions.assertEquals(1, executed.get());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(11, executed.get());
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), order);
+    }
+
+    @Test
+    @DisplayName("Should fail the call's future and free its permit when the call throws")
+    public void testSubmit_whenCallFails() throws Exception {
+        BoundedExecutor boundedExecutor = new BoundedExecutor(executorService, 1);
+
+        CompletableFuture<Void> failed = boundedExecutor.submit(() -> {
+            throw new IllegalStateException("Gateway down");
+        });
+
+        ExecutionException executionException = Assertions.assertThrows(ExecutionException.class,
+                () -> failed.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, executionException.getCause());
+        boundedExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should fail the call's future when the executor refuses it")
+    public void testSubmit_whenExecutorRefuses() {
+        BoundedExecutor boundedExecutor = new BoundedExecutor(command -> {
+            throw new RejectedExecutionException("Shut down");
+        }, 1);
+
+        CompletableFuture<Void> first = boundedExecutor.submit(() -> { });
+        CompletableFuture<Void> second = boundedExecutor.submit(() -> { });
+
+        Assertions.assertTrue(first.isCompletedExceptionally());
+        Assertions.assertTrue(second.isCompletedExceptionally());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.dwp.uc.pairtest.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.concurrent.HierarchicalTimingWheel.TimerEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    @DisplayName("Should fire a timer on the first advance at or after its tick")
+    public void testAdvance_firesAtDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, TimeUnit.MILLISECONDS, 0);
+        wheel.schedule("hold", 25 * TICK + 1);
+        List<String> expired = new ArrayList<>();
+
+        Assertions.assertEquals(0, wheel.advance(25 * TICK, expired::add));
+        Assertions.assertEquals(1, wheel.advance(26 * TICK, expired::add));
+        Assertions.assertEquals(List.of("hold"), expired);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should never fire a cancelled timer")
+    public void testCancel() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, TimeUnit.MILLISECONDS, 0);
+        TimerEntry<String> cancelled = wheel.schedule("cancelled", 5 * TICK);
+        wheel.schedule("kept", 5 * TICK);
+
+        Assertions.assertTrue(wheel.cancel(cancelled));
+        Assertions.assertFalse(wheel.cancel(cancelled));
+        List<String> expired = new ArrayList<>();
+        wheel.advance(10 * TICK, expired::add);
+
+        Assertions.assertEquals(List.of("kept"), expired);
+    }
+
+    @Test
+    @DisplayName("Should fire timers across every wheel level exactly on their tick, however the clock moves")
+    public void testAdvance_cascadesAcrossLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, TimeUnit.NANOSECONDS, 0);
+        SplittableRandom random = new SplittableRandom(7);
+        int timers = 20_000;
+        for (int i = 0; i < timers; i++) {
+            long deadline = 1 + (i % 4 == 0 ? random.nextLong(1 << 26) : random.nextLong(1 << 12));
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] lastDeadline = {0};
+        long now = 0;
+        int expired = 0;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextLong(5_000);
+            long current = now;
+            expired += wheel.advance(now, deadline -> {
+                Assertions.assertTrue(deadline <= current, "fired early");
+                Assertions.assertTrue(deadline >= lastDeadline[0], "fired out of order");
+                lastDeadline[0] = deadline;
+            });
+        }
+
+        Assertions.assertEquals(timers, expired);
+    }
+
+    @Test
+    @DisplayName("Should fire a timer already past its deadline on the next tick")
+    public void testSchedule_pastDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, TimeUnit.MILLISECONDS, 0);
+        wheel.advance(100 * TICK, value -> { });
+
+        wheel.schedule("late", 50 * TICK);
+
+        Assertions.assertEquals(0, wheel.advance(100 * TICK, value -> { }));
+        Assertions.assertEquals(1, wheel.advance(101 * TICK, value -> { }));
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("Should hand elements out in order and refuse them when full")
+    public void testOfferPoll_fifoAndFull() {
+        MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(3);
+        Assertions.assertEquals(4, ringBuffer.capacity());
+        Assertions.assertTrue(ringBuffer.isEmpty());
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(ringBuffer.offer(i));
+        }
+        Assertions.assertFalse(ringBuffer.offer(4));
+
+        Assertions.assertEquals(0, ringBuffer.poll());
+        Assertions.assertTrue(ringBuffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertEquals(i, ringBuffer.poll());
+        }
+        Assertions.assertNull(ringBuffer.poll());
+        Assertions.assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should deliver every element from concurrent producers exactly once, in each producer's order")
+    public void testOffer_concurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<long[]> ringBuffer = new MpscRingBuffer<>(64);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!ringBuffer.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = ringBuffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            Assertions.assertEquals(nextExpected[(int) element[0]]++, element[1]);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertNull(ringBuffer.poll());
+    }
+}
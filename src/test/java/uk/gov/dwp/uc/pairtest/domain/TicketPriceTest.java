@@ -0,0 +1,23 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+class TicketPriceTest {
+
+    @Test
+    @DisplayName("Should price each ticket type")
+    public void testGetPriceForType_eachType() {
+        Assertions.assertEquals(25, TicketPrice.ADULT.getPriceForType(Type.ADULT));
+        Assertions.assertEquals(15, TicketPrice.ADULT.getPriceForType(Type.CHILD));
+        Assertions.assertEquals(0, TicketPrice.ADULT.getPriceForType(Type.INFANT));
+    }
+
+    @Test
+    @DisplayName("Should price a missing ticket type at 0")
+    public void testGetPriceForType_nullType() {
+        Assertions.assertEquals(0, TicketPrice.ADULT.getPriceForType(null));
+    }
+}
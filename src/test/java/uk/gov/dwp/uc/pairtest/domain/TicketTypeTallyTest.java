@@ -0,0 +1,55 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+class TicketTypeTallyTest {
+
+    @Test
+    @DisplayName("Should sum ticket counts per type across repeated request types")
+    public void testAddAll_sumsRepeatedTypes() {
+        TicketTypeRequest[] ticketTypeRequests = {
+                new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, 1),
+                new TicketTypeRequest(Type.ADULT, 3),
+                new TicketTypeRequest(Type.INFANT, 1)
+        };
+
+        TicketTypeTally ticketTypeTally = new TicketTypeTally().addAll(ticketTypeRequests);
+
+        Assertions.assertEquals(5, ticketTypeTally.getCount(Type.ADULT));
+        Assertions.assertEquals(1, ticketTypeTally.getCount(Type.CHILD));
+        Assertions.assertEquals(1, ticketTypeTally.getCount(Type.INFANT));
+    }
+
+    @Test
+    @DisplayName("Should count seats for adults and children only")
+    public void testSeatCount() {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(5, 3, 2);
+
+        Assertions.assertEquals(8, ticketTypeTally.getSeatCount());
+    }
+
+    @Test
+    @DisplayName("Should clear all counts on reset")
+    public void testReset() {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(5, 3, 2).reset();
+
+        Assertions.assertEquals(0, ticketTypeTally.getSeatCount());
+        Assertions.assertEquals(0, ticketTypeTally.getCount(Type.INFANT));
+    }
+
+    @Test
+    @DisplayName("Should copy counts into a tally unaffected by later changes to the original")
+    public void testCopy() {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(5, 3, 2);
+        TicketTypeTally copy = ticketTypeTally.copy();
+        ticketTypeTally.reset();
+
+        Assertions.assertEquals(5, copy.getCount(Type.ADULT));
+        Assertions.assertEquals(3, copy.getCount(Type.CHILD));
+        Assertions.assertEquals(2, copy.getCount(Type.INFANT));
+    }
+}
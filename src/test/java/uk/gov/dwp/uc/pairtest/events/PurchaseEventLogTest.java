@@ -0,0 +1,189 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+
+class PurchaseEventLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should log completed purchases only, from single and batch calls, into segments and running totals")
+    public void testPurchaseTickets_loggedAndTotalled() throws IOException {
+        TicketValidator ticketValidator = new TicketValidator();
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir, new SalesAnalytics(60_000L, 60))) {
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), ticketValidator,
+                    mock(SeatReservationService.class), mock(TicketPaymentService.class), PurchaseMetrics.NO_OP,
+                    PurchaseJournal.NO_OP, new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)),
+                    AccountLedger.NO_OP, purchaseEventLog);
+
+            long start = System.currentTimeMillis();
+            ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1),
+                    new TicketTypeRequest(Type.INFANT, 1));
+            Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                    () -> ticketService.purchaseTickets(2L, new TicketTypeRequest(Type.CHILD, 1)));
+            ticketService.purchaseTicketsBatch(Arrays.asList(
+                    new PurchaseOrder(3L, new TicketTypeRequest(Type.ADULT, 1)),
+                    new PurchaseOrder(0L, new TicketTypeRequest(Type.ADULT, 1)),
+                    new PurchaseOrder(4L, new TicketTypeRequest(Type.ADULT, 3), new TicketTypeRequest(Type.CHILD, 3))));
+            purchaseEventLog.flush();
+            long end = System.currentTimeMillis() + 1;
+
+            SalesTotals running = purchaseEventLog.getSalesAnalytics().getTotals();
+            Assertions.assertEquals(3, running.getPurchases());
+            Assertions.assertEquals(6, running.getTickets(Type.ADULT));
+            Assertions.assertEquals(4, running.getTickets(Type.CHILD));
+            Assertions.assertEquals(1, running.getTickets(Type.INFANT));
+            Assertions.assertEquals(6 * 25 + 4 * 15, running.getTotalRevenue());
+            Assertions.assertEquals(4 * 15, running.getRevenue(Type.CHILD));
+
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                SalesTotals scanned = purchaseEventLog.scan(start, end, pool);
+                Assertions.assertEquals(running.getPurchases(), scanned.getPurchases());
+                Assertions.assertEquals(running.getTotalRevenue(), scanned.getTotalRevenue());
+            } finally {
+                pool.shutdown();
+            }
+
+            PurchaseSegment segment = PurchaseSegment.read(purchaseEventLog.getSegments().get(0));
+            Assertions.assertEquals(3, segment.getRows());
+            Assertions.assertEquals(4L, segment.getAccountId(2));
+            Assertions.assertEquals(0, purchaseEventLog.getDroppedEvents());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the revenue split of purchases published before a price reload")
+    public void testPurchased_splitFixedWhenPublished() throws IOException {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(1, 1, 0);
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.DEFAULT);
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir,
+                new SalesAnalytics(60_000L, 60, pricingEngine))) {
+            purchaseEventLog.purchased(1L, ticketTypeTally, 40);
+            pricingEngine.reload(PriceTable.defaultBuilder()
+                    .price(PriceTier.STANDARD, Type.ADULT, 20)
+                    .price(PriceTier.STANDARD, Type.CHILD, 20)
+                    .build());
+            purchaseEventLog.purchased(2L, ticketTypeTally, 40);
+            purchaseEventLog.flush();
+            pricingEngine.reload(PriceTable.DEFAULT);
+
+            // 15 of 40 by the default prices, then half of 40 by the reloaded ones, whenever they are read
+            SalesTotals running = purchaseEventLog.getSalesAnalytics().getTotals();
+            Assertions.assertEquals(15 + 20, running.getRevenue(Type.CHILD));
+            Assertions.assertEquals(25 + 20, running.getRevenue(Type.ADULT));
+            SalesTotals scanned = purchaseEventLog.scan(0L, Long.MAX_VALUE, ForkJoinPool.commonPool());
+            Assertions.assertEquals(15 + 20, scanned.getRevenue(Type.CHILD));
+            Assertions.assertEquals(25 + 20, scanned.getRevenue(Type.ADULT));
+        }
+    }
+
+    @Test
+    @DisplayName("Should finish a flush while purchases keep being published")
+    public void testFlush_underSteadyLoad() throws IOException, InterruptedException {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(1, 0, 0);
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir, new SalesAnalytics(1_000L, 1), 64, 1024)) {
+            purchaseEventLog.purchased(1L, ticketTypeTally, 25);
+            Thread publisher = new Thread(() -> {
+                long accountId = 2;
+                while (publishing.get()) {
+                    purchaseEventLog.purchased(accountId++, ticketTypeTally, 25);
+                }
+            });
+            publisher.start();
+            try {
+                // the ring is never empty for long, so waiting for it to empty could wait forever
+                Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), purchaseEventLog::flush);
+            } finally {
+                publishing.set(false);
+                publisher.join();
+            }
+            Assertions.assertEquals(1L, PurchaseSegment.read(purchaseEventLog.getSegments().get(0)).getAccountId(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a failed segment write to the flush waiting on it only, not to later flushes")
+    public void testFlush_recoversFromWriteFailure() throws IOException {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(1, 0, 0);
+        // a directory where the first segment's temporary file goes makes writing it fail
+        Path blocker = tempDir.resolve("0000000000000000" + PurchaseEventLog.SEGMENT_SUFFIX + ".tmp");
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir, new SalesAnalytics(1_000L, 1), 16, 16)) {
+            Files.createDirectories(blocker);
+            Files.write(blocker.resolve("file"), new byte[1]);
+            purchaseEventLog.purchased(1L, ticketTypeTally, 25);
+            Assertions.assertThrowsExactly(UncheckedIOException.class, purchaseEventLog::flush);
+            Assertions.assertEquals(1, purchaseEventLog.getDroppedEvents());
+
+            purchaseEventLog.purchased(2L, ticketTypeTally, 25);
+            purchaseEventLog.flush();
+            purchaseEventLog.flush();
+
+            List<Path> segments = purchaseEventLog.getSegments();
+            Assertions.assertEquals(1, segments.size());
+            Assertions.assertEquals(2L, PurchaseSegment.read(segments.get(0)).getAccountId(0));
+        } finally {
+            Files.deleteIfExists(blocker.resolve("file"));
+            Files.deleteIfExists(blocker);
+        }
+    }
+
+    @Test
+    @DisplayName("Should roll segments when full and carry on numbering them after a restart")
+    public void testOpen_continuesAfterExistingSegments() throws IOException {
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(1, 0, 0);
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir, new SalesAnalytics(1_000L, 1), 16, 2)) {
+            for (long accountId = 1; accountId <= 5; accountId++) {
+                purchaseEventLog.purchased(accountId, ticketTypeTally, 25);
+            }
+        }
+        // a segment left half written by a crash is cleared away
+        Files.write(tempDir.resolve("0000000000000009" + PurchaseEventLog.SEGMENT_SUFFIX + ".tmp"), new byte[10]);
+
+        try (PurchaseEventLog purchaseEventLog = PurchaseEventLog.open(tempDir, new SalesAnalytics(1_000L, 1), 16, 2)) {
+            purchaseEventLog.purchased(6L, ticketTypeTally, 25);
+            purchaseEventLog.flush();
+
+            List<Path> segments = purchaseEventLog.getSegments();
+            Assertions.assertEquals(4, segments.size());
+            Assertions.assertEquals(6L, PurchaseSegment.read(segments.get(3)).getAccountId(0));
+            Assertions.assertEquals(6, purchaseEventLog.scan(0L, Long.MAX_VALUE, ForkJoinPool.commonPool()).getPurchases());
+        }
+        Assertions.assertFalse(Files.exists(tempDir.resolve("0000000000000009" + PurchaseEventLog.SEGMENT_SUFFIX + ".tmp")));
+    }
+}
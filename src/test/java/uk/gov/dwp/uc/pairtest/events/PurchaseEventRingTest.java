@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PurchaseEventRingTest {
+
+    @Test
+    @DisplayName("Should drain events in order with every field intact and refuse them when full")
+    public void testOfferDrain_fieldsAndFull() {
+        PurchaseEventRing ring = new PurchaseEventRing(2);
+        Assertions.assertTrue(ring.isEmpty());
+        Assertions.assertTrue(ring.offer(1000L, 7L, 25, 65535, 1, 400, 150, Integer.MAX_VALUE));
+        Assertions.assertTrue(ring.offer(1001L, Long.MAX_VALUE, 1, 0, 0, Integer.MAX_VALUE, 0, 0));
+        Assertions.assertFalse(ring.offer(1002L, 9L, 1, 0, 0, 25, 0, 0));
+
+        List<long[]> events = new ArrayList<>();
+        Assertions.assertEquals(1, ring.drain((time, accountId, adults, children, infants, totalAmount, childAmount, infantAmount) ->
+                events.add(new long[]{time, accountId, adults, children, infants, totalAmount, childAmount, infantAmount}), 1));
+        Assertions.assertTrue(ring.offer(1002L, 9L, 1, 0, 0, 25, 0, 0));
+        Assertions.assertEquals(2, ring.drain((time, accountId, adults, children, infants, totalAmount, childAmount, infantAmount) ->
+                events.add(new long[]{time, accountId, adults, children, infants, totalAmount, childAmount, infantAmount}), 10));
+
+        Assertions.assertArrayEquals(new long[]{1000L, 7L, 25, 65535, 1, 400, 150, Integer.MAX_VALUE}, events.get(0));
+        Assertions.assertArrayEquals(new long[]{1001L, Long.MAX_VALUE, 1, 0, 0, Integer.MAX_VALUE, 0, 0}, events.get(1));
+        Assertions.assertArrayEquals(new long[]{1002L, 9L, 1, 0, 0, 25, 0, 0}, events.get(2));
+        Assertions.assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should deliver every event from concurrent producers exactly once")
+    public void testOffer_concurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        PurchaseEventRing ring = new PurchaseEventRing(64);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(i, producer, 1, 0, 0, i, 0, 0)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int drained = ring.drain((time, accountId, adults, children, infants, totalAmount, childAmount, infantAmount) -> {
+                // each producer's events arrive in the order it published them
+                Assertions.assertEquals(nextExpected[(int) accountId]++, time);
+                Assertions.assertEquals(time, totalAmount);
+            }, 256);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            received += drained;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class PurchaseSegmentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read back every column of the rows written")
+    public void testWriteRead_roundTrip() throws IOException {
+        PurchaseSegment.Builder builder = new PurchaseSegment.Builder(8);
+        builder.add(5_000L, 11L, 2, 1, 0, 65, 15, 0);
+        builder.add(4_990L, 12L, 25, 0, 25, 625, 0, 0);
+        builder.add(5_000L + Integer.MAX_VALUE, Long.MAX_VALUE, 1, 3, 1, 70, 45, 1);
+        Path path = tempDir.resolve("0.seg");
+        builder.writeTo(path);
+
+        Assertions.assertTrue(builder.isEmpty());
+        Assertions.assertEquals(PurchaseSegment.HEADER_SIZE + 3 * PurchaseSegment.ROW_SIZE, Files.size(path));
+        PurchaseSegment segment = PurchaseSegment.read(path);
+        Assertions.assertEquals(3, segment.getRows());
+        Assertions.assertEquals(4_990L, segment.getMinTime());
+        Assertions.assertEquals(5_000L + Integer.MAX_VALUE, segment.getMaxTime());
+
+        Assertions.assertEquals(4_990L, segment.getTime(1));
+        Assertions.assertEquals(12L, segment.getAccountId(1));
+        Assertions.assertEquals(25, segment.getCount(Type.ADULT, 1));
+        Assertions.assertEquals(0, segment.getCount(Type.CHILD, 1));
+        Assertions.assertEquals(25, segment.getCount(Type.INFANT, 1));
+        Assertions.assertEquals(625, segment.getTotalAmount(1));
+        Assertions.assertEquals(5_000L + Integer.MAX_VALUE, segment.getTime(2));
+        Assertions.assertEquals(Long.MAX_VALUE, segment.getAccountId(2));
+        Assertions.assertEquals(3, segment.getCount(Type.CHILD, 2));
+        Assertions.assertEquals(45, segment.getAmount(Type.CHILD, 2));
+        Assertions.assertEquals(1, segment.getAmount(Type.INFANT, 2));
+        Assertions.assertEquals(24, segment.getAmount(Type.ADULT, 2));
+        Assertions.assertEquals(50, segment.getAmount(Type.ADULT, 0));
+    }
+
+    @Test
+    @DisplayName("Should stop accepting rows when full or too far in time from the first row")
+    public void testAccepts() {
+        PurchaseSegment.Builder builder = new PurchaseSegment.Builder(2);
+        Assertions.assertTrue(builder.accepts(Long.MAX_VALUE));
+        builder.add(1_000L, 1L, 1, 0, 0, 25, 0, 0);
+
+        Assertions.assertFalse(builder.accepts(1_000L + Integer.MAX_VALUE + 1L));
+        Assertions.assertTrue(builder.accepts(1_000L + Integer.MAX_VALUE));
+        builder.add(1_001L, 1L, 1, 0, 0, 25, 0, 0);
+        Assertions.assertFalse(builder.accepts(1_002L));
+    }
+
+    @Test
+    @DisplayName("Should tell from the header whether a segment can hold events in a time range")
+    public void testOverlaps() throws IOException {
+        PurchaseSegment.Builder builder = new PurchaseSegment.Builder(4);
+        builder.add(1_000L, 1L, 1, 0, 0, 25, 0, 0);
+        builder.add(2_000L, 2L, 1, 0, 0, 25, 0, 0);
+        Path path = tempDir.resolve("0.seg");
+        builder.writeTo(path);
+
+        Assertions.assertTrue(PurchaseSegment.overlaps(path, 0L, 1_001L));
+        Assertions.assertTrue(PurchaseSegment.overlaps(path, 2_000L, 3_000L));
+        Assertions.assertFalse(PurchaseSegment.overlaps(path, 0L, 1_000L));
+        Assertions.assertFalse(PurchaseSegment.overlaps(path, 2_001L, 3_000L));
+    }
+
+    @Test
+    @DisplayName("Should refuse a segment whose columns fail the checksum")
+    public void testRead_corrupted() throws IOException {
+        PurchaseSegment.Builder builder = new PurchaseSegment.Builder(4);
+        builder.add(1_000L, 1L, 1, 0, 0, 25, 0, 0);
+        Path path = tempDir.resolve("0.seg");
+        builder.writeTo(path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        Assertions.assertThrowsExactly(IOException.class, () -> PurchaseSegment.read(path));
+    }
+}
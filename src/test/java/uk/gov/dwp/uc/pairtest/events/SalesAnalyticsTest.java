@@ -0,0 +1,126 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+class SalesAnalyticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should total each purchase's amount per type as recorded and keep the total exact")
+    public void testRecord_revenuePerType() {
+        SalesAnalytics salesAnalytics = new SalesAnalytics(60_000L, 10);
+        salesAnalytics.record(0L, 2, 2, 1, 70, 26, 0);
+        salesAnalytics.record(1L, 1, 0, 1, 25, 0, 0);
+
+        SalesTotals totals = salesAnalytics.getTotals();
+        Assertions.assertEquals(2, totals.getPurchases());
+        Assertions.assertEquals(3, totals.getTickets(Type.ADULT));
+        Assertions.assertEquals(2, totals.getTickets(Type.CHILD));
+        Assertions.assertEquals(2, totals.getTickets(Type.INFANT));
+        Assertions.assertEquals(44 + 25, totals.getRevenue(Type.ADULT));
+        Assertions.assertEquals(26, totals.getRevenue(Type.CHILD));
+        Assertions.assertEquals(0, totals.getRevenue(Type.INFANT));
+        Assertions.assertEquals(95, totals.getTotalRevenue());
+    }
+
+    @Test
+    @DisplayName("Should split a purchase's amount between types by list price, adults taking the remainder")
+    public void testSplit() {
+        // list price 2 x 25 + 2 x 15 = 80, paid 70 through a bundle
+        Assertions.assertEquals(70 * 30 / 80, SalesTotals.split(Type.CHILD, 2, 2, 1, 70, PriceTable.DEFAULT,
+                PriceTier.STANDARD));
+        Assertions.assertEquals(0, SalesTotals.split(Type.INFANT, 2, 2, 1, 70, PriceTable.DEFAULT, PriceTier.STANDARD));
+        Assertions.assertEquals(70 - 70 * 30 / 80, SalesTotals.split(Type.ADULT, 2, 2, 1, 70, PriceTable.DEFAULT,
+                PriceTier.STANDARD));
+
+        PriceTable free = PriceTable.builder().build();
+        Assertions.assertEquals(10, SalesTotals.split(Type.ADULT, 1, 1, 0, 10, free, PriceTier.STANDARD));
+        Assertions.assertEquals(0, SalesTotals.split(Type.CHILD, 1, 1, 0, 10, free, PriceTier.STANDARD));
+    }
+
+    @Test
+    @DisplayName("Should keep running totals per time bucket, dropping the oldest past the retained count")
+    public void testRecord_buckets() {
+        SalesAnalytics salesAnalytics = new SalesAnalytics(1_000L, 2);
+        salesAnalytics.record(500L, 1, 0, 0, 25, 0, 0);
+        salesAnalytics.record(1_500L, 2, 0, 0, 50, 0, 0);
+        salesAnalytics.record(999L, 1, 0, 0, 25, 0, 0);
+        salesAnalytics.record(2_000L, 1, 1, 0, 40, 15, 0);
+
+        NavigableMap<Long, SalesTotals> buckets = salesAnalytics.getBuckets();
+        Assertions.assertEquals(2, buckets.size());
+        Assertions.assertEquals(50, buckets.get(1_000L).getTotalRevenue());
+        Assertions.assertEquals(1, buckets.get(2_000L).getTickets(Type.CHILD));
+        // a bucket that has been dropped still counts towards the overall totals
+        Assertions.assertEquals(140, salesAnalytics.getTotals().getTotalRevenue());
+
+        salesAnalytics.record(100L, 1, 0, 0, 25, 0, 0);
+        Assertions.assertFalse(salesAnalytics.getBuckets().containsKey(0L));
+        Assertions.assertEquals(165, salesAnalytics.getTotals().getTotalRevenue());
+    }
+
+    @Test
+    @DisplayName("Should total a time range across segments in parallel the same as one pass over the events")
+    public void testScan_matchesSequentialTotals() throws IOException {
+        SplittableRandom random = new SplittableRandom(20);
+        List<Path> segments = new ArrayList<>();
+        SalesTotals expected = new SalesTotals();
+        long from = 30_000L;
+        long to = 170_000L;
+
+        long time = 0;
+        for (int s = 0; s < 20; s++) {
+            PurchaseSegment.Builder builder = new PurchaseSegment.Builder(500);
+            for (int row = 0; row < 500; row++) {
+                time += random.nextInt(40);
+                int adults = 1 + random.nextInt(10);
+                int children = random.nextInt(10);
+                int infants = random.nextInt(adults + 1);
+                int totalAmount = adults * 25 + children * 15 - random.nextInt(10);
+                int childAmount = SalesTotals.split(Type.CHILD, adults, children, infants, totalAmount,
+                        PriceTable.DEFAULT, PriceTier.STANDARD);
+                int infantAmount = random.nextInt(2);
+                builder.add(time, row, adults, children, infants, totalAmount, childAmount, infantAmount);
+                if (time >= from && time < to) {
+                    expected.add(adults, children, infants, totalAmount, childAmount, infantAmount);
+                }
+            }
+            Path path = tempDir.resolve(s + PurchaseEventLog.SEGMENT_SUFFIX);
+            builder.writeTo(path);
+            segments.add(path);
+        }
+        Collections.shuffle(segments, new Random(20));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SalesTotals scanned = SalesAnalytics.scan(segments, from, to, pool);
+
+            Assertions.assertEquals(expected.getPurchases(), scanned.getPurchases());
+            for (Type type : Type.values()) {
+                Assertions.assertEquals(expected.getTickets(type), scanned.getTickets(type));
+                Assertions.assertEquals(expected.getRevenue(type), scanned.getRevenue(type));
+            }
+            Assertions.assertEquals(0, SalesAnalytics.scan(segments, time + 1, Long.MAX_VALUE, pool).getPurchases());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.gateway.CircuitBreaker.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    public void setUp() {
+        circuitBreaker = new CircuitBreaker(3, 1, TimeUnit.SECONDS, nanoTime::get);
+    }
+
+    @Test
+    @DisplayName("Should open after the threshold of consecutive failures")
+    public void testOnFailure_opensAtThreshold() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+
+        Assertions.assertEquals(State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should let a single trial through after the open period and close when it succeeds")
+    public void testTryAcquire_halfOpenTrialCloses() {
+        open();
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        Assertions.assertFalse(circuitBreaker.tryAcquire());
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertTrue(circuitBreaker.tryAcquire());
+        Assertions.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.tryAcquire(), "only one trial at a time");
+
+        circuitBreaker.onSuccess();
+
+        Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+        Assertions.assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should reopen for another period when the trial fails")
+    public void testOnFailure_failedTrialReopens() {
+        open();
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onFailure();
+
+        Assertions.assertEquals(State.OPEN, circuitBreaker.getState());
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assertions.assertFalse(circuitBreaker.tryAcquire());
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assertions.assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+    }
+}
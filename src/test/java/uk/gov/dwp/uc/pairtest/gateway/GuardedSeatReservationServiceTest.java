@@ -0,0 +1,187 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+import uk.gov.dwp.uc.pairtest.gateway.CircuitBreaker.State;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+class GuardedSeatReservationServiceTest {
+
+    private ExecutorService executor;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        circuitBreaker = new CircuitBreaker(2, 1, TimeUnit.MINUTES);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should reserve through the wrapped gateway")
+    public void testReserveSeat_delegates() {
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+
+        new GuardedSeatReservationService(seatReservationService, executor, 1, TimeUnit.SECONDS, circuitBreaker)
+                .reserveSeat(1001L, 3);
+
+        verify(seatReservationService).reserveSeat(1001L, 3);
+    }
+
+    @Test
+    @DisplayName("Should give up after the timeout and interrupt the stuck call")
+    public void testReserveSeat_timesOut() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SeatReservationService stuck = (accountId, seats) -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        };
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(stuck, executor,
+                50, TimeUnit.MILLISECONDS, circuitBreaker);
+
+        GatewayUnavailableException exception = Assertions.assertThrows(GatewayUnavailableException.class,
+                () -> guarded.reserveSeat(1001L, 3));
+
+        Assertions.assertEquals("Seat reservation timed out after 50 ms", exception.getMessage());
+        Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should fail fast without calling the gateway once the breaker opens")
+    public void testReserveSeat_failsFastWhenOpen() {
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+        doThrow(new IllegalStateException("provider error")).when(seatReservationService).reserveSeat(anyLong(), anyInt());
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(seatReservationService, executor,
+                1, TimeUnit.SECONDS, circuitBreaker);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> guarded.reserveSeat(1001L, 3));
+        Assertions.assertThrows(IllegalStateException.class, () -> guarded.reserveSeat(1001L, 3));
+        Assertions.assertEquals(State.OPEN, circuitBreaker.getState());
+
+        Assertions.assertThrows(GatewayUnavailableException.class, () -> guarded.reserveSeat(1001L, 3));
+        verify(seatReservationService, times(2)).reserveSeat(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should not count a sold out answer as a gateway failure")
+    public void testReserveSeat_soldOutKeepsBreakerClosed() {
+        SeatReservationService soldOut = (accountId, seats) -> {
+            throw new SeatsUnavailableException("Sold out");
+        };
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(soldOut, executor,
+                1, TimeUnit.SECONDS, circuitBreaker);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(SeatsUnavailableException.class, () -> guarded.reserveSeat(1001L, 3));
+        }
+        Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should hedge a slow reservation and return when the second attempt succeeds")
+    public void testReserveSeat_hedgeWins() {
+        AtomicInteger attempts = new AtomicInteger();
+        SeatReservationService firstCallSlow = (accountId, seats) -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(firstCallSlow, executor,
+                5_000, 20, TimeUnit.MILLISECONDS, circuitBreaker);
+
+        long start = System.nanoTime();
+        guarded.reserveSeat(1001L, 3);
+
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(1, guarded.getHedgedCallCount());
+    }
+
+    @Test
+    @DisplayName("Should not hedge a reservation that fails before the hedge delay")
+    public void testReserveSeat_fastFailureNotHedged() {
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+        doThrow(new IllegalStateException("provider error")).when(seatReservationService).reserveSeat(anyLong(), anyInt());
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(seatReservationService, executor,
+                5_000, 1_000, TimeUnit.MILLISECONDS, circuitBreaker);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> guarded.reserveSeat(1001L, 3));
+
+        verify(seatReservationService, times(1)).reserveSeat(1001L, 3);
+        Assertions.assertEquals(0, guarded.getHedgedCallCount());
+    }
+
+    @Test
+    @DisplayName("Should fail a half open trial the executor rejects so the breaker does not stay half open")
+    public void testReserveSeat_saturatedExecutorFailsTrial() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker trialBreaker = new CircuitBreaker(1, 1, TimeUnit.SECONDS, now::get);
+        trialBreaker.onFailure();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        SeatReservationService seatReservationService = mock(SeatReservationService.class);
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        saturated.shutdown();
+        GuardedSeatReservationService guarded = new GuardedSeatReservationService(seatReservationService, saturated,
+                1, TimeUnit.SECONDS, trialBreaker);
+
+        GatewayUnavailableException exception = Assertions.assertThrows(GatewayUnavailableException.class,
+                () -> guarded.reserveSeat(1001L, 3));
+
+        Assertions.assertEquals("Seat reservation executor is saturated", exception.getMessage());
+        Assertions.assertEquals(State.OPEN, trialBreaker.getState());
+        verifyNoInteractions(seatReservationService);
+    }
+
+    @Test
+    @DisplayName("Should wait on the first attempt when the hedge is rejected without counting it against the breaker")
+    public void testReserveSeat_rejectedHedge() {
+        SeatReservationService slow = (accountId, seats) -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        // one thread and no queue, so the hedge is rejected while the first attempt holds the thread
+        ThreadPoolExecutor single = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try {
+            GuardedSeatReservationService guarded = new GuardedSeatReservationService(slow, single,
+                    5_000, 20, TimeUnit.MILLISECONDS, circuitBreaker);
+
+            guarded.reserveSeat(1001L, 3);
+
+            Assertions.assertEquals(0, guarded.getHedgedCallCount());
+            Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
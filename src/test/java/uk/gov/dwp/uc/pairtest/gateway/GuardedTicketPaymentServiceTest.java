@@ -0,0 +1,85 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.PaymentDeclinedException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class GuardedTicketPaymentServiceTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should time out a slow payment once, without retrying it")
+    public void testMakePayment_timesOutWithoutRetry() {
+        AtomicInteger payments = new AtomicInteger();
+        TicketPaymentService slow = (accountId, amount) -> {
+            payments.incrementAndGet();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        GuardedTicketPaymentService guarded = new GuardedTicketPaymentService(slow, executor,
+                50, TimeUnit.MILLISECONDS, new CircuitBreaker(5, 1, TimeUnit.MINUTES));
+
+        Assertions.assertThrows(GatewayUnavailableException.class, () -> guarded.makePayment(1001L, 65));
+
+        Assertions.assertEquals(1, payments.get());
+    }
+
+    @Test
+    @DisplayName("Should not count a declined payment as a gateway failure")
+    public void testMakePayment_declineKeepsBreakerClosed() {
+        TicketPaymentService declining = (accountId, amount) -> {
+            throw new PaymentDeclinedException("Card declined");
+        };
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 1, TimeUnit.MINUTES);
+        GuardedTicketPaymentService guarded = new GuardedTicketPaymentService(declining, executor,
+                1, TimeUnit.SECONDS, circuitBreaker);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(PaymentDeclinedException.class, () -> guarded.makePayment(1001L, 65));
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should report a sub-millisecond timeout in the unit it was configured in")
+    public void testMakePayment_timeoutMessageKeepsUnit() {
+        TicketPaymentService slow = (accountId, amount) -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        GuardedTicketPaymentService guarded = new GuardedTicketPaymentService(slow, executor,
+                500, TimeUnit.MICROSECONDS, new CircuitBreaker(5, 1, TimeUnit.MINUTES));
+
+        GatewayUnavailableException exception = Assertions.assertThrows(GatewayUnavailableException.class,
+                () -> guarded.makePayment(1001L, 65));
+
+        Assertions.assertEquals("Ticket payment timed out after 500 us", exception.getMessage());
+    }
+}
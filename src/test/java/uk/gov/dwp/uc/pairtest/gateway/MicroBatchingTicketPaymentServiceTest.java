@@ -0,0 +1,257 @@
+package uk.gov.dwp.uc.pairtest.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.BatchPaymentException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+class MicroBatchingTicketPaymentServiceTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should gather payments made while a batch is with the provider into the next batch")
+    public void testMakePayment_concurrentCallersBatched() throws Exception {
+        RecordingGateway gateway = new RecordingGateway();
+        gateway.holdFirstBatch = new CountDownLatch(1);
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 16, 0, TimeUnit.MILLISECONDS, 64)) {
+            List<Future<?>> payments = new ArrayList<>();
+            payments.add(executor.submit(() -> batching.makePayment(1L, 25)));
+            gateway.awaitBatches(1);
+            for (long accountId = 2; accountId <= 6; accountId++) {
+                long id = accountId;
+                payments.add(executor.submit(() -> batching.makePayment(id, 15)));
+            }
+            awaitWaiting(batching, 6);
+            gateway.holdFirstBatch.countDown();
+            for (Future<?> payment : payments) {
+                payment.get(5, TimeUnit.SECONDS);
+            }
+
+            Assertions.assertEquals(List.of(1, 5), gateway.batchSizes());
+            Assertions.assertEquals(2, batching.getBatchCount());
+            Assertions.assertEquals(6, batching.getPaymentCount());
+            Assertions.assertEquals(25 + 5 * 15, gateway.totalTaken());
+        }
+    }
+
+    @Test
+    @DisplayName("Should send no more than the maximum batch size in one call")
+    public void testMakePayment_maxBatchSize() throws Exception {
+        RecordingGateway gateway = new RecordingGateway();
+        gateway.holdFirstBatch = new CountDownLatch(1);
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 3, 0, TimeUnit.MILLISECONDS, 64)) {
+            List<Future<?>> payments = new ArrayList<>();
+            payments.add(executor.submit(() -> batching.makePayment(1L, 25)));
+            gateway.awaitBatches(1);
+            for (long accountId = 2; accountId <= 8; accountId++) {
+                long id = accountId;
+                payments.add(executor.submit(() -> batching.makePayment(id, 25)));
+            }
+            awaitWaiting(batching, 8);
+            gateway.holdFirstBatch.countDown();
+            for (Future<?> payment : payments) {
+                payment.get(5, TimeUnit.SECONDS);
+            }
+
+            Assertions.assertEquals(List.of(1, 3, 3, 1), gateway.batchSizes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait up to the linger time for a batch to fill, and no longer")
+    public void testMakePayment_linger() throws Exception {
+        RecordingGateway gateway = new RecordingGateway();
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 2, 10, TimeUnit.SECONDS, 64)) {
+            // a full batch goes at once, well before the linger time is up
+            Future<?> first = executor.submit(() -> batching.makePayment(1L, 25));
+            Future<?> second = executor.submit(() -> batching.makePayment(2L, 25));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(List.of(2), gateway.batchSizes());
+        }
+
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 2, 50, TimeUnit.MILLISECONDS, 64)) {
+            long start = System.nanoTime();
+            batching.makePayment(3L, 25);
+            Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+            Assertions.assertEquals(List.of(2, 1), gateway.batchSizes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail only the payments the provider reports as failed")
+    public void testMakePayment_partialFailureIsolated() throws Exception {
+        GatewayUnavailableException declined = new GatewayUnavailableException("Declined");
+        RecordingGateway gateway = new RecordingGateway();
+        gateway.holdFirstBatch = new CountDownLatch(1);
+        gateway.failAccount = 3L;
+        gateway.failure = declined;
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 16, 0, TimeUnit.MILLISECONDS, 64)) {
+            Future<?> warmUp = executor.submit(() -> batching.makePayment(1L, 25));
+            gateway.awaitBatches(1);
+            Future<?> paid = executor.submit(() -> batching.makePayment(2L, 25));
+            Future<?> failed = executor.submit(() -> batching.makePayment(3L, 25));
+            Future<?> alsoPaid = executor.submit(() -> batching.makePayment(4L, 25));
+            awaitWaiting(batching, 4);
+            gateway.holdFirstBatch.countDown();
+
+            warmUp.get(5, TimeUnit.SECONDS);
+            paid.get(5, TimeUnit.SECONDS);
+            alsoPaid.get(5, TimeUnit.SECONDS);
+            ExecutionException thrown = Assertions.assertThrows(ExecutionException.class,
+                    () -> failed.get(5, TimeUnit.SECONDS));
+            Assertions.assertSame(declined, thrown.getCause());
+            Assertions.assertEquals(List.of(1, 3), gateway.batchSizes());
+            Assertions.assertEquals(75, gateway.totalTaken());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail every payment in a batch, each with its own exception, when the provider fails the call as a whole")
+    public void testMakePayment_wholeBatchFailure() throws Exception {
+        IllegalStateException down = new IllegalStateException("Provider down");
+        BatchTicketPaymentService gateway = new RecordingGateway() {
+            @Override
+            public void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+                throw down;
+            }
+        };
+        try (MicroBatchingTicketPaymentService batching =
+                     new MicroBatchingTicketPaymentService(gateway, 2, 5, TimeUnit.SECONDS, 64)) {
+            Future<?> first = executor.submit(() -> batching.makePayment(1L, 25));
+            Future<?> second = executor.submit(() -> batching.makePayment(2L, 25));
+
+            Throwable firstFailure = Assertions.assertThrows(ExecutionException.class,
+                    () -> first.get(5, TimeUnit.SECONDS)).getCause();
+            Throwable secondFailure = Assertions.assertThrows(ExecutionException.class,
+                    () -> second.get(5, TimeUnit.SECONDS)).getCause();
+            Assertions.assertInstanceOf(GatewayUnavailableException.class, firstFailure);
+            Assertions.assertSame(down, firstFailure.getCause());
+            Assertions.assertSame(down, secondFailure.getCause());
+            Assertions.assertNotSame(firstFailure, secondFailure);
+            Assertions.assertEquals(1, batching.getBatchCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse payments once closed")
+    public void testMakePayment_afterClose() {
+        RecordingGateway gateway = new RecordingGateway();
+        MicroBatchingTicketPaymentService batching =
+                new MicroBatchingTicketPaymentService(gateway, 16, 0, TimeUnit.MILLISECONDS, 64);
+        batching.makePayment(1L, 25);
+        batching.close();
+
+        Assertions.assertThrows(GatewayUnavailableException.class, () -> batching.makePayment(2L, 25));
+        Assertions.assertEquals(List.of(1), gateway.batchSizes());
+    }
+
+    private static void awaitWaiting(MicroBatchingTicketPaymentService batching, int callers)
+            throws InterruptedException {
+        // callers park on the batcher once their payment is queued, including the one whose batch is held
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waitingCallers(batching) < callers && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static int waitingCallers(MicroBatchingTicketPaymentService batching) {
+        int parked = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (LockSupport.getBlocker(thread) == batching && !thread.getName().equals("ticket-payment-batcher")) {
+                parked++;
+            }
+        }
+        return parked;
+    }
+
+    private static class RecordingGateway implements BatchTicketPaymentService {
+
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private int totalTaken;
+        CountDownLatch holdFirstBatch;
+        long failAccount = -1;
+        RuntimeException failure;
+
+        @Override
+        public void makePayment(long accountId, int totalAmountToPay) {
+            makePayments(new long[]{accountId}, new int[]{totalAmountToPay});
+        }
+
+        @Override
+        public void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+            boolean first;
+            synchronized (this) {
+                first = batchSizes.isEmpty();
+                batchSizes.add(accountIds.length);
+                notifyAll();
+            }
+            if (first && holdFirstBatch != null) {
+                try {
+                    holdFirstBatch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            RuntimeException[] failures = new RuntimeException[accountIds.length];
+            boolean failed = false;
+            synchronized (this) {
+                for (int i = 0; i < accountIds.length; i++) {
+                    if (accountIds[i] == failAccount) {
+                        failures[i] = failure;
+                        failed = true;
+                    } else {
+                        totalTaken += totalAmountsToPay[i];
+                    }
+                }
+            }
+            if (failed) {
+                throw new BatchPaymentException("Some payments failed", failures);
+            }
+        }
+
+        synchronized List<Integer> batchSizes() {
+            return new ArrayList<>(batchSizes);
+        }
+
+        synchronized int totalTaken() {
+            return totalTaken;
+        }
+
+        synchronized void awaitBatches(int batches) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (batchSizes.size() < batches && System.currentTimeMillis() < deadline) {
+                wait(deadline - System.currentTimeMillis());
+            }
+        }
+    }
+}
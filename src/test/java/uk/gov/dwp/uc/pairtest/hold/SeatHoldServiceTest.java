@@ -0,0 +1,170 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.ledger.AccountLedger;
+import uk.gov.dwp.uc.pairtest.ledger.MappedAccountLedger;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.seating.InventorySeatReservationService;
+import uk.gov.dwp.uc.pairtest.seating.Screen;
+import uk.gov.dwp.uc.pairtest.seating.Showing;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+class SeatHoldServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong nanoTime = new AtomicLong(1_000);
+
+    private Showing showing;
+    private TicketPaymentService ticketPaymentService;
+    private SeatHoldService seatHoldService;
+
+    @BeforeEach
+    public void setUp() {
+        showing = new Showing(1L, new Screen("Screen 1", 2, 10));
+        ticketPaymentService = mock(TicketPaymentService.class);
+        seatHoldService = createSeatHoldService(AccountLedger.NO_OP, PurchaseJournal.NO_OP);
+    }
+
+    @Test
+    @DisplayName("Should take the seats on hold and pay only on confirmation")
+    public void testConfirm_paysForHold() {
+        SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 2),
+                new TicketTypeRequest(Type.CHILD, 1), new TicketTypeRequest(Type.INFANT, 1));
+
+        Assertions.assertEquals(3, seatHold.getSeatCount());
+        Assertions.assertEquals(65, seatHold.getTotalAmount());
+        Assertions.assertEquals(17, showing.getAvailableSeats());
+        verifyNoInteractions(ticketPaymentService);
+
+        PurchaseResult purchaseResult = seatHoldService.confirm(seatHold.getHoldId());
+
+        Assertions.assertTrue(purchaseResult.isSuccessful());
+        verify(ticketPaymentService).makePayment(1001L, 65);
+        Assertions.assertEquals(17, showing.getAvailableSeats());
+        Assertions.assertEquals(0, seatHoldService.getOpenHoldCount());
+    }
+
+    @Test
+    @DisplayName("Should release held seats when the hold expires and refuse to confirm it afterwards")
+    public void testExpireHolds_releasesSeats() {
+        SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 4));
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(4_999));
+        Assertions.assertEquals(0, seatHoldService.expireHolds());
+        Assertions.assertEquals(16, showing.getAvailableSeats());
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertEquals(1, seatHoldService.expireHolds());
+        Assertions.assertEquals(20, showing.getAvailableSeats());
+
+        PurchaseResult purchaseResult = seatHoldService.confirm(seatHold.getHoldId());
+        Assertions.assertFalse(purchaseResult.isSuccessful());
+        Assertions.assertEquals(ValidationResult.HOLD_NOT_FOUND.getMessage(), purchaseResult.getFailureReason());
+        verifyNoInteractions(ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should not expire a hold once it has been confirmed")
+    public void testExpireHolds_skipsConfirmedHolds() {
+        SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 2));
+        seatHoldService.confirm(seatHold.getHoldId());
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        Assertions.assertEquals(0, seatHoldService.expireHolds());
+        Assertions.assertEquals(18, showing.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Should give seats back on release, once")
+    public void testRelease() {
+        SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 2));
+
+        Assertions.assertTrue(seatHoldService.release(seatHold.getHoldId()));
+        Assertions.assertFalse(seatHoldService.release(seatHold.getHoldId()));
+        Assertions.assertEquals(20, showing.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Should release the seats and rethrow when payment fails")
+    public void testConfirm_paymentFailureReleasesSeats() {
+        doThrow(new IllegalStateException("payment declined")).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 2));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> seatHoldService.confirm(seatHold.getHoldId()));
+
+        Assertions.assertEquals(20, showing.getAvailableSeats());
+        Assertions.assertFalse(seatHoldService.release(seatHold.getHoldId()));
+    }
+
+    @Test
+    @DisplayName("Should count held seats against the account's cap until the hold is released")
+    public void testHold_appliesAccountLimit() throws IOException {
+        PurchaseJournal purchaseJournal = mock(PurchaseJournal.class);
+        when(purchaseJournal.begin(anyLong(), anyInt(), anyInt())).thenReturn(7L, 8L, 9L);
+        try (MappedAccountLedger accountLedger = MappedAccountLedger.open(tempDir.resolve("accounts.ledger"), 100, 4)) {
+            seatHoldService = createSeatHoldService(accountLedger, purchaseJournal);
+
+            SeatHold seatHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 3));
+            InvalidPurchaseException overLimit = Assertions.assertThrows(InvalidPurchaseException.class,
+                    () -> seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 2)));
+            Assertions.assertEquals(ValidationResult.ACCOUNT_LIMIT_REACHED.getMessage(), overLimit.getMessage());
+            Assertions.assertEquals(17, showing.getAvailableSeats());
+
+            Assertions.assertTrue(seatHoldService.release(seatHold.getHoldId()));
+            SeatHold secondHold = seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 4));
+            Assertions.assertTrue(seatHoldService.confirm(secondHold.getHoldId()).isSuccessful());
+            Assertions.assertThrows(InvalidPurchaseException.class,
+                    () -> seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 1)));
+        }
+        verify(purchaseJournal).failed(7L);
+        verify(purchaseJournal).completed(8L);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid purchases and holds the showing cannot seat")
+    public void testHold_rejections() {
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> seatHoldService.hold(1001L, new TicketTypeRequest(Type.CHILD, 2)));
+        seatHoldService.hold(1001L, new TicketTypeRequest(Type.ADULT, 19));
+
+        Assertions.assertThrows(SeatsUnavailableException.class,
+                () -> seatHoldService.hold(1002L, new TicketTypeRequest(Type.ADULT, 2)));
+        Assertions.assertEquals(1, seatHoldService.getOpenHoldCount());
+    }
+
+    private SeatHoldService createSeatHoldService(AccountLedger accountLedger, PurchaseJournal purchaseJournal) {
+        TicketValidator ticketValidator = new TicketValidator();
+        InventorySeatReservationService seatReservationService = new InventorySeatReservationService(showing);
+        TicketServiceImpl ticketService = new TicketServiceImpl(new AccountValidator(), ticketValidator,
+                seatReservationService, ticketPaymentService, PurchaseMetrics.NO_OP, purchaseJournal,
+                new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), accountLedger);
+        return new SeatHoldService(ticketService, seatReservationService, 5, 1, TimeUnit.SECONDS, nanoTime::get);
+    }
+}
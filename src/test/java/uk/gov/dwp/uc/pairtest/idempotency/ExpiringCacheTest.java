@@ -0,0 +1,69 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Should keep the first value for a key and count hits and misses")
+    public void testPutIfAbsent() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.MINUTES, 4, clock::get);
+
+        Assertions.assertNull(cache.putIfAbsent("key", "first"));
+        Assertions.assertEquals("first", cache.putIfAbsent("key", "second"));
+        Assertions.assertEquals("first", cache.get("key"));
+        Assertions.assertNull(cache.get("other"));
+
+        Assertions.assertEquals(2, cache.getHitCount());
+        Assertions.assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Should expire entries once their time to live has passed")
+    public void testExpiry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.SECONDS, 1, clock::get);
+        cache.putIfAbsent("key", "value");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        Assertions.assertEquals("value", cache.get("key"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertNull(cache.get("key"));
+        Assertions.assertNull(cache.putIfAbsent("key", "again"));
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest entries to stay within capacity")
+    public void testCapacity() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, 1, TimeUnit.MINUTES, 4, clock::get);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.putIfAbsent(i, i);
+        }
+
+        Assertions.assertTrue(cache.size() <= 100, "Cache grew to " + cache.size());
+        Assertions.assertEquals(10_000 - cache.size(), cache.getEvictionCount());
+        Assertions.assertEquals(9_999, cache.get(9_999));
+        Assertions.assertNull(cache.get(0));
+    }
+
+    @Test
+    @DisplayName("Should only remove a key still mapped to the given value")
+    public void testRemove() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.MINUTES, 1, clock::get);
+        cache.putIfAbsent("key", "value");
+
+        cache.remove("key", "other");
+        Assertions.assertEquals("value", cache.get("key"));
+
+        cache.remove("key", "value");
+        Assertions.assertNull(cache.get("key"));
+    }
+}
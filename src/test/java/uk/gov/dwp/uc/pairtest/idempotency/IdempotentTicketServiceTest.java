@@ -0,0 +1,153 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+class IdempotentTicketServiceTest {
+
+    private SeatReservationService seatReservationService;
+    private TicketPaymentService ticketPaymentService;
+    private ExpiringCache<String, CompletableFuture<PurchaseResult>> recordedPurchases;
+    private IdempotentTicketService ticketService;
+
+    @BeforeEach
+    public void setUp() {
+        seatReservationService = mock(SeatReservationService.class);
+        ticketPaymentService = mock(TicketPaymentService.class);
+        recordedPurchases = new ExpiringCache<>(1_000, 10, TimeUnit.MINUTES);
+        ticketService = new IdempotentTicketService(new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService), recordedPurchases);
+    }
+
+    @Test
+    @DisplayName("Should return the recorded result for a retried key without calling the gateways again")
+    public void testPurchaseTickets_retryIsDeduplicated() {
+        PurchaseResult first = ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2));
+        PurchaseResult retry = ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2));
+
+        Assertions.assertTrue(first.isSuccessful());
+        Assertions.assertSame(first, retry);
+        verify(seatReservationService, times(1)).reserveSeat(1001L, 2);
+        verify(ticketPaymentService, times(1)).makePayment(anyLong(), anyInt());
+        Assertions.assertEquals(1, recordedPurchases.getHitCount());
+        Assertions.assertEquals(1, recordedPurchases.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Should treat the same key from different accounts as different purchases")
+    public void testPurchaseTickets_keysAreScopedToAccount() {
+        ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2));
+        ticketService.purchaseTickets("order-1", 1002L, new TicketTypeRequest(Type.ADULT, 2));
+
+        verify(seatReservationService).reserveSeat(1001L, 2);
+        verify(seatReservationService).reserveSeat(1002L, 2);
+    }
+
+    @Test
+    @DisplayName("Should record rejected purchases so retries get the same failure")
+    public void testPurchaseTickets_rejectionIsRecorded() {
+        PurchaseResult first = ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.CHILD, 2));
+        PurchaseResult retry = ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.CHILD, 2));
+
+        Assertions.assertFalse(first.isSuccessful());
+        Assertions.assertSame(first, retry);
+        verifyNoInteractions(seatReservationService, ticketPaymentService);
+    }
+
+    @Test
+    @DisplayName("Should let a purchase that failed in a gateway be retried")
+    public void testPurchaseTickets_gatewayFailureIsNotRecorded() {
+        doThrow(new IllegalStateException("Payment provider timed out")).doNothing()
+                .when(ticketPaymentService).makePayment(anyLong(), anyInt());
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2)));
+        PurchaseResult retry = ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2));
+
+        Assertions.assertTrue(retry.isSuccessful());
+        verify(ticketPaymentService, times(2)).makePayment(1001L, 50);
+    }
+
+    @Test
+    @DisplayName("Should let a purchase be retried after the delegate threw an Error")
+    public void testPurchaseTickets_errorIsNotRecorded() {
+        doThrow(new AssertionError("delegate broke")).doNothing()
+                .when(ticketPaymentService).makePayment(anyLong(), anyInt());
+
+        Assertions.assertThrows(AssertionError.class,
+                () -> ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2)));
+        PurchaseResult retry = CompletableFuture.supplyAsync(
+                () -> ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2)))
+                .orTimeout(5, TimeUnit.SECONDS).join();
+
+        Assertions.assertTrue(retry.isSuccessful());
+        Assertions.assertEquals(0, recordedPurchases.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Should let an order a gateway failed part way through a batch be retried")
+    public void testPurchaseTicketsBatch_orderFailedInGatewayIsNotRecorded() {
+        doThrow(new IllegalStateException("Payment provider timed out")).doNothing()
+                .when(ticketPaymentService).makePayment(1002L, 50);
+
+        List<PurchaseResult> first = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2)),
+                new PurchaseOrder("order-2", 1002L, new TicketTypeRequest(Type.ADULT, 2))));
+        PurchaseResult retry = ticketService.purchaseTickets("order-2", 1002L, new TicketTypeRequest(Type.ADULT, 2));
+
+        Assertions.assertTrue(first.get(0).isSuccessful());
+        Assertions.assertFalse(first.get(1).isSuccessful());
+        Assertions.assertTrue(retry.isSuccessful());
+        verify(ticketPaymentService, times(2)).makePayment(1002L, 50);
+    }
+
+    @Test
+    @DisplayName("Should purchase a key once when it is repeated within a batch and pass unkeyed orders through")
+    public void testPurchaseTicketsBatch_deduplicatesKeyedOrders() {
+        List<PurchaseResult> purchaseResults = ticketService.purchaseTicketsBatch(Arrays.asList(
+                new PurchaseOrder("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 1)),
+                new PurchaseOrder("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 1)),
+                new PurchaseOrder(1002L, new TicketTypeRequest(Type.ADULT, 3)),
+                new PurchaseOrder(1002L, new TicketTypeRequest(Type.ADULT, 3))));
+
+        Assertions.assertEquals(4, purchaseResults.size());
+        Assertions.assertSame(purchaseResults.get(0), purchaseResults.get(1));
+        verify(seatReservationService, times(1)).reserveSeat(1001L, 1);
+        verify(seatReservationService, times(2)).reserveSeat(1002L, 3);
+    }
+
+    @Test
+    @DisplayName("Should charge once when the same key is retried concurrently")
+    public void testPurchaseTickets_concurrentRetries() throws InterruptedException {
+        List<Thread> retries = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread retry = new Thread(() -> ticketService.purchaseTickets("order-1", 1001L, new TicketTypeRequest(Type.ADULT, 2)));
+            retries.add(retry);
+            retry.start();
+        }
+        for (Thread retry : retries) {
+            retry.join();
+        }
+
+        verify(ticketPaymentService, times(1)).makePayment(1001L, 50);
+    }
+}
@@ -0,0 +1,200 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.gateway.BatchSeatReservationService;
+import uk.gov.dwp.uc.pairtest.gateway.BatchTicketPaymentService;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+class BulkOrderIngesterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SeatReservationService seatReservationService;
+    private TicketPaymentService ticketPaymentService;
+    private BulkOrderIngester bulkOrderIngester;
+
+    @BeforeEach
+    public void setUp() {
+        seatReservationService = mock(SeatReservationService.class);
+        ticketPaymentService = mock(TicketPaymentService.class);
+        bulkOrderIngester = new BulkOrderIngester(new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService), 2, 2);
+    }
+
+    @Test
+    @DisplayName("Should write one result per order in file order")
+    public void testIngest_writesResultsInOrder() throws Exception {
+        Path orderFile = write("1001,2,1,0\n"
+                + "1002,0,1,0\n"
+                + "oops\n"
+                + "1003,1,0,1\n"
+                + "1004,30,0,0\n");
+        Path resultsFile = tempDir.resolve("results.csv");
+
+        IngestionReport report = bulkOrderIngester.ingest(orderFile, resultsFile);
+
+        Assertions.assertEquals(List.of(
+                "1,1001,PURCHASED,3,65",
+                "2,1002,REJECTED," + ValidationResult.NO_ADULT_TICKETS.getMessage(),
+                "3,,MALFORMED,Account id is not a number",
+                "4,1003,PURCHASED,1,25",
+                "5,1004,REJECTED," + ValidationResult.TOO_MANY_TICKETS.getMessage()),
+                Files.readAllLines(resultsFile));
+        Assertions.assertEquals(5, report.getOrdersRead());
+        Assertions.assertEquals(2, report.getOrdersPurchased());
+        Assertions.assertEquals(2, report.getOrdersRejected());
+        Assertions.assertEquals(1, report.getOrdersMalformed());
+        verify(ticketPaymentService).makePayment(1001L, 65);
+        verify(ticketPaymentService).makePayment(1003L, 25);
+    }
+
+    @Test
+    @DisplayName("Should mark a batch unknown when a gateway throws, quoting the reason, and carry on with the next")
+    public void testIngest_gatewayFailureLeavesOneBatchUnknown() throws Exception {
+        BatchSeatReservationService batchSeatReservationService = mock(BatchSeatReservationService.class);
+        doThrow(new IllegalStateException("seat gateway down, said \"retry\"")).when(batchSeatReservationService)
+                .reserveSeats(new long[]{1001L, 1002L}, new int[]{1, 1});
+        Path orderFile = write("1001,1,0,0\n1002,1,0,0\n1003,1,0,0\n");
+        Path resultsFile = tempDir.resolve("results.csv");
+
+        IngestionReport report = new BulkOrderIngester(new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                batchSeatReservationService, mock(BatchTicketPaymentService.class)), 2, 2)
+                .ingest(orderFile, resultsFile);
+
+        Assertions.assertEquals(List.of(
+                "1,1001,UNKNOWN,\"seat gateway down, said \"\"retry\"\"\"",
+                "2,1002,UNKNOWN,\"seat gateway down, said \"\"retry\"\"\"",
+                "3,1003,PURCHASED,1,25"),
+                Files.readAllLines(resultsFile));
+        Assertions.assertEquals(2, report.getOrdersUnknown());
+        Assertions.assertEquals(1, report.getOrdersPurchased());
+    }
+
+    @Test
+    @DisplayName("Should reject only the order a gateway failed on and purchase the rest of its batch")
+    public void testIngest_gatewayFailureRejectsOnlyItsOrder() throws Exception {
+        doThrow(new IllegalStateException("Seats unavailable")).when(seatReservationService).reserveSeat(1001L, 1);
+        Path orderFile = write("1001,1,0,0\n1002,1,0,0\n");
+        Path resultsFile = tempDir.resolve("results.csv");
+
+        IngestionReport report = bulkOrderIngester.ingest(orderFile, resultsFile);
+
+        Assertions.assertEquals(List.of(
+                "1,1001,REJECTED,Seats unavailable",
+                "2,1002,PURCHASED,1,25"),
+                Files.readAllLines(resultsFile));
+        Assertions.assertEquals(1, report.getOrdersRejected());
+        verify(ticketPaymentService, never()).makePayment(eq(1001L), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should stream a file many times larger than the batches in flight")
+    public void testIngest_manyBatches() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 10_000; i++) {
+            content.append(i).append(",2,1,1\n");
+        }
+        Path resultsFile = tempDir.resolve("results.csv");
+
+        IngestionReport report = new BulkOrderIngester(new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                seatReservationService, ticketPaymentService), 64, 2, new OrderFileReader(1024, 1024, 0))
+                .ingest(write(content.toString()), resultsFile);
+
+        Assertions.assertEquals(10_000, report.getOrdersPurchased());
+        List<String> results = Files.readAllLines(resultsFile);
+        Assertions.assertEquals(10_000, results.size());
+        Assertions.assertEquals("10000,10000,PURCHASED,3,65", results.get(9_999));
+    }
+
+    @Test
+    @DisplayName("Should stop reading and rethrow when the worker fails with an Error")
+    public void testIngest_rethrowsWorkerError() throws Exception {
+        TicketService ticketService = mock(TicketService.class);
+        when(ticketService.purchaseTicketsBatch(anyList())).thenThrow(new AssertionError("worker died"));
+        Path orderFile = write(orders(100));
+        CountingOrderFileReader orderFileReader = new CountingOrderFileReader();
+
+        AssertionError assertionError = Assertions.assertThrows(AssertionError.class, () -> new BulkOrderIngester(
+                ticketService, 2, 1, orderFileReader).ingest(orderFile, tempDir.resolve("results.csv")));
+
+        Assertions.assertEquals("worker died", assertionError.getMessage());
+        verify(ticketService, times(1)).purchaseTicketsBatch(anyList());
+        // the first batch, then the line that waited for it to come back
+        Assertions.assertEquals(3, orderFileReader.lines.get());
+    }
+
+    @Test
+    @DisplayName("Should stop reading and rethrow when a batch comes back with too few results")
+    public void testIngest_rethrowsShortResultList() throws Exception {
+        TicketService ticketService = mock(TicketService.class);
+        when(ticketService.purchaseTicketsBatch(anyList())).thenReturn(List.of(PurchaseResult.success(1L, 1, 25)));
+        Path orderFile = write(orders(100));
+        CountingOrderFileReader orderFileReader = new CountingOrderFileReader();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new BulkOrderIngester(
+                ticketService, 2, 1, orderFileReader).ingest(orderFile, tempDir.resolve("results.csv")));
+
+        Assertions.assertEquals(3, orderFileReader.lines.get());
+    }
+
+    /**
+     * Counts the lines handed to the ingester.
+     */
+    private static final class CountingOrderFileReader extends OrderFileReader {
+
+        private final AtomicLong lines = new AtomicLong();
+
+        @Override
+        public long read(Path orderFile, OrderLineHandler handler) throws IOException, InterruptedException {
+            return super.read(orderFile, new OrderLineHandler() {
+                @Override
+                public void onOrder(long lineNumber, long accountId, int adultTickets, int childTickets,
+                                    int infantTickets, String idempotencyKey) throws InterruptedException {
+                    lines.incrementAndGet();
+                    handler.onOrder(lineNumber, accountId, adultTickets, childTickets, infantTickets, idempotencyKey);
+                }
+
+                @Override
+                public void onMalformed(long lineNumber, String reason) throws InterruptedException {
+                    lines.incrementAndGet();
+                    handler.onMalformed(lineNumber, reason);
+                }
+            });
+        }
+    }
+
+    private static String orders(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            content.append(i).append(",1,0,0\n");
+        }
+        return content.toString();
+    }
+
+    private Path write(String content) throws Exception {
+        Path orderFile = tempDir.resolve("orders.csv");
+        Files.write(orderFile, content.getBytes(StandardCharsets.UTF_8));
+        return orderFile;
+    }
+}
@@ -0,0 +1,90 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class OrderFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should parse orders, skipping the header, comments and blank lines")
+    public void testRead_parsesOrders() throws Exception {
+        List<String> lines = read(new OrderFileReader(),
+                "accountId,adult,child,infant\n"
+                        + "1001,2,1,0\r\n"
+                        + "# reseller batch 7\n"
+                        + "\n"
+                        + " 1002 , 3 , 0 , 1 , key-1\n"
+                        + "1003,1,-2,0");
+
+        Assertions.assertEquals(List.of("2:1001,2,1,0,null", "5:1002,3,0,1,key-1", "6:1003,1,-2,0,null"), lines);
+    }
+
+    @Test
+    @DisplayName("Should report malformed lines with their line number and carry on")
+    public void testRead_malformedLines() throws Exception {
+        List<String> lines = read(new OrderFileReader(),
+                "1001,2,1\n"
+                        + "abc,1,0,0\n"
+                        + "1002,one,0,0\n"
+                        + "1003,1,0,0\n");
+
+        Assertions.assertEquals(List.of(
+                "1:malformed Expected accountId,adultTickets,childTickets,infantTickets",
+                "2:malformed Account id is not a number",
+                "3:malformed Ticket count is not a number",
+                "4:1003,1,0,0,null"), lines);
+    }
+
+    @Test
+    @DisplayName("Should read lines cut across window boundaries, read and mapped")
+    public void testRead_linesAcrossWindows() throws Exception {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            content.append(1000 + i).append(',').append(i % 7 + 1).append(',').append(i % 3).append(",0\n");
+            expected.add(i + ":" + (1000 + i) + "," + (i % 7 + 1) + "," + (i % 3) + ",0,null");
+        }
+
+        Assertions.assertEquals(expected, read(new OrderFileReader(37, 37, Long.MAX_VALUE), content.toString()));
+        Assertions.assertEquals(expected, read(new OrderFileReader(37, 37, 0), content.toString()));
+    }
+
+    @Test
+    @DisplayName("Should fail on a line longer than the window")
+    public void testRead_lineLongerThanWindow() {
+        Assertions.assertThrows(IOException.class,
+                () -> read(new OrderFileReader(8, 8, Long.MAX_VALUE), "1001,2,1,0,a-long-idempotency-key\n"));
+    }
+
+    private List<String> read(OrderFileReader orderFileReader, String content) throws Exception {
+        Path orderFile = tempDir.resolve("orders.csv");
+        Files.write(orderFile, content.getBytes(StandardCharsets.UTF_8));
+        List<String> lines = new ArrayList<>();
+        orderFileReader.read(orderFile, new OrderLineHandler() {
+            @Override
+            public void onOrder(long lineNumber, long accountId, int adultTickets, int childTickets, int infantTickets,
+                                String idempotencyKey) {
+                lines.add(lineNumber + ":" + accountId + "," + adultTickets + "," + childTickets + ","
+                        + infantTickets + "," + idempotencyKey);
+            }
+
+            @Override
+            public void onMalformed(long lineNumber, String reason) {
+                lines.add(lineNumber + ":malformed " + reason);
+            }
+        });
+        return lines;
+    }
+}
@@ -0,0 +1,339 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.PaymentDeclinedException;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+class FileChannelPurchaseJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should find purchases left incomplete by a crash when the journal is reopened")
+    public void testOpen_findsIncompletePurchases() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            long completed = journal.begin(1L, 2, 50);
+            journal.seatsReserved(completed);
+            journal.completed(completed);
+            long reserved = journal.begin(2L, 3, 75);
+            journal.seatsReserved(reserved);
+            journal.begin(3L, 1, 25);
+            journal.sync();
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            List<JournalEntry> incompletePurchases = journal.getIncompletePurchases();
+
+            Assertions.assertEquals(2, incompletePurchases.size());
+            Assertions.assertEquals(2L, incompletePurchases.get(0).getAccountId());
+            Assertions.assertEquals(JournalEntry.State.SEATS_RESERVED, incompletePurchases.get(0).getState());
+            Assertions.assertEquals(75, incompletePurchases.get(0).getTotalAmount());
+            Assertions.assertEquals(3L, incompletePurchases.get(1).getAccountId());
+            Assertions.assertEquals(JournalEntry.State.STARTED, incompletePurchases.get(1).getState());
+
+            // new purchases never reuse an id from before the restart
+            Assertions.assertTrue(journal.begin(4L, 1, 25) > incompletePurchases.get(1).getPurchaseId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should journal the resolution of recovered purchases so they are not recovered again")
+    public void testRecover() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            journal.seatsReserved(journal.begin(1L, 2, 50));
+            journal.begin(2L, 1, 25);
+            journal.sync();
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            int count = journal.recover(entry -> {
+                recovered.add(entry);
+                return entry.getState() == JournalEntry.State.SEATS_RESERVED
+                        ? JournalEntry.State.COMPLETED
+                        : JournalEntry.State.COMPENSATED;
+            });
+            Assertions.assertEquals(2, count);
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+        Assertions.assertEquals(2, recovered.size());
+    }
+
+    @Test
+    @DisplayName("Should discard a torn record at the end of the journal")
+    public void testOpen_discardsTornTail() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            journal.begin(1L, 2, 50);
+            journal.sync();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 1, 2, 3}));
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(1, journal.getIncompletePurchases().size());
+            Assertions.assertEquals(FileChannelPurchaseJournal.RECORD_SIZE, Files.size(path));
+        }
+    }
+
+    @Test
+    @DisplayName("Should share fsyncs between concurrent purchases")
+    public void testSync_groupCommit() throws Exception {
+        Path path = tempDir.resolve("purchases.journal");
+        int threads = 8;
+        int purchasesPerThread = 200;
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 1, TimeUnit.MILLISECONDS)) {
+            List<Thread> purchasers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread purchaser = new Thread(() -> {
+                    for (int i = 0; i < purchasesPerThread; i++) {
+                        long purchaseId = journal.begin(1L, 1, 25);
+                        journal.sync();
+                        journal.completed(purchaseId);
+                        journal.sync();
+                    }
+                });
+                purchasers.add(purchaser);
+                purchaser.start();
+            }
+            for (Thread purchaser : purchasers) {
+                purchaser.join();
+            }
+
+            int syncs = threads * purchasesPerThread * 2;
+            Assertions.assertTrue(journal.getForceCount() < syncs, journal.getForceCount() + " fsyncs for " + syncs + " syncs");
+        }
+        Assertions.assertEquals((long) threads * purchasesPerThread * 2 * FileChannelPurchaseJournal.RECORD_SIZE, Files.size(path));
+    }
+
+    @Test
+    @DisplayName("Should journal a purchase whose seat reservation failed as aborted so recovery does not complete it")
+    public void testTicketServiceImpl_reservationFailureAbortsPurchase() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                    (accountId, totalSeatsToAllocate) -> {
+                        throw new IllegalStateException("Seat provider unavailable");
+                    },
+                    mock(TicketPaymentService.class), PurchaseMetrics.NO_OP, journal);
+
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> ticketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2)));
+            Assertions.assertThrows(IllegalStateException.class, () -> ticketService.purchaseTicketsBatch(List.of(
+                    new PurchaseOrder(1002L, new TicketTypeRequest(Type.ADULT, 1)),
+                    new PurchaseOrder(1003L, new TicketTypeRequest(Type.ADULT, 1)))));
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+        // begin and aborted for each of the three purchases
+        Assertions.assertEquals(6L * FileChannelPurchaseJournal.RECORD_SIZE, Files.size(path));
+    }
+
+    @Test
+    @DisplayName("Should offer a purchase whose payment failed after its seats were reserved to recovery")
+    public void testTicketServiceImpl_paymentFailureIsRecovered() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        long threshold = 2L * FileChannelPurchaseJournal.RECORD_SIZE;
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                    mock(SeatReservationService.class),
+                    (accountId, totalAmountToPay) -> {
+                        throw new IllegalStateException("Payment provider timed out");
+                    },
+                    PurchaseMetrics.NO_OP, journal);
+
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> ticketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2)));
+            Assertions.assertThrows(IllegalStateException.class, () -> ticketService.purchaseTicketsBatch(List.of(
+                    new PurchaseOrder(1002L, new TicketTypeRequest(Type.ADULT, 1)),
+                    new PurchaseOrder(1003L, new TicketTypeRequest(Type.ADULT, 1)))));
+
+            // the running service can reconcile them without a restart, and they are never compacted away
+            Assertions.assertEquals(3, journal.getIncompletePurchases().size());
+            Assertions.assertEquals(0, journal.getCompactionCount());
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(3, journal.recover(entry -> {
+                recovered.add(entry);
+                return JournalEntry.State.COMPENSATED;
+            }));
+        }
+        Assertions.assertEquals(1001L, recovered.get(0).getAccountId());
+        Assertions.assertEquals(2, recovered.get(0).getSeatCount());
+        Assertions.assertEquals(50, recovered.get(0).getTotalAmount());
+        for (JournalEntry entry : recovered) {
+            Assertions.assertEquals(JournalEntry.State.FAILED_AFTER_RESERVATION, entry.getState());
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should resolve a purchase that failed after reservation while running and compact again once it is")
+    public void testResolveFailuresWith_resolvesAtRuntime() throws Exception {
+        Path path = tempDir.resolve("purchases.journal");
+        long threshold = 4L * FileChannelPurchaseJournal.RECORD_SIZE;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<JournalEntry> resolved = new ArrayList<>();
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            journal.resolveFailuresWith(new RecoveryHandler() {
+                @Override
+                public JournalEntry.State recover(JournalEntry incompletePurchase) {
+                    return JournalEntry.State.COMPENSATED;
+                }
+
+                @Override
+                public void resolved(JournalEntry purchase, JournalEntry.State resolution) {
+                    resolved.add(purchase);
+                }
+            }, executor);
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                    mock(SeatReservationService.class),
+                    (accountId, totalAmountToPay) -> {
+                        throw new IllegalStateException("Payment provider timed out");
+                    },
+                    PurchaseMetrics.NO_OP, journal);
+
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> ticketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2)));
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(1, resolved.size());
+            Assertions.assertEquals(JournalEntry.State.FAILED_AFTER_RESERVATION, resolved.get(0).getState());
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+            journal.completed(journal.begin(1002L, 1, 25));
+            journal.sync();
+            Assertions.assertEquals(1, journal.getCompactionCount());
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should journal a declined payment apart from an unknown one and only let recovery compensate it")
+    public void testTicketServiceImpl_declinedPaymentIsCompensated() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                    mock(SeatReservationService.class),
+                    (accountId, totalAmountToPay) -> {
+                        throw new PaymentDeclinedException("Card declined");
+                    },
+                    PurchaseMetrics.NO_OP, journal);
+
+            Assertions.assertThrows(PaymentDeclinedException.class,
+                    () -> ticketService.purchaseTickets(1001L, new TicketTypeRequest(Type.ADULT, 2)));
+
+            Assertions.assertEquals(JournalEntry.State.PAYMENT_DECLINED,
+                    journal.getIncompletePurchases().get(0).getState());
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> journal.recover(entry -> JournalEntry.State.COMPLETED));
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertEquals(JournalEntry.State.PAYMENT_DECLINED,
+                    journal.getIncompletePurchases().get(0).getState());
+            Assertions.assertEquals(1, journal.recover(entry -> JournalEntry.State.COMPENSATED));
+        }
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should compact the journal to a checkpoint once no purchase is open and keep purchase ids increasing")
+    public void testCompaction() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        long threshold = 100L * FileChannelPurchaseJournal.RECORD_SIZE;
+        long lastPurchaseId = 0;
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            for (int i = 0; i < 200; i++) {
+                lastPurchaseId = journal.begin(1L, 1, 25);
+                journal.sync();
+                journal.completed(lastPurchaseId);
+                journal.sync();
+            }
+            Assertions.assertTrue(journal.getCompactionCount() > 0);
+        }
+        Assertions.assertTrue(Files.size(path) < threshold + 2 * FileChannelPurchaseJournal.RECORD_SIZE,
+                Files.size(path) + " bytes");
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            Assertions.assertTrue(journal.getIncompletePurchases().isEmpty());
+            Assertions.assertTrue(journal.begin(1L, 1, 25) > lastPurchaseId);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not compact the journal while a purchase is open or a replayed one is unrecovered")
+    public void testCompaction_keepsIncompletePurchases() throws IOException {
+        Path path = tempDir.resolve("purchases.journal");
+        long threshold = 10L * FileChannelPurchaseJournal.RECORD_SIZE;
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            journal.begin(2L, 3, 75);
+            for (int i = 0; i < 20; i++) {
+                long purchaseId = journal.begin(1L, 1, 25);
+                journal.completed(purchaseId);
+                journal.sync();
+            }
+            Assertions.assertEquals(0, journal.getCompactionCount());
+        }
+
+        try (FileChannelPurchaseJournal journal = FileChannelPurchaseJournal.open(path, 0, TimeUnit.MILLISECONDS,
+                threshold)) {
+            journal.completed(journal.begin(1L, 1, 25));
+            journal.sync();
+            Assertions.assertEquals(0, journal.getCompactionCount());
+            Assertions.assertEquals(1, journal.getIncompletePurchases().size());
+            Assertions.assertEquals(2L, journal.getIncompletePurchases().get(0).getAccountId());
+        }
+    }
+}
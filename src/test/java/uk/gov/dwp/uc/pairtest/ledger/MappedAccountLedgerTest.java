@@ -0,0 +1,174 @@
+package uk.gov.dwp.uc.pairtest.ledger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PricingEngine;
+import uk.gov.dwp.uc.pairtest.pricing.QuoteEngine;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+
+class MappedAccountLedgerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should add tickets up to the limit and leave the total unchanged past it")
+    public void testAddIfUnderLimit() throws IOException {
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(tempDir.resolve("showing.ledger"), 100, 25)) {
+            Assertions.assertEquals(10, ledger.addIfUnderLimit(7L, 10));
+            Assertions.assertEquals(25, ledger.addIfUnderLimit(7L, 15));
+            Assertions.assertEquals(-1, ledger.addIfUnderLimit(7L, 1));
+            Assertions.assertFalse(ledger.tryAdd(8L, 26));
+
+            Assertions.assertEquals(25, ledger.get(7L));
+            Assertions.assertEquals(0, ledger.get(8L));
+            // an order too big for any account never takes a slot
+            Assertions.assertEquals(1, ledger.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should give released tickets back to the account without going below zero")
+    public void testRelease() throws IOException {
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(tempDir.resolve("showing.ledger"), 100, 25)) {
+            ledger.addIfUnderLimit(7L, 20);
+            ledger.release(7L, 15);
+            Assertions.assertEquals(5, ledger.get(7L));
+            Assertions.assertTrue(ledger.tryAdd(7L, 20));
+
+            ledger.release(7L, 100);
+            ledger.release(9L, 1);
+            Assertions.assertEquals(0, ledger.get(7L));
+            Assertions.assertEquals(0, ledger.get(9L));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep every account's total when the ledger is reopened")
+    public void testOpen_keepsTotalsAcrossRestart() throws IOException {
+        Path path = tempDir.resolve("showing.ledger");
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(path, 1000, 25)) {
+            for (long accountId = 1; accountId <= 1000; accountId++) {
+                ledger.addIfUnderLimit(accountId, (int) (accountId % 25) + 1);
+            }
+        }
+
+        // the capacity comes from the file, whatever is asked for on reopening
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(path, 10, 30)) {
+            Assertions.assertEquals(1000, ledger.size());
+            Assertions.assertEquals(2048, ledger.getCapacity());
+            for (long accountId = 1; accountId <= 1000; accountId++) {
+                Assertions.assertEquals((int) (accountId % 25) + 1, ledger.get(accountId));
+            }
+            Assertions.assertEquals(30, ledger.addIfUnderLimit(24L, 5));
+        }
+    }
+
+    @Test
+    @DisplayName("Should never pass the limit when threads add to the same accounts at once")
+    public void testAddIfUnderLimit_concurrently() throws IOException, InterruptedException {
+        int threadCount = 4;
+        int accounts = 64;
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(tempDir.resolve("showing.ledger"), accounts, 25)) {
+            AtomicInteger added = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 10_000; i++) {
+                        if (ledger.tryAdd(i % accounts + 1, 3)) {
+                            added.addAndGet(3);
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            long total = 0;
+            for (long accountId = 1; accountId <= accounts; accountId++) {
+                Assertions.assertEquals(24, ledger.get(accountId));
+                total += ledger.get(accountId);
+            }
+            Assertions.assertEquals(added.get(), total);
+            Assertions.assertEquals(accounts, ledger.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse new accounts once the table is seven eighths full")
+    public void testAddIfUnderLimit_whenFull() throws IOException {
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(tempDir.resolve("showing.ledger"), 10, 25)) {
+            Assertions.assertEquals(16, ledger.getCapacity());
+            for (long accountId = 1; accountId <= 14; accountId++) {
+                ledger.addIfUnderLimit(accountId, 1);
+            }
+
+            Assertions.assertThrowsExactly(IllegalStateException.class, () -> ledger.addIfUnderLimit(15L, 1));
+            // accounts already held can still buy
+            Assertions.assertEquals(2, ledger.addIfUnderLimit(14L, 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse to open a file that is not a ledger")
+    public void testOpen_notALedger() throws IOException {
+        Path path = tempDir.resolve("other.bin");
+        Files.write(path, new byte[MappedAccountLedger.HEADER_SIZE + 16 * MappedAccountLedger.SLOT_SIZE]);
+
+        Assertions.assertThrowsExactly(IOException.class, () -> MappedAccountLedger.open(path, 10, 25));
+    }
+
+    @Test
+    @DisplayName("Should cap an account across separate purchases on the service")
+    public void testPurchaseTickets_cappedAcrossPurchases() throws IOException {
+        TicketValidator ticketValidator = new TicketValidator();
+        try (MappedAccountLedger ledger = MappedAccountLedger.open(tempDir.resolve("showing.ledger"), 100, 25)) {
+            TicketService ticketService = new TicketServiceImpl(new AccountValidator(), ticketValidator,
+                    mock(SeatReservationService.class), mock(TicketPaymentService.class), PurchaseMetrics.NO_OP,
+                    PurchaseJournal.NO_OP, new QuoteEngine(ticketValidator, new PricingEngine(PriceTable.DEFAULT)), ledger);
+
+            ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 20), new TicketTypeRequest(Type.INFANT, 5));
+            ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 5));
+            Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                    () -> ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1)));
+            ticketService.purchaseTickets(2L, new TicketTypeRequest(Type.ADULT, 25));
+
+            // infants have no seat, so only seated tickets count towards the cap
+            Assertions.assertEquals(25, ledger.get(1L));
+            Assertions.assertEquals(25, ledger.get(2L));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.validation.AccountValidator;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+class InMemoryPurchaseMetricsTest {
+
+    @Test
+    @DisplayName("Should report histogram percentiles within the bucket precision")
+    public void testLatencyHistogram_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        Assertions.assertEquals(10_000, histogram.getCount());
+        assertWithinPrecision(5_000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(9_900, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(10_000, histogram.getMaxValue());
+        Assertions.assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    @DisplayName("Should map every value to a bucket whose range contains it")
+    public void testLatencyHistogram_bucketBounds() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assertions.assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            if (index > 0) {
+                Assertions.assertTrue(LatencyHistogram.highestEquivalentValue(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should time every stage of a purchase and count rejections and gateway failures")
+    public void testTicketServiceImpl_recordsMetrics() {
+        InMemoryPurchaseMetrics purchaseMetrics = new InMemoryPurchaseMetrics();
+        TicketPaymentService failingOnceTicketPaymentService = new TicketPaymentService() {
+            private boolean failed;
+
+            @Override
+            public void makePayment(long accountId, int totalAmountToPay) {
+                if (!failed) {
+                    failed = true;
+                    throw new IllegalStateException("Payment declined");
+                }
+            }
+        };
+        TicketService ticketService = new TicketServiceImpl(new AccountValidator(), new TicketValidator(),
+                (accountId, totalSeatsToAllocate) -> { }, failingOnceTicketPaymentService, purchaseMetrics);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1)));
+        ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1));
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.CHILD, 1)));
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(0L, new TicketTypeRequest(Type.ADULT, 1)));
+
+        Assertions.assertEquals(4, purchaseMetrics.getStageLatency(PurchaseStage.VALIDATION).getCount());
+        Assertions.assertEquals(2, purchaseMetrics.getStageLatency(PurchaseStage.ACCOUNT_LIMIT).getCount());
+        Assertions.assertEquals(2, purchaseMetrics.getStageLatency(PurchaseStage.SEAT_RESERVATION).getCount());
+        Assertions.assertEquals(1, purchaseMetrics.getStageLatency(PurchaseStage.TICKET_PAYMENT).getCount());
+        Assertions.assertEquals(1, purchaseMetrics.getStageLatency(PurchaseStage.PURCHASE).getCount());
+        Assertions.assertEquals(1, purchaseMetrics.getRejectionCount(ValidationResult.NO_ADULT_TICKETS));
+        Assertions.assertEquals(1, purchaseMetrics.getRejectionCount(ValidationResult.INVALID_ACCOUNT));
+        Assertions.assertEquals(1, purchaseMetrics.getFailureCount(PurchaseStage.TICKET_PAYMENT));
+        Assertions.assertEquals(0, purchaseMetrics.getInFlight());
+        Assertions.assertTrue(purchaseMetrics.report().contains("rejected NO_ADULT_TICKETS"));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        Assertions.assertTrue(Math.abs(actual - expected) <= expected / 16 + 1,
+                "Expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketPrice;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+
+import java.util.Properties;
+
+class PriceTableTest {
+
+    @Test
+    @DisplayName("Should price every tier of the default table as TicketPrice")
+    public void testDefault_matchesTicketPrice() {
+        for (PriceTier tier : PriceTier.values()) {
+            for (TicketPrice ticketPrice : TicketPrice.values()) {
+                Assertions.assertEquals(ticketPrice.getPrice(),
+                        PriceTable.DEFAULT.getPrice(tier, ticketPrice.getTicketType()));
+            }
+        }
+        Assertions.assertEquals(3 * TicketPrice.ADULT.getPrice() + 2 * TicketPrice.CHILD.getPrice() + TicketPrice.INFANT.getPrice(),
+                PriceTable.DEFAULT.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(3, 2, 1)));
+    }
+
+    @Test
+    @DisplayName("Should fold discounts into the stored price, rounding the price up")
+    public void testBuild_discountFolded() {
+        PriceTable priceTable = PriceTable.defaultBuilder()
+                .discount(PriceTier.OFF_PEAK, Type.ADULT, 20)
+                .discount(PriceTier.OFF_PEAK, Type.CHILD, 10)
+                .build();
+
+        Assertions.assertEquals(20, priceTable.getPrice(PriceTier.OFF_PEAK, Type.ADULT));
+        Assertions.assertEquals(14, priceTable.getPrice(PriceTier.OFF_PEAK, Type.CHILD));
+        Assertions.assertEquals(25, priceTable.getPrice(PriceTier.STANDARD, Type.ADULT));
+    }
+
+    @Test
+    @DisplayName("Should apply as many family bundles as the purchase contains")
+    public void testGetTotalAmount_familyBundles() {
+        PriceTable priceTable = PriceTable.defaultBuilder()
+                .familyBundle(PriceTier.STANDARD, 2, 2, 70)
+                .build();
+
+        Assertions.assertEquals(70, priceTable.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(2, 2, 0)));
+        Assertions.assertEquals(70 + 25 + 15, priceTable.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(3, 3, 1)));
+        Assertions.assertEquals(2 * 70 + 15, priceTable.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(4, 5, 0)));
+        Assertions.assertEquals(2 * 25 + 15, priceTable.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(2, 1, 0)));
+        Assertions.assertEquals(2 * 25 + 2 * 15, priceTable.getTotalAmount(PriceTier.PEAK, TicketTypeTally.of(2, 2, 0)));
+    }
+
+    @Test
+    @DisplayName("Should reject a bundle dearer than buying its tickets separately")
+    public void testBuild_bundleDearerThanTickets() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PriceTable.defaultBuilder().familyBundle(PriceTier.STANDARD, 2, 2, 81).build());
+    }
+
+    @Test
+    @DisplayName("Should build a table from properties on top of the defaults")
+    public void testFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("price.PEAK.ADULT", "30");
+        properties.setProperty("discount.OFF_PEAK.CHILD", "20");
+        properties.setProperty("bundle.STANDARD", "2, 2, 70");
+
+        PriceTable priceTable = PriceTable.fromProperties(properties);
+
+        Assertions.assertEquals(30, priceTable.getPrice(PriceTier.PEAK, Type.ADULT));
+        Assertions.assertEquals(15, priceTable.getPrice(PriceTier.PEAK, Type.CHILD));
+        Assertions.assertEquals(12, priceTable.getPrice(PriceTier.OFF_PEAK, Type.CHILD));
+        Assertions.assertEquals(70, priceTable.getTotalAmount(PriceTier.STANDARD, TicketTypeTally.of(2, 2, 0)));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown keys and malformed values")
+    public void testFromProperties_invalid() {
+        Properties unknownKey = new Properties();
+        unknownKey.setProperty("prices.PEAK.ADULT", "30");
+        Properties badValue = new Properties();
+        badValue.setProperty("price.PEAK.ADULT", "thirty");
+        Properties badType = new Properties();
+        badType.setProperty("price.PEAK.SENIOR", "10");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PriceTable.fromProperties(unknownKey));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PriceTable.fromProperties(badValue));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PriceTable.fromProperties(badType));
+    }
+}
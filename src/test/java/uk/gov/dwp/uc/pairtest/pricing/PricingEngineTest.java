@@ -0,0 +1,66 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class PricingEngineTest {
+
+    @Test
+    @DisplayName("Should price at the tier chosen by the selector")
+    public void testGetTotalAmount_usesSelectedTier() {
+        AtomicReference<PriceTier> tier = new AtomicReference<>(PriceTier.OFF_PEAK);
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.defaultBuilder()
+                .price(PriceTier.OFF_PEAK, Type.ADULT, 20)
+                .build(), tier::get);
+
+        Assertions.assertEquals(40, pricingEngine.getTotalAmount(TicketTypeTally.of(2, 0, 0)));
+        tier.set(PriceTier.STANDARD);
+        Assertions.assertEquals(50, pricingEngine.getTotalAmount(TicketTypeTally.of(2, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("Should price each purchase wholly from the old or the new table while reloading")
+    public void testReload_readersSeeWholeTables() throws InterruptedException {
+        PriceTable cheap = PriceTable.defaultBuilder()
+                .price(PriceTier.STANDARD, Type.ADULT, 10).price(PriceTier.STANDARD, Type.CHILD, 5).build();
+        PriceTable dear = PriceTable.defaultBuilder()
+                .price(PriceTier.STANDARD, Type.ADULT, 40).price(PriceTier.STANDARD, Type.CHILD, 20).build();
+        PricingEngine pricingEngine = new PricingEngine(cheap);
+        TicketTypeTally ticketTypeTally = TicketTypeTally.of(1, 1, 0);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger unexpected = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                int totalAmount = pricingEngine.getTotalAmount(ticketTypeTally);
+                if (totalAmount != 15 && totalAmount != 60) {
+                    unexpected.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100_000; i++) {
+            pricingEngine.reload(i % 2 == 0 ? dear : cheap);
+        }
+        running.set(false);
+        reader.join();
+
+        Assertions.assertEquals(0, unexpected.get());
+    }
+
+    @Test
+    @DisplayName("Should refuse to reload a null table")
+    public void testReload_null() {
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.DEFAULT);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pricingEngine.reload(null));
+        Assertions.assertSame(PriceTable.DEFAULT, pricingEngine.getPriceTable());
+    }
+}
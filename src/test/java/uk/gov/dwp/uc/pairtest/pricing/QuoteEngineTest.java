@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+class QuoteEngineTest {
+
+    private final TicketTypeTally twoAdults = TicketTypeTally.of(2, 0, 0);
+
+    @Test
+    @DisplayName("Should quote at the tier chosen by the pricing engine's selector")
+    public void testQuote_usesSelectedTier() {
+        AtomicReference<PriceTier> tier = new AtomicReference<>(PriceTier.OFF_PEAK);
+        QuoteEngine quoteEngine = new QuoteEngine(new TicketValidator(), new PricingEngine(
+                PriceTable.defaultBuilder().price(PriceTier.OFF_PEAK, Type.ADULT, 20).build(), tier::get));
+
+        Assertions.assertEquals(40, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+        tier.set(PriceTier.STANDARD);
+        Assertions.assertEquals(50, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the quotes when prices are reloaded through either engine")
+    public void testReload_prices() {
+        PricingEngine pricingEngine = new PricingEngine(PriceTable.DEFAULT);
+        List<Runnable> rebuilds = new ArrayList<>();
+        QuoteEngine quoteEngine = new QuoteEngine(new TicketValidator(), pricingEngine, rebuilds::add);
+
+        quoteEngine.reload(PriceTable.defaultBuilder().price(PriceTier.STANDARD, Type.ADULT, 30).build());
+        Assertions.assertEquals(60, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+        Assertions.assertTrue(rebuilds.isEmpty());
+
+        PriceTable dearer = PriceTable.defaultBuilder().price(PriceTier.STANDARD, Type.ADULT, 35).build();
+        pricingEngine.reload(dearer);
+        // purchasers never build the table; they are quoted by the rules until the rebuild is published
+        Assertions.assertEquals(70, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+        Assertions.assertEquals(70, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+        Assertions.assertNotSame(dearer, quoteEngine.getQuoteTable().getPriceTable());
+        Assertions.assertEquals(1, rebuilds.size());
+
+        rebuilds.get(0).run();
+        Assertions.assertSame(dearer, quoteEngine.getQuoteTable().getPriceTable());
+        Assertions.assertEquals(70, QuoteTable.getTotalAmount(quoteEngine.quote(twoAdults)));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the quotes when the ticket limit changes")
+    public void testReload_limit() {
+        QuoteEngine quoteEngine = new QuoteEngine(new TicketValidator(), new PricingEngine(PriceTable.DEFAULT));
+        TicketTypeTally twelveSeats = TicketTypeTally.of(6, 6, 0);
+
+        Assertions.assertEquals(ValidationResult.VALID, QuoteTable.getValidationResult(quoteEngine.quote(twelveSeats)));
+        quoteEngine.reload(new TicketValidator(10));
+        Assertions.assertEquals(ValidationResult.TOO_MANY_TICKETS,
+                QuoteTable.getValidationResult(quoteEngine.quote(twelveSeats)));
+    }
+
+    @Test
+    @DisplayName("Should judge orders outside the table by the rules")
+    public void testQuote_outsideTable() {
+        QuoteEngine quoteEngine = new QuoteEngine(new TicketValidator(), new PricingEngine(PriceTable.DEFAULT));
+
+        Assertions.assertEquals(ValidationResult.TOO_MANY_TICKETS,
+                QuoteTable.getValidationResult(quoteEngine.quote(TicketTypeTally.of(40, 0, 0))));
+        Assertions.assertEquals(ValidationResult.NO_ADULT_TICKETS,
+                QuoteTable.getValidationResult(quoteEngine.quote(TicketTypeTally.of(0, 30, 0))));
+        Assertions.assertEquals(ValidationResult.TOO_MANY_INFANTS,
+                QuoteTable.getValidationResult(quoteEngine.quote(TicketTypeTally.of(1, 0, 30))));
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
+import uk.gov.dwp.uc.pairtest.validation.TicketValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationResult;
+
+class QuoteTableTest {
+
+    private static final PriceTable WITH_RULES = PriceTable.defaultBuilder()
+            .discount(PriceTier.OFF_PEAK, Type.ADULT, 20)
+            .price(PriceTier.PEAK, Type.CHILD, 18)
+            .familyBundle(PriceTier.STANDARD, 2, 2, 70)
+            .build();
+
+    @Test
+    @DisplayName("Should agree with the validator and price table on every order up to two past the limit")
+    public void testGetQuote_matchesRulesExhaustively() {
+        assertMatchesRules(new TicketValidator(), PriceTable.DEFAULT);
+        assertMatchesRules(new TicketValidator(), WITH_RULES);
+        assertMatchesRules(new TicketValidator(10), WITH_RULES);
+        assertMatchesRules(new TicketValidator(1), PriceTable.DEFAULT);
+    }
+
+    @Test
+    @DisplayName("Should report counts outside the table as not covered")
+    public void testGetQuote_notCovered() {
+        QuoteTable quoteTable = QuoteTable.build(new TicketValidator(), PriceTable.DEFAULT);
+
+        Assertions.assertEquals(QuoteTable.NOT_COVERED, quoteTable.getQuote(PriceTier.STANDARD, 26, 0, 0));
+        Assertions.assertEquals(QuoteTable.NOT_COVERED, quoteTable.getQuote(PriceTier.STANDARD, 1, 26, 0));
+        Assertions.assertEquals(QuoteTable.NOT_COVERED, quoteTable.getQuote(PriceTier.STANDARD, 1, 0, 26));
+        Assertions.assertEquals(QuoteTable.NOT_COVERED, quoteTable.getQuote(PriceTier.STANDARD, 1, -1, 0));
+        Assertions.assertNotEquals(QuoteTable.NOT_COVERED, quoteTable.getQuote(PriceTier.PEAK, 25, 25, 25));
+    }
+
+    @Test
+    @DisplayName("Should pack and unpack a quote")
+    public void testPack() {
+        long quote = QuoteTable.pack(ValidationResult.VALID, 25, 2_000_000_000);
+
+        Assertions.assertEquals(ValidationResult.VALID, QuoteTable.getValidationResult(quote));
+        Assertions.assertEquals(25, QuoteTable.getSeatCount(quote));
+        Assertions.assertEquals(2_000_000_000, QuoteTable.getTotalAmount(quote));
+        Assertions.assertEquals(ValidationResult.INVALID_ACCOUNT,
+                QuoteTable.getValidationResult(QuoteTable.rejected(ValidationResult.INVALID_ACCOUNT)));
+    }
+
+    @Test
+    @DisplayName("Should refuse a limit too large to precompute")
+    public void testBuild_limitTooLarge() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> QuoteTable.build(
+                new TicketValidator(QuoteTable.MAX_TABLE_LIMIT + 1), PriceTable.DEFAULT));
+    }
+
+    private static void assertMatchesRules(TicketValidator ticketValidator, PriceTable priceTable) {
+        QuoteTable quoteTable = QuoteTable.build(ticketValidator, priceTable);
+        int limit = ticketValidator.getMaxAllowedTickets();
+
+        for (PriceTier tier : PriceTier.values()) {
+            for (int adults = 0; adults <= limit + 2; adults++) {
+                for (int children = 0; children <= limit + 2; children++) {
+                    for (int infants = 0; infants <= limit + 2; infants++) {
+                        TicketTypeTally ticketTypeTally = TicketTypeTally.of(adults, children, infants);
+                        long quote = quoteTable.getQuote(tier, adults, children, infants);
+                        if (quote == QuoteTable.NOT_COVERED) {
+                            Assertions.assertTrue(adults > limit || children > limit || infants > limit);
+                            quote = quoteTable.compute(tier, ticketTypeTally);
+                        }
+
+                        ValidationResult expected = ticketValidator.checkTicketRatio(ticketTypeTally);
+                        String order = tier + " " + adults + "/" + children + "/" + infants;
+                        Assertions.assertEquals(expected, QuoteTable.getValidationResult(quote), order);
+                        if (expected.isValid()) {
+                            Assertions.assertEquals(ticketTypeTally.getSeatCount(), QuoteTable.getSeatCount(quote), order);
+                            Assertions.assertEquals(priceTable.getTotalAmount(tier, ticketTypeTally),
+                                    QuoteTable.getTotalAmount(quote), order);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
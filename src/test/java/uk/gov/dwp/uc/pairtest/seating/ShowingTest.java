@@ -0,0 +1,170 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+class ShowingTest {
+
+    @Test
+    @DisplayName("Should allocate an adjacent block in the front-most row with room")
+    public void testAllocate_adjacentBlock() {
+        Showing showing = new Showing(1L, new Screen("Screen 1", 3, 10));
+
+        SeatAllocation first = showing.allocate(6);
+        SeatAllocation second = showing.allocate(6);
+
+        Assertions.assertTrue(first.isAdjacent());
+        Assertions.assertEquals(0, first.getRow(0));
+        Assertions.assertTrue(second.isAdjacent());
+        Assertions.assertEquals(1, second.getRow(0));
+        Assertions.assertEquals(18, showing.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Should split a party across rows when no single row has an adjacent block")
+    public void testAllocate_acrossRows() {
+        Showing showing = new Showing(1L, new Screen("Screen 1", 2, 10));
+        showing.allocate(6);
+        showing.allocate(6);
+
+        SeatAllocation split = showing.allocate(8);
+
+        Assertions.assertFalse(split.isAdjacent());
+        Assertions.assertEquals(2, split.getRowCount());
+        Assertions.assertEquals(8, split.getSeatCount());
+        Assertions.assertEquals(0, showing.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Should leave seats untouched when a showing cannot fit the party")
+    public void testAllocate_notEnoughSeats() {
+        Showing showing = new Showing(1L, new Screen("Screen 1", 2, 10));
+        showing.allocate(15);
+
+        Assertions.assertNull(showing.allocate(6));
+        Assertions.assertEquals(5, showing.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Should make released seats available again")
+    public void testRelease() {
+        Showing showing = new Showing(1L, new Screen("Screen 1", 1, 64));
+        SeatAllocation seatAllocation = showing.allocate(64);
+
+        showing.release(seatAllocation);
+
+        Assertions.assertEquals(64, showing.getAvailableSeats());
+        Assertions.assertThrows(IllegalStateException.class, () -> showing.release(seatAllocation));
+    }
+
+    @Test
+    @DisplayName("Should throw SeatsUnavailableException from the reservation service when sold out")
+    public void testReserveSeat_soldOut() {
+        InventorySeatReservationService seatReservationService =
+                new InventorySeatReservationService(new Showing(1L, new Screen("Screen 1", 1, 5)));
+
+        seatReservationService.reserveSeat(1001L, 5);
+
+        Assertions.assertThrows(SeatsUnavailableException.class, () -> seatReservationService.reserveSeat(1002L, 1));
+    }
+
+    @Test
+    @DisplayName("Should never double-book a seat when many buyers race for the same showing")
+    public void testAllocate_noDoubleBookingUnderContention() throws InterruptedException {
+        Screen screen = new Screen("Screen 1", 40, 30);
+        int buyers = 8;
+
+        for (int round = 0; round < 20; round++) {
+            Showing showing = new Showing(round, screen);
+            ConcurrentLinkedQueue<SeatAllocation> allocations = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(buyers);
+
+            for (int buyer = 0; buyer < buyers; buyer++) {
+                executor.execute(() -> {
+                    awaitQuietly(start);
+                    List<SeatAllocation> held = new ArrayList<>();
+                    SeatAllocation seatAllocation;
+                    while ((seatAllocation = showing.allocate(ThreadLocalRandom.current().nextInt(1, 26))) != null
+                            || showing.getAvailableSeats() > 0) {
+                        if (seatAllocation == null) {
+                            continue;
+                        }
+                        // give some seats back to keep rows churning
+                        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                            showing.release(seatAllocation);
+                        } else {
+                            held.add(seatAllocation);
+                        }
+                    }
+                    allocations.addAll(held);
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+            long[] booked = new long[screen.getRows()];
+            int bookedSeats = 0;
+            for (SeatAllocation seatAllocation : allocations) {
+                for (int i = 0; i < seatAllocation.getRowCount(); i++) {
+                    int row = seatAllocation.getRow(i);
+                    Assertions.assertEquals(0, booked[row] & seatAllocation.getSeatMask(i), "Seat booked twice in row " + row);
+                    booked[row] |= seatAllocation.getSeatMask(i);
+                }
+                bookedSeats += seatAllocation.getSeatCount();
+            }
+            Assertions.assertEquals(screen.getCapacity(), bookedSeats);
+            Assertions.assertEquals(0, showing.getAvailableSeats());
+        }
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of two buyers racing for the last seats succeed")
+    public void testAllocate_lastSeatsRace() throws InterruptedException {
+        Screen screen = new Screen("Screen 1", 2, 5);
+
+        for (int round = 0; round < 500; round++) {
+            Showing showing = new Showing(round, screen);
+            ConcurrentLinkedQueue<SeatAllocation> allocations = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+
+            for (int buyer = 0; buyer < 2; buyer++) {
+                executor.execute(() -> {
+                    awaitQuietly(start);
+                    SeatAllocation seatAllocation = showing.allocate(6);
+                    if (seatAllocation != null) {
+                        allocations.add(seatAllocation);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(1, allocations.size());
+            Assertions.assertEquals(6, allocations.peek().getSeatCount());
+            Assertions.assertEquals(4, showing.getAvailableSeats());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
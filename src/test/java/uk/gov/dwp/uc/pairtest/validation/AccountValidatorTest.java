@@ -24,5 +24,13 @@ public class AccountValidatorTest {
 
     }
 
-  
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Should return a failure code instead of throwing for null or non-positive accountId")
+    public void testCheckAccount() {
+        Assertions.assertEquals(ValidationResult.VALID, accountValidator.checkAccount(1L));
+        Assertions.assertEquals(ValidationResult.INVALID_ACCOUNT, accountValidator.checkAccount(0L));
+        Assertions.assertEquals(ValidationResult.INVALID_ACCOUNT, accountValidator.checkAccount(-5L));
+        Assertions.assertEquals(ValidationResult.INVALID_ACCOUNT, accountValidator.checkAccount(null));
+    }
+
+}
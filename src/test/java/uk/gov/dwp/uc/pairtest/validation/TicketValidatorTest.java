@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeTally;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
 import java.util.HashMap;
@@ -45,6 +46,26 @@ class TicketValidatorTest {
                 () -> ticketValidator.validateTicketRatio(ticketTypeCountMap), "InvalidPurchaseException was expected");
     }
 
+    @Test
+    @DisplayName("Should Successful process validation for valid ticket tally")
+    public void testValidateTicketTally_withValidTickets() {
+        boolean isValid = ticketValidator.validateTicketRatio(TicketTypeTally.of(5, 3, 2));
+        Assertions.assertTrue(isValid);
+    }
+
+    @Test
+    @DisplayName("Should throw InvalidPurchaseException for ticket tally breaking ratio or max allowed rules")
+    public void testValidateTicketTally_withInvalidTickets() {
+        Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(0, 3, 2)));
+        Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(5, 3, 6)));
+        Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(15, 15, 6)));
+        Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(0, 0, 0)));
+    }
+
     @Test
     @DisplayName("Should successfully process validate ticket request")
     public void testValidateTicketRequests() {
@@ -96,6 +117,63 @@ class TicketValidatorTest {
                 () -> ticketValidator.validateTicketRequests(ticketTypeRequests), "Expecting InvalidPurchaseException");
     }
 
+    @Test
+    @DisplayName("Should return a failure code for each broken ticket rule without throwing")
+    public void testCheckTicketRequestsAndRatio() {
+        Assertions.assertEquals(ValidationResult.NO_TICKETS, ticketValidator.checkTicketRequests(new TicketTypeRequest[0]));
+        Assertions.assertEquals(ValidationResult.EMPTY_TICKET_TYPE,
+                ticketValidator.checkTicketRequests(new TicketTypeRequest[]{new TicketTypeRequest(null, 1)}));
+        Assertions.assertEquals(ValidationResult.NEGATIVE_TICKETS,
+                ticketValidator.checkTicketRequests(new TicketTypeRequest[]{new TicketTypeRequest(TicketTypeRequest.Type.ADULT, -1)}));
+
+        Assertions.assertEquals(ValidationResult.VALID, ticketValidator.checkTicketRatio(TicketTypeTally.of(5, 3, 2)));
+        Assertions.assertEquals(ValidationResult.NO_TICKETS, ticketValidator.checkTicketRatio(TicketTypeTally.of(0, 0, 1)));
+        Assertions.assertEquals(ValidationResult.NO_ADULT_TICKETS, ticketValidator.checkTicketRatio(TicketTypeTally.of(0, 3, 0)));
+        Assertions.assertEquals(ValidationResult.TOO_MANY_TICKETS, ticketValidator.checkTicketRatio(TicketTypeTally.of(15, 15, 6)));
+        Assertions.assertEquals(ValidationResult.TOO_MANY_INFANTS, ticketValidator.checkTicketRatio(TicketTypeTally.of(5, 3, 6)));
+    }
+
+    @Test
+    @DisplayName("Should throw the same stackless InvalidPurchaseException for repeated rejections of one kind")
+    public void testValidateTicketRatio_throwsCachedStacklessException() {
+        InvalidPurchaseException first = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(15, 15, 0)));
+        InvalidPurchaseException second = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> ticketValidator.validateTicketRatio(TicketTypeTally.of(20, 10, 0)));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(0, first.getStackTrace().length);
+        Assertions.assertEquals("Cannot purchase more than 25 tickets at a time", first.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should apply a configured ticket limit")
+    public void testCheckTicketRatio_withConfiguredLimit() {
+        TicketValidator smallGroups = new TicketValidator(10);
+
+        Assertions.assertEquals(ValidationResult.VALID, smallGroups.checkTicketRatio(TicketTypeTally.of(5, 5, 3)));
+        Assertions.assertEquals(ValidationResult.TOO_MANY_TICKETS, smallGroups.checkTicketRatio(TicketTypeTally.of(6, 5, 0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TicketValidator(0));
+    }
+
+    @Test
+    @DisplayName("Should quote the configured ticket limit when rejecting too many tickets")
+    public void testValidateTicketRatio_withConfiguredLimitMessage() {
+        TicketValidator smallGroups = new TicketValidator(10);
+
+        InvalidPurchaseException first = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> smallGroups.validateTicketRatio(TicketTypeTally.of(11, 0, 0)));
+        InvalidPurchaseException second = Assertions.assertThrowsExactly(InvalidPurchaseException.class,
+                () -> smallGroups.validateTicketRatio(TicketTypeTally.of(6, 6, 0)));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(0, first.getStackTrace().length);
+        Assertions.assertEquals("Cannot purchase more than 10 tickets at a time", first.getMessage());
+        Assertions.assertEquals(first.getMessage(), smallGroups.getMessage(ValidationResult.TOO_MANY_TICKETS));
+        Assertions.assertSame(ValidationResult.NO_ADULT_TICKETS.asException(),
+                smallGroups.asException(ValidationResult.NO_ADULT_TICKETS));
+    }
+
     private static Map<TicketTypeRequest.Type, Integer> createTicketTypeCountMap(Integer adultTickets, Integer childTickets, Integer infantTickets) {
         Map<TicketTypeRequest.Type, Integer> ticketTypeCountMap = new HashMap<>();
         ticketTypeCountMap.put(TicketTypeRequest.Type.ADULT, adultTickets);